@@ -1,6 +1,11 @@
 
 package com.hotelbooking;
 
+import com.hotelbooking.service.HotelAutocomplete;
+import com.hotelbooking.service.HotelSearchIndex;
+import com.hotelbooking.service.HotelSummaryRegistry;
+import com.hotelbooking.service.RoomInventory;
+import com.hotelbooking.service.UserExistenceFilter;
 import com.hotelbooking.util.DatabaseInitializer;
 import com.hotelbooking.util.NavigationManager;
 import com.hotelbooking.util.SceneManager;
@@ -24,8 +29,17 @@ public class Main extends Application {
 
     @Override
     public void start(Stage stage) throws Exception {
-        DatabaseInitializer.initializeDatabase();
-        DatabaseInitializer.insertSampleData();
+        // 增量迁移，保留已有数据；只有空库才插入示例数据
+        DatabaseInitializer.migrateDatabase();
+        if (DatabaseInitializer.isDatabaseEmpty()) {
+            DatabaseInitializer.insertSampleData();
+        }
+        // 从有效预订重建房晚库存
+        RoomInventory.getInstance().reload();
+        HotelSearchIndex.getInstance().reload();
+        HotelAutocomplete.getInstance().reload();
+        HotelSummaryRegistry.getInstance().reload();
+        UserExistenceFilter.getInstance().reload();
         
         // 在任何导航前调用
         NavigationManager.getInstance().push(
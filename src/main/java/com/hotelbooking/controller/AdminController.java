@@ -1,9 +1,41 @@
 package com.hotelbooking.controller;
+
+import com.hotelbooking.dao.BookingDAO;
+import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.dao.UserDAO;
+import com.hotelbooking.dto.ApiResponse;
+import com.hotelbooking.dto.BookingFilter;
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.entity.Booking;
+import com.hotelbooking.exception.GlobalExceptionHandler;
+import com.hotelbooking.service.AdminService;
+
 public class AdminController {
+    private final AdminService adminService;
+    
+    public AdminController() {
+        this(new AdminService(new UserDAO(), new HotelDAO(), new BookingDAO()));
+    }
+    
+    public AdminController(AdminService adminService) {
+        this.adminService = adminService;
+    }
     
     public void showAdminDashboard() {
         System.out.println("Display admin dashboard");
         // 后续连接FXML界面
     }
+    
+    /**
+     * 管理员预订列表：按条件分页，一次查询
+     */
+    public ApiResponse<Object> getBookings(BookingFilter filter, String cursor, int pageSize) {
+        try {
+            Page<Booking> page = adminService.getBookings(filter, cursor, pageSize);
+            return ApiResponse.success("获取预订列表成功", page);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.handleException(e);
+        }
+    }
 } 
 
@@ -1,6 +1,7 @@
 package com.hotelbooking.controller;
 
 import com.hotelbooking.dto.ApiResponse;
+import com.hotelbooking.dto.Page;
 import com.hotelbooking.entity.Booking;
 import com.hotelbooking.entity.Room;
 import com.hotelbooking.service.BookingService;
@@ -65,6 +66,18 @@ public class BookingController {
         }
     }
 
+    /**
+     * 分页获取用户的预订，cursor 为上一页返回的 nextCursor，首页传 null
+     */
+    public ApiResponse<Object> getBookingsByUserId(Integer userId, String status, String cursor, int pageSize) {
+        try {
+            Page<Booking> page = bookingService.getBookingsByUserId(userId, status, cursor, pageSize);
+            return ApiResponse.success("获取用户预订列表成功", page);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.handleException(e);
+        }
+    }
+
     /**
      * 获取酒店的所有预订
      */
@@ -77,6 +90,18 @@ public class BookingController {
         }
     }
 
+    /**
+     * 分页获取酒店的预订
+     */
+    public ApiResponse<Object> getBookingsByHotelId(Integer hotelId, String cursor, int pageSize) {
+        try {
+            Page<Booking> page = bookingService.getBookingsByHotelId(hotelId, cursor, pageSize);
+            return ApiResponse.success("获取酒店预订列表成功", page);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.handleException(e);
+        }
+    }
+
     /**
      * 取消预订
      */
@@ -198,6 +223,18 @@ public ApiResponse<Object> getAvailableRoomsByPriceRange(Integer hotelId, BigDec
         }
     }
 
+    /**
+     * 分页根据状态获取预订
+     */
+    public ApiResponse<Object> getBookingsByStatus(String status, String cursor, int pageSize) {
+        try {
+            Page<Booking> page = bookingService.getBookingsByStatus(status, cursor, pageSize);
+            return ApiResponse.success("获取状态预订列表成功", page);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.handleException(e);
+        }
+    }
+
     /**
      * 更新预订状态
      */
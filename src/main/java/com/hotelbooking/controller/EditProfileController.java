@@ -3,6 +3,7 @@ package com.hotelbooking.controller;
 
 import com.hotelbooking.dao.UserDAO;
 import com.hotelbooking.entity.User;
+import com.hotelbooking.service.UserService;
 import com.hotelbooking.util.SessionManager;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -22,6 +23,7 @@ public class EditProfileController {
     
     private User currentUser;
     private UserDAO userDAO;
+    private UserService userService;
     private OnSaveCallback onSaveCallback;
     private String originalUsername; // 存储原始username
     private String originalEmail;    // 存储原始email
@@ -34,6 +36,7 @@ public class EditProfileController {
     @FXML
     public void initialize() {
         userDAO = new UserDAO();
+        userService = new UserService(userDAO);
         loadUserData();
     }
     
@@ -74,7 +77,7 @@ public class EditProfileController {
             
             // ⭐ 检查新username是否已被其他用户使用（如果username被修改了）
             if (!newUsername.equals(originalUsername)) {
-                if (userDAO.isUsernameExists(newUsername)) {
+                if (userService.isUsernameTaken(newUsername)) {
                     showError("❌ This username is already taken");
                     System.out.println("⚠ Username already exists: " + newUsername);
                     return;
@@ -83,15 +86,15 @@ public class EditProfileController {
             
             // ⭐ 检查新email是否已被其他用户使用（如果email被修改了）
             if (!newEmail.equals(originalEmail)) {
-                if (userDAO.isEmailExists(newEmail)) {
+                if (userService.isEmailTaken(newEmail)) {
                     showError("❌ This email is already registered");
                     System.out.println("⚠ Email already exists: " + newEmail);
                     return;
                 }
             }
             
-            // ⭐ 使用 updateUserProfile() 方法保存username和email
-            boolean isUpdated = userDAO.updateUserProfile(currentUser.getId(), newUsername, newEmail);
+            // ⭐ 经由 UserService 保存username和email，同步更新注册查重用的过滤器
+            boolean isUpdated = userService.updateUserProfile(currentUser.getId(), newUsername, newEmail);
             
             if (isUpdated) {
                 // ⭐ 更新内存中的user对象
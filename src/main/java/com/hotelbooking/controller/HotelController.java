@@ -1,6 +1,9 @@
 package com.hotelbooking.controller;
 
 import com.hotelbooking.dto.ApiResponse;
+import com.hotelbooking.dto.HotelAvailability;
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.StaySearch;
 import com.hotelbooking.entity.Hotel;
 import com.hotelbooking.entity.Room;
 import com.hotelbooking.exception.BusinessException;
@@ -58,6 +61,18 @@ public class HotelController {
             return GlobalExceptionHandler.handleException(e);
         }
     }
+
+    /**
+     * 分页获取酒店，cursor 为上一页返回的 nextCursor，首页传 null
+     */
+    public ApiResponse<Object> getHotels(String cursor, int pageSize) {
+        try {
+            Page<Hotel> page = hotelService.getHotels(cursor, pageSize);
+            return ApiResponse.success("获取酒店列表成功", page);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.handleException(e);
+        }
+    }
     
     /**
      * 根据位置获取酒店
@@ -228,6 +243,18 @@ public class HotelController {
         }
     }
     
+    /**
+     * 按关键词、日期和人数搜索能接待整个行程的酒店，附带最低价格
+     */
+    public ApiResponse<Object> searchAvailableHotels(StaySearch search) {
+        try {
+            List<HotelAvailability> hotels = hotelService.searchAvailableHotels(search);
+            return ApiResponse.success("酒店搜索成功", hotels);
+        } catch (Exception e) {
+            return GlobalExceptionHandler.handleException(e);
+        }
+    }
+    
     /**
      * 搜索可用房间（根据酒店、房型、价格范围）
      */
@@ -1,9 +1,13 @@
 package com.hotelbooking.controller;
 
-import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.dao.BookingDAO;
+import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.dto.StaySearch;
 import com.hotelbooking.entity.Hotel;
 import com.hotelbooking.entity.Room;
+import com.hotelbooking.service.BookingService;
 import com.hotelbooking.service.HotelService;
+import com.hotelbooking.service.RoomService;
 import com.hotelbooking.util.NavigationManager;
 import com.hotelbooking.util.SessionManager;
 import javafx.fxml.FXML;
@@ -14,7 +18,10 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class HotelRoomsController {
     
@@ -80,15 +87,9 @@ public class HotelRoomsController {
         System.out.println("✅ 当前酒店ID = " + currentHotel.getId());
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
         
-        // 假设你已经有了一个 DatabaseConnection 类来获取数据库连接
-        HotelDAO hotelDAO = new HotelDAO();  // 创建 HotelDAO 实例
-
-        // 创建 HotelService 实例
-        HotelService hotelService = new HotelService(hotelDAO);
-
-        
-        // 通过实例调用 getRoomsByHotelId 方法
-        List<Room> rooms = hotelService.getRoomsByHotelId(currentHotel.getId());
+        // 经由共享的房间缓存读取，反复打开同一酒店不再查询数据库
+        RoomService roomService = new RoomService(new RoomDAO());
+        List<Room> rooms = roomService.getRoomsByHotelId(currentHotel.getId());
         lblRoomCount.setText("(" + rooms.size() + " room" + (rooms.size() != 1 ? "s" : "") + ")");
         
         roomListContainer.getChildren().clear();
@@ -100,16 +101,33 @@ public class HotelRoomsController {
             return;
         }
         
+        Set<Integer> bookableRoomIds = findBookableRoomIds(rooms);
         for (Room room : rooms) {
-            VBox roomCard = createRoomCard(room);
+            VBox roomCard = createRoomCard(room, bookableRoomIds.contains(room.getId()));
             roomListContainer.getChildren().add(roomCard);
         }
     }
     
+    /**
+     * 按搜索的入住/退房日期和每间房人数判断可订房间，未选择日期时按今晚、不限人数计算
+     */
+    private Set<Integer> findBookableRoomIds(List<Room> rooms) {
+        StaySearch stay = SessionManager.getStaySearch(null);
+        LocalDate checkIn = stay != null ? stay.getCheckIn() : LocalDate.now();
+        LocalDate checkOut = stay != null ? stay.getCheckOut() : checkIn.plusDays(1);
+        int guestsPerRoom = stay != null ? stay.getGuestsPerRoom() : 0;
+        
+        BookingService bookingService = new BookingService(new BookingDAO(), new RoomDAO());
+        return bookingService.filterAvailableRooms(rooms, checkIn, checkOut).stream()
+                .filter(room -> room.getMaxOccupancy() >= guestsPerRoom)
+                .map(Room::getId)
+                .collect(Collectors.toSet());
+    }
+    
     /**
      * 创建房间卡片
      */
-    private VBox createRoomCard(Room room) {
+    private VBox createRoomCard(Room room, boolean bookable) {
         VBox card = new VBox(15);
         card.setStyle(
             "-fx-background-color: white; " +
@@ -130,12 +148,12 @@ public class HotelRoomsController {
         HBox.setHgrow(spacer1, Priority.ALWAYS);
         
         // 可用状态标签
-        Label lblStatus = new Label(room.isAvailable() ? "✓ Available" : "✗ Unavailable");
+        Label lblStatus = new Label(bookable ? "✓ Available" : "✗ Unavailable");
         lblStatus.setStyle(
             "-fx-font-size: 14px; " +
             "-fx-font-weight: bold; " +
-            "-fx-text-fill: " + (room.isAvailable() ? "#28a745" : "#dc3545") + "; " +
-            "-fx-background-color: " + (room.isAvailable() ? "#d4edda" : "#f8d7da") + "; " +
+            "-fx-text-fill: " + (bookable ? "#28a745" : "#dc3545") + "; " +
+            "-fx-background-color: " + (bookable ? "#d4edda" : "#f8d7da") + "; " +
             "-fx-padding: 5 15; " +
             "-fx-border-radius: 15; " +
             "-fx-background-radius: 15;"
@@ -189,20 +207,20 @@ public class HotelRoomsController {
         HBox.setHgrow(spacer2, Priority.ALWAYS);
         
         // 预订按钮
-        Button btnBook = new Button(room.isAvailable() ? "Book Now" : "Unavailable");
-        btnBook.setDisable(!room.isAvailable());
+        Button btnBook = new Button(bookable ? "Book Now" : "Unavailable");
+        btnBook.setDisable(!bookable);
         btnBook.setStyle(
-            "-fx-background-color: " + (room.isAvailable() ? "#8B4513" : "#cccccc") + "; " +
+            "-fx-background-color: " + (bookable ? "#8B4513" : "#cccccc") + "; " +
             "-fx-text-fill: white; " +
             "-fx-font-size: 16px; " +
             "-fx-font-weight: bold; " +
             "-fx-padding: 12 40; " +
             "-fx-border-radius: 5; " +
             "-fx-background-radius: 5; " +
-            "-fx-cursor: " + (room.isAvailable() ? "hand" : "default") + ";"
+            "-fx-cursor: " + (bookable ? "hand" : "default") + ";"
         );
         
-        if (room.isAvailable()) {
+        if (bookable) {
             btnBook.setOnAction(e -> bookRoom(room));
             
             // 悬停效果
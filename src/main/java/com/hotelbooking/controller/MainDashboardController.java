@@ -1,5 +1,6 @@
 package com.hotelbooking.controller;
 
+import com.hotelbooking.service.HotelService;
 import com.hotelbooking.util.NavigationManager;
 import com.hotelbooking.util.SessionManager;
 <<<<<<< HEAD
@@ -120,6 +121,9 @@ public class MainDashboardController {
         updateRoomsGuestsDisplay();
         updateChildrenAgeSelectors();
         updateButtons();
+        
+        // 目的地输入框：后台查询地点和酒店名建议，不阻塞界面
+        SearchSuggestions.attach(txtDestination, new HotelService(), suggestion -> { });
     }
     
 <<<<<<< HEAD
@@ -2,6 +2,7 @@ package com.hotelbooking.controller;
 
 import com.hotelbooking.dao.BookingDAO;
 import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.dto.Page;
 import com.hotelbooking.entity.Booking;
 import com.hotelbooking.service.BookingService;
 import com.hotelbooking.util.NavigationManager;
@@ -21,9 +22,7 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Optional;
-import java.util.ArrayList;
 
 public class MyBookingsController {
     
@@ -46,6 +45,11 @@ public class MyBookingsController {
     private Integer currentUserId;
     private String selectedStatus = "All";
     
+    private static final int PAGE_SIZE = 10;
+    private final Button btnLoadMore = new Button("Load more");
+    private String nextCursor;
+    private int loadedCount;
+    
     @FXML
     public void initialize() {
         // 初始化 DAO 和 Service
@@ -54,6 +58,7 @@ public class MyBookingsController {
         bookingService = new BookingService(bookingDAO, roomDAO);
         
         setupStatusFilter();
+        setupLoadMore();
         loadBookings();
     }
     
@@ -62,7 +67,27 @@ public class MyBookingsController {
         cbStatus.setValue("All");
     }
     
+    private void setupLoadMore() {
+        btnLoadMore.setMaxWidth(Double.MAX_VALUE);
+        btnLoadMore.setStyle("-fx-background-color: transparent; -fx-border-color: #e0e0e0; -fx-border-radius: 8; -fx-padding: 10; -fx-text-fill: #1976D2; -fx-cursor: hand;");
+        btnLoadMore.setOnAction(e -> loadNextPage());
+    }
+    
     private void loadBookings() {
+        // 重新从第一页加载
+        nextCursor = null;
+        loadPage(true);
+    }
+    
+    private void loadNextPage() {
+        if (nextCursor != null) {
+            btnLoadMore.setDisable(true);
+            loadPage(false);
+        }
+    }
+    
+    private void loadPage(boolean firstPage) {
+        final String cursor = firstPage ? null : nextCursor;
         Thread thread = new Thread(new Runnable() {
             @Override
             public void run() {
@@ -79,24 +104,18 @@ public class MyBookingsController {
                         return;
                     }
 
-                    List<Booking> bookings = bookingService.getBookingsByUserId(currentUserId);
+                    // 状态过滤交给数据库，每次只取一页
+                    String status = "All".equals(selectedStatus) ? null : selectedStatus;
+                    Page<Booking> page = bookingService.getBookingsByUserId(currentUserId, status, cursor, PAGE_SIZE);
 
-                    // 按选定的状态过滤
-                    if (!"All".equals(selectedStatus)) {
-                        List<Booking> filtered = new ArrayList<>();
-                        for (Booking b : bookings) {
-                            if (selectedStatus.equals(b.getStatus())) {
-                                filtered.add(b);
-                            }
-                        }
-                        bookings = filtered;
-                    }
-
-                    final List<Booking> finalBookings = bookings;
                     Platform.runLater(new Runnable() {
                         @Override
                         public void run() {
-                            displayBookings(finalBookings);
+                            if (firstPage) {
+                                displayBookings(page);
+                            } else {
+                                appendBookings(page);
+                            }
                         }
                     });
 
@@ -105,6 +124,7 @@ public class MyBookingsController {
                     Platform.runLater(new Runnable() {
                         @Override
                         public void run() {
+                            btnLoadMore.setDisable(false);
                             showError("Failed to load bookings: " + e.getMessage());
                         }
                     });
@@ -115,10 +135,11 @@ public class MyBookingsController {
         thread.start();
     }
     
-    private void displayBookings(List<Booking> bookings) {
+    private void displayBookings(Page<Booking> page) {
         bookingListContainer.getChildren().clear();
+        loadedCount = 0;
         
-        if (bookings.isEmpty()) {
+        if (page.getItems().isEmpty()) {
             bookingListContainer.setVisible(false);
             emptyStateContainer.setVisible(true);
             lblBookingCount.setText("Total bookings: 0");
@@ -127,12 +148,26 @@ public class MyBookingsController {
         
         bookingListContainer.setVisible(true);
         emptyStateContainer.setVisible(false);
-        lblBookingCount.setText("Total bookings: " + bookings.size());
+        appendBookings(page);
+    }
+    
+    private void appendBookings(Page<Booking> page) {
+        bookingListContainer.getChildren().remove(btnLoadMore);
         
-        for (Booking booking : bookings) {
+        for (Booking booking : page.getItems()) {
             VBox bookingCard = createBookingCard(booking);
             bookingListContainer.getChildren().add(bookingCard);
         }
+        loadedCount += page.size();
+        nextCursor = page.getNextCursor();
+        
+        if (page.hasNext()) {
+            lblBookingCount.setText("Showing " + loadedCount + " bookings");
+            btnLoadMore.setDisable(false);
+            bookingListContainer.getChildren().add(btnLoadMore);
+        } else {
+            lblBookingCount.setText("Total bookings: " + loadedCount);
+        }
     }
     
     private VBox createBookingCard(Booking booking) {
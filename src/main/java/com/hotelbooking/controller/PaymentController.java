@@ -2,15 +2,23 @@ package com.hotelbooking.controller;
 
 import com.hotelbooking.entity.Booking;
 import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.entity.Payment;
 import com.hotelbooking.entity.Room;
 import com.hotelbooking.service.BookingService;
+import com.hotelbooking.service.PaymentPipeline;
 import com.hotelbooking.service.PaymentService;
 import com.hotelbooking.dao.BookingDAO;
 import com.hotelbooking.dao.PaymentDAO;
 import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.dto.PaymentOutcome;
+import com.hotelbooking.dto.ReservationResult;
 import com.hotelbooking.exception.BusinessException;
+import com.hotelbooking.exception.ErrorType;
+import com.hotelbooking.util.DatabaseConnection;
+import com.hotelbooking.util.IdGenerator;
 import com.hotelbooking.util.NavigationManager;
 import com.hotelbooking.util.SessionManager;
+import com.hotelbooking.util.TransactionManager;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
@@ -22,7 +30,6 @@ import javafx.stage.Stage;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
-import java.util.Optional;
 
 public class PaymentController {
 
@@ -62,6 +69,10 @@ public class PaymentController {
     // Service 层
     private PaymentService paymentService;
     private BookingService bookingService;
+    private PaymentPipeline paymentPipeline;
+
+    // 本次支付的幂等键：重复提交返回第一次的结果，失败后换新键重试
+    private String paymentKey;
 
     @FXML
     public void initialize() {
@@ -70,6 +81,8 @@ public class PaymentController {
         // 初始化 Service
         paymentService = new PaymentService(new PaymentDAO());
         bookingService = new BookingService(new BookingDAO(), new RoomDAO());
+        paymentPipeline = PaymentPipeline.getInstance();
+        paymentKey = IdGenerator.getInstance().nextId(IdGenerator.PAYMENT_REQUEST);
 
         // 初始化国家列表
         if (countryCombo != null) {
@@ -186,86 +199,108 @@ public class PaymentController {
             btnPayment.setDisable(true);
         }
 
-        // 5. 在后台线程中处理支付
-        new Thread(() -> {
-            try {
-                Integer userId = SessionManager.getLoggedInId();
-                Integer hotelId = currentHotel.getId();
-                Integer roomId = currentRoom.getId();
-
-                System.out.println("📝 准备创建预订...");
-                System.out.println("   用户ID: " + userId);
-                System.out.println("   酒店ID: " + hotelId);
-                System.out.println("   房间ID: " + roomId);
-
-                // 6. 创建预订
-                Optional<Booking> bookingOpt = bookingService.createBooking(
-                    userId, 
-                    hotelId, 
-                    roomId, 
-                    checkInDate, 
-                    checkOutDate
-                );
-
-                if (bookingOpt.isEmpty()) {
-                    Platform.runLater(() -> {
-                        showError("创建预订失败，房间可能不可用");
-                        if (btnPayment != null) btnPayment.setDisable(false);
-                    });
-                    return;
-                }
-
-                Booking booking = bookingOpt.get();
-                System.out.println("✅ 预订已创建，预订ID: " + booking.getId());
-
-                // 7. 处理支付 - 使用 booking_id（VARCHAR）而不是 id（INTEGER）
-                System.out.println("💳 处理支付...");
-                // ⚠️ 重要：使用 booking.getBookingId() 而不是 booking.getId()
-                String bookingIdForPayment = booking.getBookingId();
-                if (bookingIdForPayment == null || bookingIdForPayment.isEmpty()) {
-                    // 如果 booking_id 为空，使用生成的 ID
-                    bookingIdForPayment = "BK_" + booking.getId() + "_" + System.currentTimeMillis();
-                }
-                System.out.println("   预订ID (支付用): " + bookingIdForPayment);
-                
-                boolean paymentSuccess = paymentService.processPayment(
-                    bookingIdForPayment,
-                    totalPrice,
-                    "CREDIT_CARD"
-                );
-
-                if (paymentSuccess) {
-                    System.out.println("✅ 支付成功！");
-                    Platform.runLater(() -> {
-                        showPaymentSuccess();
-                        navigateToBookings();
-                    });
-                } else {
-                    System.out.println("❌ 支付失败");
-                    // 取消预订
-                    bookingService.cancelBooking(booking.getId());
-                    Platform.runLater(() -> {
-                        showError("支付失败，预订已取消，请重试");
-                        if (btnPayment != null) btnPayment.setDisable(false);
-                    });
-                }
-
-            } catch (BusinessException e) {
-                System.err.println("❌ 业务异常: " + e.getMessage());
-                e.printStackTrace();
-                Platform.runLater(() -> {
-                    showError("支付失败: " + e.getMessage());
-                    if (btnPayment != null) btnPayment.setDisable(false);
-                });
-            } catch (Exception e) {
-                System.err.println("❌ 系统异常: " + e.getMessage());
-                e.printStackTrace();
-                Platform.runLater(() -> {
-                    showError("系统错误: " + e.getMessage());
-                    if (btnPayment != null) btnPayment.setDisable(false);
-                });
+        // 5. 预订和支付交给支付流水线在后台处理，结果回到 FX 线程显示
+        Integer userId = SessionManager.getLoggedInId();
+        Integer hotelId = currentHotel.getId();
+        Integer roomId = currentRoom.getId();
+
+        System.out.println("📝 准备创建预订...");
+        System.out.println("   用户ID: " + userId);
+        System.out.println("   酒店ID: " + hotelId);
+        System.out.println("   房间ID: " + roomId);
+
+        // 6-7. 预订和支付
+        paymentPipeline.submit(paymentKey, () -> bookAndPay(userId, hotelId, roomId))
+                .whenComplete((outcome, error) -> Platform.runLater(() -> showOutcome(outcome, error)));
+    }
+
+    /**
+     * 占房并付款，分三步，网关调用期间不持有事务：
+     * 1. 短事务：占用房晚并写入 PENDING 支付记录
+     * 2. 无事务：调用支付网关，可能因超时和重试持续数秒
+     * 3. 短事务：记为 COMPLETED，或记为 FAILED 并取消预订
+     * 失败的支付和取消的预订都保留在库中，网关超时但实际扣款成功时可据此对账退款
+     */
+    private Payment bookAndPay(Integer userId, Integer hotelId, Integer roomId) {
+        Booking[] reserved = new Booking[1];
+        Payment payment = DatabaseConnection.getRetryPolicy().execute(() -> TransactionManager.inTransaction(() -> {
+            ReservationResult result = bookingService.reserveRoom(
+                userId, 
+                hotelId, 
+                roomId, 
+                checkInDate, 
+                checkOutDate
+            );
+            if (!result.isReserved()) {
+                boolean conflict = result.getStatus() == ReservationResult.Status.CONFLICT;
+                throw new BusinessException(
+                    conflict ? ErrorType.BOOKING_CONFLICT : ErrorType.ROOM_NOT_AVAILABLE,
+                    conflict ? "所选日期该房间已被预订，请选择其他日期或房间" : "创建预订失败，房间可能不可用");
             }
-        }).start();
+            reserved[0] = result.getBooking();
+            return createPayment(result.getBooking());
+        }));
+
+        Booking booking = reserved[0];
+        System.out.println("💳 处理支付...");
+        return paymentService.completePayment(payment, () -> bookingService.cancelBooking(booking.getId()));
+    }
+
+    /**
+     * 显示支付流水线的结果
+     */
+    private void showOutcome(PaymentOutcome outcome, Throwable error) {
+        if (error == null && outcome.isCompleted()) {
+            System.out.println("✅ 支付成功！");
+            showPaymentSuccess();
+            navigateToBookings();
+            return;
+        }
+        if (error == null && !outcome.isFinished()) {
+            // 同一键的支付仍在处理，按钮保持禁用，避免重复扣款
+            showError("支付正在处理中，请稍后在我的预订中查看");
+            return;
+        }
+        if (error == null && outcome.getStatus() == PaymentOutcome.Status.UNRECORDED) {
+            // 已扣款，只是记录未更新；预订保留，按钮保持禁用，等待对账
+            System.err.println("⚠️ 支付待确认: " + outcome.getMessage());
+            showError("已收到付款，订单确认中，请稍后在我的预订中查看，勿重复支付");
+            return;
+        }
+
+        if (error != null) {
+            Throwable cause = error.getCause() != null ? error.getCause() : error;
+            System.err.println("❌ 系统异常: " + cause.getMessage());
+            showError("系统错误: " + cause.getMessage());
+        } else {
+            System.err.println("❌ 支付失败: " + outcome.getMessage());
+            showError("支付失败: " + outcome.getMessage());
+        }
+        // 失败的键已记录结果，重试算作一次新的支付请求
+        paymentKey = IdGenerator.getInstance().nextId(IdGenerator.PAYMENT_REQUEST);
+        if (btnPayment != null) btnPayment.setDisable(false);
+    }
+
+    /**
+     * 为刚创建的预订写入 PENDING 支付记录，与预订在同一个事务中提交
+     */
+    private Payment createPayment(Booking booking) {
+        System.out.println("✅ 预订已创建，预订ID: " + booking.getId());
+
+        // 支付记录使用 booking_id（VARCHAR）而不是 id（INTEGER）
+        // ⚠️ 重要：使用 booking.getBookingId() 而不是 booking.getId()
+        String bookingIdForPayment = booking.getBookingId();
+        if (bookingIdForPayment == null || bookingIdForPayment.isEmpty()) {
+            // 如果 booking_id 为空，使用生成的 ID
+            bookingIdForPayment = IdGenerator.getInstance().nextId(IdGenerator.BOOKING);
+        }
+        System.out.println("   预订ID (支付用): " + bookingIdForPayment);
+
+        return paymentService.createPendingPayment(
+            bookingIdForPayment,
+            totalPrice,
+            "CREDIT_CARD"
+        );
     }
 
     /**
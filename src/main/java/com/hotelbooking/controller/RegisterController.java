@@ -43,6 +43,19 @@ public class RegisterController {
         if (errorLabel != null) {
             errorLabel.setText("");
         }
+        // 离开输入框时就提示是否已被占用；多数可用的名字由内存过滤器直接回答，不查询数据库
+        if (usernameField != null && emailField != null) {
+            usernameField.focusedProperty().addListener((obs, wasFocused, focused) -> {
+                if (!focused) {
+                    checkUsernameAvailable();
+                }
+            });
+            emailField.focusedProperty().addListener((obs, wasFocused, focused) -> {
+                if (!focused) {
+                    checkEmailAvailable();
+                }
+            });
+        }
     }
     
     /**
@@ -145,12 +158,52 @@ public class RegisterController {
         }
     }
 
+    /**
+     * Warn when the typed username is already taken
+     */
+    private void checkUsernameAvailable() {
+        String username = usernameField.getText().trim();
+        if (!username.isEmpty() && userService.isUsernameTaken(username)) {
+            showError("This username is already taken");
+        }
+    }
+
+    /**
+     * Warn when the typed email is already registered
+     */
+    private void checkEmailAvailable() {
+        String email = emailField.getText().trim();
+        if (email.contains("@") && userService.isEmailTaken(email)) {
+            showError("This email is already registered");
+        }
+    }
+
     /**
      * Go to the login page
 =======
             showError("注册失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 用户名已被占用时提示
+     */
+    private void checkUsernameAvailable() {
+        String username = usernameField.getText().trim();
+        if (!username.isEmpty() && userService.isUsernameTaken(username)) {
+            showError("用户名已被占用");
+        }
+    }
+
+    /**
+     * 邮箱已被注册时提示
+     */
+    private void checkEmailAvailable() {
+        String email = emailField.getText().trim();
+        if (email.contains("@") && userService.isEmailTaken(email)) {
+            showError("该邮箱已被注册");
+        }
+    }
 //    @FXML
 //    private void handleRegister() {
 //        System.out.println("🔘 注册按钮被点击");
@@ -1,6 +1,8 @@
 package com.hotelbooking.controller;
 
 import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.dto.HotelAvailability;
+import com.hotelbooking.dto.StaySearch;
 import com.hotelbooking.entity.Hotel;
 import com.hotelbooking.service.HotelService;
 import com.hotelbooking.util.NavigationManager;
@@ -14,7 +16,12 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class SearchHotelsController {
     
@@ -23,7 +30,10 @@ public class SearchHotelsController {
     @FXML private VBox hotelListContainer;
     @FXML private Button btnLogin;
     
+    private static final int FUZZY_RESULTS = 20;
+    
     private HotelService hotelService;
+    private Map<Integer, BigDecimal> cheapestRates = Collections.emptyMap();
     
 //    @FXML
 //    public void initialize() {
@@ -34,6 +44,7 @@ public class SearchHotelsController {
     public void initialize() {
         System.out.println("✅ 酒店搜索页面初始化");
         hotelService = new HotelService(); // ✅❗一定用无参构造
+        SearchSuggestions.attach(txtSearch, hotelService, suggestion -> handleSearch());
 
         // 默认显示全部酒店
         List<Hotel> allHotels = hotelService.getAllHotels();
@@ -46,7 +57,7 @@ public class SearchHotelsController {
     @FXML
     private void handleSearch() {
         String keyword = txtSearch.getText().trim();
-        List<Hotel> results = hotelService.searchHotels(keyword);
+        List<Hotel> results = search(keyword);
         displayHotels(results);
     }
     
@@ -54,16 +65,36 @@ public class SearchHotelsController {
     public void setSearchKeyword(String keyword) {
         System.out.println("🔍 收到 keyword: " + keyword);
 
-        List<Hotel> results;
-        if (keyword == null || keyword.isEmpty()) {
-            results = hotelService.getAllHotels();
-        } else {
-            results = hotelService.searchHotels(keyword);
-        }
-
+        List<Hotel> results = search(keyword == null ? "" : keyword);
         displayHotels(results);
     }
     
+    /**
+     * 已选择日期时只返回能接待整个行程的酒店并记录最低价；
+     * 否则按关键词搜索，精确匹配为空时按拼写容错再查一次
+     */
+    private List<Hotel> search(String keyword) {
+        StaySearch stay = SessionManager.getStaySearch(keyword);
+        if (stay != null) {
+            List<HotelAvailability> available = hotelService.searchAvailableHotels(stay);
+            Map<Integer, BigDecimal> rates = new HashMap<>();
+            List<Hotel> hotels = new ArrayList<>();
+            for (HotelAvailability availability : available) {
+                hotels.add(availability.getHotel());
+                rates.put(availability.getHotel().getId(), availability.getCheapestRate());
+            }
+            cheapestRates = rates;
+            return hotels;
+        }
+        
+        cheapestRates = Collections.emptyMap();
+        List<Hotel> results = hotelService.searchHotels(keyword);
+        if (results.isEmpty() && !keyword.isEmpty()) {
+            results = hotelService.searchHotelsFuzzy(keyword, FUZZY_RESULTS);
+        }
+        return results;
+    }
+    
     /**
      * 显示酒店列表
      */
@@ -161,14 +192,19 @@ public class SearchHotelsController {
         Label lblFromPrice = new Label("From");
         lblFromPrice.setStyle("-fx-font-size: 12px; -fx-text-fill: #999;");
         
-//        double minPrice = hotelService.getMinPrice(hotel.getHotelId());
-//        Label lblPrice = new Label("$" + String.format("%.0f", minPrice));
-//        lblPrice.setStyle("-fx-font-size: 28px; -fx-font-weight: bold; -fx-text-fill: #8B4513;");
-        
         Label lblPerNight = new Label("per night");
         lblPerNight.setStyle("-fx-font-size: 12px; -fx-text-fill: #999;");
         
-//        priceBox.getChildren().addAll(lblFromPrice, lblPrice, lblPerNight);
+        // 按日期搜索时显示满足人数的最低房价，否则显示内存中汇总的起价
+        BigDecimal minPrice = cheapestRates.get(hotel.getId());
+        if (minPrice == null) {
+            minPrice = hotelService.getHotelSummary(hotel.getId()).getMinPrice();
+        }
+        if (minPrice != null) {
+            Label lblPrice = new Label("$" + String.format("%.0f", minPrice));
+            lblPrice.setStyle("-fx-font-size: 28px; -fx-font-weight: bold; -fx-text-fill: #8B4513;");
+            priceBox.getChildren().addAll(lblFromPrice, lblPrice, lblPerNight);
+        }
         
         // 查看详情按钮
         Region spacer = new Region();
@@ -0,0 +1,129 @@
+package com.hotelbooking.controller;
+
+import com.hotelbooking.dto.Suggestion;
+import com.hotelbooking.service.HotelService;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * 搜索框自动补全：停止输入一段时间后才在后台线程查询，新的输入会取消尚未完成的旧查询，
+ * 过期的结果直接丢弃，FX 线程只负责显示
+ */
+final class SearchSuggestions {
+
+    private static final Duration DEBOUNCE = Duration.millis(250);
+    private static final int LIMIT = 8;
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-suggestions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TextField field;
+    private final HotelService hotelService;
+    private final Consumer<Suggestion> onSelect;
+    private final ContextMenu popup = new ContextMenu();
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+    private Future<?> pending;
+    private long generation;
+    private boolean selecting;
+
+    private SearchSuggestions(TextField field, HotelService hotelService, Consumer<Suggestion> onSelect) {
+        this.field = field;
+        this.hotelService = hotelService;
+        this.onSelect = onSelect;
+
+        debounce.setOnFinished(e -> request(field.getText()));
+        field.textProperty().addListener((observable, oldText, newText) -> {
+            if (!selecting) {
+                debounce.playFromStart();
+            }
+        });
+        field.focusedProperty().addListener((observable, wasFocused, focused) -> {
+            if (!focused) {
+                debounce.stop();
+                cancelPending();
+                popup.hide();
+            }
+        });
+    }
+
+    /**
+     * 为输入框挂上自动补全，选中一项后回调 onSelect
+     */
+    static SearchSuggestions attach(TextField field, HotelService hotelService, Consumer<Suggestion> onSelect) {
+        return new SearchSuggestions(field, hotelService, onSelect);
+    }
+
+    private void request(String text) {
+        cancelPending();
+        long requestId = generation;
+        String prefix = text == null ? "" : text.trim();
+        if (prefix.isEmpty()) {
+            popup.hide();
+            return;
+        }
+        pending = EXECUTOR.submit(() -> {
+            try {
+                List<Suggestion> suggestions = hotelService.autocomplete(prefix, LIMIT);
+                Platform.runLater(() -> {
+                    // 期间又有新输入时丢弃旧结果
+                    if (requestId == generation) {
+                        show(suggestions);
+                    }
+                });
+            } catch (Exception e) {
+                System.err.println("❌ 加载搜索建议失败: " + e.getMessage());
+            }
+        });
+    }
+
+    private void cancelPending() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    private void show(List<Suggestion> suggestions) {
+        if (suggestions.isEmpty() || !field.isFocused()) {
+            popup.hide();
+            return;
+        }
+        popup.getItems().clear();
+        for (Suggestion suggestion : suggestions) {
+            String label = suggestion.getType() == Suggestion.Type.LOCATION
+                    ? "📍 " + suggestion.getText()
+                    : "🏨 " + suggestion.getText();
+            MenuItem item = new MenuItem(label);
+            item.setOnAction(e -> select(suggestion));
+            popup.getItems().add(item);
+        }
+        if (!popup.isShowing()) {
+            popup.show(field, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    private void select(Suggestion suggestion) {
+        selecting = true;
+        try {
+            field.setText(suggestion.getText());
+            field.positionCaret(field.getText().length());
+        } finally {
+            selecting = false;
+        }
+        popup.hide();
+        onSelect.accept(suggestion);
+    }
+}
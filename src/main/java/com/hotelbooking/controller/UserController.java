@@ -130,7 +130,7 @@ public class UserController {
      */
     public ApiResponse<Object> isUsernameExists(String username) {
         try {
-            boolean exists = userService.getUserByUsername(username).isPresent();
+            boolean exists = userService.isUsernameTaken(username);
             return ApiResponse.success(exists ? "Username already exists" : "Username is available", exists);
         } catch (Exception e) {
             return GlobalExceptionHandler.handleException(e);
@@ -142,8 +142,7 @@ public class UserController {
      */
     public ApiResponse<Object> isEmailExists(String email) {
         try {
-            boolean exists = userService.getAllUsers().stream()
-                    .anyMatch(user -> user.getEmail().equals(email));
+            boolean exists = userService.isEmailTaken(email);
             return ApiResponse.success(exists ? "Email already exists" : "Email is available", exists);
         } catch (Exception e) {
             return GlobalExceptionHandler.handleException(e);
@@ -1,53 +1,93 @@
 package com.hotelbooking.dao;
 
+import com.hotelbooking.dto.BookingFilter;
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
+import com.hotelbooking.dto.ReservationResult;
 import com.hotelbooking.entity.Booking;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
 import com.hotelbooking.util.DatabaseConnection;
+import com.hotelbooking.util.ResultSetStream;
 import java.sql.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class BookingDAO {
     
    public Booking createBooking(Booking booking) {
-        String sql = "INSERT INTO bookings (booking_id, user_id, hotel_id, room_id, check_in_date, check_out_date, " +
-             "total_price, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            stmt.setString(1, booking.getBookingId()); 
-    stmt.setInt(2, booking.getUserId());
-    stmt.setInt(3, booking.getHotelId());
-    stmt.setInt(4, booking.getRoomId());
-    stmt.setDate(5, Date.valueOf(booking.getCheckInDate()));
-    stmt.setDate(6, Date.valueOf(booking.getCheckOutDate()));
-    stmt.setBigDecimal(7, booking.getTotalPrice());
-    stmt.setString(8, booking.getStatus());
-    stmt.setTimestamp(9, Timestamp.valueOf(LocalDateTime.now()));
-            
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet rs = stmt.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        booking.setId(rs.getInt(1));
-                    }
-                }
-            }
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                insertBooking(conn, booking);
+                DataChangeBus.publish(DataChange.created(DataChange.Entity.BOOKING, booking.getId(), booking.getUserId()));
 <<<<<<< HEAD
-            System.out.println("✅ Creating booking record: " + booking.getBookingId());
-            return booking;
-        } catch (SQLException e) {
-            System.out.println("❌ Failed to create booking: " + e.getMessage());
+                System.out.println("✅ Creating booking record: " + booking.getBookingId());
+                return booking;
+            } catch (SQLException e) {
+                System.out.println("❌ Failed to create booking: " + e.getMessage());
 =======
-            return booking;
-        } catch (SQLException e) {
+                return booking;
+            } catch (SQLException e) {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-            throw new RuntimeException("Error creating booking", e);
-        }
+                throw new RuntimeException("Error creating booking", e);
+            }
+        });
+    }
+
+    /**
+     * 原子预订：锁定房间行、检查日期重叠、插入预订在同一事务内完成。
+     * 同一房间的并发预订在该房间的行锁上排队，其他房间不受影响。
+     */
+    public ReservationResult reserveRoom(Booking booking) {
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            // 空更新只为拿到房间行的排他锁，同时确认房间存在且在售
+            String lockRoomSql = "UPDATE rooms SET available = available WHERE id = ? AND available = 1";
+            String overlapSql = "SELECT COUNT(*) FROM bookings WHERE room_id = ? " +
+                                "AND status NOT IN ('CANCELLED', 'COMPLETED') " +
+                                "AND check_in_date < ? AND check_out_date > ?";
+
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    try (PreparedStatement stmt = conn.prepareStatement(lockRoomSql)) {
+                        stmt.setInt(1, booking.getRoomId());
+                        if (stmt.executeUpdate() == 0) {
+                            conn.rollback();
+                            return ReservationResult.roomUnavailable();
+                        }
+                    }
+
+                    try (PreparedStatement stmt = conn.prepareStatement(overlapSql)) {
+                        stmt.setInt(1, booking.getRoomId());
+                        stmt.setDate(2, Date.valueOf(booking.getCheckOutDate()));
+                        stmt.setDate(3, Date.valueOf(booking.getCheckInDate()));
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            if (rs.next() && rs.getInt(1) > 0) {
+                                conn.rollback();
+                                return ReservationResult.conflict();
+                            }
+                        }
+                    }
+
+                    insertBooking(conn, booking);
+                    conn.commit();
+                    DataChangeBus.publish(DataChange.created(DataChange.Entity.BOOKING, booking.getId(), booking.getUserId()));
+                    return ReservationResult.reserved(booking);
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error reserving room: " + booking.getRoomId(), e);
+            }
+        });
     }
 
     public Optional<Booking> getBookingById(Integer id) {
@@ -73,6 +113,36 @@ public class BookingDAO {
         }
     }
 
+    /**
+     * 按业务预订号批量读取，一次查询；不存在的预订号被忽略
+     */
+    public List<Booking> getBookingsByBookingIds(Collection<String> bookingIds) {
+        List<Booking> bookings = new ArrayList<>();
+        if (bookingIds.isEmpty()) {
+            return bookings;
+        }
+        String sql = "SELECT * FROM bookings WHERE booking_id IN (" +
+                     String.join(", ", Collections.nCopies(bookingIds.size(), "?")) + ")";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            for (String bookingId : bookingIds) {
+                stmt.setString(index++, bookingId);
+            }
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                bookings.add(mapResultSetToBooking(rs));
+            }
+            return bookings;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting " + bookingIds.size() + " bookings by booking id", e);
+        }
+    }
+
     
 
         public List<Booking> getBookingsByUserId(Integer userId) {
@@ -143,43 +213,252 @@ public class BookingDAO {
         }
     }
 
-    public boolean updateBookingStatus(Integer bookingId, String status) {
-        String sql = "UPDATE bookings SET status = ? WHERE id = ?";
-        
+    /**
+     * 逐行读取全部预订，调用方负责关闭 Stream（try-with-resources）
+     */
+    public Stream<Booking> streamAllBookings() {
+        return ResultSetStream.query("SELECT * FROM bookings ORDER BY id", this::mapResultSetToBooking);
+    }
+
+    /**
+     * 逐行读取指定状态的预订，调用方负责关闭 Stream
+     */
+    public Stream<Booking> streamBookingsByStatus(String status) {
+        return ResultSetStream.query("SELECT * FROM bookings WHERE status = ? ORDER BY id",
+                this::mapResultSetToBooking, status);
+    }
+
+    /**
+     * 按用户分页查询，status 为 null 时不过滤状态
+     */
+    public Page<Booking> getBookingsByUserId(Integer userId, String status, PageCursor after, int pageSize) {
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        String filter = "user_id = ?";
+        if (status != null) {
+            filter += " AND status = ?";
+            params.add(status);
+        }
+        return getBookingsPage(filter, params, after, pageSize);
+    }
+
+    public Page<Booking> getBookingsByHotelId(Integer hotelId, PageCursor after, int pageSize) {
+        List<Object> params = new ArrayList<>();
+        params.add(hotelId);
+        return getBookingsPage("hotel_id = ?", params, after, pageSize);
+    }
+
+    public Page<Booking> getBookingsByStatus(String status, PageCursor after, int pageSize) {
+        List<Object> params = new ArrayList<>();
+        params.add(status);
+        return getBookingsPage("status = ?", params, after, pageSize);
+    }
+
+    /**
+     * 按可选条件（状态、入住日期窗口、酒店集合）分页读取全部预订，一次查询
+     */
+    public Page<Booking> findBookings(BookingFilter criteria, PageCursor after, int pageSize) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (criteria.getStatus() != null) {
+            conditions.add("status = ?");
+            params.add(criteria.getStatus());
+        }
+        if (criteria.getTo() != null) {
+            conditions.add("check_in_date < ?");
+            params.add(Date.valueOf(criteria.getTo()));
+        }
+        if (criteria.getFrom() != null) {
+            conditions.add("check_out_date > ?");
+            params.add(Date.valueOf(criteria.getFrom()));
+        }
+        if (!criteria.getHotelIds().isEmpty()) {
+            conditions.add("hotel_id IN (" + String.join(", ", Collections.nCopies(criteria.getHotelIds().size(), "?")) + ")");
+            params.addAll(criteria.getHotelIds());
+        }
+        return getBookingsPage(String.join(" AND ", conditions), params, after, pageSize);
+    }
+
+    /**
+     * Keyset 分页：按 (created_at, id) 倒序，从 after 之后继续读，多取一行判断是否还有下一页；filter 为空时不过滤
+     */
+    private Page<Booking> getBookingsPage(String filter, List<Object> params, PageCursor after, int pageSize) {
+        int size = Page.normalizeSize(pageSize);
+        StringBuilder where = new StringBuilder(filter);
+        if (after != null) {
+            where.append(where.length() > 0 ? " AND " : "")
+                 .append("(created_at < ? OR (created_at = ? AND id < ?))");
+        }
+        StringBuilder sql = new StringBuilder("SELECT * FROM bookings");
+        if (where.length() > 0) {
+            sql.append(" WHERE ").append(where);
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC FETCH FIRST ? ROWS ONLY");
+        List<Booking> bookings = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            for (Object param : params) {
+                stmt.setObject(index++, param);
+            }
+            if (after != null) {
+                Timestamp createdAt = after.getTimestampKey();
+                stmt.setTimestamp(index++, createdAt);
+                stmt.setTimestamp(index++, createdAt);
+                stmt.setInt(index++, after.getIntId());
+            }
+            stmt.setInt(index, size + 1);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                bookings.add(mapResultSetToBooking(rs));
+            }
+            return Page.fromLookahead(bookings, size, b -> PageCursor.of(b.getCreatedAt(), b.getId()));
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error paging bookings [" + filter + "]", e);
+        }
+    }
+
+    /**
+     * 仍占用房间的预订：未取消/未完成且退房日期晚于 fromDate，用于重建房态
+     */
+    public List<Booking> getActiveBookings(LocalDate fromDate) {
+        String sql = "SELECT * FROM bookings WHERE check_out_date > ? " +
+                     "AND status NOT IN ('CANCELLED', 'COMPLETED')";
+        List<Booking> bookings = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(fromDate));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                bookings.add(mapResultSetToBooking(rs));
+            }
+            return bookings;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting active bookings from: " + fromDate, e);
+        }
+    }
+
+    /**
+     * 某个房间仍占用房晚的预订，用于单独重建该房间的房态
+     */
+    public List<Booking> getActiveBookingsByRoom(Integer roomId, LocalDate fromDate) {
+        String sql = "SELECT * FROM bookings WHERE room_id = ? AND check_out_date > ? " +
+                     "AND status NOT IN ('CANCELLED', 'COMPLETED')";
+        List<Booking> bookings = new ArrayList<>();
+
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, roomId);
+            stmt.setDate(2, Date.valueOf(fromDate));
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                bookings.add(mapResultSetToBooking(rs));
+            }
+            return bookings;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting active bookings for room: " + roomId, e);
+        }
+    }
+
+    public boolean updateBookingStatus(Integer bookingId, String status) {
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE bookings SET status = ? WHERE id = ?";
+        
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, status);
-            stmt.setInt(2, bookingId);
+                stmt.setString(1, status);
+                stmt.setInt(2, bookingId);
             
-            int affectedRows = stmt.executeUpdate();
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.BOOKING, bookingId));
+                }
 <<<<<<< HEAD
-            System.out.println("✅ Updating booking status: " + bookingId + " -> " + status);
-            return affectedRows > 0;
+                System.out.println("✅ Updating booking status: " + bookingId + " -> " + status);
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            System.out.println("❌ Failed to update booking status: " + e.getMessage());
+            } catch (SQLException e) {
+                System.out.println("❌ Failed to update booking status: " + e.getMessage());
 =======
-            return affectedRows > 0;
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
+            } catch (SQLException e) {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-            throw new RuntimeException("Error updating booking status: " + bookingId, e);
-        }
+                throw new RuntimeException("Error updating booking status: " + bookingId, e);
+            }
+        });
     }
 
     public boolean deleteBooking(Integer id) {
-        String sql = "DELETE FROM bookings WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String ownersSql = "SELECT user_id, room_id FROM bookings WHERE id = ?";
+            String sql = "DELETE FROM bookings WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement ownersStmt = conn.prepareStatement(ownersSql);
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setInt(1, id);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+                // 删除后无法再查到所属用户和房间，先读出来随变更发布
+                ownersStmt.setInt(1, id);
+                Integer userId = null;
+                Integer roomId = null;
+                try (ResultSet rs = ownersStmt.executeQuery()) {
+                    if (rs.next()) {
+                        userId = rs.getInt("user_id");
+                        roomId = rs.getInt("room_id");
+                    }
+                }
+                
+                stmt.setInt(1, id);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    // 支付记录由 ON DELETE CASCADE 一并删除
+                    DataChangeBus.publish(DataChange.deleted(DataChange.Entity.BOOKING, id, userId)
+                            .withParent(DataChange.Entity.ROOM, roomId));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error deleting booking: " + id, e);
+            } catch (SQLException e) {
+                throw new RuntimeException("Error deleting booking: " + id, e);
+            }
+        });
+    }
+
+    private void insertBooking(Connection conn, Booking booking) throws SQLException {
+        String sql = "INSERT INTO bookings (booking_id, user_id, hotel_id, room_id, check_in_date, check_out_date, " +
+             "total_price, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, booking.getBookingId());
+            stmt.setInt(2, booking.getUserId());
+            stmt.setInt(3, booking.getHotelId());
+            stmt.setInt(4, booking.getRoomId());
+            stmt.setDate(5, Date.valueOf(booking.getCheckInDate()));
+            stmt.setDate(6, Date.valueOf(booking.getCheckOutDate()));
+            stmt.setBigDecimal(7, booking.getTotalPrice());
+            stmt.setString(8, booking.getStatus());
+            stmt.setTimestamp(9, Timestamp.valueOf(LocalDateTime.now()));
+
+            int affectedRows = stmt.executeUpdate();
+            if (affectedRows > 0) {
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        booking.setId(rs.getInt(1));
+                    }
+                }
+            }
         }
     }
 
@@ -1,7 +1,11 @@
 package com.hotelbooking.dao;
 
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
 import com.hotelbooking.entity.Hotel;
 import com.hotelbooking.entity.Room;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
 import com.hotelbooking.util.DatabaseConnection;
 import java.sql.*;
 import java.util.ArrayList;
@@ -11,28 +15,31 @@ import java.util.Optional;
 public class HotelDAO {
     
     public Hotel createHotel(Hotel hotel) {
-        String sql = "INSERT INTO hotels (name, location, description, available_rooms) VALUES (?, ?, ?, ?)";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "INSERT INTO hotels (name, location, description, available_rooms) VALUES (?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
-            stmt.setString(1, hotel.getName());
-            stmt.setString(2, hotel.getLocation());
-            stmt.setString(3, hotel.getDescription());
-            stmt.setInt(4, hotel.getAvailableRooms());
+                stmt.setString(1, hotel.getName());
+                stmt.setString(2, hotel.getLocation());
+                stmt.setString(3, hotel.getDescription());
+                stmt.setInt(4, hotel.getAvailableRooms());
             
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet rs = stmt.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        hotel.setId(rs.getInt(1));
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    try (ResultSet rs = stmt.getGeneratedKeys()) {
+                        if (rs.next()) {
+                            hotel.setId(rs.getInt(1));
+                        }
                     }
+                    DataChangeBus.publish(DataChange.created(DataChange.Entity.HOTEL, hotel.getId()));
                 }
+                return hotel;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error creating hotel", e);
             }
-            return hotel;
-        } catch (SQLException e) {
-            throw new RuntimeException("Error creating hotel", e);
-        }
+        });
     }
 
     public Optional<Hotel> getHotelById(Integer id) {
@@ -73,6 +80,39 @@ public class HotelDAO {
         }
     }
 
+    /**
+     * 分页获取酒店列表，按 (name, id) 升序
+     */
+    public Page<Hotel> getHotels(PageCursor after, int pageSize) {
+        int size = Page.normalizeSize(pageSize);
+        String sql = "SELECT * FROM hotels" +
+                (after != null ? " WHERE name > ? OR (name = ? AND id > ?)" : "") +
+                " ORDER BY name ASC, id ASC FETCH FIRST ? ROWS ONLY";
+        List<Hotel> hotels = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (after != null) {
+                stmt.setString(index++, after.getSortKey());
+                stmt.setString(index++, after.getSortKey());
+                stmt.setInt(index++, after.getIntId());
+            }
+            stmt.setInt(index, size + 1);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                hotels.add(mapResultSetToHotel(rs));
+            }
+            return Page.fromLookahead(hotels, size,
+                    h -> new PageCursor(h.getName(), String.valueOf(h.getId())));
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error paging hotels", e);
+        }
+    }
+
     public List<Hotel> getHotelsByLocation(String location) {
         String sql = "SELECT * FROM hotels WHERE LOWER(location) LIKE LOWER(?) ORDER BY name ASC";
         List<Hotel> hotels = new ArrayList<>();
@@ -123,90 +163,116 @@ public class HotelDAO {
      * 更新酒店可用房间数量
      */
     public boolean updateAvailableRooms(Integer hotelId, int availableRooms) {
-        String sql = "UPDATE hotels SET available_rooms = ? WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE hotels SET available_rooms = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setInt(1, availableRooms);
-            stmt.setInt(2, hotelId);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+                stmt.setInt(1, availableRooms);
+                stmt.setInt(2, hotelId);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.HOTEL, hotelId));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error updating available rooms for hotel: " + hotelId, e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error updating available rooms for hotel: " + hotelId, e);
+            }
+        });
     }
 
     /**
      * 增加酒店可用房间数量
      */
     public boolean incrementAvailableRooms(Integer hotelId) {
-        String sql = "UPDATE hotels SET available_rooms = available_rooms + 1 WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE hotels SET available_rooms = available_rooms + 1 WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setInt(1, hotelId);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+                stmt.setInt(1, hotelId);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.HOTEL, hotelId));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error incrementing available rooms for hotel: " + hotelId, e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error incrementing available rooms for hotel: " + hotelId, e);
+            }
+        });
     }
 
     /**
      * 减少酒店可用房间数量
      */
     public boolean decrementAvailableRooms(Integer hotelId) {
-        String sql = "UPDATE hotels SET available_rooms = available_rooms - 1 WHERE id = ? AND available_rooms > 0";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE hotels SET available_rooms = available_rooms - 1 WHERE id = ? AND available_rooms > 0";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setInt(1, hotelId);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+                stmt.setInt(1, hotelId);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.HOTEL, hotelId));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error decrementing available rooms for hotel: " + hotelId, e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error decrementing available rooms for hotel: " + hotelId, e);
+            }
+        });
     }
 
     public boolean updateHotel(Hotel hotel) {
-        String sql = "UPDATE hotels SET name = ?, location = ?, description = ?, available_rooms = ? WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE hotels SET name = ?, location = ?, description = ?, available_rooms = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, hotel.getName());
-            stmt.setString(2, hotel.getLocation());
-            stmt.setString(3, hotel.getDescription());
-            stmt.setInt(4, hotel.getAvailableRooms());
-            stmt.setInt(5, hotel.getId());
+                stmt.setString(1, hotel.getName());
+                stmt.setString(2, hotel.getLocation());
+                stmt.setString(3, hotel.getDescription());
+                stmt.setInt(4, hotel.getAvailableRooms());
+                stmt.setInt(5, hotel.getId());
             
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.HOTEL, hotel.getId()));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error updating hotel: " + hotel.getId(), e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error updating hotel: " + hotel.getId(), e);
+            }
+        });
     }
 
     public boolean deleteHotel(Integer id) {
-        String sql = "DELETE FROM hotels WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "DELETE FROM hotels WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setInt(1, id);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+                stmt.setInt(1, id);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    // 房间、预订和支付由 ON DELETE CASCADE 一并删除，总线会通知它们的缓存
+                    DataChangeBus.publish(DataChange.deleted(DataChange.Entity.HOTEL, id));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error deleting hotel: " + id, e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error deleting hotel: " + id, e);
+            }
+        });
     }
 
     /**
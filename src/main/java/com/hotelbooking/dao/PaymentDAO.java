@@ -1,11 +1,21 @@
 // PaymentDAO.java - Payment Data Access Layer
 package com.hotelbooking.dao;
 
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
+import com.hotelbooking.dto.PaymentOutcome;
 import com.hotelbooking.entity.Payment;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
 import com.hotelbooking.util.DatabaseConnection;
+import com.hotelbooking.util.ResultSetStream;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public class PaymentDAO {
     
@@ -15,23 +25,29 @@ public class PaymentDAO {
     
     // Create payment record
     public boolean createPayment(Payment payment) {
-        String sql = "INSERT INTO payments (payment_id, booking_id, amount, payment_method, payment_status, payment_date, transaction_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "INSERT INTO payments (payment_id, booking_id, amount, payment_method, payment_status, payment_date, transaction_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, payment.getPaymentId());
-            stmt.setString(2, payment.getBookingId());
-            stmt.setBigDecimal(3, payment.getAmount());
-            stmt.setString(4, payment.getPaymentMethod());
-            stmt.setString(5, payment.getPaymentStatus());
-            stmt.setTimestamp(6, Timestamp.valueOf(payment.getPaymentDate()));
-            stmt.setString(7, payment.getTransactionId());
+                stmt.setString(1, payment.getPaymentId());
+                stmt.setString(2, payment.getBookingId());
+                stmt.setBigDecimal(3, payment.getAmount());
+                stmt.setString(4, payment.getPaymentMethod());
+                stmt.setString(5, payment.getPaymentStatus());
+                stmt.setTimestamp(6, Timestamp.valueOf(payment.getPaymentDate()));
+                stmt.setString(7, payment.getTransactionId());
             
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            throw new RuntimeException("Error creating payment", e);
-        }
+                boolean created = stmt.executeUpdate() > 0;
+                if (created) {
+                    DataChangeBus.publish(DataChange.created(DataChange.Entity.PAYMENT, payment.getPaymentId()));
+                }
+                return created;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error creating payment", e);
+            }
+        });
     }
     
     // Get payment record by payment ID
@@ -74,19 +90,25 @@ public class PaymentDAO {
     
     // Update payment status
     public boolean updatePaymentStatus(String paymentId, String status, String transactionId) {
-        String sql = "UPDATE payments SET payment_status = ?, transaction_id = ? WHERE payment_id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE payments SET payment_status = ?, transaction_id = ? WHERE payment_id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, status);
-            stmt.setString(2, transactionId);
-            stmt.setString(3, paymentId);
+                stmt.setString(1, status);
+                stmt.setString(2, transactionId);
+                stmt.setString(3, paymentId);
             
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            throw new RuntimeException("Error updating payment status: " + paymentId, e);
-        }
+                boolean updated = stmt.executeUpdate() > 0;
+                if (updated) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.PAYMENT, paymentId));
+                }
+                return updated;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error updating payment status: " + paymentId, e);
+            }
+        });
     }
     
     // Get all payment records
@@ -107,6 +129,47 @@ public class PaymentDAO {
         }
     }
     
+    // Stream all payment records row by row; the caller must close the stream
+    public Stream<Payment> streamAllPayments() {
+        return ResultSetStream.query("SELECT * FROM payments ORDER BY id", this::mapResultSetToPayment);
+    }
+    
+    // Stream payment records with the given status; the caller must close the stream
+    public Stream<Payment> streamPaymentsByStatus(String status) {
+        return ResultSetStream.query("SELECT * FROM payments WHERE payment_status = ? ORDER BY id",
+                this::mapResultSetToPayment, status);
+    }
+    
+    // Get payment records page by page, newest first; payment_id breaks ties on payment_date
+    public Page<Payment> getPayments(PageCursor after, int pageSize) {
+        int size = Page.normalizeSize(pageSize);
+        String sql = "SELECT * FROM payments" +
+                (after != null ? " WHERE payment_date < ? OR (payment_date = ? AND payment_id < ?)" : "") +
+                " ORDER BY payment_date DESC, payment_id DESC FETCH FIRST ? ROWS ONLY";
+        List<Payment> payments = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            if (after != null) {
+                Timestamp paymentDate = after.getTimestampKey();
+                stmt.setTimestamp(index++, paymentDate);
+                stmt.setTimestamp(index++, paymentDate);
+                stmt.setString(index++, after.getId());
+            }
+            stmt.setInt(index, size + 1);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                payments.add(mapResultSetToPayment(rs));
+            }
+            return Page.fromLookahead(payments, size, p -> PageCursor.of(p.getPaymentDate(), p.getPaymentId()));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error paging payments", e);
+        }
+    }
+    
     // Get payment records by status
     public List<Payment> getPaymentsByStatus(String status) {
         String sql = "SELECT * FROM payments WHERE payment_status = ? ORDER BY payment_date DESC";
@@ -127,6 +190,193 @@ public class PaymentDAO {
         }
     }
     
+    // Get the payment records of many bookings in one query
+    public List<Payment> getPaymentsByBookingIds(Collection<String> bookingIds) {
+        List<Payment> payments = new ArrayList<>();
+        if (bookingIds.isEmpty()) {
+            return payments;
+        }
+        String sql = "SELECT * FROM payments WHERE booking_id IN (" +
+                     String.join(", ", Collections.nCopies(bookingIds.size(), "?")) + ")";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            for (String bookingId : bookingIds) {
+                stmt.setString(index++, bookingId);
+            }
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                payments.add(mapResultSetToPayment(rs));
+            }
+            return payments;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting payments for " + bookingIds.size() + " bookings", e);
+        }
+    }
+    
+    // Mark completed payments refunded by their refundAmount in one JDBC batch and one commit:
+    // REFUNDED when the whole amount went back, PARTIALLY_REFUNDED otherwise. Payments without
+    // a positive refundAmount are left alone. Returns the ids actually updated
+    public List<String> markRefunded(List<Payment> payments) {
+        List<Payment> refunds = new ArrayList<>();
+        for (Payment payment : payments) {
+            if (payment.getRefundAmount() != null && payment.getRefundAmount().signum() > 0) {
+                refunds.add(payment);
+            }
+        }
+        if (refunds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "UPDATE payments SET payment_status = ?, refund_amount = ?, transaction_id = ? " +
+                     "WHERE payment_id = ? AND payment_status = 'COMPLETED'";
+        
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (Payment payment : refunds) {
+                        boolean full = payment.getRefundAmount().compareTo(payment.getAmount()) >= 0;
+                        stmt.setString(1, full ? "REFUNDED" : "PARTIALLY_REFUNDED");
+                        stmt.setBigDecimal(2, payment.getRefundAmount());
+                        stmt.setString(3, payment.getTransactionId() + "_REFUND");
+                        stmt.setString(4, payment.getPaymentId());
+                        stmt.addBatch();
+                    }
+                    int[] counts = stmt.executeBatch();
+                    conn.commit();
+                    
+                    List<String> updated = new ArrayList<>();
+                    for (int i = 0; i < counts.length; i++) {
+                        // SUCCESS_NO_INFO: the driver did not report the row count
+                        if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                            String paymentId = refunds.get(i).getPaymentId();
+                            updated.add(paymentId);
+                            DataChangeBus.publish(DataChange.updated(DataChange.Entity.PAYMENT, paymentId));
+                        }
+                    }
+                    return updated;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error marking " + refunds.size() + " payments refunded", e);
+            }
+        });
+    }
+    
+    // Record a PENDING request under the idempotency key; false if the key was already used
+    public boolean claimPaymentRequest(String idempotencyKey) {
+        return claimPaymentRequest(idempotencyKey, 0);
+    }
+    
+    // Same, but also take over a request that has been PENDING for longer than staleAfterMillis (if > 0),
+    // e.g. one whose worker died before recording the outcome
+    public boolean claimPaymentRequest(String idempotencyKey, long staleAfterMillis) {
+        if (insertPaymentRequest(idempotencyKey)) {
+            return true;
+        }
+        return staleAfterMillis > 0 && takeOverPaymentRequest(idempotencyKey, staleAfterMillis);
+    }
+    
+    private boolean insertPaymentRequest(String idempotencyKey) {
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "INSERT INTO payment_requests (idempotency_key, status, created_at, updated_at) VALUES (?, ?, ?, ?)";
+        
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                stmt.setString(1, idempotencyKey);
+                stmt.setString(2, PaymentOutcome.Status.PENDING.name());
+                stmt.setTimestamp(3, now);
+                stmt.setTimestamp(4, now);
+                return stmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                // 23505: 主键冲突，该幂等键已经提交过
+                if ("23505".equals(e.getSQLState())) {
+                    return false;
+                }
+                throw new RuntimeException("Error claiming payment request: " + idempotencyKey, e);
+            }
+        });
+    }
+    
+    private boolean takeOverPaymentRequest(String idempotencyKey, long staleAfterMillis) {
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            // 条件更新保证同一个过期请求只会被一个调用方接管
+            String sql = "UPDATE payment_requests SET updated_at = ? " +
+                         "WHERE idempotency_key = ? AND status = ? AND updated_at < ?";
+        
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                long now = System.currentTimeMillis();
+                stmt.setTimestamp(1, new Timestamp(now));
+                stmt.setString(2, idempotencyKey);
+                stmt.setString(3, PaymentOutcome.Status.PENDING.name());
+                stmt.setTimestamp(4, new Timestamp(now - staleAfterMillis));
+                return stmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error taking over payment request: " + idempotencyKey, e);
+            }
+        });
+    }
+    
+    // Get the recorded outcome of the request with the idempotency key
+    public Optional<PaymentOutcome> getPaymentRequest(String idempotencyKey) {
+        String sql = "SELECT * FROM payment_requests WHERE idempotency_key = ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, idempotencyKey);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return Optional.of(PaymentOutcome.of(
+                        rs.getString("idempotency_key"),
+                        PaymentOutcome.Status.valueOf(rs.getString("status")),
+                        rs.getString("booking_id"),
+                        rs.getString("payment_id"),
+                        rs.getString("message")));
+            }
+            return Optional.empty();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting payment request: " + idempotencyKey, e);
+        }
+    }
+    
+    // Record the final outcome of a PENDING request; false if it was not pending
+    public boolean finishPaymentRequest(PaymentOutcome outcome) {
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE payment_requests SET status = ?, booking_id = ?, payment_id = ?, message = ?, updated_at = ? " +
+                         "WHERE idempotency_key = ? AND status = ?";
+        
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                stmt.setString(1, outcome.getStatus().name());
+                stmt.setString(2, outcome.getBookingId());
+                stmt.setString(3, outcome.getPaymentId());
+                stmt.setString(4, truncate(outcome.getMessage(), 500));
+                stmt.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+                stmt.setString(6, outcome.getIdempotencyKey());
+                stmt.setString(7, PaymentOutcome.Status.PENDING.name());
+                return stmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error finishing payment request: " + outcome.getIdempotencyKey(), e);
+            }
+        });
+    }
+    
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+    
     // Map ResultSet to Payment object
     private Payment mapResultSetToPayment(ResultSet rs) throws SQLException {
         Payment payment = new Payment();
@@ -137,6 +387,7 @@ public class PaymentDAO {
         payment.setPaymentStatus(rs.getString("payment_status"));
         payment.setPaymentDate(rs.getTimestamp("payment_date").toLocalDateTime());
         payment.setTransactionId(rs.getString("transaction_id"));
+        payment.setRefundAmount(rs.getBigDecimal("refund_amount"));
         return payment;
     }
 }
\ No newline at end of file
@@ -1,42 +1,51 @@
 package com.hotelbooking.dao;
 
 import com.hotelbooking.entity.Room;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
 import com.hotelbooking.util.DatabaseConnection;
+import com.hotelbooking.util.ResultSetStream;
 import java.sql.*;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class RoomDAO {
     
     public Room createRoom(Room room) {
-    // 添加 description 列，总共 7 个列
-    String sql = "INSERT INTO rooms (hotel_id, room_number, room_type, price, max_occupancy, description, available) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+        // 添加 description 列，总共 7 个列
+        String sql = "INSERT INTO rooms (hotel_id, room_number, room_type, price, max_occupancy, description, available) VALUES (?, ?, ?, ?, ?, ?, ?)";
     
-    try (Connection conn = DatabaseConnection.getConnection();
-         PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
         
-        stmt.setInt(1, room.getHotelId());
-        stmt.setString(2, room.getRoomNumber());
-        stmt.setString(3, room.getRoomType());
-        stmt.setBigDecimal(4, new BigDecimal(String.valueOf(room.getPricePerNight())));
-        stmt.setInt(5, room.getMaxOccupancy());
-        stmt.setString(6, room.getDescription());     // 索引 6
-        stmt.setShort(7, room.isAvailable() ? (short)1 : (short)0);  // 索引 7
+            stmt.setInt(1, room.getHotelId());
+            stmt.setString(2, room.getRoomNumber());
+            stmt.setString(3, room.getRoomType());
+            stmt.setBigDecimal(4, new BigDecimal(String.valueOf(room.getPricePerNight())));
+            stmt.setInt(5, room.getMaxOccupancy());
+            stmt.setString(6, room.getDescription());     // 索引 6
+            stmt.setShort(7, room.isAvailable() ? (short)1 : (short)0);  // 索引 7
         
-        int affectedRows = stmt.executeUpdate();
-        if (affectedRows > 0) {
-            try (ResultSet rs = stmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    room.setId(rs.getInt(1));  // 使用 setId() 方法
+            int affectedRows = stmt.executeUpdate();
+            if (affectedRows > 0) {
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        room.setId(rs.getInt(1));  // 使用 setId() 方法
+                    }
                 }
+                DataChangeBus.publish(DataChange.created(DataChange.Entity.ROOM, room.getId(), room.getHotelId()));
             }
+            return room;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error creating room", e);
         }
-        return room;
-    } catch (SQLException e) {
-        throw new RuntimeException("Error creating room", e);
-    }
+        });
 }
 
     public Optional<Room> getRoomById(Integer id) {
@@ -182,19 +191,24 @@ public class RoomDAO {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
      */
     public boolean updateRoomAvailability(Integer roomId, boolean available) {
-        String sql = "UPDATE rooms SET available = ? WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE rooms SET available = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setBoolean(1, available);
-            stmt.setInt(2, roomId);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                stmt.setBoolean(1, available);
+                stmt.setInt(2, roomId);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.ROOM, roomId));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error updating room availability: " + roomId, e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error updating room availability: " + roomId, e);
+            }
+        });
     }
 
     /**
@@ -205,19 +219,24 @@ public class RoomDAO {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
      */
     public boolean updateRoomPrice(Integer roomId, BigDecimal newPrice) {
-        String sql = "UPDATE rooms SET price = ? WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE rooms SET price = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setBigDecimal(1, newPrice);
-            stmt.setInt(2, roomId);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                stmt.setBigDecimal(1, newPrice);
+                stmt.setInt(2, roomId);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.ROOM, roomId));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error updating room price: " + roomId, e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error updating room price: " + roomId, e);
+            }
+        });
     }
 
     /**
@@ -272,6 +291,44 @@ public class RoomDAO {
         }
     }
 
+    /**
+     * 获取所有房间（含停用的）
+     */
+    public List<Room> getAllRooms() {
+        String sql = "SELECT * FROM rooms ORDER BY hotel_id, room_number ASC";
+        List<Room> rooms = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                rooms.add(mapResultSetToRoom(rs));
+            }
+            return rooms;
+            
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting all rooms", e);
+        }
+    }
+
+    /**
+     * 在售且能住下 minOccupancy 人的房间；hotelIds 为 null 时不限酒店，调用方必须关闭流
+     */
+    public Stream<Room> streamRoomsForStay(Collection<Integer> hotelIds, int minOccupancy) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM rooms WHERE available = 1 AND max_occupancy >= ?");
+        List<Object> params = new ArrayList<>();
+        params.add(minOccupancy);
+        if (hotelIds != null) {
+            if (hotelIds.isEmpty()) {
+                return Stream.empty();
+            }
+            sql.append(" AND hotel_id IN (").append(String.join(", ", Collections.nCopies(hotelIds.size(), "?"))).append(")");
+            params.addAll(hotelIds);
+        }
+        return ResultSetStream.query(sql.toString(), this::mapResultSetToRoom, params.toArray());
+    }
+
     /**
 <<<<<<< HEAD
      * Get room count by hotel
@@ -325,40 +382,51 @@ public class RoomDAO {
     }
 
     public boolean updateRoom(Room room) {
-        String sql = "UPDATE rooms SET hotel_id = ?, room_number = ?, room_type = ?, price = ?, available = ?, description = ? WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE rooms SET hotel_id = ?, room_number = ?, room_type = ?, price = ?, available = ?, description = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, room.getHotelId());
-            stmt.setString(2, room.getRoomNumber());
-            stmt.setString(3, room.getRoomType());
-            stmt.setBigDecimal(4, room.getPrice());
-            stmt.setBoolean(5, room.isAvailable());
-            stmt.setString(6, room.getDescription());
-            stmt.setInt(7, room.getId());
-            
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                stmt.setInt(1, room.getHotelId());
+                stmt.setString(2, room.getRoomNumber());
+                stmt.setString(3, room.getRoomType());
+                stmt.setBigDecimal(4, room.getPrice());
+                stmt.setBoolean(5, room.isAvailable());
+                stmt.setString(6, room.getDescription());
+                stmt.setInt(7, room.getId());
+            
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.ROOM, room.getId(), room.getHotelId()));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error updating room: " + room.getId(), e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error updating room: " + room.getId(), e);
+            }
+        });
     }
 
     public boolean deleteRoom(Integer id) {
-        String sql = "DELETE FROM rooms WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "DELETE FROM rooms WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, id);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                stmt.setInt(1, id);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    // 该房间的预订和支付由 ON DELETE CASCADE 一并删除，总线会通知它们的缓存
+                    DataChangeBus.publish(DataChange.deleted(DataChange.Entity.ROOM, id));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error deleting room: " + id, e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error deleting room: " + id, e);
+            }
+        });
     }
 
     private Room mapResultSetToRoom(ResultSet rs) throws SQLException {
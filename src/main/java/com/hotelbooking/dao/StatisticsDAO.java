@@ -0,0 +1,118 @@
+package com.hotelbooking.dao;
+
+import com.hotelbooking.dto.BookingStatistics;
+import com.hotelbooking.dto.HotelPopularity;
+import com.hotelbooking.util.DatabaseConnection;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 管理后台统计：所有聚合在数据库中完成，查询次数与酒店、预订数量无关
+ */
+public class StatisticsDAO {
+
+    /**
+     * 按状态统计预订数量和金额，并返回酒店总数（两条查询）
+     */
+    public BookingStatistics getBookingStatistics() {
+        String sql = "SELECT status, COUNT(*), SUM(total_price) FROM bookings GROUP BY status";
+        Map<String, Long> counts = new HashMap<>();
+        Map<String, BigDecimal> amounts = new HashMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getString(1), rs.getLong(2));
+                    amounts.put(rs.getString(1), rs.getBigDecimal(3));
+                }
+            }
+
+            int hotelCount = 0;
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM hotels");
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    hotelCount = rs.getInt(1);
+                }
+            }
+            return new BookingStatistics(hotelCount, counts, amounts);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting booking statistics", e);
+        }
+    }
+
+    /**
+     * 指定状态预订的总金额，没有预订时为 0
+     */
+    public BigDecimal getTotalAmountByStatus(String status) {
+        String sql = "SELECT SUM(total_price) FROM bookings WHERE status = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, status);
+            ResultSet rs = stmt.executeQuery();
+
+            BigDecimal total = rs.next() ? rs.getBigDecimal(1) : null;
+            return total != null ? total : BigDecimal.ZERO;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting total amount by status: " + status, e);
+        }
+    }
+
+    /**
+     * 按指定状态的预订数量排名前 limit 的酒店，数量相同按酒店名称、再按 ID 升序，
+     * 与 HotelDAO.getAllHotels 的顺序一致：并列时取列表中靠前的酒店
+     */
+    public List<HotelPopularity> getTopHotels(String status, int limit) {
+        String sql = "SELECT h.id, h.name, t.booking_count, t.revenue FROM " +
+                     "(SELECT hotel_id, COUNT(*) AS booking_count, SUM(total_price) AS revenue " +
+                     "FROM bookings WHERE status = ? GROUP BY hotel_id) t " +
+                     "JOIN hotels h ON h.id = t.hotel_id " +
+                     "ORDER BY t.booking_count DESC, h.name ASC, h.id ASC FETCH FIRST ? ROWS ONLY";
+        List<HotelPopularity> hotels = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, status);
+            stmt.setInt(2, limit);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                hotels.add(new HotelPopularity(rs.getInt(1), rs.getString(2), rs.getLong(3), rs.getBigDecimal(4)));
+            }
+            return hotels;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting top hotels by status: " + status, e);
+        }
+    }
+
+    /**
+     * 每家酒店未取消的预订数量，没有预订的酒店不在结果中
+     */
+    public Map<Integer, Long> getBookingCountsByHotel() {
+        String sql = "SELECT hotel_id, COUNT(*) FROM bookings WHERE status <> 'CANCELLED' GROUP BY hotel_id";
+        Map<Integer, Long> counts = new HashMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                counts.put(rs.getInt(1), rs.getLong(2));
+            }
+            return counts;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting booking counts by hotel", e);
+        }
+    }
+}
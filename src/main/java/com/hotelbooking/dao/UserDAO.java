@@ -1,38 +1,48 @@
 package com.hotelbooking.dao;
 
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
+import com.hotelbooking.dto.UserExistence;
 import com.hotelbooking.entity.User;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
 import com.hotelbooking.util.DatabaseConnection;
+import com.hotelbooking.util.ResultSetStream;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class UserDAO {
     
     public User createUser(User user) {
-        String sql = "INSERT INTO users (username, email, password, role, created_at) VALUES (?, ?, ?, ?, ?)";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "INSERT INTO users (username, email, password, role, created_at) VALUES (?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            System.out.println("⏳ Writing user to database: " + user.getUsername());
-            stmt.setString(1, user.getUsername());
-            stmt.setString(2, user.getEmail());
-            stmt.setString(3, user.getPassword());
-            stmt.setString(4, user.getRole());
-            stmt.setTimestamp(5, Timestamp.valueOf(user.getCreatedAt()));
-            
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet rs = stmt.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        user.setId(rs.getInt(1));
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                System.out.println("⏳ Writing user to database: " + user.getUsername());
+                stmt.setString(1, user.getUsername());
+                stmt.setString(2, user.getEmail());
+                stmt.setString(3, user.getPassword());
+                stmt.setString(4, user.getRole());
+                stmt.setTimestamp(5, Timestamp.valueOf(user.getCreatedAt()));
+            
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    try (ResultSet rs = stmt.getGeneratedKeys()) {
+                        if (rs.next()) {
+                            user.setId(rs.getInt(1));
+                        }
                     }
+                    DataChangeBus.publish(DataChange.created(DataChange.Entity.USER, user.getId()));
                 }
+                return user;
+            } catch (SQLException e) {
+                throw new RuntimeException("Error creating user", e);
             }
-            return user;
-        } catch (SQLException e) {
-            throw new RuntimeException("Error creating user", e);
-        }
+        });
     }
 
     public Optional<User> getUserById(Integer id) {
@@ -159,6 +169,34 @@ public class UserDAO {
         }
     }
 
+    /**
+     * 一次查询同时检查用户名和邮箱是否已存在，传 null 的一项不检查
+     */
+    public UserExistence findExisting(String username, String email) {
+        String sql = "SELECT " +
+                "SUM(CASE WHEN username = ? THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN email = ? THEN 1 ELSE 0 END) " +
+                "FROM users WHERE username = ? OR email = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, username);
+            stmt.setString(2, email);
+            stmt.setString(3, username);
+            stmt.setString(4, email);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return new UserExistence(rs.getInt(1) > 0, rs.getInt(2) > 0);
+            }
+            return UserExistence.NONE;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error checking username/email existence: " + username + ", " + email, e);
+        }
+    }
+
     public List<User> getAllUsers() {
         String sql = "SELECT * FROM users ORDER BY created_at DESC";
         List<User> users = new ArrayList<>();
@@ -177,6 +215,46 @@ public class UserDAO {
         }
     }
 
+    /**
+     * 逐行读取全部用户，调用方负责关闭 Stream
+     */
+    public Stream<User> streamAllUsers() {
+        return ResultSetStream.query("SELECT * FROM users ORDER BY id", this::mapResultSetToUser);
+    }
+
+    /**
+     * 分页获取用户列表，按 (created_at, id) 倒序
+     */
+    public Page<User> getUsers(PageCursor after, int pageSize) {
+        int size = Page.normalizeSize(pageSize);
+        String sql = "SELECT * FROM users" +
+                (after != null ? " WHERE created_at < ? OR (created_at = ? AND id < ?)" : "") +
+                " ORDER BY created_at DESC, id DESC FETCH FIRST ? ROWS ONLY";
+        List<User> users = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (after != null) {
+                Timestamp createdAt = after.getTimestampKey();
+                stmt.setTimestamp(index++, createdAt);
+                stmt.setTimestamp(index++, createdAt);
+                stmt.setInt(index++, after.getIntId());
+            }
+            stmt.setInt(index, size + 1);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                users.add(mapResultSetToUser(rs));
+            }
+            return Page.fromLookahead(users, size, u -> PageCursor.of(u.getCreatedAt(), u.getId()));
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error paging users", e);
+        }
+    }
+
     /**
      * 根据角色获取用户列表
      */
@@ -204,58 +282,73 @@ public class UserDAO {
      * 更新用户密码
      */
     public boolean updateUserPassword(Integer userId, String newPassword) {
-        String sql = "UPDATE users SET password = ? WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE users SET password = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, newPassword);
-            stmt.setInt(2, userId);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                stmt.setString(1, newPassword);
+                stmt.setInt(2, userId);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.USER, userId));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error updating user password: " + userId, e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error updating user password: " + userId, e);
+            }
+        });
     }
 
     /**
      * 更新用户角色
      */
     public boolean updateUserRole(Integer userId, String newRole) {
-        String sql = "UPDATE users SET role = ? WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE users SET role = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, newRole);
-            stmt.setInt(2, userId);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                stmt.setString(1, newRole);
+                stmt.setInt(2, userId);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.USER, userId));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error updating user role: " + userId, e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error updating user role: " + userId, e);
+            }
+        });
     }
 
     /**
      * 更新用户基本信息（不包含密码）
      */
     public boolean updateUserProfile(Integer userId, String username, String email) {
-        String sql = "UPDATE users SET username = ?, email = ? WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE users SET username = ?, email = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, username);
-            stmt.setString(2, email);
-            stmt.setInt(3, userId);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                stmt.setString(1, username);
+                stmt.setString(2, email);
+                stmt.setInt(3, userId);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.USER, userId));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error updating user profile: " + userId, e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error updating user profile: " + userId, e);
+            }
+        });
     }
 
     /**
@@ -301,38 +394,49 @@ public class UserDAO {
     }
 
     public boolean updateUser(User user) {
-        String sql = "UPDATE users SET username = ?, email = ?, password = ?, role = ? WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "UPDATE users SET username = ?, email = ?, password = ?, role = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, user.getUsername());
-            stmt.setString(2, user.getEmail());
-            stmt.setString(3, user.getPassword());
-            stmt.setString(4, user.getRole());
-            stmt.setInt(5, user.getId());
-            
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                stmt.setString(1, user.getUsername());
+                stmt.setString(2, user.getEmail());
+                stmt.setString(3, user.getPassword());
+                stmt.setString(4, user.getRole());
+                stmt.setInt(5, user.getId());
+            
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    DataChangeBus.publish(DataChange.updated(DataChange.Entity.USER, user.getId()));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error updating user: " + user.getId(), e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error updating user: " + user.getId(), e);
+            }
+        });
     }
 
     public boolean deleteUser(Integer id) {
-        String sql = "DELETE FROM users WHERE id = ?";
+        return DatabaseConnection.getRetryPolicy().execute(() -> {
+            String sql = "DELETE FROM users WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, id);
-            int affectedRows = stmt.executeUpdate();
-            return affectedRows > 0;
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+                stmt.setInt(1, id);
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows > 0) {
+                    // 该用户的预订和支付由 ON DELETE CASCADE 一并删除，总线会通知它们的缓存
+                    DataChangeBus.publish(DataChange.deleted(DataChange.Entity.USER, id));
+                }
+                return affectedRows > 0;
             
-        } catch (SQLException e) {
-            throw new RuntimeException("Error deleting user: " + id, e);
-        }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error deleting user: " + id, e);
+            }
+        });
     }
 
     private User mapResultSetToUser(ResultSet rs) throws SQLException {
@@ -0,0 +1,49 @@
+package com.hotelbooking.dto;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Optional criteria for bulk booking reads; unset criteria match every booking.
+ *
+ * The date window keeps bookings whose stay overlaps [from, to).
+ */
+public class BookingFilter {
+
+    private String status;
+    private LocalDate from;
+    private LocalDate to;
+    private Set<Integer> hotelIds = Collections.emptySet();
+
+    public static BookingFilter all() {
+        return new BookingFilter();
+    }
+
+    public BookingFilter status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    public BookingFilter staysBetween(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    public BookingFilter hotels(Set<Integer> hotelIds) {
+        this.hotelIds = hotelIds == null ? Collections.emptySet() : new LinkedHashSet<>(hotelIds);
+        return this;
+    }
+
+    public String getStatus() { return status; }
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public Set<Integer> getHotelIds() { return Collections.unmodifiableSet(hotelIds); }
+
+    @Override
+    public String toString() {
+        return "BookingFilter{status=" + status + ", from=" + from + ", to=" + to + ", hotelIds=" + hotelIds + "}";
+    }
+}
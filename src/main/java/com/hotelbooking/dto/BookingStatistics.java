@@ -0,0 +1,42 @@
+package com.hotelbooking.dto;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Booking counts and amounts per status, aggregated in the database
+ */
+public class BookingStatistics {
+
+    private final int hotelCount;
+    private final Map<String, Long> countByStatus;
+    private final Map<String, BigDecimal> amountByStatus;
+
+    public BookingStatistics(int hotelCount, Map<String, Long> countByStatus, Map<String, BigDecimal> amountByStatus) {
+        this.hotelCount = hotelCount;
+        this.countByStatus = Collections.unmodifiableMap(countByStatus);
+        this.amountByStatus = Collections.unmodifiableMap(amountByStatus);
+    }
+
+    public int getHotelCount() { return hotelCount; }
+    public Map<String, Long> getCountByStatus() { return countByStatus; }
+    public Map<String, BigDecimal> getAmountByStatus() { return amountByStatus; }
+
+    public long getTotalBookings() {
+        return countByStatus.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long getCount(String status) {
+        return countByStatus.getOrDefault(status, 0L);
+    }
+
+    public BigDecimal getAmount(String status) {
+        return amountByStatus.getOrDefault(status, BigDecimal.ZERO);
+    }
+
+    @Override
+    public String toString() {
+        return "BookingStatistics{hotelCount=" + hotelCount + ", countByStatus=" + countByStatus + "}";
+    }
+}
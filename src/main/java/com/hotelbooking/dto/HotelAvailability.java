@@ -0,0 +1,32 @@
+package com.hotelbooking.dto;
+
+import com.hotelbooking.entity.Hotel;
+import java.math.BigDecimal;
+
+/**
+ * A hotel that can take the whole stay, with its cheapest matching nightly rate
+ */
+public class HotelAvailability {
+
+    private final Hotel hotel;
+    private final BigDecimal cheapestRate;
+    private final int matchingRooms;
+
+    public HotelAvailability(Hotel hotel, BigDecimal cheapestRate, int matchingRooms) {
+        this.hotel = hotel;
+        this.cheapestRate = cheapestRate;
+        this.matchingRooms = matchingRooms;
+    }
+
+    public Hotel getHotel() { return hotel; }
+    /** Lowest nightly price among the free rooms that fit the party */
+    public BigDecimal getCheapestRate() { return cheapestRate; }
+    /** Free rooms that fit the party for the whole stay */
+    public int getMatchingRooms() { return matchingRooms; }
+
+    @Override
+    public String toString() {
+        return "HotelAvailability{hotelId=" + hotel.getId() + ", cheapestRate=" + cheapestRate
+                + ", matchingRooms=" + matchingRooms + "}";
+    }
+}
@@ -0,0 +1,31 @@
+package com.hotelbooking.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of the popular-hotels ranking
+ */
+public class HotelPopularity {
+
+    private final Integer hotelId;
+    private final String hotelName;
+    private final long bookingCount;
+    private final BigDecimal revenue;
+
+    public HotelPopularity(Integer hotelId, String hotelName, long bookingCount, BigDecimal revenue) {
+        this.hotelId = hotelId;
+        this.hotelName = hotelName;
+        this.bookingCount = bookingCount;
+        this.revenue = revenue;
+    }
+
+    public Integer getHotelId() { return hotelId; }
+    public String getHotelName() { return hotelName; }
+    public long getBookingCount() { return bookingCount; }
+    public BigDecimal getRevenue() { return revenue; }
+
+    @Override
+    public String toString() {
+        return "HotelPopularity{hotelId=" + hotelId + ", hotelName='" + hotelName + "', bookingCount=" + bookingCount + "}";
+    }
+}
@@ -0,0 +1,47 @@
+package com.hotelbooking.dto;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Room figures of one hotel for search result cards
+ */
+public class HotelSummary {
+
+    private final Integer hotelId;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    private final int roomCount;
+    private final int availableCount;
+    private final int maxOccupancy;
+    private final Map<String, Integer> roomCountByType;
+
+    public HotelSummary(Integer hotelId, BigDecimal minPrice, BigDecimal maxPrice, int roomCount,
+                        int availableCount, int maxOccupancy, Map<String, Integer> roomCountByType) {
+        this.hotelId = hotelId;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.roomCount = roomCount;
+        this.availableCount = availableCount;
+        this.maxOccupancy = maxOccupancy;
+        this.roomCountByType = Collections.unmodifiableMap(roomCountByType);
+    }
+
+    public Integer getHotelId() { return hotelId; }
+    /** Lowest nightly price of the hotel's in-service rooms, null when none is in service */
+    public BigDecimal getMinPrice() { return minPrice; }
+    /** Highest nightly price of the hotel's in-service rooms, null when none is in service */
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public int getRoomCount() { return roomCount; }
+    /** Rooms currently in service */
+    public int getAvailableCount() { return availableCount; }
+    public int getMaxOccupancy() { return maxOccupancy; }
+    public Map<String, Integer> getRoomCountByType() { return roomCountByType; }
+
+    @Override
+    public String toString() {
+        return "HotelSummary{hotelId=" + hotelId + ", minPrice=" + minPrice + ", maxPrice=" + maxPrice
+                + ", roomCount=" + roomCount + ", availableCount=" + availableCount + "}";
+    }
+}
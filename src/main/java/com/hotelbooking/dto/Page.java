@@ -0,0 +1,56 @@
+package com.hotelbooking.dto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list.
+ *
+ * {@link #getNextCursor()} is the token for the following page, or null on the last page.
+ */
+public class Page<T> {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Build a page from a query that fetched one row more than the page size;
+     * the extra row only tells whether another page exists.
+     */
+    public static <T> Page<T> fromLookahead(List<T> rows, int pageSize, Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new Page<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * Clamp a requested page size into 1..MAX_SIZE, using DEFAULT_SIZE when unset
+     */
+    public static int normalizeSize(int requested) {
+        if (requested <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(requested, MAX_SIZE);
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasNext() { return nextCursor != null; }
+    public int size() { return items.size(); }
+
+    @Override
+    public String toString() {
+        return "Page{size=" + items.size() + ", hasNext=" + hasNext() + "}";
+    }
+}
@@ -0,0 +1,84 @@
+package com.hotelbooking.dto;
+
+import com.hotelbooking.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position of the last row on a page: its sort key plus a unique id
+ * that breaks ties between rows with the same sort key.
+ *
+ * Clients only ever see the opaque {@link #encode()} token and pass it back
+ * unchanged to fetch the next page.
+ */
+public final class PageCursor {
+
+    private static final char SEPARATOR = '\n';
+
+    private final String sortKey;
+    private final String id;
+
+    public PageCursor(String sortKey, String id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    /**
+     * Cursor for lists ordered by a timestamp column
+     */
+    public static PageCursor of(LocalDateTime time, Object id) {
+        return new PageCursor(Timestamp.valueOf(time).toString(), String.valueOf(id));
+    }
+
+    public String getSortKey() { return sortKey; }
+    public String getId() { return id; }
+
+    public Timestamp getTimestampKey() {
+        try {
+            return Timestamp.valueOf(sortKey);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid page cursor", e);
+        }
+    }
+
+    public int getIntId() {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid page cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token from {@link #encode()}; null or blank means the first page
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid page cursor", e);
+        }
+        int split = raw.lastIndexOf(SEPARATOR);
+        if (split < 0) {
+            throw new ValidationException("Invalid page cursor");
+        }
+        return new PageCursor(raw.substring(0, split), raw.substring(split + 1));
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor{sortKey='" + sortKey + "', id='" + id + "'}";
+    }
+}
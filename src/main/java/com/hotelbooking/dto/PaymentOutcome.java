@@ -0,0 +1,79 @@
+package com.hotelbooking.dto;
+
+import com.hotelbooking.entity.Payment;
+
+/**
+ * State of a payment submitted under an idempotency key
+ */
+public class PaymentOutcome {
+
+    public enum Status {
+        PENDING("Payment is being processed"),
+        COMPLETED("Payment completed"),
+        FAILED("Payment failed"),
+        /** Charged by the gateway, but the payment record could not be updated; to be reconciled */
+        UNRECORDED("Payment received, confirmation pending");
+
+        private final String message;
+
+        Status(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() { return message; }
+    }
+
+    private final String idempotencyKey;
+    private final Status status;
+    private final String bookingId;
+    private final String paymentId;
+    private final String message;
+
+    private PaymentOutcome(String idempotencyKey, Status status, String bookingId, String paymentId, String message) {
+        this.idempotencyKey = idempotencyKey;
+        this.status = status;
+        this.bookingId = bookingId;
+        this.paymentId = paymentId;
+        this.message = message != null ? message : status.getMessage();
+    }
+
+    public static PaymentOutcome pending(String idempotencyKey) {
+        return new PaymentOutcome(idempotencyKey, Status.PENDING, null, null, null);
+    }
+
+    public static PaymentOutcome completed(String idempotencyKey, Payment payment) {
+        return new PaymentOutcome(idempotencyKey, Status.COMPLETED, payment.getBookingId(), payment.getPaymentId(), null);
+    }
+
+    public static PaymentOutcome failed(String idempotencyKey, String message) {
+        return new PaymentOutcome(idempotencyKey, Status.FAILED, null, null, message);
+    }
+
+    public static PaymentOutcome unrecorded(String idempotencyKey, String bookingId, String paymentId, String message) {
+        return new PaymentOutcome(idempotencyKey, Status.UNRECORDED, bookingId, paymentId, message);
+    }
+
+    /**
+     * Outcome as recorded in the payment_requests table
+     */
+    public static PaymentOutcome of(String idempotencyKey, Status status, String bookingId, String paymentId,
+                                    String message) {
+        return new PaymentOutcome(idempotencyKey, status, bookingId, paymentId, message);
+    }
+
+    public boolean isCompleted() { return status == Status.COMPLETED; }
+    /** False while the payment is still PENDING */
+    public boolean isFinished() { return status != Status.PENDING; }
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public Status getStatus() { return status; }
+    public String getBookingId() { return bookingId; }
+    public String getPaymentId() { return paymentId; }
+    public String getMessage() { return message; }
+
+    @Override
+    public String toString() {
+        return "PaymentOutcome{key='" + idempotencyKey + "', status=" + status +
+               (paymentId != null ? ", paymentId='" + paymentId + "'" : "") +
+               (status == Status.FAILED || status == Status.UNRECORDED ? ", message='" + message + "'" : "") + "}";
+    }
+}
@@ -0,0 +1,63 @@
+package com.hotelbooking.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Progress of a batch refund run, published after every chunk and once at the end
+ */
+public class RefundBatchReport {
+
+    private final int processed;
+    private final int refunded;
+    private final int declined;
+    private final int failed;
+    private final int skipped;
+    private final BigDecimal refundedAmount;
+    private final List<String> failedBookingIds;
+    private final long elapsedMillis;
+    private final boolean finished;
+
+    public RefundBatchReport(int processed, int refunded, int declined, int failed, int skipped,
+                             BigDecimal refundedAmount, List<String> failedBookingIds, long elapsedMillis,
+                             boolean finished) {
+        this.processed = processed;
+        this.refunded = refunded;
+        this.declined = declined;
+        this.failed = failed;
+        this.skipped = skipped;
+        this.refundedAmount = refundedAmount;
+        this.failedBookingIds = List.copyOf(failedBookingIds);
+        this.elapsedMillis = elapsedMillis;
+        this.finished = finished;
+    }
+
+    /** Bookings looked at so far */
+    public int getProcessed() { return processed; }
+    public int getRefunded() { return refunded; }
+    /** Refunds the gateway declined */
+    public int getDeclined() { return declined; }
+    /** Refunds the gateway could not answer or that could not be recorded; safe to run again */
+    public int getFailed() { return failed; }
+    /** Bookings without a completed payment or with nothing due under the cancellation policy */
+    public int getSkipped() { return skipped; }
+    public BigDecimal getRefundedAmount() { return refundedAmount; }
+    public List<String> getFailedBookingIds() { return failedBookingIds; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public boolean isFinished() { return finished; }
+
+    /**
+     * Bookings processed per second
+     */
+    public double getThroughput() {
+        return elapsedMillis == 0 ? 0 : processed * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RefundBatch{processed=%d, refunded=%d, declined=%d, failed=%d, skipped=%d, " +
+                        "refundedAmount=%s, elapsedMillis=%d, throughput=%.1f/s%s}",
+                processed, refunded, declined, failed, skipped, refundedAmount, elapsedMillis, getThroughput(),
+                finished ? ", finished" : "");
+    }
+}
@@ -0,0 +1,59 @@
+package com.hotelbooking.dto;
+
+import com.hotelbooking.entity.Booking;
+
+/**
+ * Outcome of an atomic room reservation
+ */
+public class ReservationResult {
+
+    public enum Status {
+        RESERVED("Room reserved"),
+        CONFLICT("Room is already booked for some of the selected nights"),
+        ROOM_UNAVAILABLE("Room does not exist or is out of service"),
+        INVALID_DATES("Invalid check-in or check-out date");
+
+        private final String message;
+
+        Status(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() { return message; }
+    }
+
+    private final Status status;
+    private final Booking booking;
+
+    private ReservationResult(Status status, Booking booking) {
+        this.status = status;
+        this.booking = booking;
+    }
+
+    public static ReservationResult reserved(Booking booking) {
+        return new ReservationResult(Status.RESERVED, booking);
+    }
+
+    public static ReservationResult conflict() {
+        return new ReservationResult(Status.CONFLICT, null);
+    }
+
+    public static ReservationResult roomUnavailable() {
+        return new ReservationResult(Status.ROOM_UNAVAILABLE, null);
+    }
+
+    public static ReservationResult invalidDates() {
+        return new ReservationResult(Status.INVALID_DATES, null);
+    }
+
+    public boolean isReserved() { return status == Status.RESERVED; }
+    public Status getStatus() { return status; }
+    public Booking getBooking() { return booking; }
+    public String getMessage() { return status.getMessage(); }
+
+    @Override
+    public String toString() {
+        return "ReservationResult{status=" + status +
+               (booking != null ? ", bookingId='" + booking.getBookingId() + "'" : "") + "}";
+    }
+}
@@ -0,0 +1,52 @@
+package com.hotelbooking.dto;
+
+import java.time.LocalDate;
+
+/**
+ * What the guest is looking for: keyword, dates and party
+ *
+ * The party is assumed to split evenly over the rooms, so every room must
+ * hold at least {@link #getGuestsPerRoom()} guests.
+ */
+public class StaySearch {
+
+    private final String keyword;
+    private final LocalDate checkIn;
+    private final LocalDate checkOut;
+    private final int adults;
+    private final int children;
+    private final int rooms;
+
+    public StaySearch(String keyword, LocalDate checkIn, LocalDate checkOut, int adults, int children, int rooms) {
+        this.keyword = keyword;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.adults = adults;
+        this.children = children;
+        this.rooms = rooms;
+    }
+
+    public String getKeyword() { return keyword; }
+    public LocalDate getCheckIn() { return checkIn; }
+    public LocalDate getCheckOut() { return checkOut; }
+    public int getAdults() { return adults; }
+    public int getChildren() { return children; }
+    public int getRooms() { return rooms; }
+
+    public int getGuests() {
+        return adults + children;
+    }
+
+    /**
+     * Guests each room has to hold, rounded up
+     */
+    public int getGuestsPerRoom() {
+        return (getGuests() + rooms - 1) / rooms;
+    }
+
+    @Override
+    public String toString() {
+        return "StaySearch{keyword='" + keyword + "', checkIn=" + checkIn + ", checkOut=" + checkOut
+                + ", adults=" + adults + ", children=" + children + ", rooms=" + rooms + "}";
+    }
+}
@@ -0,0 +1,32 @@
+package com.hotelbooking.dto;
+
+/**
+ * One autocomplete entry: a location or a hotel name, with its popularity weight
+ */
+public class Suggestion {
+
+    public enum Type { LOCATION, HOTEL }
+
+    private final Type type;
+    private final String text;
+    private final Integer hotelId;
+    private final long weight;
+
+    public Suggestion(Type type, String text, Integer hotelId, long weight) {
+        this.type = type;
+        this.text = text;
+        this.hotelId = hotelId;
+        this.weight = weight;
+    }
+
+    public Type getType() { return type; }
+    public String getText() { return text; }
+    /** Hotel id for HOTEL suggestions, null for locations */
+    public Integer getHotelId() { return hotelId; }
+    public long getWeight() { return weight; }
+
+    @Override
+    public String toString() {
+        return "Suggestion{type=" + type + ", text='" + text + "', weight=" + weight + "}";
+    }
+}
@@ -0,0 +1,25 @@
+package com.hotelbooking.dto;
+
+/**
+ * Whether a username and an email are already used by some account
+ */
+public class UserExistence {
+
+    public static final UserExistence NONE = new UserExistence(false, false);
+
+    private final boolean usernameTaken;
+    private final boolean emailTaken;
+
+    public UserExistence(boolean usernameTaken, boolean emailTaken) {
+        this.usernameTaken = usernameTaken;
+        this.emailTaken = emailTaken;
+    }
+
+    public boolean isUsernameTaken() { return usernameTaken; }
+    public boolean isEmailTaken() { return emailTaken; }
+
+    @Override
+    public String toString() {
+        return "UserExistence{usernameTaken=" + usernameTaken + ", emailTaken=" + emailTaken + "}";
+    }
+}
@@ -4,6 +4,7 @@
  */
 package com.hotelbooking.entity;
 
+import com.hotelbooking.util.IdGenerator;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -49,12 +50,12 @@ public class Booking {
         this.status = status;
         this.createdAt = LocalDateTime.now();
 <<<<<<< HEAD
-        this.bookingId = "BOOK_" + System.currentTimeMillis() + "_" + userId;  // Auto-generate bookingId
+        this.bookingId = IdGenerator.getInstance().nextId(IdGenerator.BOOKING);  // Auto-generate bookingId
     }
     
     // Getters and Setters
 =======
-        this.bookingId = "BOOK_" + System.currentTimeMillis() + "_" + userId;  // 自动生成 bookingId
+        this.bookingId = IdGenerator.getInstance().nextId(IdGenerator.BOOKING);  // 自动生成 bookingId
     }
     
     // Getter 和 Setter
@@ -74,7 +75,7 @@ public class Booking {
         // 如果 bookingId 为 null，自动生成一个
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
         if (bookingId == null && userId != null) {
-            bookingId = "BOOK_" + System.currentTimeMillis() + "_" + userId;
+            bookingId = IdGenerator.getInstance().nextId(IdGenerator.BOOKING);
         }
         return bookingId;
     }
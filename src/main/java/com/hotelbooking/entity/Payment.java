@@ -1,6 +1,7 @@
 // Payment.java - 支付实体类
 package com.hotelbooking.entity;
 
+import com.hotelbooking.util.IdGenerator;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -9,15 +10,16 @@ public class Payment {
     private String bookingId;
     private BigDecimal amount;
     private String paymentMethod; // CREDIT_CARD, PAYPAL, WECHAT, ALIPAY
-    private String paymentStatus; // PENDING, COMPLETED, FAILED, REFUNDED
+    private String paymentStatus; // PENDING, COMPLETED, FAILED, REFUNDED, PARTIALLY_REFUNDED
     private LocalDateTime paymentDate;
     private String transactionId;
+    private BigDecimal refundAmount; // 已退金额，未退款时为 null
     
     // 构造函数
     public Payment() {}
     
     public Payment(String bookingId, BigDecimal amount, String paymentMethod) {
-        this.paymentId = generatePaymentId();
+        this.paymentId = IdGenerator.getInstance().nextId(IdGenerator.PAYMENT);
         this.bookingId = bookingId;
         this.amount = amount;
         this.paymentMethod = paymentMethod;
@@ -25,10 +27,6 @@ public class Payment {
         this.paymentDate = LocalDateTime.now();
     }
     
-    private String generatePaymentId() {
-        return "PAY_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 1000);
-    }
-    
     // Getter和Setter方法
     public String getPaymentId() { return paymentId; }
     public void setPaymentId(String paymentId) { this.paymentId = paymentId; }
@@ -50,4 +48,7 @@ public class Payment {
     
     public String getTransactionId() { return transactionId; }
     public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+    
+    public BigDecimal getRefundAmount() { return refundAmount; }
+    public void setRefundAmount(BigDecimal refundAmount) { this.refundAmount = refundAmount; }
 }
\ No newline at end of file
@@ -38,6 +38,7 @@ public enum ErrorType {
     REFUND_FAILED("PAYMENT_003", "Refund failed"),
     INVALID_PAYMENT_METHOD("PAYMENT_004", "Invalid payment method"),
     PAYMENT_ALREADY_PROCESSED("PAYMENT_005", "Payment already processed"),
+    PAYMENT_UNRECORDED("PAYMENT_006", "Payment charged but not recorded"),
     
     // Validation errors
     VALIDATION_ERROR("VALIDATION_001", "Data validation failed"),
@@ -49,7 +50,8 @@ public enum ErrorType {
       DATABASE_CONNECTION_ERROR("SYSTEM_002", "Database connection failed"),
     INTERNAL_SERVER_ERROR("SYSTEM_003", "Internal server error"),
     EXTERNAL_SERVICE_ERROR("SYSTEM_004", "External service error"),
-    FILE_PROCESSING_ERROR("SYSTEM_005", "File processing error");
+    FILE_PROCESSING_ERROR("SYSTEM_005", "File processing error"),
+    SERVICE_UNAVAILABLE("SYSTEM_006", "Service temporarily unavailable");
     
     private final String code;
     private final String message;
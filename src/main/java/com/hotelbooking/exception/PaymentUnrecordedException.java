@@ -0,0 +1,31 @@
+package com.hotelbooking.exception;
+
+/**
+ * 网关已扣款但支付记录未能更新
+ * 不是支付失败：款项已扣，不能取消预订或让用户重新支付，需按交易号对账后补记
+ */
+public class PaymentUnrecordedException extends BusinessException {
+    private final String bookingId;
+    private final String paymentId;
+    private final String transactionId;
+
+    public PaymentUnrecordedException(String bookingId, String paymentId, String transactionId, Throwable cause) {
+        super(ErrorType.PAYMENT_UNRECORDED,
+                "Payment " + paymentId + " was charged (transaction " + transactionId + ") but not recorded", cause);
+        this.bookingId = bookingId;
+        this.paymentId = paymentId;
+        this.transactionId = transactionId;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public String getPaymentId() {
+        return paymentId;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+}
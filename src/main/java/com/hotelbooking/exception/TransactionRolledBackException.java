@@ -0,0 +1,16 @@
+package com.hotelbooking.exception;
+
+/**
+ * 事务被标记为只回滚并已回滚
+ * 工作本身正常返回，但其中某个 DAO 回滚了绑定连接，调用方不能把结果当作已提交
+ */
+public class TransactionRolledBackException extends RuntimeException {
+
+    public TransactionRolledBackException(String message) {
+        super(message);
+    }
+
+    public TransactionRolledBackException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -2,26 +2,49 @@ package com.hotelbooking.service;
 
 import com.hotelbooking.dao.BookingDAO;
 import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.dao.StatisticsDAO;
 import com.hotelbooking.dao.UserDAO;
+import com.hotelbooking.dto.BookingFilter;
+import com.hotelbooking.dto.BookingStatistics;
+import com.hotelbooking.dto.HotelPopularity;
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
 import com.hotelbooking.entity.Booking;
 import com.hotelbooking.entity.Hotel;
 import com.hotelbooking.entity.User;
 import com.hotelbooking.exception.BusinessException;
 import com.hotelbooking.exception.ErrorType;
+import java.io.Writer;
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class AdminService {
     private UserDAO userDAO;
     private HotelDAO hotelDAO;
     private BookingDAO bookingDAO;
+    private StatisticsDAO statisticsDAO;
+    private BookingService bookingService;
     
     public AdminService(UserDAO userDAO, HotelDAO hotelDAO, BookingDAO bookingDAO) {
+        this(userDAO, hotelDAO, bookingDAO, new StatisticsDAO());
+    }
+    
+    public AdminService(UserDAO userDAO, HotelDAO hotelDAO, BookingDAO bookingDAO, StatisticsDAO statisticsDAO) {
+        this(userDAO, hotelDAO, bookingDAO, statisticsDAO, new BookingService(bookingDAO, new RoomDAO()));
+    }
+    
+    public AdminService(UserDAO userDAO, HotelDAO hotelDAO, BookingDAO bookingDAO, StatisticsDAO statisticsDAO,
+                        BookingService bookingService) {
         this.userDAO = userDAO;
         this.hotelDAO = hotelDAO;
         this.bookingDAO = bookingDAO;
+        this.statisticsDAO = statisticsDAO;
+        this.bookingService = bookingService;
     }
     
     /**
@@ -52,16 +75,21 @@ public class AdminService {
      * Get all bookings
      */
     public List<Booking> getAllBookings() {
+        try (Stream<Booking> bookings = bookingDAO.streamAllBookings()) {
+            return bookings.collect(Collectors.toList());
+        } catch (Exception e) {
+            throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
+                "Failed to get booking list: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Get one page of bookings matching the filter in a single query, newest first
+     */
+    public Page<Booking> getBookings(BookingFilter filter, String cursor, int pageSize) {
+        PageCursor after = PageCursor.decode(cursor);
         try {
-            List<Booking> allBookings = new ArrayList<>();
-            List<Hotel> allHotels = hotelDAO.getAllHotels();
-            
-            for (Hotel hotel : allHotels) {
-                List<Booking> hotelBookings = bookingDAO.getBookingsByHotelId(hotel.getId());
-                allBookings.addAll(hotelBookings);
-            }
-            
-            return allBookings;
+            return bookingDAO.findBookings(filter != null ? filter : BookingFilter.all(), after, pageSize);
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
                 "Failed to get booking list: " + e.getMessage(), e);
@@ -72,33 +100,9 @@ public class AdminService {
      * Get booking statistics
      */
     public String getBookingStatistics() {
+        // 聚合在数据库中完成，查询次数与酒店数量无关
         try {
-            List<Hotel> hotels = hotelDAO.getAllHotels();
-            int totalBookings = 0;
-            int confirmedBookings = 0;
-            int paidBookings = 0;
-            int cancelledBookings = 0;
-            BigDecimal totalRevenue = BigDecimal.ZERO;
-            
-            for (Hotel hotel : hotels) {
-                List<Booking> hotelBookings = bookingDAO.getBookingsByHotelId(hotel.getId());
-                totalBookings += hotelBookings.size();
-                
-                for (Booking booking : hotelBookings) {
-                    switch (booking.getStatus()) {
-                        case "CONFIRMED":
-                            confirmedBookings++;
-                            break;
-                        case "PAID":
-                            paidBookings++;
-                            totalRevenue = totalRevenue.add(booking.getTotalPrice());
-                            break;
-                        case "CANCELLED":
-                            cancelledBookings++;
-                            break;
-                    }
-                }
-            }
+            BookingStatistics stats = statisticsDAO.getBookingStatistics();
             
             return String.format(
                 "=== Booking Statistics ===\n" +
@@ -109,7 +113,8 @@ public class AdminService {
                 "Cancelled: %d\n" +
                 "Total Revenue: $%.2f\n" +
                 "==========================",
-                hotels.size(), totalBookings, confirmedBookings, paidBookings, cancelledBookings, totalRevenue
+                stats.getHotelCount(), stats.getTotalBookings(), stats.getCount("CONFIRMED"),
+                stats.getCount("PAID"), stats.getCount("CANCELLED"), stats.getAmount("PAID")
             );
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
@@ -160,15 +165,11 @@ public class AdminService {
     }
     
     /**
-     * Cancel user booking (admin permission)
+     * Cancel user booking (admin permission); the nights go back on sale like a user's own cancellation
      */
     public boolean cancelUserBooking(Integer bookingId) {
         try {
-            Optional<Booking> bookingOpt = bookingDAO.getBookingById(bookingId);
-            if (bookingOpt.isPresent()) {
-                return bookingDAO.updateBookingStatus(bookingId, "CANCELLED");
-            }
-            return false;
+            return bookingService.cancelBooking(bookingId);
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
                 "Failed to cancel user booking: " + e.getMessage(), e);
@@ -180,11 +181,7 @@ public class AdminService {
      */
     public BigDecimal getTotalRevenue() {
         try {
-            List<Booking> allBookings = getAllBookings();
-            return allBookings.stream()
-                    .filter(booking -> "PAID".equals(booking.getStatus()))
-                    .map(Booking::getTotalPrice)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            return statisticsDAO.getTotalAmountByStatus("PAID");
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
                 "Failed to get total revenue: " + e.getMessage(), e);
@@ -196,28 +193,49 @@ public class AdminService {
      */
     public String getMostPopularHotel() {
         try {
-            List<Hotel> hotels = hotelDAO.getAllHotels();
-            Hotel mostPopular = null;
-            int maxBookings = 0;
-            
-            for (Hotel hotel : hotels) {
-                List<Booking> hotelBookings = bookingDAO.getBookingsByHotelId(hotel.getId());
-                int paidBookings = (int) hotelBookings.stream()
-                        .filter(booking -> "PAID".equals(booking.getStatus()))
-                        .count();
-                
-                if (paidBookings > maxBookings) {
-                    maxBookings = paidBookings;
-                    mostPopular = hotel;
-                }
-            }
-            
-            return mostPopular != null ? 
-                String.format("%s (%d bookings)", mostPopular.getName(), maxBookings) : 
+            List<HotelPopularity> top = statisticsDAO.getTopHotels("PAID", 1);
+            return !top.isEmpty() ? 
+                String.format("%s (%d bookings)", top.get(0).getHotelName(), top.get(0).getBookingCount()) : 
                 "No bookings yet";
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
                 "Failed to get popular hotels: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * Get the hotels with the most paid bookings
+     */
+    public List<HotelPopularity> getTopHotels(int limit) {
+        try {
+            return statisticsDAO.getTopHotels("PAID", limit);
+        } catch (Exception e) {
+            throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
+                "Failed to get popular hotels: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Export all bookings as CSV, streaming row by row
+     * @return number of bookings written
+     */
+    public int exportBookingsCsv(Writer out) {
+        try (Stream<Booking> bookings = bookingDAO.streamAllBookings()) {
+            out.write("id,booking_id,user_id,hotel_id,room_id,check_in_date,check_out_date,total_price,status,created_at\n");
+            int rows = 0;
+            Iterator<Booking> it = bookings.iterator();
+            while (it.hasNext()) {
+                Booking b = it.next();
+                out.write(b.getId() + "," + b.getBookingId() + "," + b.getUserId() + "," + b.getHotelId() + ","
+                        + b.getRoomId() + "," + b.getCheckInDate() + "," + b.getCheckOutDate() + ","
+                        + b.getTotalPrice() + "," + b.getStatus() + "," + b.getCreatedAt() + "\n");
+                rows++;
+            }
+            out.flush();
+            return rows;
+        } catch (Exception e) {
+            throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
+                "Failed to export bookings: " + e.getMessage(), e);
+        }
+    }
 }
\ No newline at end of file
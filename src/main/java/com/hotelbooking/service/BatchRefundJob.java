@@ -0,0 +1,234 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dao.BookingDAO;
+import com.hotelbooking.dao.PaymentDAO;
+import com.hotelbooking.dto.BookingFilter;
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
+import com.hotelbooking.dto.RefundBatchReport;
+import com.hotelbooking.entity.Booking;
+import com.hotelbooking.entity.Payment;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Refunds many bookings at once, e.g. when a hotel closes or an admin cancels in bulk.
+ *
+ * Bookings are handled in chunks: one query loads the payments of the whole
+ * chunk, the amounts come from the cancellation policy
+ * (PaymentService.refundAmount), up to parallelism refunds run against the
+ * gateway at the same time, and the approved ones are recorded in one JDBC
+ * batch with the amount returned: REFUNDED for the whole payment,
+ * PARTIALLY_REFUNDED for less. Payments the policy refunds nothing for are
+ * skipped and stay COMPLETED. A report goes to the progress listener after
+ * every chunk.
+ *
+ * Only COMPLETED payments are refunded and the batch update only touches rows
+ * still COMPLETED, so a run can simply be repeated for the failed bookings; a
+ * repeat sends the same refund key (PaymentGateway.refundKey), so the gateway
+ * does not pay twice a refund that went through but was not recorded. Keep
+ * parallelism below the gateway's maxConcurrent so interactive payments still
+ * get through during a run.
+ */
+public class BatchRefundJob {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+    public static final int DEFAULT_CHUNK_SIZE = Page.MAX_SIZE;
+
+    private final PaymentDAO paymentDAO;
+    private final BookingDAO bookingDAO;
+    private final PaymentGateway paymentGateway;
+    private final int parallelism;
+    private final int chunkSize;
+
+    public BatchRefundJob() {
+        this(new PaymentDAO(), new BookingDAO(), ResilientPaymentGateway.getInstance(),
+                DEFAULT_PARALLELISM, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchRefundJob(PaymentDAO paymentDAO, BookingDAO bookingDAO, PaymentGateway paymentGateway,
+                          int parallelism, int chunkSize) {
+        if (parallelism <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("parallelism and chunkSize must be positive");
+        }
+        this.paymentDAO = paymentDAO;
+        this.bookingDAO = bookingDAO;
+        this.paymentGateway = paymentGateway;
+        this.parallelism = parallelism;
+        this.chunkSize = Math.min(chunkSize, Page.MAX_SIZE);
+    }
+
+    /**
+     * Refund the bookings with these booking numbers; unknown numbers are skipped
+     */
+    public RefundBatchReport refundBookings(Collection<String> bookingIds, Consumer<RefundBatchReport> progress) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(bookingIds));
+        try (Run run = new Run(progress)) {
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<String> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                run.process(bookingDAO.getBookingsByBookingIds(chunk), chunk.size());
+            }
+            return run.finish();
+        }
+    }
+
+    /**
+     * Refund every booking the filter matches, e.g. BookingFilter.all().hotels(Set.of(hotelId))
+     */
+    public RefundBatchReport refundBookings(BookingFilter filter, Consumer<RefundBatchReport> progress) {
+        try (Run run = new Run(progress)) {
+            PageCursor after = null;
+            Page<Booking> page;
+            do {
+                page = bookingDAO.findBookings(filter, after, chunkSize);
+                run.process(page.getItems(), page.size());
+                after = PageCursor.decode(page.getNextCursor());
+            } while (page.hasNext());
+            return run.finish();
+        }
+    }
+
+    /**
+     * Counters and gateway threads of one call to refundBookings
+     */
+    private class Run implements AutoCloseable {
+        private final Consumer<RefundBatchReport> progress;
+        private final ExecutorService executor;
+        private final LocalDate today = LocalDate.now();
+        private final long start = System.nanoTime();
+        private final List<String> failedBookingIds = new ArrayList<>();
+        private BigDecimal refundedAmount = BigDecimal.ZERO;
+        private int processed;
+        private int refunded;
+        private int declined;
+        private int failed;
+        private int skipped;
+
+        Run(Consumer<RefundBatchReport> progress) {
+            this.progress = progress;
+            AtomicInteger count = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "refund-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+
+        /**
+         * Refund one chunk; requested counts the booking numbers asked for, found or not
+         */
+        void process(List<Booking> bookings, int requested) {
+            Map<String, LocalDate> checkInDates = new HashMap<>();
+            for (Booking booking : bookings) {
+                checkInDates.put(booking.getBookingId(), booking.getCheckInDate());
+            }
+
+            List<Payment> due = new ArrayList<>();
+            List<BigDecimal> amounts = new ArrayList<>();
+            for (Payment payment : paymentDAO.getPaymentsByBookingIds(checkInDates.keySet())) {
+                if (!"COMPLETED".equals(payment.getPaymentStatus())) {
+                    continue;
+                }
+                BigDecimal amount = PaymentService.refundAmount(payment.getAmount(),
+                        checkInDates.get(payment.getBookingId()), today);
+                if (amount.signum() > 0) {
+                    due.add(payment);
+                    amounts.add(amount);
+                }
+            }
+
+            // 并发调用网关，并发度由线程数限制
+            List<CompletableFuture<Boolean>> calls = new ArrayList<>();
+            for (int i = 0; i < due.size(); i++) {
+                Payment payment = due.get(i);
+                BigDecimal amount = amounts.get(i);
+                String refundKey = PaymentGateway.refundKey(payment, amount);
+                calls.add(CompletableFuture.supplyAsync(
+                        () -> paymentGateway.refund(payment, amount, refundKey), executor));
+            }
+
+            List<Payment> approved = new ArrayList<>();
+            for (int i = 0; i < calls.size(); i++) {
+                Payment payment = due.get(i);
+                try {
+                    if (calls.get(i).join()) {
+                        payment.setRefundAmount(amounts.get(i));
+                        approved.add(payment);
+                    } else {
+                        declined++;
+                    }
+                } catch (RuntimeException e) {
+                    fail(payment, e.getCause() != null ? e.getCause() : e);
+                }
+            }
+
+            record(approved);
+            processed += requested;
+            skipped += requested - (int) due.stream().map(Payment::getBookingId).distinct().count();
+            progress.accept(report(false));
+        }
+
+        private void record(List<Payment> approved) {
+            if (approved.isEmpty()) {
+                return;
+            }
+            List<String> updated;
+            try {
+                updated = paymentDAO.markRefunded(approved);
+            } catch (RuntimeException e) {
+                // 网关已退款但状态未写入；再次运行时退款键不变，网关幂等处理
+                for (Payment payment : approved) {
+                    fail(payment, e);
+                }
+                return;
+            }
+            Set<String> updatedIds = new HashSet<>(updated);
+            for (Payment payment : approved) {
+                if (updatedIds.contains(payment.getPaymentId())) {
+                    refunded++;
+                    refundedAmount = refundedAmount.add(payment.getRefundAmount());
+                }
+            }
+            // 其余支付已被其他流程退款
+            skipped += approved.size() - updated.size();
+        }
+
+        private void fail(Payment payment, Throwable cause) {
+            failed++;
+            failedBookingIds.add(payment.getBookingId());
+            System.err.println("Refund failed for booking " + payment.getBookingId() + ": " + cause.getMessage());
+        }
+
+        RefundBatchReport finish() {
+            RefundBatchReport report = report(true);
+            progress.accept(report);
+            return report;
+        }
+
+        private RefundBatchReport report(boolean finished) {
+            return new RefundBatchReport(processed, refunded, declined, failed, skipped, refundedAmount,
+                    failedBookingIds, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), finished);
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+}
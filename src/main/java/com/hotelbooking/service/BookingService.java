@@ -2,43 +2,74 @@ package com.hotelbooking.service;
 
 import com.hotelbooking.dao.BookingDAO;
 import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
+import com.hotelbooking.dto.ReservationResult;
 import com.hotelbooking.entity.Booking;
 import com.hotelbooking.entity.Room;
+import com.hotelbooking.util.CacheManager;
+import com.hotelbooking.util.DatabaseConnection;
+import com.hotelbooking.util.LruCache;
+import com.hotelbooking.util.TransactionManager;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 public class BookingService {
     private BookingDAO bookingDAO;
     private RoomDAO roomDAO;
+    private RoomInventory roomInventory;
+    private RoomCache roomCache;
+    /** Each user's full booking list, shared through CacheManager so writes from any DAO drop it */
+    private LruCache<Integer, List<Booking>> bookingsByUser;
     
     public BookingService(BookingDAO bookingDAO, RoomDAO roomDAO) {
+        this(bookingDAO, roomDAO, RoomInventory.getInstance(), RoomCache.getInstance(),
+                CacheManager.getInstance().region(CacheManager.BOOKINGS_BY_USER));
+    }
+    
+    public BookingService(BookingDAO bookingDAO, RoomDAO roomDAO, RoomInventory roomInventory) {
+        this(bookingDAO, roomDAO, roomInventory, new RoomCache(roomDAO));
+    }
+    
+    public BookingService(BookingDAO bookingDAO, RoomDAO roomDAO, RoomInventory roomInventory, RoomCache roomCache) {
+        this(bookingDAO, roomDAO, roomInventory, roomCache,
+                CacheManager.Policy.defaultFor(CacheManager.BOOKINGS_BY_USER).newCache());
+    }
+    
+    public BookingService(BookingDAO bookingDAO, RoomDAO roomDAO, RoomInventory roomInventory, RoomCache roomCache,
+                          LruCache<Integer, List<Booking>> bookingsByUser) {
         this.bookingDAO = bookingDAO;
         this.roomDAO = roomDAO;
+        this.roomInventory = roomInventory;
+        this.roomCache = roomCache;
+        this.bookingsByUser = bookingsByUser;
     }
     
     
     
     /**
 <<<<<<< HEAD
-     * Create booking
+     * Reserve a room for [checkInDate, checkOutDate); the claim is atomic in the database
      */
-    public Optional<Booking> createBooking(Integer userId, Integer hotelId, Integer roomId, 
+    public ReservationResult reserveRoom(Integer userId, Integer hotelId, Integer roomId, 
                                          LocalDate checkInDate, LocalDate checkOutDate) {
         // Validate dates
 =======
-     * 创建预订
+     * 原子预订房间，占用 [checkInDate, checkOutDate) 的房晚
      */
-    public Optional<Booking> createBooking(Integer userId, Integer hotelId, Integer roomId, 
+    public ReservationResult reserveRoom(Integer userId, Integer hotelId, Integer roomId, 
                                          LocalDate checkInDate, LocalDate checkOutDate) {
         // 验证日期
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
         if (checkInDate == null || checkOutDate == null || 
             checkInDate.isBefore(LocalDate.now()) || 
             !checkOutDate.isAfter(checkInDate)) {
-            return Optional.empty();
+            return ReservationResult.invalidDates();
         }
         
 <<<<<<< HEAD
@@ -46,13 +77,18 @@ public class BookingService {
 =======
         // 检查房间是否存在且可用
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-        Optional<Room> roomOpt = roomDAO.getRoomById(roomId);
+        Optional<Room> roomOpt = roomCache.getRoom(roomId);
         if (roomOpt.isEmpty() || !roomOpt.get().isAvailable()) {
-            return Optional.empty();
+            return ReservationResult.roomUnavailable();
         }
         
         Room room = roomOpt.get();
         
+        // In-memory pre-check; the database claim below is the source of truth
+        if (!roomInventory.tryReserve(roomId, checkInDate, checkOutDate)) {
+            return ReservationResult.conflict();
+        }
+        
 <<<<<<< HEAD
         // Calculate total price
 =======
@@ -70,17 +106,53 @@ public class BookingService {
         Booking booking = new Booking(userId, hotelId, roomId, checkInDate, checkOutDate, 
                                     totalPrice, "CONFIRMED");
         
-        Booking createdBooking = bookingDAO.createBooking(booking);
-        
-<<<<<<< HEAD
-        // Update room status to unavailable
-=======
-        // 更新房间状态为不可用
->>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-        room.setIsAvailable(false);
-        roomDAO.updateRoom(room);
+        ReservationResult result;
+        try {
+            result = bookingDAO.reserveRoom(booking);
+        } catch (RuntimeException e) {
+            roomInventory.release(roomId, checkInDate, checkOutDate);
+            throw e;
+        }
         
-        return Optional.of(createdBooking);
+        if (result.getStatus() == ReservationResult.Status.ROOM_UNAVAILABLE) {
+            roomInventory.release(roomId, checkInDate, checkOutDate);
+        } else if (result.getStatus() == ReservationResult.Status.CONFLICT) {
+            // The calendar let an overlapping stay through, so it is stale for this room; take the database's view
+            roomInventory.settle(roomId, checkInDate, checkOutDate);
+            roomInventory.reloadRoom(roomId);
+        } else if (result.isReserved()) {
+            // An enclosing unit of work may still roll the booking back; until it commits, rebuilds keep the claim
+            TransactionManager.afterCommit(() -> roomInventory.settle(roomId, checkInDate, checkOutDate));
+            TransactionManager.onRollback(() -> roomInventory.release(roomId, checkInDate, checkOutDate));
+            forgetBookings(userId);
+        }
+        return result;
+    }
+    
+    /**
+     * Create booking; empty if the dates are invalid or the room cannot be reserved
+     */
+    public Optional<Booking> createBooking(Integer userId, Integer hotelId, Integer roomId, 
+                                         LocalDate checkInDate, LocalDate checkOutDate) {
+        ReservationResult result = reserveRoom(userId, hotelId, roomId, checkInDate, checkOutDate);
+        return result.isReserved() ? Optional.of(result.getBooking()) : Optional.empty();
+    }
+    
+    /**
+     * Rooms of a hotel that are in service and free for [checkInDate, checkOutDate)
+     */
+    public List<Room> getAvailableRooms(Integer hotelId, LocalDate checkInDate, LocalDate checkOutDate) {
+        return filterAvailableRooms(roomCache.getRoomsByHotel(hotelId), checkInDate, checkOutDate);
+    }
+    
+    /**
+     * Keep only the rooms that can be booked for [checkInDate, checkOutDate)
+     */
+    public List<Room> filterAvailableRooms(List<Room> rooms, LocalDate checkInDate, LocalDate checkOutDate) {
+        if (checkInDate == null || checkOutDate == null || !checkOutDate.isAfter(checkInDate)) {
+            return List.of();
+        }
+        return roomInventory.filterAvailable(rooms, checkInDate, checkOutDate);
     }
     
     /**
@@ -102,7 +174,12 @@ public class BookingService {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
      */
     public List<Booking> getBookingsByUserId(Integer userId) {
-        return bookingDAO.getBookingsByUserId(userId);
+        List<Booking> cached = bookingsByUser.get(userId, id -> List.copyOf(bookingDAO.getBookingsByUserId(id)));
+        List<Booking> bookings = new ArrayList<>(cached.size());
+        for (Booking booking : cached) {
+            bookings.add(copy(booking));
+        }
+        return bookings;
     }
     
     /**
@@ -127,6 +204,27 @@ public class BookingService {
         return bookingDAO.getBookingsByStatus(status);
     }
     
+    /**
+     * Get one page of a user's bookings, newest first; a null status returns every status
+     */
+    public Page<Booking> getBookingsByUserId(Integer userId, String status, String cursor, int pageSize) {
+        return bookingDAO.getBookingsByUserId(userId, status, PageCursor.decode(cursor), pageSize);
+    }
+    
+    /**
+     * Get one page of a hotel's bookings, newest first
+     */
+    public Page<Booking> getBookingsByHotelId(Integer hotelId, String cursor, int pageSize) {
+        return bookingDAO.getBookingsByHotelId(hotelId, PageCursor.decode(cursor), pageSize);
+    }
+    
+    /**
+     * Get one page of bookings with the given status, newest first
+     */
+    public Page<Booking> getBookingsByStatus(String status, String cursor, int pageSize) {
+        return bookingDAO.getBookingsByStatus(status, PageCursor.decode(cursor), pageSize);
+    }
+    
     /**
 <<<<<<< HEAD
      * Cancel booking
@@ -135,33 +233,31 @@ public class BookingService {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
      */
     public boolean cancelBooking(Integer bookingId) {
-        Optional<Booking> bookingOpt = bookingDAO.getBookingById(bookingId);
-        if (bookingOpt.isPresent()) {
-            Booking booking = bookingOpt.get();
+        // Read and status change share one connection and one commit
+        return inRetriedTransaction(() -> {
+            Optional<Booking> bookingOpt = bookingDAO.getBookingById(bookingId);
+            if (bookingOpt.isPresent()) {
+                Booking booking = bookingOpt.get();
             
 <<<<<<< HEAD
-            // Update booking status
-            boolean updated = bookingDAO.updateBookingStatus(bookingId, "CANCELLED");
+                // Update booking status
+                boolean updated = bookingDAO.updateBookingStatus(bookingId, "CANCELLED");
             
-            if (updated) {
-                // Restore room availability
+                if (updated) {
+                    // Restore room availability
 =======
-            // 更新预订状态
-            boolean updated = bookingDAO.updateBookingStatus(bookingId, "CANCELLED");
+                // 更新预订状态
+                boolean updated = bookingDAO.updateBookingStatus(bookingId, "CANCELLED");
             
-            if (updated) {
-                // 恢复房间可用性
+                if (updated) {
+                    // 恢复房间可用性
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-                Optional<Room> roomOpt = roomDAO.getRoomById(booking.getRoomId());
-                if (roomOpt.isPresent()) {
-                    Room room = roomOpt.get();
-                    room.setIsAvailable(true);
-                    roomDAO.updateRoom(room);
+                    releaseNights(booking, "CANCELLED");
+                    return true;
                 }
-                return true;
             }
-        }
-        return false;
+            return false;
+        });
     }
     
     /**
@@ -172,7 +268,23 @@ public class BookingService {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
      */
     public boolean updateBookingStatus(Integer bookingId, String status) {
-        return bookingDAO.updateBookingStatus(bookingId, status);
+        if (RoomInventory.holdsNights(status)) {
+            boolean updated = bookingDAO.updateBookingStatus(bookingId, status);
+            if (updated) {
+                // The owner is not read on this path; drop whichever list holds the booking
+                TransactionManager.afterCommit(() -> bookingsByUser.invalidateValues(
+                        bookings -> bookings.stream().anyMatch(booking -> bookingId.equals(booking.getId()))));
+            }
+            return updated;
+        }
+        return inRetriedTransaction(() -> {
+            Optional<Booking> bookingOpt = bookingDAO.getBookingById(bookingId);
+            boolean updated = bookingDAO.updateBookingStatus(bookingId, status);
+            if (updated) {
+                bookingOpt.ifPresent(booking -> releaseNights(booking, status));
+            }
+            return updated;
+        });
     }
     
     /**
@@ -183,7 +295,14 @@ public class BookingService {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
      */
     public boolean deleteBooking(Integer bookingId) {
-        return bookingDAO.deleteBooking(bookingId);
+        return inRetriedTransaction(() -> {
+            Optional<Booking> bookingOpt = bookingDAO.getBookingById(bookingId);
+            boolean deleted = bookingDAO.deleteBooking(bookingId);
+            if (deleted) {
+                bookingOpt.ifPresent(booking -> releaseNights(booking, "CANCELLED"));
+            }
+            return deleted;
+        });
     }
     
     /**
@@ -194,32 +313,82 @@ public class BookingService {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
      */
     public boolean completeBooking(Integer bookingId) {
-        Optional<Booking> bookingOpt = bookingDAO.getBookingById(bookingId);
-        if (bookingOpt.isPresent()) {
-            Booking booking = bookingOpt.get();
+        // Read and status change share one connection and one commit
+        return inRetriedTransaction(() -> {
+            Optional<Booking> bookingOpt = bookingDAO.getBookingById(bookingId);
+            if (bookingOpt.isPresent()) {
+                Booking booking = bookingOpt.get();
             
 <<<<<<< HEAD
-            // Update booking status
-            boolean updated = bookingDAO.updateBookingStatus(bookingId, "COMPLETED");
+                // Update booking status
+                boolean updated = bookingDAO.updateBookingStatus(bookingId, "COMPLETED");
             
-            if (updated) {
-                // Restore room availability
+                if (updated) {
+                    // Restore room availability
 =======
-            // 更新预订状态
-            boolean updated = bookingDAO.updateBookingStatus(bookingId, "COMPLETED");
+                // 更新预订状态
+                boolean updated = bookingDAO.updateBookingStatus(bookingId, "COMPLETED");
             
-            if (updated) {
-                // 恢复房间可用性
+                if (updated) {
+                    // 恢复房间可用性
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-                Optional<Room> roomOpt = roomDAO.getRoomById(booking.getRoomId());
-                if (roomOpt.isPresent()) {
-                    Room room = roomOpt.get();
-                    room.setIsAvailable(true);
-                    roomDAO.updateRoom(room);
+                    releaseNights(booking, "COMPLETED");
+                    return true;
                 }
-                return true;
             }
+            return false;
+        });
+    }
+    
+    /**
+     * Run work in one transaction, from the start again if it hits a deadlock or lock timeout;
+     * work must leave in-memory changes to afterCommit
+     */
+    private <T> T inRetriedTransaction(Supplier<T> work) {
+        return DatabaseConnection.getRetryPolicy().execute(() -> TransactionManager.inTransaction(work));
+    }
+    
+    /**
+     * Give the nights of a booking that still held them back to the inventory,
+     * once the status change is committed
+     */
+    private void releaseNights(Booking booking, String newStatus) {
+        forgetBookings(booking.getUserId());
+        if (!RoomInventory.holdsNights(booking.getStatus())) {
+            return;
         }
-        return false;
+        LocalDate from = booking.getCheckInDate();
+        if ("COMPLETED".equals(newStatus) && from.isBefore(LocalDate.now())) {
+            // Nights already stayed are history; only the remaining ones go back on sale
+            from = LocalDate.now();
+        }
+        LocalDate releaseFrom = from;
+        TransactionManager.afterCommit(
+                () -> roomInventory.release(booking.getRoomId(), releaseFrom, booking.getCheckOutDate()));
+    }
+    
+    /**
+     * Drop the user's cached booking list once the change is committed
+     */
+    private void forgetBookings(Integer userId) {
+        TransactionManager.afterCommit(() -> bookingsByUser.invalidate(userId));
+    }
+    
+    /**
+     * Callers get their own copy so changes to it never reach the cached list
+     */
+    private static Booking copy(Booking booking) {
+        Booking copy = new Booking();
+        copy.setId(booking.getId());
+        copy.setBookingId(booking.getBookingId());
+        copy.setUserId(booking.getUserId());
+        copy.setHotelId(booking.getHotelId());
+        copy.setRoomId(booking.getRoomId());
+        copy.setCheckInDate(booking.getCheckInDate());
+        copy.setCheckOutDate(booking.getCheckOutDate());
+        copy.setTotalPrice(booking.getTotalPrice());
+        copy.setStatus(booking.getStatus());
+        copy.setCreatedAt(booking.getCreatedAt());
+        return copy;
     }
 }
\ No newline at end of file
@@ -0,0 +1,245 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.dao.StatisticsDAO;
+import com.hotelbooking.dto.Suggestion;
+import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Prefix autocomplete over hotel locations and names.
+ *
+ * Every word start of every suggestion becomes a key in one sorted array, so a
+ * prefix maps to a contiguous range found by binary search. A segment tree
+ * over the keys' popularity weights returns the heaviest key of any range, and
+ * the top-N of a range is taken by repeatedly splitting around that maximum;
+ * a query costs O(N log n) however many keys share the prefix.
+ *
+ * Weights are precomputed when the snapshot is built: a hotel weighs one plus
+ * its non-cancelled bookings and a location weighs the sum of its hotels.
+ * Snapshots are immutable; invalidate() drops the current one and the next
+ * query rebuilds it.
+ */
+public class HotelAutocomplete {
+
+    private static HotelAutocomplete instance;
+
+    private final Supplier<List<Hotel>> hotelLoader;
+    private final Supplier<Map<Integer, Long>> bookingCounts;
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param hotelLoader supplies every hotel
+     * @param bookingCounts supplies booking counts by hotel id, used as popularity
+     */
+    public HotelAutocomplete(Supplier<List<Hotel>> hotelLoader, Supplier<Map<Integer, Long>> bookingCounts) {
+        this.hotelLoader = hotelLoader;
+        this.bookingCounts = bookingCounts;
+    }
+
+    /**
+     * Shared autocomplete backed by the hotels and bookings tables
+     */
+    public static synchronized HotelAutocomplete getInstance() {
+        if (instance == null) {
+            HotelDAO hotelDAO = new HotelDAO();
+            StatisticsDAO statisticsDAO = new StatisticsDAO();
+            instance = new HotelAutocomplete(hotelDAO::getAllHotels, statisticsDAO::getBookingCountsByHotel);
+            DataChangeBus.subscribe(DataChange.Entity.HOTEL, change -> instance.invalidate());
+        }
+        return instance;
+    }
+
+    /**
+     * Rebuild the snapshot now
+     */
+    public synchronized void reload() {
+        snapshot = build(hotelLoader.get(), bookingCounts.get());
+    }
+
+    /**
+     * Drop the snapshot; the next query rebuilds it
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    /**
+     * Up to limit locations and hotel names with a word starting with prefix, most popular first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String query = normalize(prefix);
+        if (query.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current.top(query, limit);
+    }
+
+    private static Snapshot build(List<Hotel> hotels, Map<Integer, Long> bookings) {
+        Map<String, String> locationText = new LinkedHashMap<>();
+        Map<String, Long> locationWeight = new LinkedHashMap<>();
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (Hotel hotel : hotels) {
+            long weight = 1 + bookings.getOrDefault(hotel.getId(), 0L);
+            suggestions.add(new Suggestion(Suggestion.Type.HOTEL, hotel.getName().trim(), hotel.getId(), weight));
+            String location = normalize(hotel.getLocation());
+            if (!location.isEmpty()) {
+                locationText.putIfAbsent(location, hotel.getLocation().trim());
+                locationWeight.merge(location, weight, Long::sum);
+            }
+        }
+        for (Map.Entry<String, String> location : locationText.entrySet()) {
+            suggestions.add(new Suggestion(Suggestion.Type.LOCATION, location.getValue(), null,
+                    locationWeight.get(location.getKey())));
+        }
+
+        // 每个词首都作为一个键，"new york" 同时可由 "new" 和 "york" 命中
+        List<String> keyList = new ArrayList<>();
+        List<Integer> ownerList = new ArrayList<>();
+        for (int s = 0; s < suggestions.size(); s++) {
+            String text = normalize(suggestions.get(s).getText());
+            for (int i = 0; i < text.length(); i++) {
+                if (Character.isLetterOrDigit(text.charAt(i))
+                        && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                    keyList.add(text.substring(i));
+                    ownerList.add(s);
+                }
+            }
+        }
+        String[] unsorted = keyList.toArray(new String[0]);
+        Integer[] order = new Integer[unsorted.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> unsorted[a].compareTo(unsorted[b]));
+
+        String[] keys = new String[order.length];
+        int[] owners = new int[order.length];
+        long[] weights = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = unsorted[order[i]];
+            owners[i] = ownerList.get(order[i]);
+            weights[i] = suggestions.get(owners[i]).getWeight();
+        }
+        return new Snapshot(keys, owners, weights, suggestions.toArray(new Suggestion[0]));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Snapshot {
+        private final String[] keys;
+        private final int[] owners;
+        private final long[] weights;
+        private final Suggestion[] suggestions;
+        private final int[] tree;
+
+        private Snapshot(String[] keys, int[] owners, long[] weights, Suggestion[] suggestions) {
+            this.keys = keys;
+            this.owners = owners;
+            this.weights = weights;
+            this.suggestions = suggestions;
+            int n = keys.length;
+            this.tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                tree[i] = heavier(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        List<Suggestion> top(String prefix, int limit) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE) - 1;
+            List<Suggestion> result = new ArrayList<>();
+            if (from > to) {
+                return result;
+            }
+
+            // 堆中每项是一个键区间及其最大权重位置，弹出最大者后把区间一分为二
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> weights[a[2]] != weights[b[2]]
+                    ? Long.compare(weights[b[2]], weights[a[2]])
+                    : Integer.compare(a[2], b[2]));
+            ranges.add(new int[] { from, to, max(from, to) });
+            Set<Integer> seen = new HashSet<>();
+            while (!ranges.isEmpty() && result.size() < limit) {
+                int[] range = ranges.poll();
+                int best = range[2];
+                if (seen.add(owners[best])) {
+                    result.add(suggestions[owners[best]]);
+                }
+                if (range[0] < best) {
+                    ranges.add(new int[] { range[0], best - 1, max(range[0], best - 1) });
+                }
+                if (best < range[1]) {
+                    ranges.add(new int[] { best + 1, range[1], max(best + 1, range[1]) });
+                }
+            }
+            return result;
+        }
+
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Position of the heaviest key in [from, to]
+         */
+        private int max(int from, int to) {
+            int n = keys.length;
+            int best = from;
+            for (int l = from + n, r = to + n + 1; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    best = heavier(best, tree[l++]);
+                }
+                if ((r & 1) == 1) {
+                    best = heavier(best, tree[--r]);
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Heavier of two key positions; equal weights prefer the earlier key
+         */
+        private int heavier(int a, int b) {
+            if (weights[a] != weights[b]) {
+                return weights[a] > weights[b] ? a : b;
+            }
+            return Math.min(a, b);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of hotels.
+ *
+ * Single hotels are read through by id until the first full load; after it,
+ * an id that is not in the map does not exist and needs no query. The full
+ * list is an immutable snapshot sorted like HotelDAO.getAllHotels (by name).
+ * A write replaces one entry and publishes a new snapshot copy, so readers
+ * never lock and never see a half-applied change.
+ */
+public class HotelCache {
+
+    /** Same order as HotelDAO.getAllHotels, ties broken by id */
+    private static final Comparator<Hotel> BY_NAME = Comparator.comparing(Hotel::getName)
+            .thenComparing(Hotel::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private static HotelCache instance;
+
+    private final Supplier<List<Hotel>> allLoader;
+    private final Function<Integer, Optional<Hotel>> idLoader;
+    private final Map<Integer, Hotel> byId = new ConcurrentHashMap<>();
+    /** Null until the first full load; guarded by this for writes */
+    private volatile List<Hotel> snapshot;
+    /** Bumped by every write, so a read-through load that raced one is not stored */
+    private long writes;
+
+    /**
+     * @param allLoader supplies every hotel
+     * @param idLoader reads one hotel, used before the first full load
+     */
+    public HotelCache(Supplier<List<Hotel>> allLoader, Function<Integer, Optional<Hotel>> idLoader) {
+        this.allLoader = allLoader;
+        this.idLoader = idLoader;
+    }
+
+    /**
+     * Shared cache backed by the hotels table
+     */
+    public static synchronized HotelCache getInstance() {
+        if (instance == null) {
+            HotelDAO hotelDAO = new HotelDAO();
+            instance = new HotelCache(hotelDAO::getAllHotels, hotelDAO::getHotelById);
+            DataChangeBus.subscribe(DataChange.Entity.HOTEL, instance::onChange);
+        }
+        return instance;
+    }
+
+    /**
+     * Every hotel ordered by name, as an immutable list
+     */
+    public List<Hotel> getAll() {
+        List<Hotel> current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    List<Hotel> loaded = new ArrayList<>(allLoader.get());
+                    loaded.sort(BY_NAME);
+                    byId.clear();
+                    for (Hotel hotel : loaded) {
+                        if (hotel.getId() != null) {
+                            byId.put(hotel.getId(), hotel);
+                        }
+                    }
+                    snapshot = Collections.unmodifiableList(loaded);
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    public Optional<Hotel> get(Integer id) {
+        Hotel hotel = byId.get(id);
+        if (hotel != null || snapshot != null) {
+            return Optional.ofNullable(hotel);
+        }
+        long before;
+        synchronized (this) {
+            before = writes;
+        }
+        Optional<Hotel> loaded = idLoader.apply(id);
+        loaded.ifPresent(found -> {
+            synchronized (this) {
+                // 加载期间有过写入时结果可能已过时，只返回不缓存
+                if (before == writes && snapshot == null) {
+                    byId.put(found.getId(), found);
+                }
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Hotels whose location contains the text, ignoring case, ordered by name
+     */
+    public List<Hotel> getByLocation(String location) {
+        String query = location.trim().toLowerCase(Locale.ROOT);
+        List<Hotel> result = new ArrayList<>();
+        for (Hotel hotel : getAll()) {
+            if (hotel.getLocation() != null && hotel.getLocation().toLowerCase(Locale.ROOT).contains(query)) {
+                result.add(hotel);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Add a hotel or replace the cached copy with the same id
+     */
+    public synchronized void put(Hotel hotel) {
+        writes++;
+        byId.put(hotel.getId(), hotel);
+        if (snapshot != null) {
+            List<Hotel> next = without(hotel.getId());
+            int position = Collections.binarySearch(next, hotel, BY_NAME);
+            next.add(position < 0 ? -position - 1 : position, hotel);
+            snapshot = Collections.unmodifiableList(next);
+        }
+    }
+
+    public synchronized void remove(Integer id) {
+        writes++;
+        Hotel removed = byId.remove(id);
+        if (removed != null && snapshot != null) {
+            snapshot = Collections.unmodifiableList(without(id));
+        }
+    }
+
+    /**
+     * Forget everything; the next read goes back to the database
+     */
+    public synchronized void invalidate() {
+        writes++;
+        snapshot = null;
+        byId.clear();
+    }
+
+    /**
+     * Apply a committed hotel change from any writer: a deleted hotel is
+     * dropped, a created or updated one is read again and replaced on its own.
+     * Only a change without an id forgets everything.
+     */
+    public void onChange(DataChange change) {
+        if (change.getId() == null) {
+            invalidate();
+            return;
+        }
+        Integer id = (Integer) change.getId();
+        if (change.isDelete()) {
+            remove(id);
+            return;
+        }
+        synchronized (this) {
+            if (snapshot == null && !byId.containsKey(id)) {
+                // 尚未缓存该酒店，读穿时自然拿到新行
+                writes++;
+                return;
+            }
+        }
+        Optional<Hotel> current = idLoader.apply(id);
+        if (current.isPresent()) {
+            put(current.get());
+        } else {
+            remove(id);
+        }
+    }
+
+    private List<Hotel> without(Integer id) {
+        List<Hotel> copy = new ArrayList<>(snapshot.size() + 1);
+        for (Hotel hotel : snapshot) {
+            if (!id.equals(hotel.getId())) {
+                copy.add(hotel);
+            }
+        }
+        return copy;
+    }
+}
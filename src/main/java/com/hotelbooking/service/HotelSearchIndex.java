@@ -0,0 +1,596 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory trigram index over hotel name, location and description.
+ *
+ * Each hotel's lower-cased text is cut into overlapping three-character grams
+ * and every gram keeps a sorted list of hotel ids. A substring query looks up
+ * its own grams, intersects their id lists starting from the shortest and then
+ * confirms each candidate with a plain contains() check, so the cost follows
+ * the rarest gram in the query instead of the number of hotels. Word starts get
+ * an extra marker gram so prefix queries can jump straight to matching words.
+ * Queries shorter than the gram length scan the cached texts.
+ *
+ * For typo-tolerant search the distinct words of every name and location are
+ * also kept in a BK-tree keyed by Levenshtein distance, so the words within a
+ * small edit distance of a query word are found without comparing against the
+ * whole vocabulary.
+ */
+public class HotelSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final char WORD_START = '\u0002';
+    private static final char FIELD_SEPARATOR = '\n';
+    private static final Comparator<Hotel> BY_NAME =
+            Comparator.comparing(Hotel::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(Hotel::getId);
+
+    private static HotelSearchIndex instance;
+
+    private final Supplier<List<Hotel>> loader;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<Long, IdList> postings = new HashMap<>();
+    private final Map<String, IdList> words = new HashMap<>();
+    private BkTree vocabulary = new BkTree();
+    private volatile boolean loaded;
+
+    /**
+     * Empty index without a backing store
+     */
+    public HotelSearchIndex() {
+        this(null);
+    }
+
+    /**
+     * @param loader supplies every hotel; called on first use and on reload()
+     */
+    public HotelSearchIndex(Supplier<List<Hotel>> loader) {
+        this.loader = loader;
+        this.loaded = loader == null;
+    }
+
+    /**
+     * Shared index backed by the hotels table
+     */
+    public static synchronized HotelSearchIndex getInstance() {
+        if (instance == null) {
+            HotelDAO hotelDAO = new HotelDAO();
+            instance = new HotelSearchIndex(hotelDAO::getAllHotels);
+            // 新增和修改由 HotelService 写入；删除可能来自其他入口
+            DataChangeBus.subscribe(DataChange.Entity.HOTEL, change -> {
+                if (change.isDelete()) {
+                    instance.remove((Integer) change.getId());
+                }
+            });
+        }
+        return instance;
+    }
+
+    /**
+     * Rebuild the whole index from the backing store
+     */
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            postings.clear();
+            words.clear();
+            vocabulary = new BkTree();
+            if (loader != null) {
+                for (Hotel hotel : loader.get()) {
+                    addLocked(hotel);
+                }
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Hotels whose name, location or description contains the keyword, ordered by name
+     */
+    public List<Hotel> search(String keyword) {
+        String query = normalize(keyword);
+        return find(query, query.length() >= GRAM ? grams(query) : null, false);
+    }
+
+    /**
+     * Hotels with a word in name, location or description starting with the keyword, ordered by name
+     */
+    public List<Hotel> searchPrefix(String keyword) {
+        String query = normalize(keyword);
+        Set<Long> keys = null;
+        if (query.length() >= 2) {
+            keys = query.length() >= GRAM ? grams(query) : new LinkedHashSet<>();
+            keys.add(key(WORD_START, query.charAt(0), query.charAt(1)));
+        }
+        return find(query, keys, true);
+    }
+
+    /**
+     * Hotels whose name and location words match every keyword word within a few typos,
+     * best matches first and at most limit of them.
+     *
+     * Words of up to two characters must match exactly, up to four may be one edit
+     * away and longer words two. Hotels are ranked by the total edit distance, then by name.
+     */
+    public List<Hotel> searchFuzzy(String keyword, int limit) {
+        List<String> queryWords = tokenize(normalize(keyword));
+        if (queryWords.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        ensureLoaded();
+        PriorityQueue<Match> best = new PriorityQueue<>(Comparator.<Match>naturalOrder().reversed());
+        lock.readLock().lock();
+        try {
+            List<List<WordMatch>> matches = new ArrayList<>();
+            for (String word : queryWords) {
+                List<WordMatch> found = findWords(word);
+                if (found.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                matches.add(found);
+            }
+            // 候选最少的查询词驱动，其余词只做二分查找校验
+            matches.sort(Comparator.comparingInt(HotelSearchIndex::postingCount));
+
+            Set<Integer> seen = new HashSet<>();
+            for (WordMatch driver : matches.get(0)) {
+                for (int i = 0; i < driver.ids.size; i++) {
+                    int id = driver.ids.ids[i];
+                    if (!seen.add(id)) {
+                        continue;
+                    }
+                    int distance = driver.distance;
+                    for (int j = 1; j < matches.size() && distance >= 0; j++) {
+                        int wordDistance = bestDistance(matches.get(j), id);
+                        distance = wordDistance < 0 ? -1 : distance + wordDistance;
+                    }
+                    if (distance >= 0) {
+                        best.offer(new Match(entries.get(id).hotel, distance));
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(null);
+        List<Hotel> result = new ArrayList<>(ranked.size());
+        for (Match match : ranked) {
+            result.add(match.hotel);
+        }
+        return result;
+    }
+
+    /**
+     * Add a hotel or replace its indexed text; ignored until the index has loaded
+     */
+    public void put(Hotel hotel) {
+        if (hotel == null || hotel.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // 尚未加载时忽略，首次加载会从数据库读到最新数据
+            if (loaded) {
+                removeLocked(hotel.getId());
+                addLocked(hotel);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer hotelId) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                removeLocked(hotelId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Hotel> find(String query, Set<Long> keys, boolean prefix) {
+        ensureLoaded();
+        List<Hotel> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (keys == null) {
+                for (Entry entry : entries.values()) {
+                    if (matches(entry.text, query, prefix)) {
+                        result.add(entry.hotel);
+                    }
+                }
+            } else {
+                IdList[] lists = new IdList[keys.size()];
+                int n = 0;
+                for (Long key : keys) {
+                    IdList list = postings.get(key);
+                    if (list == null) {
+                        return result;
+                    }
+                    lists[n++] = list;
+                }
+                Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+                IdList smallest = lists[0];
+                candidates:
+                for (int i = 0; i < smallest.size; i++) {
+                    int id = smallest.ids[i];
+                    for (int j = 1; j < lists.length; j++) {
+                        if (!lists[j].contains(id)) {
+                            continue candidates;
+                        }
+                    }
+                    Entry entry = entries.get(id);
+                    if (matches(entry.text, query, prefix)) {
+                        result.add(entry.hotel);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        result.sort(BY_NAME);
+        return result;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    reload();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void addLocked(Hotel hotel) {
+        String text = text(hotel);
+        Set<String> hotelWords = new HashSet<>(tokenize(normalize(hotel.getName())));
+        hotelWords.addAll(tokenize(normalize(hotel.getLocation())));
+        entries.put(hotel.getId(), new Entry(hotel, text, hotelWords));
+        for (Long key : indexKeys(text)) {
+            postings.computeIfAbsent(key, k -> new IdList()).add(hotel.getId());
+        }
+        for (String word : hotelWords) {
+            words.computeIfAbsent(word, w -> {
+                vocabulary.add(w);
+                return new IdList();
+            }).add(hotel.getId());
+        }
+    }
+
+    private void removeLocked(Integer hotelId) {
+        Entry entry = entries.remove(hotelId);
+        if (entry == null) {
+            return;
+        }
+        for (Long key : indexKeys(entry.text)) {
+            IdList list = postings.get(key);
+            if (list != null && list.remove(hotelId) && list.size == 0) {
+                postings.remove(key);
+            }
+        }
+        // 词仍留在 BK 树中，查询时没有倒排的词会被跳过，重建时清理
+        for (String word : entry.words) {
+            IdList list = words.get(word);
+            if (list != null && list.remove(hotelId) && list.size == 0) {
+                words.remove(word);
+            }
+        }
+    }
+
+    private List<WordMatch> findWords(String word) {
+        int maxDistance = word.length() <= 2 ? 0 : word.length() <= 4 ? 1 : 2;
+        List<WordMatch> found = new ArrayList<>();
+        vocabulary.search(word, maxDistance, (candidate, distance) -> {
+            IdList ids = words.get(candidate);
+            if (ids != null) {
+                found.add(new WordMatch(ids, distance));
+            }
+        });
+        found.sort(Comparator.comparingInt(match -> match.distance));
+        return found;
+    }
+
+    private static int postingCount(List<WordMatch> matches) {
+        int count = 0;
+        for (WordMatch match : matches) {
+            count += match.ids.size;
+        }
+        return count;
+    }
+
+    private static int bestDistance(List<WordMatch> matches, int id) {
+        for (WordMatch match : matches) {
+            if (match.ids.contains(id)) {
+                return match.distance;
+            }
+        }
+        return -1;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Levenshtein distance with two rolling rows
+     */
+    private static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static boolean matches(String text, String query, boolean prefix) {
+        if (!prefix) {
+            return text.contains(query);
+        }
+        for (int i = text.indexOf(query); i >= 0; i = text.indexOf(query, i + 1)) {
+            if (isWordStart(text, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<Long> indexKeys(String text) {
+        Set<Long> keys = grams(text);
+        for (int i = 0; i < text.length(); i++) {
+            if (isWordStart(text, i)) {
+                char next = i + 1 < text.length() ? text.charAt(i + 1) : ' ';
+                keys.add(key(WORD_START, text.charAt(i), next));
+            }
+        }
+        return keys;
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> keys = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            keys.add(key(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2)));
+        }
+        return keys;
+    }
+
+    private static boolean isWordStart(String text, int i) {
+        return Character.isLetterOrDigit(text.charAt(i))
+                && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)));
+    }
+
+    private static long key(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static String text(Hotel hotel) {
+        return normalize(hotel.getName()) + FIELD_SEPARATOR
+                + normalize(hotel.getLocation()) + FIELD_SEPARATOR
+                + normalize(hotel.getDescription());
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final Hotel hotel;
+        private final String text;
+        private final Set<String> words;
+
+        private Entry(Hotel hotel, String text, Set<String> words) {
+            this.hotel = hotel;
+            this.text = text;
+            this.words = words;
+        }
+    }
+
+    private static final class WordMatch {
+        private final IdList ids;
+        private final int distance;
+
+        private WordMatch(IdList ids, int distance) {
+            this.ids = ids;
+            this.distance = distance;
+        }
+    }
+
+    private static final class Match implements Comparable<Match> {
+        private final Hotel hotel;
+        private final int distance;
+
+        private Match(Hotel hotel, int distance) {
+            this.hotel = hotel;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            int byDistance = Integer.compare(distance, other.distance);
+            return byDistance != 0 ? byDistance : BY_NAME.compare(hotel, other.hotel);
+        }
+    }
+
+    /**
+     * BK-tree: each child edge is labelled with its distance to the parent word, so by
+     * the triangle inequality a search only has to follow edges within maxDistance of
+     * the query's own distance to the parent
+     */
+    private static final class BkTree {
+        private Node root;
+
+        void add(String word) {
+            if (root == null) {
+                root = new Node(word);
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int d = distance(word, node.word);
+                if (d == 0) {
+                    return;
+                }
+                Node child = node.child(d);
+                if (child == null) {
+                    node.setChild(d, new Node(word));
+                    return;
+                }
+                node = child;
+            }
+        }
+
+        void search(String query, int maxDistance, WordVisitor visitor) {
+            if (root == null) {
+                return;
+            }
+            List<Node> pending = new ArrayList<>();
+            pending.add(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.remove(pending.size() - 1);
+                int d = distance(query, node.word);
+                if (d <= maxDistance) {
+                    visitor.visit(node.word, d);
+                }
+                int to = Math.min(d + maxDistance, node.children.length - 1);
+                for (int edge = Math.max(1, d - maxDistance); edge <= to; edge++) {
+                    if (node.children[edge] != null) {
+                        pending.add(node.children[edge]);
+                    }
+                }
+            }
+        }
+    }
+
+    private interface WordVisitor {
+        void visit(String word, int distance);
+    }
+
+    private static final class Node {
+        private final String word;
+        private Node[] children = new Node[0];
+
+        private Node(String word) {
+            this.word = word;
+        }
+
+        Node child(int distance) {
+            return distance < children.length ? children[distance] : null;
+        }
+
+        void setChild(int distance, Node child) {
+            if (distance >= children.length) {
+                children = Arrays.copyOf(children, distance + 1);
+            }
+            children[distance] = child;
+        }
+    }
+
+    /**
+     * Sorted, growable list of hotel ids; new hotels usually append at the end
+     */
+    private static final class IdList {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == 0 || ids[size - 1] < id) {
+                grow();
+                ids[size++] = id;
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return;
+            }
+            int insert = -pos - 1;
+            grow();
+            System.arraycopy(ids, insert, ids, insert + 1, size - insert);
+            ids[insert] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+        }
+    }
+}
@@ -6,64 +6,134 @@
 package com.hotelbooking.service;
 
 import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.dto.HotelAvailability;
+import com.hotelbooking.dto.HotelSummary;
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
+import com.hotelbooking.dto.StaySearch;
+import com.hotelbooking.dto.Suggestion;
 import com.hotelbooking.entity.Hotel;
 import com.hotelbooking.entity.Room;
 import com.hotelbooking.exception.BusinessException;
 import com.hotelbooking.exception.ErrorType;
 import com.hotelbooking.exception.ValidationException;
+import com.hotelbooking.util.LruCache;
+import com.hotelbooking.util.TransactionManager;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class HotelService {
     
+    private static final int DEFAULT_FUZZY_RESULTS = 20;
+    private static final int MAX_FUZZY_RESULTS = 100;
+    private static final int DEFAULT_SUGGESTIONS = 10;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_HOTEL_FILTER = 500;
+    
     private final HotelDAO hotelDAO;
+    private final HotelSearchIndex searchIndex;
+    private final HotelAutocomplete autocomplete;
+    private final RoomDAO roomDAO;
+    private final RoomInventory roomInventory;
+    private final HotelSummaryRegistry summaryRegistry;
+    private final SearchResultCache searchCache;
 <<<<<<< HEAD
-    private volatile List<Hotel> hotelCache; // Use volatile to ensure visibility
+    private final HotelCache hotelCache; // id -> hotel plus a sorted snapshot of all hotels
     
     // Default constructor
     public HotelService() {
         this.hotelDAO = new HotelDAO();
-        this.hotelCache = null; // Lazy initialization
+        this.searchIndex = HotelSearchIndex.getInstance();
+        this.autocomplete = HotelAutocomplete.getInstance();
+        this.roomDAO = new RoomDAO();
+        this.roomInventory = RoomInventory.getInstance();
+        this.summaryRegistry = HotelSummaryRegistry.getInstance();
+        this.searchCache = SearchResultCache.getInstance();
+        this.hotelCache = HotelCache.getInstance(); // Lazy initialization
     }
     
     // Support dependency injection
     public HotelService(HotelDAO hotelDAO) {
+        this(hotelDAO, null);
+    }
+    
+    HotelService(HotelDAO hotelDAO, HotelCache hotelCache) {
         this.hotelDAO = hotelDAO != null ? hotelDAO : new HotelDAO();
-        this.hotelCache = null; // Lazy initialization
+        this.searchIndex = new HotelSearchIndex(this.hotelDAO::getAllHotels);
+        this.autocomplete = new HotelAutocomplete(this.hotelDAO::getAllHotels, Collections::emptyMap);
+        this.roomDAO = new RoomDAO();
+        this.roomInventory = RoomInventory.getInstance();
+        this.summaryRegistry = HotelSummaryRegistry.getInstance();
+        this.searchCache = new SearchResultCache();
+        this.hotelCache = hotelCache != null ? hotelCache
+                : new HotelCache(this.hotelDAO::getAllHotels, this.hotelDAO::getHotelById); // Lazy initialization
     }
     
-    /**
-     * Get hotel cache (lazy loading)
+    public HotelService(HotelDAO hotelDAO, RoomDAO roomDAO, HotelSearchIndex searchIndex,
+                        HotelAutocomplete autocomplete, RoomInventory roomInventory,
+                        HotelSummaryRegistry summaryRegistry, SearchResultCache searchCache) {
+        this.hotelDAO = hotelDAO;
+        this.roomDAO = roomDAO;
+        this.searchIndex = searchIndex;
+        this.autocomplete = autocomplete;
+        this.roomInventory = roomInventory;
+        this.summaryRegistry = summaryRegistry;
+        this.searchCache = searchCache;
+        this.hotelCache = new HotelCache(hotelDAO::getAllHotels, hotelDAO::getHotelById);
+    }
 =======
-    private volatile List<Hotel> hotelCache; // 使用 volatile 保证可见性
+    private final HotelCache hotelCache; // 按 ID 的酒店映射及按名称排序的全量快照
     
     // 默认构造
     public HotelService() {
         this.hotelDAO = new HotelDAO();
-        this.hotelCache = null; // 延迟初始化
+        this.searchIndex = HotelSearchIndex.getInstance();
+        this.autocomplete = HotelAutocomplete.getInstance();
+        this.roomDAO = new RoomDAO();
+        this.roomInventory = RoomInventory.getInstance();
+        this.summaryRegistry = HotelSummaryRegistry.getInstance();
+        this.searchCache = SearchResultCache.getInstance();
+        this.hotelCache = HotelCache.getInstance(); // 延迟初始化
     }
     
     // 支持依赖注入
     public HotelService(HotelDAO hotelDAO) {
+        this(hotelDAO, null);
+    }
+    
+    HotelService(HotelDAO hotelDAO, HotelCache hotelCache) {
         this.hotelDAO = hotelDAO != null ? hotelDAO : new HotelDAO();
-        this.hotelCache = null; // 延迟初始化
+        this.searchIndex = new HotelSearchIndex(this.hotelDAO::getAllHotels);
+        this.autocomplete = new HotelAutocomplete(this.hotelDAO::getAllHotels, Collections::emptyMap);
+        this.roomDAO = new RoomDAO();
+        this.roomInventory = RoomInventory.getInstance();
+        this.summaryRegistry = HotelSummaryRegistry.getInstance();
+        this.searchCache = new SearchResultCache();
+        this.hotelCache = hotelCache != null ? hotelCache
+                : new HotelCache(this.hotelDAO::getAllHotels, this.hotelDAO::getHotelById); // 延迟初始化
     }
     
-    /**
-     * 获取酒店缓存（懒加载）
->>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-     */
-    private List<Hotel> getHotelCache() {
-        if (hotelCache == null) {
-            synchronized (this) {
-                if (hotelCache == null) {
-                    hotelCache = hotelDAO.getAllHotels();
-                }
-            }
-        }
-        return hotelCache;
+    public HotelService(HotelDAO hotelDAO, RoomDAO roomDAO, HotelSearchIndex searchIndex,
+                        HotelAutocomplete autocomplete, RoomInventory roomInventory,
+                        HotelSummaryRegistry summaryRegistry, SearchResultCache searchCache) {
+        this.hotelDAO = hotelDAO;
+        this.roomDAO = roomDAO;
+        this.searchIndex = searchIndex;
+        this.autocomplete = autocomplete;
+        this.roomInventory = roomInventory;
+        this.summaryRegistry = summaryRegistry;
+        this.searchCache = searchCache;
+        this.hotelCache = new HotelCache(hotelDAO::getAllHotels, hotelDAO::getHotelById);
     }
+>>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
     
     /**
 <<<<<<< HEAD
@@ -73,9 +143,8 @@ public class HotelService {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
      */
     public void clearCache() {
-        synchronized (this) {
-            hotelCache = null;
-        }
+        hotelCache.invalidate();
+        searchCache.invalidateAll();
     }
     
     /**
@@ -98,11 +167,14 @@ public class HotelService {
             Hotel createdHotel = hotelDAO.createHotel(hotel);
             
 <<<<<<< HEAD
-            // Clear cache after successful creation
+            // Only the new hotel is added to the cache after commit
 =======
-            // 创建成功后清空缓存
+            // 提交后只把新酒店加入缓存
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-            clearCache();
+            TransactionManager.afterCommit(() -> hotelCache.put(createdHotel));
+            TransactionManager.afterCommit(() -> searchIndex.put(createdHotel));
+            TransactionManager.afterCommit(autocomplete::invalidate);
+            TransactionManager.afterCommit(searchCache::invalidateAll);
             
             return createdHotel;
         } catch (ValidationException e) {
@@ -155,7 +227,7 @@ public class HotelService {
      */
     public Optional<Hotel> getHotelById(Integer id) {
         try {
-            return hotelDAO.getHotelById(id);
+            return hotelCache.get(id);
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
 <<<<<<< HEAD
@@ -175,7 +247,7 @@ public class HotelService {
      */
     public List<Hotel> getAllHotels() {
         try {
-            return hotelDAO.getAllHotels();
+            return hotelCache.getAll();
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
 <<<<<<< HEAD
@@ -186,6 +258,19 @@ public class HotelService {
         }
     }
     
+    /**
+     * Get one page of hotels ordered by name; a null cursor starts from the first page
+     */
+    public Page<Hotel> getHotels(String cursor, int pageSize) {
+        PageCursor after = PageCursor.decode(cursor);
+        try {
+            return hotelDAO.getHotels(after, pageSize);
+        } catch (Exception e) {
+            throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
+                "Failed to get hotel list: " + e.getMessage(), e);
+        }
+    }
+    
     /**
 <<<<<<< HEAD
      * Get hotels by location
@@ -198,7 +283,7 @@ public class HotelService {
             if (location == null || location.trim().isEmpty()) {
                 return List.of();
             }
-            return hotelDAO.getHotelsByLocation(location.trim());
+            return hotelCache.getByLocation(location);
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
 <<<<<<< HEAD
@@ -224,10 +309,13 @@ public class HotelService {
             boolean result = hotelDAO.updateHotel(hotel);
             if (result) {
 <<<<<<< HEAD
-                clearCache(); // Clear cache after successful update
+                TransactionManager.afterCommit(() -> hotelCache.put(hotel)); // Replace only this hotel after commit
 =======
-                clearCache(); // 更新成功后清空缓存
+                TransactionManager.afterCommit(() -> hotelCache.put(hotel)); // 提交后只替换该酒店
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
+                TransactionManager.afterCommit(() -> searchIndex.put(hotel));
+                TransactionManager.afterCommit(autocomplete::invalidate);
+                TransactionManager.afterCommit(searchCache::invalidateAll);
             }
             return result;
         } catch (Exception e) {
@@ -252,10 +340,13 @@ public class HotelService {
             boolean result = hotelDAO.deleteHotel(hotelId);
             if (result) {
 <<<<<<< HEAD
-                clearCache(); // Clear cache after successful deletion
+                TransactionManager.afterCommit(() -> hotelCache.remove(hotelId)); // Drop only this hotel after commit
 =======
-                clearCache(); // 删除成功后清空缓存
+                TransactionManager.afterCommit(() -> hotelCache.remove(hotelId)); // 提交后只移除该酒店
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
+                TransactionManager.afterCommit(() -> searchIndex.remove(hotelId));
+                TransactionManager.afterCommit(autocomplete::invalidate);
+                TransactionManager.afterCommit(searchCache::invalidateAll);
             }
             return result;
         } catch (Exception e) {
@@ -277,10 +368,13 @@ public class HotelService {
      */
     public List<Hotel> searchHotels(String keyword) {
         try {
-            if (keyword == null || keyword.trim().isEmpty()) {
-                return getAllHotels();
-            }
-            return hotelDAO.searchHotels(keyword.trim());
+            return searchCache.get(SearchResultCache.keywordKey(keyword), () -> {
+                if (keyword == null || keyword.trim().isEmpty()) {
+                    return getAllHotels();
+                }
+                // 走内存三元组索引，不再对 hotels 表做 LIKE 全表扫描
+                return searchIndex.search(keyword);
+            });
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR,
 <<<<<<< HEAD
@@ -291,6 +385,132 @@ public class HotelService {
         }
     }
     
+    /**
+     * Typo-tolerant search over hotel names and locations, best matches first
+     */
+    public List<Hotel> searchHotelsFuzzy(String keyword, int limit) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        int topK = limit > 0 ? Math.min(limit, MAX_FUZZY_RESULTS) : DEFAULT_FUZZY_RESULTS;
+        try {
+            return searchCache.get(SearchResultCache.fuzzyKey(keyword, topK),
+                () -> searchIndex.searchFuzzy(keyword, topK));
+        } catch (Exception e) {
+            throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR,
+                "Failed to search hotels: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Most popular locations and hotel names with a word starting with the prefix
+     */
+    public List<Suggestion> autocomplete(String prefix, int limit) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        int topN = limit > 0 ? Math.min(limit, MAX_SUGGESTIONS) : DEFAULT_SUGGESTIONS;
+        try {
+            return autocomplete.suggest(prefix, topN);
+        } catch (Exception e) {
+            throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR,
+                "Failed to load suggestions: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Hotels matching the keyword that can take the whole stay, cheapest first.
+     *
+     * Matching hotels come from the search index; their bookable rooms are read in a
+     * single query and checked against the room inventory, so the cost does not grow
+     * with one query per hotel. A hotel qualifies when it has at least the requested
+     * number of free rooms that each hold an even share of the party.
+     */
+    public List<HotelAvailability> searchAvailableHotels(StaySearch search) {
+        validateStaySearch(search);
+        // 键中带库存版本号，有新预订或取消后旧结果自然不再命中
+        String key = SearchResultCache.stayKey(search.getKeyword(), search.getCheckIn(), search.getCheckOut(),
+                search.getGuestsPerRoom(), search.getRooms(), roomInventory.getVersion());
+        return searchCache.get(key, () -> findAvailableHotels(search));
+    }
+    
+    private List<HotelAvailability> findAvailableHotels(StaySearch search) {
+        List<Hotel> hotels = searchIndex.search(search.getKeyword() == null ? "" : search.getKeyword());
+        if (hotels.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Hotel> hotelsById = new HashMap<>();
+        for (Hotel hotel : hotels) {
+            hotelsById.put(hotel.getId(), hotel);
+        }
+        // 候选酒店不多时在 SQL 中按酒店过滤，否则整表读取后在内存中过滤
+        boolean filterInSql = search.getKeyword() != null && !search.getKeyword().trim().isEmpty()
+                && hotelsById.size() <= MAX_HOTEL_FILTER;
+
+        Map<Integer, Integer> freeRooms = new HashMap<>();
+        Map<Integer, BigDecimal> cheapest = new HashMap<>();
+        try (Stream<Room> rooms = roomDAO.streamRoomsForStay(filterInSql ? hotelsById.keySet() : null,
+                search.getGuestsPerRoom())) {
+            rooms.filter(room -> hotelsById.containsKey(room.getHotelId()))
+                 .filter(room -> roomInventory.isAvailable(room.getId(), search.getCheckIn(), search.getCheckOut()))
+                 .forEach(room -> {
+                     freeRooms.merge(room.getHotelId(), 1, Integer::sum);
+                     cheapest.merge(room.getHotelId(), room.getPrice(), BigDecimal::min);
+                 });
+        } catch (Exception e) {
+            throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR,
+                "Failed to search available hotels: " + e.getMessage(), e);
+        }
+
+        List<HotelAvailability> result = new ArrayList<>();
+        for (Hotel hotel : hotels) {
+            int free = freeRooms.getOrDefault(hotel.getId(), 0);
+            if (free >= search.getRooms()) {
+                result.add(new HotelAvailability(hotel, cheapest.get(hotel.getId()), free));
+            }
+        }
+        // 搜索结果已按名称排序，稳定排序后同价酒店仍按名称排列
+        result.sort(Comparator.comparing(HotelAvailability::getCheapestRate));
+        return result;
+    }
+    
+    private void validateStaySearch(StaySearch search) {
+        if (search == null || search.getCheckIn() == null || search.getCheckOut() == null) {
+            throw new ValidationException("Check-in and check-out dates are required");
+        }
+        if (!search.getCheckOut().isAfter(search.getCheckIn())) {
+            throw new ValidationException("Check-out date must be after check-in date");
+        }
+        if (search.getRooms() < 1) {
+            throw new ValidationException("At least one room is required");
+        }
+        if (search.getAdults() < 1 || search.getChildren() < 0) {
+            throw new ValidationException("At least one adult is required");
+        }
+    }
+    
+    /**
+     * Hit rate and size of the shared search result cache
+     */
+    public LruCache.Stats getSearchCacheStats() {
+        return searchCache.getStats();
+    }
+    
+    /**
+     * Price range and room counts of a hotel, read from memory without loading its rooms
+     */
+    public HotelSummary getHotelSummary(Integer hotelId) {
+        if (hotelId == null || hotelId <= 0) {
+            throw new ValidationException("Invalid hotel ID");
+        }
+        try {
+            return summaryRegistry.getSummary(hotelId);
+        } catch (Exception e) {
+            throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR,
+                "Failed to get hotel summary: " + e.getMessage(), e);
+        }
+    }
+    
     /**
 <<<<<<< HEAD
      * Get rooms by hotel ID
@@ -0,0 +1,213 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.dto.HotelSummary;
+import com.hotelbooking.entity.Room;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-hotel room summary kept in memory for search result cards.
+ *
+ * Loaded once from the rooms table, then kept in sync by RoomService after each
+ * successful room change, so a card can show "from $X" without reading the
+ * hotel's rooms. Only the changed hotel's summary is recomputed; readers get
+ * immutable snapshots and never block.
+ */
+public class HotelSummaryRegistry {
+
+    private static HotelSummaryRegistry instance;
+
+    private final Supplier<List<Room>> loader;
+    /** hotel id -> room id -> room; guarded by this */
+    private final Map<Integer, Map<Integer, Room>> roomsByHotel = new HashMap<>();
+    /** room id -> hotel id; guarded by this */
+    private final Map<Integer, Integer> hotelByRoom = new HashMap<>();
+    private final Map<Integer, HotelSummary> summaries = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * Empty registry without a backing store
+     */
+    public HotelSummaryRegistry() {
+        this(null);
+    }
+
+    /**
+     * @param loader supplies every room; called on first use and on reload()
+     */
+    public HotelSummaryRegistry(Supplier<List<Room>> loader) {
+        this.loader = loader;
+        this.loaded = loader == null;
+    }
+
+    /**
+     * Shared registry backed by the rooms table
+     */
+    public static synchronized HotelSummaryRegistry getInstance() {
+        if (instance == null) {
+            RoomDAO roomDAO = new RoomDAO();
+            instance = new HotelSummaryRegistry(roomDAO::getAllRooms);
+            DataChangeBus.subscribe(DataChange.Entity.ROOM, instance::onChange);
+        }
+        return instance;
+    }
+
+    /**
+     * Rebuild every summary from the backing store
+     */
+    public synchronized void reload() {
+        roomsByHotel.clear();
+        hotelByRoom.clear();
+        summaries.clear();
+        if (loader != null) {
+            for (Room room : loader.get()) {
+                index(room);
+            }
+            for (Integer hotelId : roomsByHotel.keySet()) {
+                refresh(hotelId);
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Summary of the hotel; a hotel without rooms has zero counts and no prices
+     */
+    public HotelSummary getSummary(Integer hotelId) {
+        ensureLoaded();
+        HotelSummary summary = summaries.get(hotelId);
+        return summary != null ? summary : summarize(hotelId, Map.of());
+    }
+
+    /**
+     * Add a room or replace its figures; ignored until the registry has loaded
+     */
+    public synchronized void put(Room room) {
+        if (!loaded || room == null || room.getId() == null) {
+            return;
+        }
+        // 房间可能换了酒店，先从旧酒店移除
+        Integer previousHotel = unindex(room.getId());
+        index(room);
+        if (previousHotel != null && !previousHotel.equals(room.getHotelId())) {
+            refresh(previousHotel);
+        }
+        refresh(room.getHotelId());
+    }
+
+    /**
+     * Change the nightly price of a known room
+     */
+    public synchronized void updatePrice(Integer roomId, BigDecimal price) {
+        if (!loaded) {
+            return;
+        }
+        Integer hotelId = hotelByRoom.get(roomId);
+        if (hotelId != null) {
+            roomsByHotel.get(hotelId).get(roomId).setPricePerNight(price.doubleValue());
+            refresh(hotelId);
+        }
+    }
+
+    public synchronized void remove(Integer roomId) {
+        if (!loaded) {
+            return;
+        }
+        Integer hotelId = unindex(roomId);
+        if (hotelId != null) {
+            refresh(hotelId);
+        }
+    }
+
+    /**
+     * Forget every room of a deleted hotel
+     */
+    public synchronized void removeHotel(Integer hotelId) {
+        if (!loaded) {
+            return;
+        }
+        Map<Integer, Room> rooms = roomsByHotel.remove(hotelId);
+        if (rooms != null) {
+            hotelByRoom.keySet().removeAll(rooms.keySet());
+        }
+        summaries.remove(hotelId);
+    }
+
+    /**
+     * Apply a committed room deletion from any writer; RoomService puts changed rooms itself
+     */
+    public void onChange(DataChange change) {
+        if (!change.isDelete()) {
+            return;
+        }
+        if (change.getId() != null) {
+            remove((Integer) change.getId());
+        } else if (change.getOwnerId() != null) {
+            removeHotel((Integer) change.getOwnerId());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    private void index(Room room) {
+        // 保存副本，调用方之后修改 Room 对象不会绕过 put() 影响汇总
+        Room copy = new Room(room.getHotelId(), room.getRoomNumber(), room.getRoomType(),
+                room.getPricePerNight(), room.getMaxOccupancy(), room.isAvailable(), room.getDescription());
+        copy.setId(room.getId());
+        roomsByHotel.computeIfAbsent(room.getHotelId(), id -> new HashMap<>()).put(room.getId(), copy);
+        hotelByRoom.put(room.getId(), room.getHotelId());
+    }
+
+    private Integer unindex(Integer roomId) {
+        Integer hotelId = hotelByRoom.remove(roomId);
+        if (hotelId != null) {
+            roomsByHotel.get(hotelId).remove(roomId);
+        }
+        return hotelId;
+    }
+
+    private void refresh(Integer hotelId) {
+        Map<Integer, Room> rooms = roomsByHotel.get(hotelId);
+        if (rooms == null || rooms.isEmpty()) {
+            roomsByHotel.remove(hotelId);
+            summaries.remove(hotelId);
+        } else {
+            summaries.put(hotelId, summarize(hotelId, rooms));
+        }
+    }
+
+    private static HotelSummary summarize(Integer hotelId, Map<Integer, Room> rooms) {
+        BigDecimal minPrice = null;
+        BigDecimal maxPrice = null;
+        int availableCount = 0;
+        int maxOccupancy = 0;
+        Map<String, Integer> byType = new TreeMap<>();
+        for (Room room : rooms.values()) {
+            byType.merge(room.getRoomType(), 1, Integer::sum);
+            maxOccupancy = Math.max(maxOccupancy, room.getMaxOccupancy());
+            if (room.isAvailable()) {
+                availableCount++;
+                BigDecimal price = room.getPrice();
+                minPrice = minPrice == null || price.compareTo(minPrice) < 0 ? price : minPrice;
+                maxPrice = maxPrice == null || price.compareTo(maxPrice) > 0 ? price : maxPrice;
+            }
+        }
+        return new HotelSummary(hotelId, minPrice, maxPrice, rooms.size(), availableCount, maxOccupancy, byType);
+    }
+}
@@ -0,0 +1,48 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.entity.Payment;
+import java.math.BigDecimal;
+
+/**
+ * Provider that moves the money for a payment.
+ *
+ * Implementations are found with java.util.ServiceLoader, so a real provider
+ * is plugged in by putting its jar, with a
+ * META-INF/services/com.hotelbooking.service.PaymentGateway entry, on the
+ * class path; without one SimulatedPaymentGateway stands in. Services reach
+ * the provider through ResilientPaymentGateway.
+ *
+ * A false result is a decline by the provider. Any exception means the
+ * provider could not answer, and counts against its circuit breaker.
+ * Unanswered calls are retried, so a provider must make them idempotent: a
+ * repeated charge of the same payment id, or a repeated refund with the same
+ * refund key, returns the first answer instead of moving the money again.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Charge the payment's amount with its payment method
+     *
+     * @return true if approved, false if declined
+     */
+    boolean charge(Payment payment);
+
+    /**
+     * Refund amount, at most the payment's amount, of a completed payment
+     *
+     * @param refundKey idempotency key of this refund, from refundKey(payment, amount)
+     * @return true if refunded, false if declined
+     */
+    boolean refund(Payment payment, BigDecimal amount, String refundKey);
+
+    /**
+     * Key of refunding amount of the payment, given the amount it has refunded so far.
+     * Retrying a refund that was not recorded gives the same key; a further partial
+     * refund, made once the earlier one is recorded, gives a new one
+     */
+    static String refundKey(Payment payment, BigDecimal amount) {
+        BigDecimal refunded = payment.getRefundAmount() != null ? payment.getRefundAmount() : BigDecimal.ZERO;
+        return payment.getPaymentId() + ":refund:" + refunded.stripTrailingZeros().toPlainString()
+                + ":" + amount.stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,173 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dao.PaymentDAO;
+import com.hotelbooking.dto.PaymentOutcome;
+import com.hotelbooking.entity.Payment;
+import com.hotelbooking.exception.BusinessException;
+import com.hotelbooking.exception.ErrorType;
+import com.hotelbooking.exception.PaymentUnrecordedException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs payments off the caller's thread, at most once per idempotency key.
+ *
+ * submit() returns at once with a future of the outcome. On a worker the key
+ * is claimed in the payment_requests table, listeners hear PENDING, the work
+ * runs, and its COMPLETED, FAILED or UNRECORDED (charged, but the payment
+ * record could not be updated) outcome is recorded and sent to the listeners
+ * before the future completes. A key submitted again while its
+ * payment runs gets the same future; once the key is recorded, from this or
+ * an earlier run of the application, the recorded outcome is returned without
+ * running the work. A key left PENDING by a crash is taken over by the next
+ * submit once it has been PENDING for longer than the claim timeout, which is
+ * kept well above the longest a payment can take (gateway timeouts and
+ * retries included) so a slow payment is not started twice.
+ *
+ * Workers and queue are bounded; a submit that finds the queue full fails with
+ * PAYMENT_FAILED without recording the key, so it can be retried as is.
+ */
+public class PaymentPipeline {
+
+    private static final int WORKERS = 4;
+    private static final int QUEUE_CAPACITY = 100;
+    public static final long DEFAULT_CLAIM_TIMEOUT_MILLIS = 5 * 60 * 1000L;
+
+    private static PaymentPipeline instance;
+
+    private final PaymentDAO paymentDAO;
+    private final Executor executor;
+    private final long claimTimeoutMillis;
+    private final Map<String, CompletableFuture<PaymentOutcome>> inFlight = new ConcurrentHashMap<>();
+    private final List<Consumer<PaymentOutcome>> listeners = new CopyOnWriteArrayList<>();
+
+    public PaymentPipeline(PaymentDAO paymentDAO, Executor executor) {
+        this(paymentDAO, executor, DEFAULT_CLAIM_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param claimTimeoutMillis how long a key may stay PENDING before another submit may take it over
+     */
+    public PaymentPipeline(PaymentDAO paymentDAO, Executor executor, long claimTimeoutMillis) {
+        this.paymentDAO = paymentDAO;
+        this.executor = executor;
+        this.claimTimeoutMillis = claimTimeoutMillis;
+    }
+
+    /**
+     * Shared pipeline with WORKERS daemon threads and room for QUEUE_CAPACITY waiting payments
+     */
+    public static synchronized PaymentPipeline getInstance() {
+        if (instance == null) {
+            instance = new PaymentPipeline(new PaymentDAO(), newExecutor(WORKERS, QUEUE_CAPACITY));
+        }
+        return instance;
+    }
+
+    /**
+     * Fixed pool of daemon threads with a bounded queue that rejects work when full
+     */
+    public static ThreadPoolExecutor newExecutor(int workers, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Call the listener with every state change of every payment: PENDING when
+     * one starts, then COMPLETED, FAILED or UNRECORDED. Listeners run on the
+     * payment worker.
+     *
+     * @return action that removes the listener again
+     */
+    public Runnable subscribe(Consumer<PaymentOutcome> listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    /**
+     * Run the work once for the idempotency key.
+     *
+     * @param work charges the payment and returns the completed record; throws
+     *             BusinessException when the payment is declined
+     * @return the outcome of this or the first submit of the key
+     */
+    public CompletableFuture<PaymentOutcome> submit(String idempotencyKey, Supplier<Payment> work) {
+        CompletableFuture<PaymentOutcome> future = new CompletableFuture<>();
+        CompletableFuture<PaymentOutcome> running = inFlight.putIfAbsent(idempotencyKey, future);
+        if (running != null) {
+            return running;
+        }
+        future.whenComplete((outcome, error) -> inFlight.remove(idempotencyKey, future));
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(process(idempotencyKey, work));
+                } catch (Throwable e) {
+                    // 包括 Error，否则调用方的 future 永远不会完成
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new BusinessException(ErrorType.PAYMENT_FAILED,
+                    "Too many payments in progress, please try again", e));
+        }
+        return future;
+    }
+
+    private PaymentOutcome process(String idempotencyKey, Supplier<Payment> work) {
+        if (!paymentDAO.claimPaymentRequest(idempotencyKey, claimTimeoutMillis)) {
+            // 该键已提交过，返回记录的结果，不再扣款
+            return paymentDAO.getPaymentRequest(idempotencyKey)
+                    .orElseGet(() -> PaymentOutcome.pending(idempotencyKey));
+        }
+        publish(PaymentOutcome.pending(idempotencyKey));
+
+        PaymentOutcome outcome;
+        try {
+            outcome = PaymentOutcome.completed(idempotencyKey, work.get());
+        } catch (PaymentUnrecordedException e) {
+            // 已扣款，记为 UNRECORDED 供对账，重复提交也不会再次扣款
+            outcome = PaymentOutcome.unrecorded(idempotencyKey, e.getBookingId(), e.getPaymentId(), e.getMessage());
+        } catch (BusinessException e) {
+            outcome = PaymentOutcome.failed(idempotencyKey, e.getMessage());
+        } catch (RuntimeException | Error e) {
+            // Error 同样记录结果，避免键一直停在 PENDING
+            outcome = PaymentOutcome.failed(idempotencyKey, "Payment system error: " + e.getMessage());
+        }
+
+        try {
+            paymentDAO.finishPaymentRequest(outcome);
+        } catch (RuntimeException e) {
+            // 支付结果已定，记录失败只影响之后的重复提交
+            System.err.println("Failed to record " + outcome + ": " + e.getMessage());
+        }
+        publish(outcome);
+        return outcome;
+    }
+
+    private void publish(PaymentOutcome outcome) {
+        for (Consumer<PaymentOutcome> listener : listeners) {
+            try {
+                listener.accept(outcome);
+            } catch (RuntimeException e) {
+                System.err.println("Payment listener failed for " + outcome + ": " + e.getMessage());
+            }
+        }
+    }
+}
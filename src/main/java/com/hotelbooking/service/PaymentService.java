@@ -1,29 +1,56 @@
 package com.hotelbooking.service;
 
 import com.hotelbooking.dao.PaymentDAO;
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
 import com.hotelbooking.entity.Payment;
 import com.hotelbooking.exception.BusinessException;
 import com.hotelbooking.exception.ErrorType;
+import com.hotelbooking.exception.PaymentUnrecordedException;
+import com.hotelbooking.util.DatabaseConnection;
+import com.hotelbooking.util.IdGenerator;
+import com.hotelbooking.util.TransactionManager;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 public class PaymentService {
     private PaymentDAO paymentDAO;
+    private PaymentGateway paymentGateway;
     
     public PaymentService(PaymentDAO paymentDAO) {
+        this(paymentDAO, ResilientPaymentGateway.getInstance());
+    }
+    
+    public PaymentService(PaymentDAO paymentDAO, PaymentGateway paymentGateway) {
         this.paymentDAO = paymentDAO;
+        this.paymentGateway = paymentGateway;
     }
     
     // 便捷构造函数
     public PaymentService() {
-        this.paymentDAO = new PaymentDAO();
+        this(new PaymentDAO());
     }
     
     /**
      * 处理支付
      */
     public boolean processPayment(String bookingId, BigDecimal amount, String paymentMethod) {
+        return pay(bookingId, amount, paymentMethod) != null;
+    }
+    
+    /**
+     * 处理支付并返回已完成的支付记录，支付失败时抛出 BusinessException；供 PaymentPipeline 的任务使用
+     */
+    public Payment chargePayment(String bookingId, BigDecimal amount, String paymentMethod) {
+        return completePayment(createPendingPayment(bookingId, amount, paymentMethod), () -> { });
+    }
+    
+    /**
+     * 创建 PENDING 支付记录；可与预订放在同一个短事务中，提交后再调用 completePayment
+     */
+    public Payment createPendingPayment(String bookingId, BigDecimal amount, String paymentMethod) {
         try {
             // 创建支付记录
             Payment payment = new Payment(bookingId, amount, paymentMethod);
@@ -36,23 +63,79 @@ public class PaymentService {
                 throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, "创建支付记录失败");
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
             }
+            return payment;
             
-            // 模拟支付处理（在实际项目中这里会调用第三方支付API）
-            boolean paymentSuccess = simulatePaymentProcessing(paymentMethod);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
+<<<<<<< HEAD
+                "Payment system error: " + e.getMessage(), e);
+=======
+                "支付系统错误: " + e.getMessage(), e);
+>>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
+        }
+    }
+    
+    /**
+     * 为已提交的 PENDING 支付调用网关并记录结果，返回已完成的支付记录，支付失败时抛出 BusinessException。
+     * 调用时不要打开事务：等待网关期间不占用连接和行锁。失败时 FAILED 状态与 onFailure（如取消预订）
+     * 在同一个短事务中提交；网关已扣款但记录更新失败时不调用 onFailure，抛出 PaymentUnrecordedException 以便对账
+     */
+    public Payment completePayment(Payment payment, Runnable onFailure) {
+        return settle(payment, onFailure);
+    }
+    
+    /**
+     * 创建 PENDING 支付记录、调用网关并记录结果
+     */
+    private Payment pay(String bookingId, BigDecimal amount, String paymentMethod) {
+        return settle(createPendingPayment(bookingId, amount, paymentMethod), () -> { });
+    }
+    
+    private Payment settle(Payment payment, Runnable onFailure) {
+        try {
+            // 调用支付网关；网关不可用或超时同样记为支付失败
+            boolean paymentSuccess;
+            BusinessException unavailable = null;
+            try {
+                paymentSuccess = paymentGateway.charge(payment);
+            } catch (BusinessException e) {
+                paymentSuccess = false;
+                unavailable = e;
+            }
             
             if (paymentSuccess) {
                 // 支付成功，更新支付状态
-                String transactionId = "TXN_" + System.currentTimeMillis();
-                return paymentDAO.updatePaymentStatus(payment.getPaymentId(), "COMPLETED", transactionId);
-            } else {
-                // 支付失败
+                String transactionId = IdGenerator.getInstance().nextId(IdGenerator.TRANSACTION);
+                payment.setTransactionId(transactionId);
+                boolean recorded;
+                try {
+                    recorded = paymentDAO.updatePaymentStatus(payment.getPaymentId(), "COMPLETED", transactionId);
+                } catch (RuntimeException e) {
+                    throw unrecorded(payment, e);
+                }
+                if (!recorded) {
+                    throw unrecorded(payment, null);
+                }
+                payment.setPaymentStatus("COMPLETED");
+                return payment;
+            }
+            
+            // 支付失败，记录保留为 FAILED 以便对账
+            DatabaseConnection.getRetryPolicy().run(() -> TransactionManager.runInTransaction(() -> {
                 paymentDAO.updatePaymentStatus(payment.getPaymentId(), "FAILED", null);
+                onFailure.run();
+            }));
+            payment.setPaymentStatus("FAILED");
+            if (unavailable != null) {
+                throw unavailable;
+            }
 <<<<<<< HEAD
-                throw new BusinessException(ErrorType.PAYMENT_FAILED, "Payment processing failed. Please try again or use a different payment method");
+            throw new BusinessException(ErrorType.PAYMENT_FAILED, "Payment processing failed. Please try again or use a different payment method");
 =======
-                throw new BusinessException(ErrorType.PAYMENT_FAILED, "支付处理失败，请重试或更换支付方式");
+            throw new BusinessException(ErrorType.PAYMENT_FAILED, "支付处理失败，请重试或更换支付方式");
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-            }
             
         } catch (BusinessException e) {
             throw e;
@@ -66,6 +149,16 @@ public class PaymentService {
         }
     }
     
+    /**
+     * 网关已扣款但记录仍为 PENDING：不是支付失败，不能取消预订，交由对账按交易号补记
+     */
+    private PaymentUnrecordedException unrecorded(Payment payment, Throwable cause) {
+        PaymentUnrecordedException e = new PaymentUnrecordedException(payment.getBookingId(),
+                payment.getPaymentId(), payment.getTransactionId(), cause);
+        System.err.println(e.getMessage() + ", reconcile before retrying");
+        return e;
+    }
+    
     /**
      * 处理退款
      */
@@ -88,12 +181,12 @@ public class PaymentService {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
             }
             
-            // 模拟退款处理
-            boolean refundSuccess = simulateRefundProcessing();
+            boolean refundSuccess = paymentGateway.refund(payment, payment.getAmount(),
+                    PaymentGateway.refundKey(payment, payment.getAmount()));
             
             if (refundSuccess) {
-                return paymentDAO.updatePaymentStatus(payment.getPaymentId(), "REFUNDED", 
-                    payment.getTransactionId() + "_REFUND");
+                payment.setRefundAmount(payment.getAmount());
+                return !paymentDAO.markRefunded(List.of(payment)).isEmpty();
             } else {
 <<<<<<< HEAD
                 throw new BusinessException(ErrorType.REFUND_FAILED, "Refund processing failed");
@@ -114,6 +207,19 @@ public class PaymentService {
         }
     }
     
+    /**
+     * 分页获取支付记录，按支付时间倒序
+     */
+    public Page<Payment> getPayments(String cursor, int pageSize) {
+        PageCursor after = PageCursor.decode(cursor);
+        try {
+            return paymentDAO.getPayments(after, pageSize);
+        } catch (Exception e) {
+            throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
+                "Failed to get payment list: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * 获取支付状态
      */
@@ -130,58 +236,17 @@ public class PaymentService {
         }
     }
     
-    /**
-     * 模拟支付处理（实际项目中替换为真实的支付网关调用）
-     */
-    private boolean simulatePaymentProcessing(String paymentMethod) {
-        // 模拟支付成功率：90%
-<<<<<<< HEAD
-        System.out.println("Simulating " + paymentMethod + " payment processing...");
-=======
-        System.out.println("模拟" + paymentMethod + "支付处理...");
->>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-        return Math.random() > 0.1;
-    }
-    
-    /**
-     * 模拟退款处理
-     */
-    private boolean simulateRefundProcessing() {
-        // 模拟退款成功率：95%
-<<<<<<< HEAD
-        System.out.println("Simulating refund processing...");
-=======
-        System.out.println("模拟退款处理...");
->>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-        return Math.random() > 0.05;
-    }
-    
     /**
      * 计算应退金额（根据取消政策）
      */
     public BigDecimal calculateRefundAmount(String bookingId, LocalDate checkInDate) {
         try {
-            LocalDate today = LocalDate.now();
-            long daysUntilCheckIn = java.time.temporal.ChronoUnit.DAYS.between(today, checkInDate);
-            
             Payment payment = paymentDAO.getPaymentByBookingId(bookingId);
             if (payment == null) {
                 return BigDecimal.ZERO;
             }
             
-            BigDecimal amount = payment.getAmount();
-            
-            // 取消政策：
-            // - 提前7天以上取消：全额退款
-            // - 提前3-7天取消：退款50%
-            // - 3天内取消：不退款
-            if (daysUntilCheckIn > 7) {
-                return amount;
-            } else if (daysUntilCheckIn > 3) {
-               return amount.multiply(new BigDecimal("0.5")).setScale(2, java.math.RoundingMode.HALF_UP);
-            } else {
-                return BigDecimal.ZERO;
-            }
+            return refundAmount(payment.getAmount(), checkInDate, LocalDate.now());
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
 <<<<<<< HEAD
@@ -191,4 +256,21 @@ public class PaymentService {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
         }
     }
+    
+    /**
+     * 取消政策：
+     * - 提前7天以上取消：全额退款
+     * - 提前3-7天取消：退款50%
+     * - 3天内取消：不退款
+     */
+    public static BigDecimal refundAmount(BigDecimal amount, LocalDate checkInDate, LocalDate today) {
+        long daysUntilCheckIn = java.time.temporal.ChronoUnit.DAYS.between(today, checkInDate);
+        if (daysUntilCheckIn > 7) {
+            return amount;
+        } else if (daysUntilCheckIn > 3) {
+            return amount.multiply(new BigDecimal("0.5")).setScale(2, java.math.RoundingMode.HALF_UP);
+        } else {
+            return BigDecimal.ZERO;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,316 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.entity.Payment;
+import com.hotelbooking.exception.BusinessException;
+import com.hotelbooking.exception.ErrorType;
+import com.hotelbooking.util.CircuitBreaker;
+import com.hotelbooking.util.RetryPolicy;
+import com.hotelbooking.util.Settings;
+import java.math.BigDecimal;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Guards every call to a payment provider, so a slow or failing provider
+ * costs callers a bounded wait instead of a stuck thread.
+ *
+ * At most maxConcurrent calls hold a gateway thread (the bulkhead); when all
+ * are taken a call is refused at once instead of queueing. A call without an
+ * answer after timeoutMillis is abandoned (its thread interrupted) and
+ * reported as failed, but keeps its place in the bulkhead until the provider
+ * returns; the provider may still complete it, which has to be reconciled
+ * with the provider. Failures and timeouts feed a circuit breaker
+ * that refuses calls while the provider is failing.
+ *
+ * Timeouts and provider errors are retried by the retry policy, relying on
+ * the provider treating the payment id as an idempotency key; what is left
+ * surfaces as BusinessException with EXTERNAL_SERVICE_ERROR. A full bulkhead
+ * or an open circuit means the gateway is already overloaded or failing, so
+ * those calls fail fast with SERVICE_UNAVAILABLE and are not retried.
+ * Declines are ordinary false results.
+ */
+public class ResilientPaymentGateway implements PaymentGateway {
+
+    /**
+     * Bulkhead, timeout and circuit breaker settings, read from the payment.gateway.* keys
+     */
+    public static class Config {
+        final int maxConcurrent;
+        final long timeoutMillis;
+        final int windowSize;
+        final int minimumCalls;
+        final double failureRateThreshold;
+        final long openMillis;
+
+        public Config(int maxConcurrent, long timeoutMillis, int windowSize, int minimumCalls,
+                      double failureRateThreshold, long openMillis) {
+            if (maxConcurrent <= 0) {
+                throw new IllegalArgumentException("payment.gateway.maxConcurrent must be positive: " + maxConcurrent);
+            }
+            this.maxConcurrent = maxConcurrent;
+            this.timeoutMillis = Math.max(1, timeoutMillis);
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            this.failureRateThreshold = failureRateThreshold;
+            this.openMillis = openMillis;
+        }
+
+        public static Config fromProperties(Properties props) {
+            return new Config(
+                Settings.intProperty(props, "payment.gateway.maxConcurrent", 8),
+                Settings.longProperty(props, "payment.gateway.timeoutMillis", 3_000L),
+                Settings.intProperty(props, "payment.gateway.circuit.windowSize", 20),
+                Settings.intProperty(props, "payment.gateway.circuit.minimumCalls", 10),
+                Settings.doubleProperty(props, "payment.gateway.circuit.failureRate", 0.5),
+                Settings.longProperty(props, "payment.gateway.circuit.openMillis", 30_000L)
+            );
+        }
+    }
+
+    /**
+     * Point-in-time view of the gateway counters
+     */
+    public static class Stats {
+        private final long calls;
+        private final long approved;
+        private final long declined;
+        private final long failures;
+        private final long timeouts;
+        private final long rejected;
+        private final long shortCircuited;
+        private final int inFlight;
+        private final long avgLatencyMillis;
+        private final long maxLatencyMillis;
+        private final CircuitBreaker.State circuitState;
+
+        Stats(long calls, long approved, long declined, long failures, long timeouts, long rejected,
+              long shortCircuited, int inFlight, long avgLatencyMillis, long maxLatencyMillis,
+              CircuitBreaker.State circuitState) {
+            this.calls = calls;
+            this.approved = approved;
+            this.declined = declined;
+            this.failures = failures;
+            this.timeouts = timeouts;
+            this.rejected = rejected;
+            this.shortCircuited = shortCircuited;
+            this.inFlight = inFlight;
+            this.avgLatencyMillis = avgLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+            this.circuitState = circuitState;
+        }
+
+        public long getCalls() { return calls; }
+        public long getApproved() { return approved; }
+        public long getDeclined() { return declined; }
+        public long getFailures() { return failures; }
+        public long getTimeouts() { return timeouts; }
+        /** Calls refused because every gateway thread was busy */
+        public long getRejected() { return rejected; }
+        /** Calls refused because the circuit was open */
+        public long getShortCircuited() { return shortCircuited; }
+        public int getInFlight() { return inFlight; }
+        /** Average over calls that reached the provider, timeouts included */
+        public long getAvgLatencyMillis() { return avgLatencyMillis; }
+        public long getMaxLatencyMillis() { return maxLatencyMillis; }
+        public CircuitBreaker.State getCircuitState() { return circuitState; }
+
+        @Override
+        public String toString() {
+            return "PaymentGateway{calls=" + calls + ", approved=" + approved + ", declined=" + declined +
+                   ", failures=" + failures + ", timeouts=" + timeouts + ", rejected=" + rejected +
+                   ", shortCircuited=" + shortCircuited + ", inFlight=" + inFlight +
+                   ", avgLatencyMillis=" + avgLatencyMillis + ", maxLatencyMillis=" + maxLatencyMillis +
+                   ", circuit=" + circuitState + "}";
+        }
+    }
+
+    private static ResilientPaymentGateway instance;
+
+    private final PaymentGateway delegate;
+    private final long timeoutMillis;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryPolicy retryPolicy;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder approved = new LongAdder();
+    private final LongAdder declined = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalLatencyMillis = new LongAdder();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    /**
+     * Gateway that makes every call once
+     */
+    public ResilientPaymentGateway(PaymentGateway delegate, Config config) {
+        this(delegate, config, RetryPolicy.noRetry("payment-gateway"));
+    }
+
+    public ResilientPaymentGateway(PaymentGateway delegate, Config config, RetryPolicy retryPolicy) {
+        this.delegate = delegate;
+        this.timeoutMillis = config.timeoutMillis;
+        this.circuitBreaker = new CircuitBreaker("payment-gateway", config.windowSize, config.minimumCalls,
+                config.failureRateThreshold, config.openMillis);
+        this.retryPolicy = retryPolicy;
+        this.maxConcurrent = config.maxConcurrent;
+        this.permits = new Semaphore(config.maxConcurrent);
+        // 并发由 permits 限制，队列中最多只有刚拿到许可、尚未被线程取走的调用
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.maxConcurrent, config.maxConcurrent, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-gateway-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Gateway shared by the payment services: the first PaymentGateway provider
+     * on the class path, or the simulated one, configured from payment.properties
+     */
+    public static synchronized ResilientPaymentGateway getInstance() {
+        if (instance == null) {
+            Properties settings = Settings.load("/payment.properties", "gateway");
+            PaymentGateway provider = ServiceLoader.load(PaymentGateway.class).findFirst()
+                    .orElseGet(() -> new SimulatedPaymentGateway(SimulatedPaymentGateway.Config.fromProperties(settings)));
+            RetryPolicy retryPolicy = new RetryPolicy("payment-gateway",
+                    RetryPolicy.Config.fromProperties(settings, "payment.gateway.retry"),
+                    ResilientPaymentGateway::isRetryable);
+            instance = new ResilientPaymentGateway(provider, Config.fromProperties(settings), retryPolicy);
+        }
+        return instance;
+    }
+
+    @Override
+    public boolean charge(Payment payment) {
+        return retryPolicy.execute(() -> call(() -> delegate.charge(payment)));
+    }
+
+    @Override
+    public boolean refund(Payment payment, BigDecimal amount, String refundKey) {
+        return retryPolicy.execute(() -> call(() -> delegate.refund(payment, amount, refundKey)));
+    }
+
+    /**
+     * Whether a failed call may be made again: not when it was refused by the
+     * bulkhead or an open circuit, nor when the caller is interrupted
+     */
+    public static boolean isRetryable(Throwable e) {
+        return e instanceof BusinessException
+                && ((BusinessException) e).getErrorType() == ErrorType.EXTERNAL_SERVICE_ERROR
+                && !Thread.currentThread().isInterrupted();
+    }
+
+    public Stats getStats() {
+        long reached = completed.sum();
+        return new Stats(calls.sum(), approved.sum(), declined.sum(), failures.sum(), timeouts.sum(),
+                rejected.sum(), shortCircuited.sum(), maxConcurrent - permits.availablePermits(),
+                reached == 0 ? 0 : totalLatencyMillis.sum() / reached, maxLatencyMillis.get(),
+                circuitBreaker.getState());
+    }
+
+    public RetryPolicy.Stats getRetryStats() {
+        return retryPolicy.getStats();
+    }
+
+    private boolean call(Callable<Boolean> request) {
+        calls.increment();
+        if (!circuitBreaker.tryAcquire()) {
+            shortCircuited.increment();
+            throw new BusinessException(ErrorType.SERVICE_UNAVAILABLE,
+                    "Payment gateway is unavailable, please try again later");
+        }
+
+        if (!permits.tryAcquire()) {
+            circuitBreaker.release();
+            rejected.increment();
+            throw busy(null);
+        }
+        // 许可在调用真正返回后才归还，超时后仍在运行的调用继续占用；
+        // 在结果发布前归还，调用方随即发起的下一次调用不会被误拒
+        AtomicBoolean held = new AtomicBoolean(true);
+        Runnable releasePermit = () -> {
+            if (held.compareAndSet(true, false)) {
+                permits.release();
+            }
+        };
+        FutureTask<Boolean> future = new FutureTask<>(() -> {
+            try {
+                return request.call();
+            } finally {
+                releasePermit.run();
+            }
+        });
+        try {
+            executor.execute(() -> {
+                try {
+                    future.run();
+                } finally {
+                    // 调用在开始前已被取消
+                    releasePermit.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            releasePermit.run();
+            circuitBreaker.release();
+            rejected.increment();
+            throw busy(e);
+        }
+
+        long start = System.nanoTime();
+        try {
+            boolean result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            (result ? approved : declined).increment();
+            return result;
+        } catch (TimeoutException e) {
+            // 放弃等待并中断网关线程；网关侧可能仍会完成这笔交易，需要对账
+            future.cancel(true);
+            circuitBreaker.onFailure();
+            timeouts.increment();
+            throw unavailable("Payment gateway did not answer in " + timeoutMillis + " ms", e);
+        } catch (ExecutionException e) {
+            circuitBreaker.onFailure();
+            failures.increment();
+            throw unavailable("Payment gateway error: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            circuitBreaker.release();
+            Thread.currentThread().interrupt();
+            throw unavailable("Payment gateway call interrupted", e);
+        } finally {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            completed.increment();
+            totalLatencyMillis.add(elapsed);
+            maxLatencyMillis.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private static BusinessException busy(Throwable cause) {
+        return new BusinessException(ErrorType.SERVICE_UNAVAILABLE, "Payment gateway is busy, please try again later", cause);
+    }
+
+    private static BusinessException unavailable(String message, Throwable cause) {
+        return new BusinessException(ErrorType.EXTERNAL_SERVICE_ERROR, message, cause);
+    }
+}
@@ -0,0 +1,164 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.entity.Room;
+import com.hotelbooking.util.CacheManager;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
+import com.hotelbooking.util.LruCache;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded read-through cache of rooms, by id and by hotel.
+ *
+ * Booking and room pages read the same rooms over and over; both views are
+ * loaded from RoomDAO on a miss and kept in LRU order. RoomService writes the
+ * new state through after each successful change: the room's own entry is
+ * replaced and the list of its hotel is dropped, to be reloaded in room
+ * number order on the next read. Callers always get copies, so changing a
+ * returned room never changes the cache. The shared cache lives in the rooms
+ * and rooms-by-hotel regions of CacheManager and also drops entries on every
+ * room change published by RoomDAO, including the rooms of a deleted hotel.
+ */
+public class RoomCache {
+
+    private static RoomCache instance;
+
+    private final RoomDAO roomDAO;
+    private final LruCache<Integer, Room> rooms;
+    private final LruCache<Integer, List<Room>> roomsByHotel;
+
+    public RoomCache(RoomDAO roomDAO) {
+        this(roomDAO, CacheManager.Policy.defaultFor(CacheManager.ROOMS).newCache(),
+                CacheManager.Policy.defaultFor(CacheManager.ROOMS_BY_HOTEL).newCache());
+    }
+
+    public RoomCache(RoomDAO roomDAO, LruCache<Integer, Room> rooms, LruCache<Integer, List<Room>> roomsByHotel) {
+        this.roomDAO = roomDAO;
+        this.rooms = rooms;
+        this.roomsByHotel = roomsByHotel;
+    }
+
+    /**
+     * Cache shared by every RoomService and BookingService of the application
+     */
+    public static synchronized RoomCache getInstance() {
+        if (instance == null) {
+            CacheManager caches = CacheManager.getInstance();
+            instance = new RoomCache(new RoomDAO(), caches.region(CacheManager.ROOMS),
+                    caches.region(CacheManager.ROOMS_BY_HOTEL));
+            DataChangeBus.subscribe(DataChange.Entity.ROOM, instance::onChange);
+        }
+        return instance;
+    }
+
+    public Optional<Room> getRoom(Integer roomId) {
+        Room room = rooms.get(roomId, id -> roomDAO.getRoomById(id).orElse(null));
+        return Optional.ofNullable(room).map(RoomCache::copy);
+    }
+
+    /**
+     * Every room of the hotel, ordered by room number
+     */
+    public List<Room> getRoomsByHotel(Integer hotelId) {
+        List<Room> cached = roomsByHotel.get(hotelId, id -> List.copyOf(roomDAO.getRoomsByHotelId(id)));
+        List<Room> result = new ArrayList<>(cached.size());
+        for (Room room : cached) {
+            result.add(copy(room));
+        }
+        return result;
+    }
+
+    /**
+     * Write through a created or changed room
+     */
+    public void put(Room room) {
+        Room previous = rooms.peek(room.getId());
+        rooms.put(room.getId(), copy(room));
+        roomsByHotel.invalidate(room.getHotelId());
+        if (previous != null && !previous.getHotelId().equals(room.getHotelId())) {
+            roomsByHotel.invalidate(previous.getHotelId());
+        }
+    }
+
+    /**
+     * Write through a new nightly price
+     */
+    public void updatePrice(Integer roomId, BigDecimal price) {
+        Room cached = rooms.peek(roomId);
+        if (cached == null) {
+            // 不知道房间属于哪家酒店，只能丢弃所有酒店列表
+            roomsByHotel.invalidateAll();
+            return;
+        }
+        Room updated = copy(cached);
+        updated.setPrice(price);
+        put(updated);
+    }
+
+    public void remove(Integer roomId) {
+        drop(roomId, null);
+    }
+
+    /**
+     * Drop what a committed room change made stale, whoever wrote it
+     */
+    public void onChange(DataChange change) {
+        Integer roomId = (Integer) change.getId();
+        Integer hotelId = (Integer) change.getOwnerId();
+        if (roomId != null) {
+            drop(roomId, hotelId);
+        } else if (hotelId != null) {
+            // 酒店被删除时级联删除的房间只知道所属酒店
+            rooms.invalidateValues(room -> hotelId.equals(room.getHotelId()));
+            roomsByHotel.invalidate(hotelId);
+        } else {
+            invalidateAll();
+        }
+    }
+
+    public void invalidateAll() {
+        rooms.invalidateAll();
+        roomsByHotel.invalidateAll();
+    }
+
+    /**
+     * Hits, misses, evictions and load time of the by-id entries
+     */
+    public LruCache.Stats getRoomStats() {
+        return rooms.getStats();
+    }
+
+    /**
+     * Hits, misses, evictions and load time of the per-hotel lists
+     */
+    public LruCache.Stats getHotelListStats() {
+        return roomsByHotel.getStats();
+    }
+
+    /**
+     * Drop the room and the lists of its hotels, old and new; every list when neither is known
+     */
+    private void drop(Integer roomId, Integer hotelId) {
+        Room cached = rooms.peek(roomId);
+        rooms.invalidate(roomId);
+        if (hotelId != null) {
+            roomsByHotel.invalidate(hotelId);
+        }
+        if (cached != null && !cached.getHotelId().equals(hotelId)) {
+            roomsByHotel.invalidate(cached.getHotelId());
+        } else if (cached == null && hotelId == null) {
+            roomsByHotel.invalidateAll();
+        }
+    }
+
+    private static Room copy(Room room) {
+        Room copy = new Room(room.getHotelId(), room.getRoomNumber(), room.getRoomType(),
+                room.getPricePerNight(), room.getMaxOccupancy(), room.isAvailable(), room.getDescription());
+        copy.setId(room.getId());
+        return copy;
+    }
+}
@@ -0,0 +1,447 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dao.BookingDAO;
+import com.hotelbooking.entity.Booking;
+import com.hotelbooking.entity.Room;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-memory room-night inventory.
+ *
+ * Every room has a bitmap of booked nights (bit = epoch day - the room's
+ * origin day), built from the active bookings in the database. Checking a stay
+ * touches only the bitmap words covering [checkIn, checkOut), so "which rooms
+ * are free" costs one probe per room no matter how many bookings exist.
+ *
+ * reload() reads the database without blocking reservations; nights reserved
+ * or released while it runs are replayed onto the rebuilt calendars before
+ * they replace the old ones. A reservation whose booking is not committed yet
+ * is not in the database either, so it is kept as a claim and replayed onto
+ * every rebuild until settle() or release() ends it.
+ *
+ * rooms.available keeps its meaning as "room is in service"; whether a room
+ * can be sold for particular dates is answered here.
+ */
+public class RoomInventory {
+
+    /** Booking statuses that no longer hold their nights */
+    private static final Set<String> RELEASED_STATUSES = Set.of("CANCELLED", "COMPLETED");
+
+    private static RoomInventory instance;
+
+    private final Supplier<List<Booking>> loader;
+    private final Function<Integer, List<Booking>> roomLoader;
+    private volatile Map<Integer, RoomCalendar> calendars = new ConcurrentHashMap<>();
+    /** Guards the swap in reload() against reservations; held shared by tryReserve() and release() */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    /** Reservations and releases made while a reload is reading the database, otherwise null */
+    private Queue<Change> pending;
+    /** Reservations marked by tryReserve() whose booking is neither committed nor given back yet */
+    private final Queue<Change> claims = new ConcurrentLinkedQueue<>();
+    private volatile boolean loaded;
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Empty inventory without a backing store
+     */
+    public RoomInventory() {
+        this(null);
+    }
+
+    /**
+     * @param loader supplies the bookings that currently hold nights; called on first use and on reload()
+     */
+    public RoomInventory(Supplier<List<Booking>> loader) {
+        this(loader, null);
+    }
+
+    /**
+     * @param roomLoader supplies the bookings that currently hold nights of one room; used by reloadRoom()
+     */
+    public RoomInventory(Supplier<List<Booking>> loader, Function<Integer, List<Booking>> roomLoader) {
+        this.loader = loader;
+        this.roomLoader = roomLoader;
+        this.loaded = loader == null;
+    }
+
+    /**
+     * Shared inventory backed by the bookings table
+     */
+    public static synchronized RoomInventory getInstance() {
+        if (instance == null) {
+            BookingDAO bookingDAO = new BookingDAO();
+            instance = new RoomInventory(() -> bookingDAO.getActiveBookings(LocalDate.now()),
+                    roomId -> bookingDAO.getActiveBookingsByRoom(roomId, LocalDate.now()));
+            DataChangeBus.subscribe(DataChange.Entity.BOOKING,
+                    change -> instance.bookingChanged(change, bookingDAO::getBookingById));
+        }
+        return instance;
+    }
+
+    /**
+     * Follow a committed booking change from the DataChangeBus, including
+     * writes that bypass BookingService. Status changes reload the booking's
+     * room; deletes reload the room they carry (BookingDAO.deleteBooking, or
+     * the deleted room of a cascade) and everything only when it is unknown.
+     * New bookings are marked by BookingService.reserveRoom, the only path
+     * that creates them.
+     */
+    void bookingChanged(DataChange change, Function<Integer, Optional<Booking>> lookup) {
+        if (change.getKind() == DataChange.Kind.CREATED) {
+            return;
+        }
+        if (change.isDelete()) {
+            Object roomId = change.getParentId(DataChange.Entity.ROOM);
+            if (roomId != null) {
+                reloadRoom((Integer) roomId);
+            } else {
+                reload();
+            }
+            return;
+        }
+        if (change.getId() == null) {
+            reload();
+            return;
+        }
+        lookup.apply((Integer) change.getId()).ifPresent(booking -> reloadRoom(booking.getRoomId()));
+    }
+
+    /**
+     * Whether a booking in this status still occupies its room
+     */
+    public static boolean holdsNights(String status) {
+        return status != null && !RELEASED_STATUSES.contains(status);
+    }
+
+    /**
+     * Rebuild all calendars from the backing store
+     */
+    public synchronized void reload() {
+        Queue<Change> changes = startRecording();
+        Map<Integer, RoomCalendar> rebuilt = new ConcurrentHashMap<>();
+        try {
+            if (loader != null) {
+                for (Booking booking : loader.get()) {
+                    if (holdsNights(booking.getStatus())) {
+                        rebuilt.computeIfAbsent(booking.getRoomId(), id -> new RoomCalendar())
+                               .mark(booking.getCheckInDate().toEpochDay(), booking.getCheckOutDate().toEpochDay());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            stopRecording();
+            throw e;
+        }
+
+        swapLock.writeLock().lock();
+        try {
+            for (Change change : changes) {
+                change.applyTo(rebuilt.computeIfAbsent(change.roomId, id -> new RoomCalendar()));
+            }
+            pending = null;
+            calendars = rebuilt;
+            loaded = true;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Rebuild one room's calendar from the backing store, e.g. after the
+     * database refused a stay the calendar let through; without a room loader
+     * everything is reloaded
+     */
+    public synchronized void reloadRoom(Integer roomId) {
+        if (roomLoader == null) {
+            reload();
+            return;
+        }
+        ensureLoaded();
+        Queue<Change> changes = startRecording();
+        RoomCalendar rebuilt = new RoomCalendar();
+        try {
+            for (Booking booking : roomLoader.apply(roomId)) {
+                if (holdsNights(booking.getStatus())) {
+                    rebuilt.mark(booking.getCheckInDate().toEpochDay(), booking.getCheckOutDate().toEpochDay());
+                }
+            }
+        } catch (RuntimeException e) {
+            stopRecording();
+            throw e;
+        }
+
+        swapLock.writeLock().lock();
+        try {
+            for (Change change : changes) {
+                if (roomId.equals(change.roomId)) {
+                    change.applyTo(rebuilt);
+                }
+            }
+            pending = null;
+            calendars.put(roomId, rebuilt);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Whether the room has no booked night in [checkIn, checkOut)
+     */
+    public boolean isAvailable(Integer roomId, LocalDate checkIn, LocalDate checkOut) {
+        ensureLoaded();
+        RoomCalendar calendar = calendars.get(roomId);
+        return calendar == null || calendar.isFree(checkIn.toEpochDay(), checkOut.toEpochDay());
+    }
+
+    /**
+     * Rooms from the list that are in service and free for the whole stay, in list order
+     */
+    public List<Room> filterAvailable(List<Room> rooms, LocalDate checkIn, LocalDate checkOut) {
+        ensureLoaded();
+        long from = checkIn.toEpochDay();
+        long to = checkOut.toEpochDay();
+        Map<Integer, RoomCalendar> current = calendars;
+
+        List<Room> free = new ArrayList<>();
+        for (Room room : rooms) {
+            if (!room.isAvailable()) {
+                continue;
+            }
+            RoomCalendar calendar = current.get(room.getId());
+            if (calendar == null || calendar.isFree(from, to)) {
+                free.add(room);
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Atomically check and book the nights of a stay
+     * @return false if any night is already taken
+     */
+    public boolean tryReserve(Integer roomId, LocalDate checkIn, LocalDate checkOut) {
+        ensureLoaded();
+        long from = checkIn.toEpochDay();
+        long to = checkOut.toEpochDay();
+        boolean reserved;
+        swapLock.readLock().lock();
+        try {
+            reserved = calendars.computeIfAbsent(roomId, id -> new RoomCalendar()).tryMark(from, to);
+            if (reserved) {
+                Change claim = new Change(roomId, from, to, true);
+                claims.add(claim);
+                record(claim);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        if (reserved) {
+            version.incrementAndGet();
+        }
+        return reserved;
+    }
+
+    /**
+     * The booking of a stay reserved with tryReserve() is committed, or the
+     * database turned it down; from now on rebuilds take its nights from the
+     * database only
+     */
+    public void settle(Integer roomId, LocalDate checkIn, LocalDate checkOut) {
+        claims.remove(new Change(roomId, checkIn.toEpochDay(), checkOut.toEpochDay(), true));
+    }
+
+    /**
+     * Give the nights of a stay back, e.g. after cancellation, early checkout
+     * or a rolled-back reservation
+     */
+    public void release(Integer roomId, LocalDate checkIn, LocalDate checkOut) {
+        ensureLoaded();
+        long from = checkIn.toEpochDay();
+        long to = checkOut.toEpochDay();
+        swapLock.readLock().lock();
+        try {
+            claims.remove(new Change(roomId, from, to, true));
+            RoomCalendar calendar = calendars.get(roomId);
+            if (calendar != null) {
+                calendar.clear(from, to);
+            }
+            record(new Change(roomId, from, to, false));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Counter bumped by every change to the booked nights; results computed
+     * from the inventory stay valid while it is unchanged
+     */
+    public long getVersion() {
+        return version.get();
+    }
+    
+    /**
+     * Number of rooms with at least one tracked booking
+     */
+    public int getTrackedRoomCount() {
+        ensureLoaded();
+        return calendars.size();
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    /**
+     * Start recording with the open claims, whose bookings the loader cannot see yet
+     */
+    private Queue<Change> startRecording() {
+        swapLock.writeLock().lock();
+        try {
+            pending = new ConcurrentLinkedQueue<>(claims);
+            return pending;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private void stopRecording() {
+        swapLock.writeLock().lock();
+        try {
+            pending = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Called with the read lock held, so a reload cannot swap in between
+     */
+    private void record(Change change) {
+        Queue<Change> changes = pending;
+        if (changes != null) {
+            changes.add(change);
+        }
+    }
+
+    /**
+     * A reservation or release made while a reload was running, or an open claim
+     */
+    private static final class Change {
+        final Integer roomId;
+        final long from;
+        final long to;
+        final boolean reserved;
+
+        Change(Integer roomId, long from, long to, boolean reserved) {
+            this.roomId = roomId;
+            this.from = from;
+            this.to = to;
+            this.reserved = reserved;
+        }
+
+        void applyTo(RoomCalendar calendar) {
+            if (reserved) {
+                calendar.mark(from, to);
+            } else {
+                calendar.clear(from, to);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Change)) {
+                return false;
+            }
+            Change other = (Change) o;
+            return roomId.equals(other.roomId) && from == other.from && to == other.to
+                    && reserved == other.reserved;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(roomId, from, to, reserved);
+        }
+    }
+
+    /**
+     * Booked nights of one room; bit 0 is originDay, which moves back when an earlier night is marked
+     */
+    private static final class RoomCalendar {
+        private BitSet nights = new BitSet(400);
+        private long originDay = Long.MIN_VALUE;
+
+        synchronized boolean isFree(long from, long to) {
+            if (from >= to || nights.isEmpty() || to <= originDay) {
+                return true;
+            }
+            int next = nights.nextSetBit((int) Math.max(0, from - originDay));
+            return next < 0 || originDay + next >= to;
+        }
+
+        synchronized boolean tryMark(long from, long to) {
+            if (!isFree(from, to)) {
+                return false;
+            }
+            mark(from, to);
+            return true;
+        }
+
+        synchronized void mark(long from, long to) {
+            if (from >= to) {
+                return;
+            }
+            if (nights.isEmpty()) {
+                originDay = from;
+            } else if (from < originDay) {
+                rebase(from);
+            }
+            nights.set((int) (from - originDay), (int) (to - originDay));
+        }
+
+        synchronized void clear(long from, long to) {
+            long start = Math.max(from, originDay);
+            if (!nights.isEmpty() && start < to) {
+                nights.clear((int) (start - originDay), (int) (to - originDay));
+            }
+        }
+
+        private void rebase(long newOriginDay) {
+            int shift = (int) (originDay - newOriginDay);
+            BitSet shifted = new BitSet(nights.length() + shift);
+            for (int i = nights.nextSetBit(0); i >= 0; i = nights.nextSetBit(i + 1)) {
+                shifted.set(i + shift);
+            }
+            nights = shifted;
+            originDay = newOriginDay;
+        }
+    }
+}
@@ -5,15 +5,29 @@ import com.hotelbooking.entity.Room;
 import com.hotelbooking.exception.BusinessException;
 import com.hotelbooking.exception.ErrorType;
 import com.hotelbooking.exception.ValidationException;
+import com.hotelbooking.util.TransactionManager;
+import com.hotelbooking.util.LruCache;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 public class RoomService {
     private RoomDAO roomDAO;
+    private final HotelSummaryRegistry summaryRegistry;
+    private final SearchResultCache searchCache;
+    private final RoomCache roomCache;
     
     public RoomService(RoomDAO roomDAO) {
+        this(roomDAO, HotelSummaryRegistry.getInstance(), SearchResultCache.getInstance(), RoomCache.getInstance());
+    }
+    
+    public RoomService(RoomDAO roomDAO, HotelSummaryRegistry summaryRegistry, SearchResultCache searchCache,
+                       RoomCache roomCache) {
         this.roomDAO = roomDAO;
+        this.summaryRegistry = summaryRegistry;
+        this.searchCache = searchCache;
+        this.roomCache = roomCache;
     }
     
     /**
@@ -48,7 +62,11 @@ public class RoomService {
                             price.doubleValue(), defaultMaxOccupancy, 
                             available, defaultDescription);
         
-        return roomDAO.createRoom(room);
+        Room created = roomDAO.createRoom(room);
+        TransactionManager.afterCommit(() -> roomCache.put(created));
+        TransactionManager.afterCommit(() -> summaryRegistry.put(created));
+        TransactionManager.afterCommit(searchCache::invalidateStays);
+        return created;
     } catch (BusinessException | ValidationException e) {
         throw e;
     } catch (Exception e) {
@@ -62,7 +80,7 @@ public class RoomService {
      */
     public Optional<Room> getRoomById(Integer id) {
         try {
-            return roomDAO.getRoomById(id);
+            return roomCache.getRoom(id);
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
                 "Failed to get room information: " + e.getMessage(), e);
@@ -77,7 +95,7 @@ public class RoomService {
              if (hotelId == null || hotelId <= 0) {
             throw new ValidationException("Hotel ID cannot be empty");
         }
-            return roomDAO.getRoomsByHotelId(hotelId);
+            return roomCache.getRoomsByHotel(hotelId);
         } catch (ValidationException e) {
         throw e;
     }catch (Exception e) {
@@ -94,7 +112,14 @@ public class RoomService {
                if (hotelId == null || hotelId <= 0) {
             throw new ValidationException("Hotel ID cannot be empty");
         }
-            return roomDAO.getAvailableRoomsByHotelId(hotelId);
+            // 与 available = 1 的查询一致，仍按房间号排序
+            List<Room> available = new ArrayList<>();
+            for (Room room : roomCache.getRoomsByHotel(hotelId)) {
+                if (room.isAvailable()) {
+                    available.add(room);
+                }
+            }
+            return available;
         } catch (ValidationException e) {
         throw e;
     } catch (Exception e) {
@@ -175,7 +200,13 @@ public class RoomService {
                 throw new ValidationException("Price must be positive");
             }
             
-            return roomDAO.updateRoomPrice(roomId, newPrice);
+            boolean updated = roomDAO.updateRoomPrice(roomId, newPrice);
+            if (updated) {
+                TransactionManager.afterCommit(() -> roomCache.updatePrice(roomId, newPrice));
+                TransactionManager.afterCommit(() -> summaryRegistry.updatePrice(roomId, newPrice));
+                TransactionManager.afterCommit(searchCache::invalidateStays);
+            }
+            return updated;
         } catch (ValidationException e) {
             throw e;
         } catch (Exception e) {
@@ -259,7 +290,13 @@ public class RoomService {
             if (room == null || room.getRoomId() == 0) {
                 return false;
             }
-            return roomDAO.updateRoom(room);
+            boolean updated = roomDAO.updateRoom(room);
+            if (updated) {
+                TransactionManager.afterCommit(() -> roomCache.put(room));
+                TransactionManager.afterCommit(() -> summaryRegistry.put(room));
+                TransactionManager.afterCommit(searchCache::invalidateStays);
+            }
+            return updated;
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
                 "Failed to update room information: " + e.getMessage(), e);
@@ -271,11 +308,17 @@ public class RoomService {
      */
     public boolean updateRoomAvailability(Integer roomId, boolean available) {
         try {
-            Optional<Room> roomOpt = roomDAO.getRoomById(roomId);
+            Optional<Room> roomOpt = roomCache.getRoom(roomId);
             if (roomOpt.isPresent()) {
                 Room room = roomOpt.get();
                 room.setIsAvailable(available);
-                return roomDAO.updateRoom(room);
+                boolean updated = roomDAO.updateRoom(room);
+                if (updated) {
+                    TransactionManager.afterCommit(() -> roomCache.put(room));
+                    TransactionManager.afterCommit(() -> summaryRegistry.put(room));
+                    TransactionManager.afterCommit(searchCache::invalidateStays);
+                }
+                return updated;
             }
             return false;
         } catch (Exception e) {
@@ -289,13 +332,33 @@ public class RoomService {
      */
     public boolean deleteRoom(Integer roomId) {
         try {
-            return roomDAO.deleteRoom(roomId);
+            boolean deleted = roomDAO.deleteRoom(roomId);
+            if (deleted) {
+                TransactionManager.afterCommit(() -> roomCache.remove(roomId));
+                TransactionManager.afterCommit(() -> summaryRegistry.remove(roomId));
+                TransactionManager.afterCommit(searchCache::invalidateStays);
+            }
+            return deleted;
         } catch (Exception e) {
             throw new BusinessException(ErrorType.INTERNAL_SERVER_ERROR, 
                 "Failed to delete room: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Hits, misses, evictions and load time of the room cache by id
+     */
+    public LruCache.Stats getRoomCacheStats() {
+        return roomCache.getRoomStats();
+    }
+    
+    /**
+     * Hits, misses, evictions and load time of the cached room lists by hotel
+     */
+    public LruCache.Stats getHotelRoomsCacheStats() {
+        return roomCache.getHotelListStats();
+    }
+    
     /**
      * Check if room is available
      */
@@ -304,7 +367,7 @@ public class RoomService {
              if (roomId == null || roomId <= 0) {
             throw new ValidationException("Room ID cannot be empty or invalid");
         }
-            Optional<Room> room = roomDAO.getRoomById(roomId);
+            Optional<Room> room = roomCache.getRoom(roomId);
               if (room.isEmpty()) {
             throw new BusinessException(ErrorType.ROOM_NOT_FOUND);
         }
@@ -0,0 +1,111 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
+import com.hotelbooking.util.LruCache;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Shared cache of hotel search results, so repeated searches for the same
+ * destination are answered without running the search again.
+ *
+ * Keys are built from the normalised keyword plus every filter the result
+ * depends on. Hotel writes drop everything; room changes drop only the stay
+ * searches, the only results that depend on rooms. Stay keys also carry the
+ * room inventory version, so a booking or cancellation retires them without
+ * an explicit invalidation. The TTL bounds the staleness of anything else.
+ */
+public class SearchResultCache {
+
+    private static final int MAX_ENTRIES = 1000;
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final String STAY_PREFIX = "stay|";
+
+    private static SearchResultCache instance;
+
+    private final LruCache<String, List<?>> results;
+
+    public SearchResultCache() {
+        this(new LruCache<>(MAX_ENTRIES, TTL));
+    }
+
+    public SearchResultCache(LruCache<String, List<?>> results) {
+        this.results = results;
+    }
+
+    /**
+     * Cache shared by every HotelService and RoomService of the application
+     */
+    public static synchronized SearchResultCache getInstance() {
+        if (instance == null) {
+            instance = new SearchResultCache();
+            DataChangeBus.subscribe(DataChange.Entity.HOTEL, change -> instance.invalidateAll());
+            DataChangeBus.subscribe(DataChange.Entity.ROOM, change -> instance.invalidateStays());
+        }
+        return instance;
+    }
+
+    /**
+     * Key of a keyword search
+     */
+    public static String keywordKey(String keyword) {
+        return "keyword|" + normalize(keyword);
+    }
+
+    /**
+     * Key of a fuzzy search returning at most limit hotels
+     */
+    public static String fuzzyKey(String keyword, int limit) {
+        return "fuzzy|" + limit + "|" + normalize(keyword);
+    }
+
+    /**
+     * Key of a dated stay search
+     */
+    public static String stayKey(String keyword, Object... filters) {
+        StringBuilder key = new StringBuilder(STAY_PREFIX).append(normalize(keyword));
+        for (Object filter : filters) {
+            key.append('|').append(filter);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Cached result of the key, running the search on a miss. Every caller gets its
+     * own copy of the list, so callers may sort or trim it freely.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(String key, Supplier<List<T>> search) {
+        List<T> cached = (List<T>) results.get(key, k -> List.copyOf(search.get()));
+        return new ArrayList<>(cached);
+    }
+
+    /**
+     * Drop every result, after a hotel was created, changed or deleted
+     */
+    public void invalidateAll() {
+        results.invalidateAll();
+    }
+
+    /**
+     * Drop the stay search results, after a room's price or availability changed
+     */
+    public void invalidateStays() {
+        results.invalidateIf(key -> key.startsWith(STAY_PREFIX));
+    }
+
+    /**
+     * Hits, misses and evictions, for sizing the cache
+     */
+    public LruCache.Stats getStats() {
+        return results.getStats();
+    }
+
+    private static String normalize(String keyword) {
+        return keyword == null ? "" : keyword.trim().toLowerCase(Locale.ROOT);
+    }
+}
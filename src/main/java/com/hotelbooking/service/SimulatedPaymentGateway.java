@@ -0,0 +1,113 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.entity.Payment;
+import com.hotelbooking.util.Settings;
+import java.math.BigDecimal;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Local stand-in for a payment provider, with configurable latency and faults.
+ *
+ * Each call waits a base latency plus an exponentially distributed tail, so
+ * most calls are close to the base and a few are much slower. A share of the
+ * calls hangs for hangMillis before answering, to exercise timeouts, and a
+ * share fails with an exception, as a provider outage would. The remaining
+ * calls are declined at the configured rate and approved otherwise.
+ */
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    /**
+     * Latency and fault settings, read from the payment.gateway.simulated.* keys
+     */
+    public static class Config {
+        final long baseLatencyMillis;
+        final long tailLatencyMillis;
+        final double hangRate;
+        final long hangMillis;
+        final double errorRate;
+        final double declineRate;
+        final double refundDeclineRate;
+
+        public Config(long baseLatencyMillis, long tailLatencyMillis, double hangRate, long hangMillis,
+                      double errorRate, double declineRate, double refundDeclineRate) {
+            this.baseLatencyMillis = Math.max(0, baseLatencyMillis);
+            this.tailLatencyMillis = Math.max(0, tailLatencyMillis);
+            this.hangRate = rate("hangRate", hangRate);
+            this.hangMillis = Math.max(0, hangMillis);
+            this.errorRate = rate("errorRate", errorRate);
+            this.declineRate = rate("declineRate", declineRate);
+            this.refundDeclineRate = rate("refundDeclineRate", refundDeclineRate);
+        }
+
+        public static Config fromProperties(Properties props) {
+            return new Config(
+                Settings.longProperty(props, "payment.gateway.simulated.baseLatencyMillis", 100L),
+                Settings.longProperty(props, "payment.gateway.simulated.tailLatencyMillis", 200L),
+                Settings.doubleProperty(props, "payment.gateway.simulated.hangRate", 0.0),
+                Settings.longProperty(props, "payment.gateway.simulated.hangMillis", 30_000L),
+                Settings.doubleProperty(props, "payment.gateway.simulated.errorRate", 0.0),
+                Settings.doubleProperty(props, "payment.gateway.simulated.declineRate", 0.1),
+                Settings.doubleProperty(props, "payment.gateway.simulated.refundDeclineRate", 0.05)
+            );
+        }
+
+        private static double rate(String name, double value) {
+            if (value < 0 || value > 1) {
+                throw new IllegalArgumentException(name + " must be between 0 and 1: " + value);
+            }
+            return value;
+        }
+    }
+
+    private final Config config;
+    private final Random random;
+
+    public SimulatedPaymentGateway() {
+        this(Config.fromProperties(new Properties()));
+    }
+
+    public SimulatedPaymentGateway(Config config) {
+        this(config, new Random());
+    }
+
+    public SimulatedPaymentGateway(Config config, Random random) {
+        this.config = config;
+        this.random = random;
+    }
+
+    @Override
+    public boolean charge(Payment payment) {
+        System.out.println("Simulating " + payment.getPaymentMethod() + " payment processing...");
+        return respond(config.declineRate);
+    }
+
+    @Override
+    public boolean refund(Payment payment, BigDecimal amount, String refundKey) {
+        System.out.println("Simulating refund of " + amount + " processing...");
+        return respond(config.refundDeclineRate);
+    }
+
+    private boolean respond(double declineRate) {
+        // 基础延迟加指数分布的长尾
+        long latency = config.baseLatencyMillis
+                + (long) (-config.tailLatencyMillis * Math.log(1 - random.nextDouble()));
+        if (random.nextDouble() < config.hangRate) {
+            latency += config.hangMillis;
+        }
+        sleep(latency);
+        if (random.nextDouble() < config.errorRate) {
+            throw new IllegalStateException("Simulated payment gateway error");
+        }
+        return random.nextDouble() >= declineRate;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Payment gateway call interrupted", e);
+        }
+    }
+}
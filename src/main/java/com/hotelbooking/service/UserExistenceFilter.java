@@ -0,0 +1,167 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dao.UserDAO;
+import com.hotelbooking.entity.User;
+import com.hotelbooking.util.BloomFilter;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * In-memory Bloom filters of every username and email in the users table.
+ *
+ * A "no" from the filter is certain, so most availability checks during
+ * registration need no query; a "maybe" falls back to the database. New and
+ * changed values are added after each successful write. Values of deleted
+ * accounts, and old values of renamed ones, stay in the filters and only cost
+ * an extra query; once deletions reach a quarter of the loaded accounts the
+ * filters are rebuilt on the next check.
+ *
+ * Writers and rebuilds hold the same lock, so a user created while a rebuild
+ * is reading the table is added to the new filters once it finishes.
+ */
+public class UserExistenceFilter {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    /** Filters are sized for twice the loaded users plus this many */
+    private static final int HEADROOM = 1_000;
+
+    private static UserExistenceFilter instance;
+
+    private final Supplier<List<User>> loader;
+    /** Null until loaded and after invalidate(); guarded by this for writes */
+    private volatile BloomFilter usernames;
+    private volatile BloomFilter emails;
+    /** Accounts deleted since the last rebuild; guarded by this */
+    private int deleted;
+
+    /**
+     * Filter without a backing store; every check answers "maybe"
+     */
+    public UserExistenceFilter() {
+        this(null);
+    }
+
+    /**
+     * @param loader supplies every user; called on first check and on reload()
+     */
+    public UserExistenceFilter(Supplier<List<User>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Shared filter backed by the users table
+     */
+    public static synchronized UserExistenceFilter getInstance() {
+        if (instance == null) {
+            UserDAO userDAO = new UserDAO();
+            instance = new UserExistenceFilter(userDAO::getAllUsers);
+            DataChangeBus.subscribe(DataChange.Entity.USER, change -> {
+                if (change.isDelete()) {
+                    instance.removed();
+                }
+            });
+        }
+        return instance;
+    }
+
+    /**
+     * Rebuild both filters from the backing store
+     */
+    public synchronized void reload() {
+        if (loader == null) {
+            return;
+        }
+        List<User> users = loader.get();
+        int expected = users.size() * 2 + HEADROOM;
+        BloomFilter loadedUsernames = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+        BloomFilter loadedEmails = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+        for (User user : users) {
+            addTo(loadedUsernames, user.getUsername());
+            addTo(loadedEmails, user.getEmail());
+        }
+        deleted = 0;
+        usernames = loadedUsernames;
+        emails = loadedEmails;
+    }
+
+    /**
+     * Drop both filters; the next check rebuilds them
+     */
+    public synchronized void invalidate() {
+        usernames = null;
+        emails = null;
+    }
+
+    /**
+     * False when no account uses the username; true when one might
+     */
+    public boolean mightContainUsername(String username) {
+        return mightContain(username, true);
+    }
+
+    /**
+     * False when no account uses the email; true when one might
+     */
+    public boolean mightContainEmail(String email) {
+        return mightContain(email, false);
+    }
+
+    /**
+     * Record a created account, or the new values of a changed one; ignored until loaded
+     */
+    public synchronized void add(String username, String email) {
+        if (usernames == null) {
+            return;
+        }
+        addTo(usernames, username);
+        addTo(emails, email);
+        if (usernames.isOverCapacity() || emails.isOverCapacity()) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Record a deleted account; its values stay in the filters until the next rebuild
+     */
+    public synchronized void removed() {
+        if (usernames == null) {
+            return;
+        }
+        deleted++;
+        // 已删除的值过多会推高误判率，超过四分之一就重建
+        if (deleted > usernames.size() / 4) {
+            invalidate();
+        }
+    }
+
+    private boolean mightContain(String value, boolean username) {
+        if (value == null) {
+            return false;
+        }
+        BloomFilter filter = username ? usernames : emails;
+        if (filter == null) {
+            if (loader == null) {
+                return true;
+            }
+            synchronized (this) {
+                if (usernames == null) {
+                    reload();
+                }
+                filter = username ? usernames : emails;
+            }
+        }
+        synchronized (filter) {
+            return filter.mightContain(value);
+        }
+    }
+
+    private static void addTo(BloomFilter filter, String value) {
+        if (value != null) {
+            synchronized (filter) {
+                filter.add(value);
+            }
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package com.hotelbooking.service;
 
 import com.hotelbooking.dao.UserDAO;
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
+import com.hotelbooking.dto.UserExistence;
 import com.hotelbooking.entity.User;
 import com.hotelbooking.exception.BusinessException;
 import com.hotelbooking.exception.ErrorType;
 import com.hotelbooking.exception.ValidationException;
+import com.hotelbooking.util.CacheManager;
+import com.hotelbooking.util.LruCache;
+import com.hotelbooking.util.TransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -13,9 +19,23 @@ import java.util.Optional;
 public class UserService {
 
     private final UserDAO userDAO;
+    private final UserExistenceFilter existenceFilter;
+    /** Users by id, shared through CacheManager so writes from any DAO drop them */
+    private final LruCache<Integer, User> users;
 
     public UserService(UserDAO userDAO) {
+        this(userDAO, UserExistenceFilter.getInstance(),
+                CacheManager.getInstance().region(CacheManager.USERS));
+    }
+
+    public UserService(UserDAO userDAO, UserExistenceFilter existenceFilter) {
+        this(userDAO, existenceFilter, CacheManager.Policy.defaultFor(CacheManager.USERS).newCache());
+    }
+
+    public UserService(UserDAO userDAO, UserExistenceFilter existenceFilter, LruCache<Integer, User> users) {
         this.userDAO = userDAO;
+        this.existenceFilter = existenceFilter;
+        this.users = users;
     }
 
     /**
@@ -52,36 +72,42 @@ public class UserService {
             if (role == null || role.trim().isEmpty()) {
                 role = "CUSTOMER";
             }
+            // 查重、写库和过滤器使用同一个规范化后的值
+            username = normalize(username);
+            email = normalize(email);
 
 <<<<<<< HEAD
             // Uniqueness validation
 =======
             // 唯一性校验
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
-            if (userDAO.isUsernameExists(username)) {
+            UserExistence existing = findExisting(username, email);
+            if (existing.isUsernameTaken()) {
                 throw new BusinessException(ErrorType.USERNAME_EXISTS);
             }
-            if (userDAO.isEmailExists(email)) {
+            if (existing.isEmailTaken()) {
                 throw new BusinessException(ErrorType.EMAIL_EXISTS);
             }
 
 <<<<<<< HEAD
             // Create user entity
-            User user = new User(username.trim(), email.trim(), password, role);
+            User user = new User(username, email, password, role);
             user.setCreatedAt(LocalDateTime.now()); // ⭐ Must be set, otherwise database insertion fails
 
             // Write to database
             System.out.println("Preparing to call createUser: " + username);
             User savedUser = userDAO.createUser(user);
+            TransactionManager.afterCommit(() -> existenceFilter.add(savedUser.getUsername(), savedUser.getEmail()));
             System.out.println("createUser call completed: " + savedUser.getId());
 =======
             // 创建用户实体
-            User user = new User(username.trim(), email.trim(), password, role);
+            User user = new User(username, email, password, role);
             user.setCreatedAt(LocalDateTime.now()); // ⭐ 必须设置，否则数据库插入失败
 
             // 写入数据库
             System.out.println("准备调用 createUser: " + username);
             User savedUser = userDAO.createUser(user);
+            TransactionManager.afterCommit(() -> existenceFilter.add(savedUser.getUsername(), savedUser.getEmail()));
             System.out.println("createUser 调用结束: " + savedUser.getId());
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
             return savedUser;
@@ -243,6 +269,13 @@ public class UserService {
         return userDAO.getAllUsers();
     }
 
+    /**
+     * Get one page of users, newest first
+     */
+    public Page<User> getUsers(String cursor, int pageSize) {
+        return userDAO.getUsers(PageCursor.decode(cursor), pageSize);
+    }
+
     /**
 <<<<<<< HEAD
      * Get user by ID
@@ -251,7 +284,8 @@ public class UserService {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
      */
     public Optional<User> getUserById(Integer id) {
-        return userDAO.getUserById(id);
+        User user = users.get(id, key -> userDAO.getUserById(key).orElse(null));
+        return Optional.ofNullable(user).map(UserService::copy);
     }
 
     /**
@@ -273,7 +307,11 @@ public class UserService {
 >>>>>>> 6649ffb6f11ba4a21e86e142d60c4668e7b802ab
      */
     public boolean deleteUser(Integer userId) {
-        return userDAO.deleteUser(userId);
+        boolean deleted = userDAO.deleteUser(userId);
+        if (deleted) {
+            TransactionManager.afterCommit(() -> users.invalidate(userId));
+        }
+        return deleted;
     }
 
     /**
@@ -287,6 +325,79 @@ public class UserService {
         if (user == null || user.getId() == null) {
             return false;
         }
-        return userDAO.updateUser(user);
+        user.setUsername(normalize(user.getUsername()));
+        user.setEmail(normalize(user.getEmail()));
+        boolean updated = userDAO.updateUser(user);
+        if (updated) {
+            TransactionManager.afterCommit(() -> {
+                users.invalidate(user.getId());
+                existenceFilter.add(user.getUsername(), user.getEmail());
+            });
+        }
+        return updated;
+    }
+
+    /**
+     * Change a user's username and email
+     */
+    public boolean updateUserProfile(Integer userId, String username, String email) {
+        String newUsername = normalize(username);
+        String newEmail = normalize(email);
+        boolean updated = userDAO.updateUserProfile(userId, newUsername, newEmail);
+        if (updated) {
+            TransactionManager.afterCommit(() -> {
+                users.invalidate(userId);
+                existenceFilter.add(newUsername, newEmail);
+            });
+        }
+        return updated;
+    }
+
+    /**
+     * Whether some account already uses the username
+     */
+    public boolean isUsernameTaken(String username) {
+        return username != null && findExisting(normalize(username), null).isUsernameTaken();
+    }
+
+    /**
+     * Whether some account already uses the email
+     */
+    public boolean isEmailTaken(String email) {
+        return email != null && findExisting(null, normalize(email)).isEmailTaken();
+    }
+
+    /**
+     * Ask the database only about the values the filter cannot rule out, in one query
+     */
+    private UserExistence findExisting(String username, String email) {
+        boolean checkUsername = existenceFilter.mightContainUsername(username);
+        boolean checkEmail = existenceFilter.mightContainEmail(email);
+        if (!checkUsername && !checkEmail) {
+            return UserExistence.NONE;
+        }
+        return userDAO.findExisting(checkUsername ? username : null, checkEmail ? email : null);
+    }
+
+    /**
+     * The form in which usernames and emails are stored, checked and added to the filter
+     */
+    private static String normalize(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    /**
+     * Callers get their own copy so changes to it never reach the cached user
+     */
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setRole(user.getRole());
+        copy.setFullName(user.getFullName());
+        copy.setCreatedAt(user.getCreatedAt());
+        return copy;
     }
 }
\ No newline at end of file
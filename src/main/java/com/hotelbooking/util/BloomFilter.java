@@ -0,0 +1,94 @@
+package com.hotelbooking.util;
+
+/**
+ * Bloom filter of strings: a "no" is certain, a "yes" may be a false positive.
+ *
+ * The bit array and hash count are sized from the expected number of values
+ * and the wanted false positive rate. Each value is hashed once to 64 bits and
+ * the k probe positions are derived from the two halves (double hashing), so
+ * a lookup costs one pass over the string. Values cannot be removed; owners
+ * rebuild the filter instead. Not thread-safe.
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private int size;
+
+    /**
+     * @param expectedValues values the filter is sized for; more can be added at a higher false positive rate
+     * @param falsePositiveRate wanted false positive rate at expectedValues, between 0 and 1
+     */
+    public BloomFilter(int expectedValues, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        int n = Math.max(1, expectedValues);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = (int) Math.min(Math.max(m, 64), Integer.MAX_VALUE - 63);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+        this.bits = new long[(bitCount + 63) >>> 6];
+        this.capacity = n;
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+        size++;
+    }
+
+    /**
+     * False means the value was never added; true means it probably was
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Values added so far, duplicates included
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether more values were added than the filter was sized for
+     */
+    public boolean isOverCapacity() {
+        return size > capacity;
+    }
+
+    /**
+     * FNV-1a over the chars, finished with the MurmurHash3 mixer so every bit depends on every char
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
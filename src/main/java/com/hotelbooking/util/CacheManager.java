@@ -0,0 +1,168 @@
+package com.hotelbooking.util;
+
+import com.hotelbooking.entity.Booking;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Named LRU cache regions with size and TTL policies, shared by the services.
+ *
+ * Each region is created on first use from its policy: the defaults below,
+ * overridden by the cache.&lt;region&gt;.maxSize and cache.&lt;region&gt;.ttlSeconds
+ * keys of cache.properties. The shared manager also ties the users and
+ * bookings-by-user regions to the DataChangeBus, so a write from any DAO,
+ * or a cascade from a deleted user or hotel, drops the affected entries.
+ * Regions with their own invalidation (rooms) subscribe themselves.
+ */
+public class CacheManager {
+
+    public static final String ROOMS = "rooms";
+    public static final String ROOMS_BY_HOTEL = "rooms-by-hotel";
+    public static final String USERS = "users";
+    public static final String BOOKINGS_BY_USER = "bookings-by-user";
+
+    /**
+     * Size and time-to-live of one region
+     */
+    public static class Policy {
+        private static final Map<String, Policy> DEFAULTS = Map.of(
+                ROOMS, new Policy(5_000, Duration.ofMinutes(10)),
+                ROOMS_BY_HOTEL, new Policy(500, Duration.ofMinutes(10)),
+                USERS, new Policy(2_000, Duration.ofMinutes(10)),
+                BOOKINGS_BY_USER, new Policy(1_000, Duration.ofMinutes(2)));
+        private static final Policy FALLBACK = new Policy(1_000, Duration.ofMinutes(5));
+
+        private final int maxSize;
+        private final Duration ttl;
+
+        public Policy(int maxSize, Duration ttl) {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+            }
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+        }
+
+        /**
+         * Built-in policy of the region
+         */
+        public static Policy defaultFor(String region) {
+            return DEFAULTS.getOrDefault(region, FALLBACK);
+        }
+
+        /**
+         * Policy of the region with the cache.&lt;region&gt;.* keys of props applied over the default
+         */
+        public static Policy fromProperties(Properties props, String region) {
+            Policy base = defaultFor(region);
+            return new Policy(
+                Settings.intProperty(props, "cache." + region + ".maxSize", base.maxSize),
+                Duration.ofSeconds(Settings.longProperty(props, "cache." + region + ".ttlSeconds", base.ttl.getSeconds())));
+        }
+
+        /**
+         * A new, unshared cache with this policy
+         */
+        public <K, V> LruCache<K, V> newCache() {
+            return new LruCache<>(maxSize, ttl);
+        }
+
+        public int getMaxSize() { return maxSize; }
+        public Duration getTtl() { return ttl; }
+    }
+
+    private static CacheManager instance;
+
+    private final Properties settings;
+    /** guarded by this */
+    private final Map<String, LruCache<?, ?>> regions = new TreeMap<>();
+
+    /**
+     * @param settings cache.* keys overriding the default policies
+     */
+    public CacheManager(Properties settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Manager shared by every service, configured from cache.properties
+     */
+    public static synchronized CacheManager getInstance() {
+        if (instance == null) {
+            instance = new CacheManager(Settings.load("/cache.properties", "cache"));
+            instance.invalidateOn(USERS, DataChange.Entity.USER, DataChange::getId);
+            instance.bindBookingsByUser();
+        }
+        return instance;
+    }
+
+    /**
+     * The named region, created from its policy on first use
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <K, V> LruCache<K, V> region(String name) {
+        return (LruCache<K, V>) regions.computeIfAbsent(name, n -> getPolicy(n).newCache());
+    }
+
+    public Policy getPolicy(String name) {
+        return Policy.fromProperties(settings, name);
+    }
+
+    /**
+     * Drop the key that keyOf picks from each committed change of the entity,
+     * or the whole region when it picks null (the changed rows are not known)
+     *
+     * @return action that stops the invalidation again
+     */
+    public <K> Runnable invalidateOn(String name, DataChange.Entity entity, Function<DataChange, K> keyOf) {
+        LruCache<K, ?> cache = region(name);
+        return DataChangeBus.subscribe(entity, change -> {
+            K key = keyOf.apply(change);
+            if (key != null) {
+                cache.invalidate(key);
+            } else {
+                cache.invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * Drop the booking lists of the changed booking's user. Status changes and
+     * deletes only carry the booking id, so the lists holding that booking go
+     * instead; rows cascaded from a hotel or room drop the whole region.
+     */
+    private void bindBookingsByUser() {
+        LruCache<Integer, List<Booking>> bookings = region(BOOKINGS_BY_USER);
+        DataChangeBus.subscribe(DataChange.Entity.BOOKING, change -> {
+            Object bookingId = change.getId();
+            if (change.getOwnerId() != null) {
+                bookings.invalidate((Integer) change.getOwnerId());
+            } else if (bookingId != null) {
+                bookings.invalidateValues(list -> list.stream().anyMatch(b -> bookingId.equals(b.getId())));
+            } else {
+                bookings.invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * Hit, miss and eviction counters of every region created so far, by name
+     */
+    public synchronized Map<String, LruCache.Stats> getStats() {
+        Map<String, LruCache.Stats> stats = new TreeMap<>();
+        for (Map.Entry<String, LruCache<?, ?>> region : regions.entrySet()) {
+            stats.put(region.getKey(), region.getValue().getStats());
+        }
+        return stats;
+    }
+
+    public synchronized void invalidateAll() {
+        for (LruCache<?, ?> region : regions.values()) {
+            region.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.hotelbooking.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for calls to an external service.
+ *
+ * While CLOSED the outcomes of the last windowSize calls are kept; once at
+ * least minimumCalls are recorded and the failed share reaches the threshold
+ * the breaker opens, and calls are refused without reaching the service. After
+ * openMillis one trial call is let through (HALF_OPEN): its success closes the
+ * breaker with an empty window, its failure opens it again.
+ *
+ * Callers pair every successful tryAcquire() with exactly one of onSuccess(),
+ * onFailure() or release(), the latter for calls that never reached the service.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    /** Ring of the last outcomes, true for a failure; guarded by this */
+    private final boolean[] window;
+    private int recorded;
+    private int next;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long timesOpened;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openMillis) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock current time in milliseconds
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openMillis, LongSupplier clock) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+        }
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("failureRateThreshold must be in (0, 1]: " + failureRateThreshold);
+        }
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = Math.max(0, openMillis);
+        this.clock = clock;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * Whether a call may go ahead now; false while open or while the trial call runs
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openMillis) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+            open();
+        }
+    }
+
+    /**
+     * Give back a permit whose call never reached the service
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * How often the breaker has opened since it was created
+     */
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == windowSize) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        timesOpened++;
+        transition(State.OPEN);
+    }
+
+    private void close() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        transition(State.CLOSED);
+    }
+
+    private void transition(State to) {
+        if (state != to) {
+            System.out.println("Circuit breaker " + name + ": " + state + " -> " + to);
+            state = to;
+        }
+    }
+}
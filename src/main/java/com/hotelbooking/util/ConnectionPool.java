@@ -0,0 +1,425 @@
+package com.hotelbooking.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded JDBC connection pool used by {@link DatabaseConnection}.
+ *
+ * Callers receive a proxy handle; closing the handle returns the physical
+ * connection to the pool instead of closing it. At most {@code maxActive}
+ * handles are out at any time, further callers wait up to {@code maxWait}
+ * milliseconds and then fail with a {@link SQLTransientConnectionException}.
+ * Each physical connection keeps a {@link StatementCache} so repeated DAO
+ * SQL is compiled once per connection.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final Config config;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private volatile boolean closed;
+
+    // 统计信息
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicInteger physicalCount = new AtomicInteger();
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    public ConnectionPool(String url, Config config) {
+        this.url = url;
+        this.config = config;
+        this.permits = new Semaphore(config.maxActive, true);
+        prefill();
+    }
+
+    /**
+     * Pool settings, normally read from the jdbc.pool.* keys of database.properties
+     */
+    public static class Config {
+        final int initialSize;
+        final int maxActive;
+        final int minIdle;
+        final long maxWaitMillis;
+        final long validationIntervalMillis;
+        final int validationTimeoutSeconds;
+        final int statementCacheSize;
+
+        public Config(int initialSize, int maxActive, int minIdle, long maxWaitMillis,
+                      long validationIntervalMillis, int validationTimeoutSeconds) {
+            this(initialSize, maxActive, minIdle, maxWaitMillis,
+                 validationIntervalMillis, validationTimeoutSeconds, 50);
+        }
+
+        public Config(int initialSize, int maxActive, int minIdle, long maxWaitMillis,
+                      long validationIntervalMillis, int validationTimeoutSeconds,
+                      int statementCacheSize) {
+            if (maxActive <= 0) {
+                throw new IllegalArgumentException("jdbc.pool.maxActive must be positive: " + maxActive);
+            }
+            this.maxActive = maxActive;
+            this.initialSize = Math.max(0, Math.min(initialSize, maxActive));
+            this.minIdle = Math.max(0, Math.min(minIdle, maxActive));
+            this.maxWaitMillis = Math.max(0, maxWaitMillis);
+            this.validationIntervalMillis = Math.max(0, validationIntervalMillis);
+            this.validationTimeoutSeconds = Math.max(1, validationTimeoutSeconds);
+            this.statementCacheSize = Math.max(0, statementCacheSize);
+        }
+
+        public static Config fromProperties(Properties props) {
+            return new Config(
+                Settings.intProperty(props, "jdbc.pool.initialSize", 5),
+                Settings.intProperty(props, "jdbc.pool.maxActive", 20),
+                Settings.intProperty(props, "jdbc.pool.minIdle", 5),
+                Settings.longProperty(props, "jdbc.pool.maxWait", 60000L),
+                Settings.longProperty(props, "jdbc.pool.validationInterval", 5000L),
+                Settings.intProperty(props, "jdbc.pool.validationTimeout", 2),
+                Settings.intProperty(props, "jdbc.pool.statementCacheSize", 50)
+            );
+        }
+
+        public int getMaxActive() { return maxActive; }
+        public long getMaxWaitMillis() { return maxWaitMillis; }
+    }
+
+    /**
+     * Point-in-time view of the pool counters
+     */
+    public static class Stats {
+        private final int active;
+        private final int idle;
+        private final int waiters;
+        private final int physicalConnections;
+        private final long acquireCount;
+        private final long avgAcquireMicros;
+        private final long maxAcquireMicros;
+        private final long timeouts;
+        private final long validationFailures;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+        private final long statementCacheEvictions;
+
+        Stats(int active, int idle, int waiters, int physicalConnections, long acquireCount,
+              long avgAcquireMicros, long maxAcquireMicros, long timeouts, long validationFailures,
+              long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+            this.active = active;
+            this.idle = idle;
+            this.waiters = waiters;
+            this.physicalConnections = physicalConnections;
+            this.acquireCount = acquireCount;
+            this.avgAcquireMicros = avgAcquireMicros;
+            this.maxAcquireMicros = maxAcquireMicros;
+            this.timeouts = timeouts;
+            this.validationFailures = validationFailures;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+            this.statementCacheEvictions = statementCacheEvictions;
+        }
+
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiters() { return waiters; }
+        public int getPhysicalConnections() { return physicalConnections; }
+        public long getAcquireCount() { return acquireCount; }
+        public long getAvgAcquireMicros() { return avgAcquireMicros; }
+        public long getMaxAcquireMicros() { return maxAcquireMicros; }
+        public long getTimeouts() { return timeouts; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getStatementCacheHits() { return statementCacheHits; }
+        public long getStatementCacheMisses() { return statementCacheMisses; }
+        public long getStatementCacheEvictions() { return statementCacheEvictions; }
+
+        public double getStatementCacheHitRate() {
+            long lookups = statementCacheHits + statementCacheMisses;
+            return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "PoolStats{active=" + active +
+                    ", idle=" + idle +
+                    ", waiters=" + waiters +
+                    ", physical=" + physicalConnections +
+                    ", acquired=" + acquireCount +
+                    ", avgAcquireUs=" + avgAcquireMicros +
+                    ", maxAcquireUs=" + maxAcquireMicros +
+                    ", timeouts=" + timeouts +
+                    ", validationFailures=" + validationFailures +
+                    ", stmtHits=" + statementCacheHits +
+                    ", stmtMisses=" + statementCacheMisses +
+                    ", stmtEvictions=" + statementCacheEvictions +
+                    '}';
+        }
+    }
+
+    /**
+     * 从连接池借出一个连接，调用方关闭连接即归还
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed: " + url);
+        }
+        long start = System.nanoTime();
+        waiters.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(config.maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+        if (!acquired) {
+            timeoutCount.increment();
+            throw new SQLTransientConnectionException(
+                "Timed out after " + config.maxWaitMillis + " ms waiting for a database connection" +
+                " (active=" + active.get() + ", maxActive=" + config.maxActive +
+                ", waiters=" + waiters.get() + ")", "08001");
+        }
+
+        try {
+            PooledConnection pooled = takeValidIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(openPhysical());
+            }
+            active.incrementAndGet();
+            recordAcquire(System.nanoTime() - start);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public Stats getStats() {
+        long count = acquireCount.sum();
+        long avgMicros = count == 0 ? 0 : acquireNanos.sum() / count / 1000;
+        return new Stats(active.get(), idle.size(), waiters.get(), physicalCount.get(), count,
+                avgMicros, maxAcquireNanos.get() / 1000, timeoutCount.sum(), validationFailures.sum(),
+                statementCounters.hits.sum(), statementCounters.misses.sum(),
+                statementCounters.evictions.sum());
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * 关闭连接池：关闭所有空闲连接，借出的连接在归还时关闭
+     */
+    public void close() {
+        closed = true;
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+    private void prefill() {
+        int target = Math.max(config.initialSize, config.minIdle);
+        for (int i = 0; i < target; i++) {
+            try {
+                idle.offerLast(new PooledConnection(openPhysical()));
+            } catch (SQLException e) {
+                // 预热失败不影响使用，借用时再创建
+                System.err.println("Connection pool prefill failed: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private PooledConnection takeValidIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (pooled.validate()) {
+                return pooled;
+            }
+            validationFailures.increment();
+            pooled.closePhysical();
+        }
+        return null;
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        connection.setAutoCommit(true);
+        physicalCount.incrementAndGet();
+        return connection;
+    }
+
+    private void recordAcquire(long nanos) {
+        acquireCount.increment();
+        acquireNanos.add(nanos);
+        maxAcquireNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void release(PooledConnection pooled) {
+        active.decrementAndGet();
+        try {
+            if (closed || !pooled.reset()) {
+                pooled.closePhysical();
+            } else {
+                // 后进先出，热连接优先复用
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private long lastReturnedAt = System.currentTimeMillis();
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = config.statementCacheSize > 0
+                    ? new StatementCache(config.statementCacheSize, statementCounters)
+                    : null;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Handle(this));
+        }
+
+        boolean validate() {
+            if (System.currentTimeMillis() - lastReturnedAt < config.validationIntervalMillis) {
+                return true;
+            }
+            try {
+                return !physical.isClosed() && physical.isValid(config.validationTimeoutSeconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * 归还前恢复连接默认状态，失败则丢弃该连接
+         */
+        boolean reset() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                physical.clearWarnings();
+                lastReturnedAt = System.currentTimeMillis();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            physicalCount.decrementAndGet();
+            if (statements != null) {
+                statements.clear();
+            }
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing pooled connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Connection handle given to callers; close() hands the connection back
+     */
+    private class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean handleClosed;
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + url + (handleClosed ? ", closed" : "") + "]";
+                default:
+                    break;
+            }
+            if (handleClosed) {
+                throw new SQLException("Connection is closed", "08003");
+            }
+            if ("prepareStatement".equals(name) && pooled.statements != null && isCacheable(args)) {
+                int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : -1;
+                return pooled.statements.prepare(pooled.physical, (Connection) proxy,
+                        (String) args[0], autoGeneratedKeys);
+            }
+            Object result;
+            try {
+                result = method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                // 未缓存的语句同样只能暴露连接句柄
+                return StatementCache.uncached((Statement) result,
+                        method.getReturnType().asSubclass(Statement.class), (Connection) proxy);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 只缓存 prepareStatement(sql) 和 prepareStatement(sql, autoGeneratedKeys)
+     */
+    private static boolean isCacheable(Object[] args) {
+        if (args.length == 1) {
+            return true;
+        }
+        return args.length == 2 && args[1] instanceof Integer;
+    }
+}
@@ -0,0 +1,148 @@
+package com.hotelbooking.util;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A committed change to rows of one table, as published on the DataChangeBus.
+ *
+ * The id is the changed row's primary key, or null when the rows are only
+ * known through their owner. The owner id names the row a changed row belongs
+ * to (a room's hotel, a booking's user) when the writer knew it; other parent
+ * rows (a booking's room) can be attached with withParent(). Rows removed by
+ * ON DELETE CASCADE are published as DELETED changes of the child table with a
+ * null id, the deleted row as parent and the parent change as cause.
+ */
+public final class DataChange {
+
+    /**
+     * Tables whose changes are published, with the foreign keys that cascade to them
+     */
+    public enum Entity {
+        HOTEL(null),
+        USER(null),
+        ROOM(HOTEL),
+        BOOKING(USER),
+        PAYMENT(null);
+
+        private final Entity owner;
+
+        Entity(Entity owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * The table whose id is carried as owner id, or null
+         */
+        public Entity getOwner() {
+            return owner;
+        }
+
+        /**
+         * Tables whose rows are deleted with a row of this one (ON DELETE CASCADE)
+         */
+        public List<Entity> getCascades() {
+            switch (this) {
+                case HOTEL:
+                    return List.of(ROOM, BOOKING);
+                case USER:
+                case ROOM:
+                    return List.of(BOOKING);
+                case BOOKING:
+                    return List.of(PAYMENT);
+                default:
+                    return List.of();
+            }
+        }
+    }
+
+    public enum Kind { CREATED, UPDATED, DELETED }
+
+    private final Entity entity;
+    private final Kind kind;
+    private final Object id;
+    private final Object ownerId;
+    private final Map<Entity, Object> parents;
+    private final DataChange cause;
+
+    private DataChange(Entity entity, Kind kind, Object id, Object ownerId, Map<Entity, Object> parents,
+                       DataChange cause) {
+        this.entity = entity;
+        this.kind = kind;
+        this.id = id;
+        this.ownerId = ownerId;
+        this.parents = parents;
+        this.cause = cause;
+    }
+
+    public static DataChange created(Entity entity, Object id) {
+        return created(entity, id, null);
+    }
+
+    public static DataChange updated(Entity entity, Object id) {
+        return updated(entity, id, null);
+    }
+
+    public static DataChange deleted(Entity entity, Object id) {
+        return deleted(entity, id, null);
+    }
+
+    public static DataChange created(Entity entity, Object id, Object ownerId) {
+        return new DataChange(entity, Kind.CREATED, id, ownerId, Map.of(), null);
+    }
+
+    public static DataChange updated(Entity entity, Object id, Object ownerId) {
+        return new DataChange(entity, Kind.UPDATED, id, ownerId, Map.of(), null);
+    }
+
+    public static DataChange deleted(Entity entity, Object id, Object ownerId) {
+        return new DataChange(entity, Kind.DELETED, id, ownerId, Map.of(), null);
+    }
+
+    /**
+     * Copy of this change that also names the row of another table the changed row belonged to
+     */
+    public DataChange withParent(Entity parent, Object parentId) {
+        if (parentId == null) {
+            return this;
+        }
+        Map<Entity, Object> copy = new EnumMap<>(Entity.class);
+        copy.putAll(parents);
+        copy.put(parent, parentId);
+        return new DataChange(entity, kind, id, ownerId, Map.copyOf(copy), cause);
+    }
+
+    /**
+     * Deletion of the child rows that the database removed together with this change's row
+     */
+    DataChange cascadeTo(Entity child) {
+        Object childOwner = child.getOwner() == entity ? id : null;
+        Map<Entity, Object> childParents = id != null ? Map.of(entity, id) : Map.of();
+        return new DataChange(child, Kind.DELETED, null, childOwner, childParents, this);
+    }
+
+    public Entity getEntity() { return entity; }
+    public Kind getKind() { return kind; }
+    /** Primary key of the changed row; null for rows deleted by cascade */
+    public Object getId() { return id; }
+    /** Id of the owning row, see Entity.getOwner(); null when unknown */
+    public Object getOwnerId() { return ownerId; }
+    /** Id of the row of the parent table the changed row belongs to, the owner included; null when unknown */
+    public Object getParentId(Entity parent) {
+        return parent == entity.getOwner() && ownerId != null ? ownerId : parents.get(parent);
+    }
+    /** The parent change for rows deleted by cascade, otherwise null */
+    public DataChange getCause() { return cause; }
+
+    public boolean isDelete() {
+        return kind == Kind.DELETED;
+    }
+
+    @Override
+    public String toString() {
+        return "DataChange{" + kind + " " + entity + " id=" + id + ", ownerId=" + ownerId
+                + (parents.isEmpty() ? "" : ", parents=" + parents)
+                + (cause != null ? ", cause=" + cause : "") + "}";
+    }
+}
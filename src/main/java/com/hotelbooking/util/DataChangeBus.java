@@ -0,0 +1,84 @@
+package com.hotelbooking.util;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus on which DAOs publish their writes, so every in-memory copy
+ * of the data can drop what changed, whoever made the change.
+ *
+ * A change is delivered once the current unit of work commits (immediately
+ * outside one) and never after a rollback. A delete is followed by one
+ * DELETED change for every table its foreign keys cascade to, each table
+ * once, so a cache of rooms hears about a deleted hotel without HotelDAO
+ * knowing the cache exists. Listeners run on the writing thread and must be
+ * quick; one that throws is reported and does not stop the others.
+ */
+public final class DataChangeBus {
+
+    private static final Map<DataChange.Entity, List<Consumer<DataChange>>> LISTENERS =
+            new EnumMap<>(DataChange.Entity.class);
+
+    static {
+        for (DataChange.Entity entity : DataChange.Entity.values()) {
+            LISTENERS.put(entity, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    private DataChangeBus() {
+    }
+
+    /**
+     * Call the listener for every committed change of the table, cascaded deletes included
+     *
+     * @return action that removes the listener again
+     */
+    public static Runnable subscribe(DataChange.Entity entity, Consumer<DataChange> listener) {
+        List<Consumer<DataChange>> listeners = LISTENERS.get(entity);
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    /**
+     * Deliver the change, and its cascades, once the current unit of work commits
+     */
+    public static void publish(DataChange change) {
+        TransactionManager.afterCommit(() -> deliver(expand(change)));
+    }
+
+    private static List<DataChange> expand(DataChange change) {
+        List<DataChange> changes = new ArrayList<>();
+        changes.add(change);
+        if (change.isDelete()) {
+            Set<DataChange.Entity> seen = EnumSet.of(change.getEntity());
+            // 按级联层次展开，同一张表只通知一次
+            for (int i = 0; i < changes.size(); i++) {
+                DataChange parent = changes.get(i);
+                for (DataChange.Entity child : parent.getEntity().getCascades()) {
+                    if (seen.add(child)) {
+                        changes.add(parent.cascadeTo(child));
+                    }
+                }
+            }
+        }
+        return changes;
+    }
+
+    private static void deliver(List<DataChange> changes) {
+        for (DataChange change : changes) {
+            for (Consumer<DataChange> listener : LISTENERS.get(change.getEntity())) {
+                try {
+                    listener.accept(change);
+                } catch (RuntimeException e) {
+                    System.err.println("Data change listener failed for " + change + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
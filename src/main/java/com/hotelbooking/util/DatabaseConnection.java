@@ -3,6 +3,7 @@ package com.hotelbooking.util;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
 public class DatabaseConnection {
     // 数据库连接参数
@@ -12,6 +13,11 @@ public class DatabaseConnection {
     private static final String USER = "app";
     private static final String PASSWORD = "app";
     
+    // 连接池配置（来自 database.properties 的 jdbc.pool.*）
+    private static final Properties POOL_PROPERTIES = Settings.load("/database.properties", "pool");
+    private static ConnectionPool pool;
+    private static RetryPolicy retryPolicy;
+    
     // 静态块用于加载数据库驱动
     static {
         // 检查是否有测试环境指定的数据库URL
@@ -32,15 +38,21 @@ public class DatabaseConnection {
     }
     
     /**
-     * 获取数据库连接
+     * 获取数据库连接；在 TransactionManager 事务内返回当前线程绑定的连接
      * @return Connection 数据库连接对象
      * @throws SQLException 如果连接失败
      */
     public static Connection getConnection() throws SQLException {
+        Connection bound = TransactionManager.currentConnection();
+        return bound != null ? bound : borrowConnection();
+    }
+    
+    /**
+     * 直接从连接池借出连接，不参与当前事务
+     */
+    static Connection borrowConnection() throws SQLException {
         try {
-            Connection connection = DriverManager.getConnection(URL);
-            connection.setAutoCommit(true);
-            return connection;
+            return getPool().borrow();
         } catch (SQLException e) {
             System.err.println("Failed to get database connection to: " + URL);
             System.err.println("Error: " + e.getMessage());
@@ -48,6 +60,50 @@ public class DatabaseConnection {
         }
     }
     
+    /**
+     * 获取当前连接池，数据库URL变化时（例如测试切换数据库）重建连接池
+     */
+    private static synchronized ConnectionPool getPool() {
+        if (pool == null || !pool.getUrl().equals(URL)) {
+            if (pool != null) {
+                pool.close();
+            }
+            pool = new ConnectionPool(URL, ConnectionPool.Config.fromProperties(POOL_PROPERTIES));
+            System.out.println("Connection pool created for " + URL);
+        }
+        return pool;
+    }
+    
+    /**
+     * 获取连接池统计信息（活动、空闲、等待数和获取延迟）
+     * @return ConnectionPool.Stats 连接池快照
+     */
+    public static ConnectionPool.Stats getPoolStats() {
+        return getPool().getStats();
+    }
+    
+    /**
+     * 数据库写操作的重试策略（database.properties 的 jdbc.retry.*），只重试死锁和锁超时。
+     * 事务内不重试：Derby 遇到死锁或锁超时会回滚整个事务，只能由开启事务的代码整体重来
+     */
+    public static synchronized RetryPolicy getRetryPolicy() {
+        if (retryPolicy == null) {
+            retryPolicy = new RetryPolicy("database", RetryPolicy.Config.fromProperties(POOL_PROPERTIES, "jdbc.retry"),
+                    e -> !TransactionManager.isActive() && RetryPolicy.isTransientSqlError(e));
+        }
+        return retryPolicy;
+    }
+    
+    /**
+     * 关闭连接池中的所有连接
+     */
+    public static synchronized void closePool() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+    
     /**
      * 测试数据库连接是否正常
      * @return boolean 连接是否成功
@@ -110,6 +166,7 @@ public class DatabaseConnection {
      * 关闭 Derby 数据库（在应用关闭时调用）
      */
     public static void shutdownDatabase() {
+        closePool();
         try {
             // Derby 关闭数据库的特殊 URL
             DriverManager.getConnection("jdbc:derby:;shutdown=true");
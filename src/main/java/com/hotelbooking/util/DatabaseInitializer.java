@@ -8,83 +8,43 @@ import java.sql.Statement;
 
 public class DatabaseInitializer {
 
+    /**
+     * 应用启动时调用：只执行尚未应用的迁移，不删除已有数据
+     */
+    public static void migrateDatabase() {
+        int version = SchemaMigrator.migrate();
+        System.out.println("Database schema is at version " + version);
+    }
+
+    /**
+     * 数据库中是否还没有任何用户和酒店（用于决定是否插入示例数据）
+     */
+    public static boolean isDatabaseEmpty() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT (SELECT COUNT(*) FROM users) + (SELECT COUNT(*) FROM hotels) FROM SYSIBM.SYSDUMMY1")) {
+            return rs.next() && rs.getInt(1) == 0;
+        } catch (SQLException e) {
+            System.out.println("Check empty database error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 删除所有表并从版本 1 重新迁移（用于测试和重置）
+     */
     public static void initializeDatabase() {
            String[] dropTables = {
+        "DROP TABLE payment_requests",
         "DROP TABLE payments",
         "DROP TABLE bookings", 
         "DROP TABLE rooms",
         "DROP TABLE hotels",
-        "DROP TABLE users"
+        "DROP TABLE users",
+        "DROP TABLE schema_version"
     };      
-        // 修复点：BOOLEAN → SMALLINT (Derby 不支持 BOOLEAN)
-        String createUserTable = """
-            CREATE TABLE users (
-                id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
-                username VARCHAR(50) UNIQUE NOT NULL,
-                email VARCHAR(100) UNIQUE NOT NULL,
-                password VARCHAR(100) NOT NULL,
-                role VARCHAR(20) NOT NULL,
-                created_at TIMESTAMP NOT NULL
-            )
-            """;
-
-        String createHotelTable = """
-            CREATE TABLE hotels (
-                id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
-                name VARCHAR(100) NOT NULL,
-                location VARCHAR(100) NOT NULL,
-                description VARCHAR(500),
-                available_rooms INTEGER NOT NULL
-            )
-            """;
-
-       String createRoomTable = """
-    CREATE TABLE rooms (
-        id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
-        hotel_id INTEGER NOT NULL,
-        room_number VARCHAR(10) NOT NULL,
-        room_type VARCHAR(20) NOT NULL,
-        price DECIMAL(10,2) NOT NULL,
-        max_occupancy INTEGER NOT NULL,  -- 新增
-        description VARCHAR(500),        -- 新增
-        available SMALLINT NOT NULL,
-        FOREIGN KEY (hotel_id) REFERENCES hotels(id) ON DELETE CASCADE,
-        UNIQUE (hotel_id, room_number)
-    )
-    """;
-
-        String createBookingTable = """
-            CREATE TABLE bookings (
-                id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
-                booking_id VARCHAR(50) UNIQUE NOT NULL,
-                user_id INTEGER NOT NULL,
-                hotel_id INTEGER NOT NULL,
-                room_id INTEGER NOT NULL,
-                check_in_date DATE NOT NULL,
-                check_out_date DATE NOT NULL,
-                total_price DECIMAL(10,2) NOT NULL,
-                status VARCHAR(20) NOT NULL,
-                created_at TIMESTAMP NOT NULL,
-                FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
-                FOREIGN KEY (hotel_id) REFERENCES hotels(id) ON DELETE CASCADE,
-                FOREIGN KEY (room_id) REFERENCES rooms(id) ON DELETE CASCADE,
-                CHECK (check_out_date > check_in_date)
-            )
-            """;
-
-        String createPaymentTable = """
-            CREATE TABLE payments (
-                id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
-                payment_id VARCHAR(50) UNIQUE NOT NULL,
-                booking_id VARCHAR(50) NOT NULL,
-                amount DECIMAL(10,2) NOT NULL,
-                payment_method VARCHAR(20) NOT NULL,
-                payment_status VARCHAR(20) NOT NULL,
-                payment_date TIMESTAMP NOT NULL,
-                transaction_id VARCHAR(100),
-                FOREIGN KEY (booking_id) REFERENCES bookings(booking_id) ON DELETE CASCADE
-            )
-            """;
+        // 表结构由 SchemaMigrator 的版本化迁移创建
 
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement()) {
@@ -113,11 +73,7 @@ public class DatabaseInitializer {
             }
         }
         
-            stmt.executeUpdate(createUserTable);
-            stmt.executeUpdate(createHotelTable);
-            stmt.executeUpdate(createRoomTable);
-            stmt.executeUpdate(createBookingTable);
-            stmt.executeUpdate(createPaymentTable);
+            SchemaMigrator.migrate(conn);
 
             System.out.println("Database initialized successfully");
 
@@ -136,6 +92,7 @@ public class DatabaseInitializer {
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement()) {
 
+            stmt.executeUpdate("DELETE FROM payment_requests");
             stmt.executeUpdate("DELETE FROM payments");
             stmt.executeUpdate("DELETE FROM bookings");
             stmt.executeUpdate("DELETE FROM rooms");
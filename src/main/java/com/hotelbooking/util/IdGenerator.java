@@ -0,0 +1,173 @@
+package com.hotelbooking.util;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 64-bit ids for booking, payment and transaction numbers.
+ *
+ * An id is 41 bits of milliseconds since 2024-01-01 UTC, a 10-bit node id and
+ * a 12-bit sequence within the millisecond. Ids from one generator strictly
+ * increase: the next one is taken with a compare-and-set over the last
+ * (millisecond, sequence) pair, so callers never block. When more than 4096
+ * ids are taken in a millisecond, or the clock steps back, the generator runs
+ * ahead of the clock until it catches up instead of waiting or repeating.
+ *
+ * Generators on different machines must use different node ids, from the
+ * hotelbooking.nodeId system property or the HOTELBOOKING_NODE_ID environment
+ * variable; without either the node id is derived from host name and process id.
+ *
+ * The string form is a prefix and the id in 13 base-36 digits, so string order
+ * matches id order and the unique indexes on the VARCHAR id columns stay short.
+ * The binary form is the id as 8 big-endian bytes, which also sorts in id order.
+ */
+public class IdGenerator {
+
+    public static final String BOOKING = "BOOK";
+    public static final String PAYMENT = "PAY";
+    public static final String TRANSACTION = "TXN";
+    /** Idempotency keys of payment submits */
+    public static final String PAYMENT_REQUEST = "PREQ";
+
+    /** 2024-01-01T00:00:00Z */
+    static final long EPOCH = 1_704_067_200_000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    /** Base-36 digits of the largest positive long */
+    private static final int TEXT_DIGITS = 13;
+
+    private static IdGenerator instance;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    /** Last (milliseconds since EPOCH << SEQUENCE_BITS | sequence) handed out */
+    private final AtomicLong last = new AtomicLong();
+
+    public IdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock current time in epoch milliseconds
+     */
+    public IdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * Generator of this process, with the configured or derived node id
+     */
+    public static synchronized IdGenerator getInstance() {
+        if (instance == null) {
+            instance = new IdGenerator(configuredNodeId());
+        }
+        return instance;
+    }
+
+    /**
+     * Next id; greater than every id this generator returned before
+     */
+    public long nextId() {
+        long now = (clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+        while (true) {
+            long previous = last.get();
+            // 同一毫秒内递增序号，序号用完或时钟回拨时借用下一毫秒
+            long next = Math.max(previous + 1, now);
+            if (last.compareAndSet(previous, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                        | nodeId << SEQUENCE_BITS
+                        | next & SEQUENCE_MASK;
+            }
+        }
+    }
+
+    /**
+     * Next id in string form, e.g. BOOK_0AB3KX9C2M1PQ
+     */
+    public String nextId(String prefix) {
+        return format(prefix, nextId());
+    }
+
+    public static String format(String prefix, long id) {
+        String digits = Long.toString(id, Character.MAX_RADIX).toUpperCase(Locale.ROOT);
+        StringBuilder text = new StringBuilder(prefix.length() + 1 + TEXT_DIGITS).append(prefix).append('_');
+        for (int i = digits.length(); i < TEXT_DIGITS; i++) {
+            text.append('0');
+        }
+        return text.append(digits).toString();
+    }
+
+    /**
+     * The id in a string made by format()
+     *
+     * @throws IllegalArgumentException if the text is not in that form
+     */
+    public static long parse(String text) {
+        int separator = text.lastIndexOf('_');
+        String digits = text.substring(separator + 1);
+        if (digits.length() != TEXT_DIGITS) {
+            throw new IllegalArgumentException("Not a generated id: " + text);
+        }
+        try {
+            return Long.parseLong(digits, Character.MAX_RADIX);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a generated id: " + text, e);
+        }
+    }
+
+    public static byte[] toBytes(long id) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(id).array();
+    }
+
+    public static long fromBytes(byte[] bytes) {
+        if (bytes.length != Long.BYTES) {
+            throw new IllegalArgumentException("Expected " + Long.BYTES + " bytes, got " + bytes.length);
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH);
+    }
+
+    public static int nodeOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    public static int sequenceOf(long id) {
+        return (int) (id & SEQUENCE_MASK);
+    }
+
+    public int getNodeId() {
+        return (int) nodeId;
+    }
+
+    private static int configuredNodeId() {
+        String value = System.getProperty("hotelbooking.nodeId", System.getenv("HOTELBOOKING_NODE_ID"));
+        if (value != null && !value.trim().isEmpty()) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid node id " + value + ", deriving one from host and process");
+            }
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        long pid = ProcessHandle.current().pid();
+        return Math.floorMod(host.hashCode() * 31 + Long.hashCode(pid), MAX_NODE_ID + 1);
+    }
+}
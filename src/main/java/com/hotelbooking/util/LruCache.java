@@ -0,0 +1,235 @@
+package com.hotelbooking.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded LRU cache whose entries expire a fixed time after they were loaded.
+ *
+ * Values are loaded outside the lock, so a slow loader does not block readers
+ * of other keys. Every invalidation bumps a generation counter and a load that
+ * started before it is returned to its caller but not stored, so a value read
+ * before a write can never be cached after that write's invalidation.
+ */
+public class LruCache<K, V> {
+
+    /**
+     * Point-in-time counters of one cache
+     */
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final long loads;
+        private final long loadNanos;
+        private final int size;
+
+        Stats(long hits, long misses, long evictions, long expirations, long loads, long loadNanos, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.loads = loads;
+            this.loadNanos = loadNanos;
+            this.size = size;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getExpirations() { return expirations; }
+        public long getLoads() { return loads; }
+        public long getTotalLoadMillis() { return loadNanos / 1_000_000; }
+        public int getSize() { return size; }
+
+        public double getAverageLoadMillis() {
+            return loads == 0 ? 0.0 : loadNanos / 1e6 / loads;
+        }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStats{hits=" + hits +
+                    ", misses=" + misses +
+                    ", hitRate=" + String.format("%.2f", getHitRate()) +
+                    ", evictions=" + evictions +
+                    ", expirations=" + expirations +
+                    ", loads=" + loads +
+                    ", avgLoadMs=" + String.format("%.3f", getAverageLoadMillis()) +
+                    ", size=" + size + "}";
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private long generation;
+
+    /**
+     * @param maxSize most entries kept; the least recently used one is evicted beyond it
+     * @param ttl how long an entry stays valid after it was loaded
+     */
+    public LruCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    /**
+     * @param clock nanosecond time source, replaceable in tests
+     */
+    public LruCache(int maxSize, Duration ttl, LongSupplier clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Cached value of the key, or null when absent or expired
+     */
+    public V getIfPresent(K key) {
+        synchronized (this) {
+            Entry<V> entry = lookup(key);
+            if (entry != null) {
+                hits.increment();
+                return entry.value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cached value of the key, loading and caching it on a miss.
+     * Null results are returned but not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = lookup(key);
+            if (entry != null) {
+                hits.increment();
+                return entry.value;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        long started = System.nanoTime();
+        V value;
+        try {
+            value = loader.apply(key);
+        } finally {
+            loads.increment();
+            loadNanos.add(System.nanoTime() - started);
+        }
+        if (value != null) {
+            synchronized (this) {
+                // 加载期间发生过失效，结果可能已过时，只返回不缓存
+                if (loadGeneration == generation) {
+                    store(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Like getIfPresent, but not counted as a hit or miss; for the cache owner's own bookkeeping
+     */
+    public synchronized V peek(K key) {
+        Entry<V> entry = lookup(key);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Store a value directly; a load of any key that is still running will not be cached
+     */
+    public synchronized void put(K key, V value) {
+        generation++;
+        store(key, value);
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    /**
+     * Drop every entry whose key matches
+     */
+    public synchronized void invalidateIf(Predicate<? super K> keys) {
+        generation++;
+        entries.keySet().removeIf(keys);
+    }
+
+    /**
+     * Drop every entry whose value matches
+     */
+    public synchronized void invalidateValues(Predicate<? super V> values) {
+        generation++;
+        entries.values().removeIf(entry -> values.test(entry.value));
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(),
+                loads.sum(), loadNanos.sum(), entries.size());
+    }
+
+    private Entry<V> lookup(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && clock.getAsLong() - entry.expiresAt >= 0) {
+            entries.remove(key);
+            expirations.increment();
+            return null;
+        }
+        return entry;
+    }
+
+    private void store(K key, V value) {
+        entries.put(key, new Entry<>(value, clock.getAsLong() + ttlNanos));
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.hotelbooking.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily maps an open JDBC cursor to a {@link Stream}.
+ *
+ * Rows are read one at a time as the stream is consumed, so bulk reads run in
+ * constant memory. The stream owns the connection, statement and result set
+ * and releases them when it is closed; callers must use try-with-resources:
+ *
+ * <pre>
+ * try (Stream&lt;Booking&gt; bookings = bookingDAO.streamAllBookings()) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class ResultSetStream {
+
+    /**
+     * Rows fetched from the driver per round trip
+     */
+    public static final int FETCH_SIZE = 500;
+
+    /**
+     * Maps the current row of a result set
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private ResultSetStream() {
+    }
+
+    /**
+     * Run the query and stream its rows; parameters are bound in order
+     */
+    public static <T> Stream<T> query(String sql, RowMapper<T> mapper, Object... params) {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            ResultSet rs = stmt.executeQuery();
+            rs.setFetchSize(FETCH_SIZE);
+            return of(conn, stmt, rs, mapper);
+        } catch (SQLException e) {
+            closeQuietly(stmt, conn);
+            throw new RuntimeException("Error opening stream: " + sql, e);
+        }
+    }
+
+    private static <T> Stream<T> of(Connection conn, PreparedStatement stmt, ResultSet rs, RowMapper<T> mapper) {
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error reading streamed row", e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeQuietly(rs, stmt, conn));
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource != null) {
+                try {
+                    resource.close();
+                } catch (Exception e) {
+                    System.err.println("Error closing stream resource: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
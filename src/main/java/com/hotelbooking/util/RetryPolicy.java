@@ -0,0 +1,243 @@
+package com.hotelbooking.util;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Retries transient failures with exponential backoff, full jitter and a retry budget.
+ *
+ * Before retry n the caller sleeps a random time between 0 and
+ * min(maxDelayMillis, baseDelayMillis * 2^(n-1)), so callers that failed
+ * together do not come back together. The budget is a token bucket: every
+ * call adds budgetRatio tokens, every retry takes one, and the bucket holds
+ * at most minRetries tokens (its starting level). When a dependency fails
+ * for everyone, retries stop at roughly budgetRatio of the traffic instead of
+ * multiplying it.
+ */
+public class RetryPolicy {
+
+    /** Derby deadlock, lock timeout, and lock timeout with diagnostics */
+    private static final Set<String> TRANSIENT_SQL_STATES = Set.of("40001", "40XL1", "40XL2");
+
+    /**
+     * Attempt, backoff and budget settings, read from the &lt;prefix&gt;.* keys
+     */
+    public static class Config {
+        final int maxAttempts;
+        final long baseDelayMillis;
+        final long maxDelayMillis;
+        final double budgetRatio;
+        final int minRetries;
+
+        public Config(int maxAttempts, long baseDelayMillis, long maxDelayMillis, double budgetRatio, int minRetries) {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            this.baseDelayMillis = Math.max(0, baseDelayMillis);
+            this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+            this.budgetRatio = Math.max(0, budgetRatio);
+            this.minRetries = Math.max(0, minRetries);
+        }
+
+        /**
+         * Settings under prefix, e.g. jdbc.retry.maxAttempts, with defaults
+         * of three attempts, 50 to 1000 ms backoff and a 10% budget
+         */
+        public static Config fromProperties(Properties props, String prefix) {
+            return new Config(
+                Settings.intProperty(props, prefix + ".maxAttempts", 3),
+                Settings.longProperty(props, prefix + ".baseDelayMillis", 50L),
+                Settings.longProperty(props, prefix + ".maxDelayMillis", 1_000L),
+                Settings.doubleProperty(props, prefix + ".budgetRatio", 0.1),
+                Settings.intProperty(props, prefix + ".minRetries", 10)
+            );
+        }
+    }
+
+    /**
+     * Point-in-time view of the retry counters
+     */
+    public static class Stats {
+        private final long calls;
+        private final long retries;
+        private final long recovered;
+        private final long exhausted;
+        private final long budgetDenied;
+        private final long sleptMillis;
+
+        Stats(long calls, long retries, long recovered, long exhausted, long budgetDenied, long sleptMillis) {
+            this.calls = calls;
+            this.retries = retries;
+            this.recovered = recovered;
+            this.exhausted = exhausted;
+            this.budgetDenied = budgetDenied;
+            this.sleptMillis = sleptMillis;
+        }
+
+        public long getCalls() { return calls; }
+        public long getRetries() { return retries; }
+        /** Calls that succeeded after at least one retry */
+        public long getRecovered() { return recovered; }
+        /** Calls that failed on their last allowed attempt */
+        public long getExhausted() { return exhausted; }
+        /** Retries skipped because the budget was empty */
+        public long getBudgetDenied() { return budgetDenied; }
+        public long getSleptMillis() { return sleptMillis; }
+
+        @Override
+        public String toString() {
+            return "Retry{calls=" + calls + ", retries=" + retries + ", recovered=" + recovered +
+                   ", exhausted=" + exhausted + ", budgetDenied=" + budgetDenied +
+                   ", sleptMillis=" + sleptMillis + "}";
+        }
+    }
+
+    /**
+     * Waits between attempts; replaced in tests
+     */
+    public interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final String name;
+    private final Config config;
+    private final Predicate<Throwable> retryable;
+    private final DoubleSupplier random;
+    private final Sleeper sleeper;
+
+    /** Retry tokens; guarded by this */
+    private double tokens;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder budgetDenied = new LongAdder();
+    private final LongAdder sleptMillis = new LongAdder();
+
+    public RetryPolicy(String name, Config config, Predicate<Throwable> retryable) {
+        this(name, config, retryable, () -> ThreadLocalRandom.current().nextDouble(), Thread::sleep);
+    }
+
+    public RetryPolicy(String name, Config config, Predicate<Throwable> retryable,
+                       DoubleSupplier random, Sleeper sleeper) {
+        this.name = name;
+        this.config = config;
+        this.retryable = retryable;
+        this.random = random;
+        this.sleeper = sleeper;
+        this.tokens = config.minRetries;
+    }
+
+    /**
+     * Policy that runs every call exactly once
+     */
+    public static RetryPolicy noRetry(String name) {
+        return new RetryPolicy(name, new Config(1, 0, 0, 0, 0), e -> false);
+    }
+
+    /**
+     * Whether e, or one of its causes, is a SQLException that a new transaction may not hit again
+     */
+    public static boolean isTransientSqlError(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientException) {
+                return true;
+            }
+            if (t instanceof SQLException) {
+                for (SQLException s = (SQLException) t; s != null; s = s.getNextException()) {
+                    if (s.getSQLState() != null && TRANSIENT_SQL_STATES.contains(s.getSQLState())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Run action, retrying retryable failures; the last failure is rethrown as is
+     */
+    public <T> T execute(Supplier<T> action) {
+        calls.increment();
+        deposit();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = action.get();
+                if (attempt > 1) {
+                    recovered.increment();
+                }
+                return result;
+            } catch (RuntimeException e) {
+                if (!retryable.test(e)) {
+                    throw e;
+                }
+                if (attempt >= config.maxAttempts) {
+                    exhausted.increment();
+                    throw e;
+                }
+                if (!withdraw()) {
+                    budgetDenied.increment();
+                    throw e;
+                }
+                retries.increment();
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Run action, retrying retryable failures
+     */
+    public void run(Runnable action) {
+        execute(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public Stats getStats() {
+        return new Stats(calls.sum(), retries.sum(), recovered.sum(), exhausted.sum(),
+                budgetDenied.sum(), sleptMillis.sum());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private synchronized void deposit() {
+        tokens = Math.min(config.minRetries, tokens + config.budgetRatio);
+    }
+
+    private synchronized boolean withdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private void backoff(int attempt, RuntimeException cause) {
+        long cap = Math.min(config.maxDelayMillis, config.baseDelayMillis << Math.min(attempt - 1, 30));
+        long delay = (long) (random.getAsDouble() * cap);
+        System.out.println("Retry " + name + " attempt " + (attempt + 1) + " in " + delay + " ms: " + cause.getMessage());
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            sleeper.sleep(delay);
+            sleptMillis.add(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
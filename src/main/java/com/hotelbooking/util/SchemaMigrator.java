@@ -0,0 +1,310 @@
+package com.hotelbooking.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Incremental schema migrations.
+ *
+ * Applied versions are recorded in the schema_version table; on startup only
+ * migrations newer than the recorded version run, each in its own
+ * transaction. New schema changes are appended to {@link #MIGRATIONS} with the
+ * next version number and are never edited once released.
+ */
+public class SchemaMigrator {
+
+    /**
+     * One ordered migration step
+     */
+    public static class Migration {
+        private final int version;
+        private final String description;
+        private final List<String> statements;
+
+        public Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = List.of(statements);
+        }
+
+        public int getVersion() { return version; }
+        public String getDescription() { return description; }
+        public List<String> getStatements() { return statements; }
+    }
+
+    private static final String CREATE_VERSION_TABLE = """
+        CREATE TABLE schema_version (
+            version INTEGER PRIMARY KEY,
+            description VARCHAR(200) NOT NULL,
+            applied_at TIMESTAMP NOT NULL
+        )
+        """;
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Baseline schema",
+            """
+            CREATE TABLE users (
+                id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+                username VARCHAR(50) UNIQUE NOT NULL,
+                email VARCHAR(100) UNIQUE NOT NULL,
+                password VARCHAR(100) NOT NULL,
+                role VARCHAR(20) NOT NULL,
+                created_at TIMESTAMP NOT NULL
+            )
+            """,
+            """
+            CREATE TABLE hotels (
+                id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+                name VARCHAR(100) NOT NULL,
+                location VARCHAR(100) NOT NULL,
+                description VARCHAR(500),
+                available_rooms INTEGER NOT NULL
+            )
+            """,
+            """
+            CREATE TABLE rooms (
+                id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+                hotel_id INTEGER NOT NULL,
+                room_number VARCHAR(10) NOT NULL,
+                room_type VARCHAR(20) NOT NULL,
+                price DECIMAL(10,2) NOT NULL,
+                max_occupancy INTEGER NOT NULL,
+                description VARCHAR(500),
+                available SMALLINT NOT NULL,
+                FOREIGN KEY (hotel_id) REFERENCES hotels(id) ON DELETE CASCADE,
+                UNIQUE (hotel_id, room_number)
+            )
+            """,
+            """
+            CREATE TABLE bookings (
+                id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+                booking_id VARCHAR(50) UNIQUE NOT NULL,
+                user_id INTEGER NOT NULL,
+                hotel_id INTEGER NOT NULL,
+                room_id INTEGER NOT NULL,
+                check_in_date DATE NOT NULL,
+                check_out_date DATE NOT NULL,
+                total_price DECIMAL(10,2) NOT NULL,
+                status VARCHAR(20) NOT NULL,
+                created_at TIMESTAMP NOT NULL,
+                FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+                FOREIGN KEY (hotel_id) REFERENCES hotels(id) ON DELETE CASCADE,
+                FOREIGN KEY (room_id) REFERENCES rooms(id) ON DELETE CASCADE,
+                CHECK (check_out_date > check_in_date)
+            )
+            """,
+            """
+            CREATE TABLE payments (
+                id INTEGER PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+                payment_id VARCHAR(50) UNIQUE NOT NULL,
+                booking_id VARCHAR(50) NOT NULL,
+                amount DECIMAL(10,2) NOT NULL,
+                payment_method VARCHAR(20) NOT NULL,
+                payment_status VARCHAR(20) NOT NULL,
+                payment_date TIMESTAMP NOT NULL,
+                transaction_id VARCHAR(100),
+                FOREIGN KEY (booking_id) REFERENCES bookings(booking_id) ON DELETE CASCADE
+            )
+            """
+        ),
+        new Migration(2, "Secondary indexes for DAO lookups",
+            // UserDAO: getUsersByRole / getAllUsers
+            "CREATE INDEX idx_users_role_created ON users (role, created_at)",
+            "CREATE INDEX idx_users_created ON users (created_at)",
+            // HotelDAO: getAllHotels ORDER BY name
+            "CREATE INDEX idx_hotels_name ON hotels (name)",
+            // RoomDAO: available-room lookups by hotel, type and price
+            "CREATE INDEX idx_rooms_hotel_available ON rooms (hotel_id, available, room_number)",
+            "CREATE INDEX idx_rooms_hotel_type_available ON rooms (hotel_id, room_type, available, price)",
+            "CREATE INDEX idx_rooms_type_price ON rooms (room_type, price)",
+            "CREATE INDEX idx_rooms_available_price ON rooms (available, price)",
+            "CREATE INDEX idx_rooms_available_hotel ON rooms (available, hotel_id, room_number)",
+            // BookingDAO: per user / hotel / status lists ordered by created_at
+            "CREATE INDEX idx_bookings_user_created ON bookings (user_id, created_at)",
+            "CREATE INDEX idx_bookings_hotel_created ON bookings (hotel_id, created_at)",
+            "CREATE INDEX idx_bookings_status_created ON bookings (status, created_at)",
+            // PaymentDAO: lookups by booking, status and date
+            "CREATE INDEX idx_payments_booking ON payments (booking_id)",
+            "CREATE INDEX idx_payments_status_date ON payments (payment_status, payment_date)",
+            "CREATE INDEX idx_payments_date ON payments (payment_date)"
+        ),
+        new Migration(3, "Indexes for room-night inventory",
+            // BookingDAO.getActiveBookings: rebuild scans bookings that have not checked out yet
+            "CREATE INDEX idx_bookings_checkout_status ON bookings (check_out_date, status)",
+            "CREATE INDEX idx_bookings_room_dates ON bookings (room_id, check_in_date, check_out_date)"
+        ),
+        new Migration(4, "Keyset pagination indexes",
+            // Page queries seek on (sort key, id); the id column makes the order total
+            "DROP INDEX idx_users_created",
+            "CREATE INDEX idx_users_created_id ON users (created_at, id)",
+            "DROP INDEX idx_hotels_name",
+            "CREATE INDEX idx_hotels_name_id ON hotels (name, id)",
+            "DROP INDEX idx_bookings_user_created",
+            "CREATE INDEX idx_bookings_user_created_id ON bookings (user_id, created_at, id)",
+            "CREATE INDEX idx_bookings_user_status_created_id ON bookings (user_id, status, created_at, id)",
+            "DROP INDEX idx_bookings_hotel_created",
+            "CREATE INDEX idx_bookings_hotel_created_id ON bookings (hotel_id, created_at, id)",
+            "DROP INDEX idx_bookings_status_created",
+            "CREATE INDEX idx_bookings_status_created_id ON bookings (status, created_at, id)",
+            "DROP INDEX idx_payments_date",
+            "CREATE INDEX idx_payments_date_payment_id ON payments (payment_date, payment_id)"
+        ),
+        new Migration(5, "Covering index for admin statistics",
+            // StatisticsDAO: GROUP BY status and per-hotel counts read only this index
+            "CREATE INDEX idx_bookings_status_hotel_price ON bookings (status, hotel_id, total_price)"
+        ),
+        new Migration(6, "Index for the admin booking list",
+            // BookingDAO.findBookings without filters pages the whole table by (created_at, id)
+            "CREATE INDEX idx_bookings_created_id ON bookings (created_at, id)"
+        ),
+        new Migration(7, "Idempotency keys for payment submits",
+            // PaymentPipeline: one row per submitted key; no foreign key, a failed
+            // payment rolls its booking back but keeps the FAILED outcome
+            """
+            CREATE TABLE payment_requests (
+                idempotency_key VARCHAR(64) PRIMARY KEY,
+                status VARCHAR(20) NOT NULL,
+                booking_id VARCHAR(50),
+                payment_id VARCHAR(50),
+                message VARCHAR(500),
+                created_at TIMESTAMP NOT NULL,
+                updated_at TIMESTAMP NOT NULL
+            )
+            """
+        ),
+        new Migration(8, "Refunded amount on payments",
+            // BatchRefundJob refunds by cancellation policy, so a refund can be partial;
+            // earlier refunds always returned the full amount
+            "ALTER TABLE payments ADD COLUMN refund_amount DECIMAL(10,2)",
+            "UPDATE payments SET refund_amount = amount WHERE payment_status = 'REFUNDED'"
+        )
+    );
+
+    /**
+     * 使用连接池中的连接执行迁移
+     * @return int 迁移后的 schema 版本
+     */
+    public static int migrate() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return migrate(conn);
+        } catch (SQLException e) {
+            throw new RuntimeException("Schema migration failed", e);
+        }
+    }
+
+    /**
+     * 在给定连接上执行所有未应用的迁移，已应用的版本直接跳过
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        ensureVersionTable(conn);
+        int current = getCurrentVersion(conn);
+
+        if (current == 0 && tableExists(conn, "USERS")) {
+            // 旧版本启动时直接建表，没有版本记录：视为已应用基线
+            recordVersion(conn, MIGRATIONS.get(0));
+            current = 1;
+            System.out.println("Existing schema detected, recorded as baseline version 1");
+        }
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.getVersion() > current) {
+                apply(conn, migration);
+                current = migration.getVersion();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 当前已应用的最高版本，未初始化时返回 0
+     */
+    public static int getCurrentVersion(Connection conn) throws SQLException {
+        if (!tableExists(conn, "SCHEMA_VERSION")) {
+            return 0;
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * 代码中定义的最新版本
+     */
+    public static int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).getVersion();
+    }
+
+    public static List<Migration> getMigrations() {
+        return MIGRATIONS;
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : migration.getStatements()) {
+                try {
+                    stmt.executeUpdate(sql);
+                } catch (SQLException e) {
+                    // X0Y32: 对象已存在（例如手工建过的索引），保持幂等
+                    if (!"X0Y32".equals(e.getSQLState())) {
+                        throw e;
+                    }
+                }
+            }
+            recordVersion(conn, migration);
+            conn.commit();
+            System.out.println("Applied schema migration V" + migration.getVersion() +
+                    ": " + migration.getDescription());
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Migration V" + migration.getVersion() + " failed: " + e.getMessage(),
+                    e.getSQLState(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void ensureVersionTable(Connection conn) throws SQLException {
+        if (!tableExists(conn, "SCHEMA_VERSION")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(CREATE_VERSION_TABLE);
+            }
+        }
+    }
+
+    private static void recordVersion(Connection conn, Migration migration) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migration.getVersion());
+            stmt.setString(2, migration.getDescription());
+            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.executeUpdate();
+        }
+    }
+
+    private static boolean tableExists(Connection conn, String tableName) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(null, null, tableName, new String[] { "TABLE" })) {
+            while (rs.next()) {
+                String schema = rs.getString("TABLE_SCHEM");
+                // 只认当前用户 schema 下的表
+                if (schema == null || schema.equalsIgnoreCase(currentSchema(conn))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static String currentSchema(Connection conn) throws SQLException {
+        String schema = conn.getSchema();
+        return schema != null ? schema : "APP";
+    }
+}
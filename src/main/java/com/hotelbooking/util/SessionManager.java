@@ -4,6 +4,7 @@
  */
 package com.hotelbooking.util;
 
+import com.hotelbooking.dto.StaySearch;
 import com.hotelbooking.entity.Hotel;
 import com.hotelbooking.entity.User;
 import java.time.LocalDate;
@@ -58,6 +59,17 @@ public class SessionManager {
             return childCount;
         }
 
+        /**
+         * 当前搜索条件；未选择有效的入住/退房日期时返回 null
+         */
+        public static StaySearch getStaySearch(String keyword) {
+            if (checkInDate == null || checkOutDate == null || !checkOutDate.isAfter(checkInDate)) {
+                return null;
+            }
+            return new StaySearch(keyword, checkInDate, checkOutDate,
+                    Math.max(1, adultCount), Math.max(0, childCount), Math.max(1, roomCount));
+        }
+
         // ====== 清空状态 ======
         public static void clear() {
             currentHotel = null;
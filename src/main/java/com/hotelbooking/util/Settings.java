@@ -0,0 +1,77 @@
+package com.hotelbooking.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Loading and parsing of the classpath .properties files.
+ *
+ * A missing file yields empty properties and a missing, blank or malformed
+ * value yields the caller's default, so every setting is optional and a typo
+ * is reported on stderr instead of stopping startup.
+ */
+public final class Settings {
+
+    private Settings() {
+    }
+
+    /**
+     * Read a properties file from the classpath root, e.g. "/database.properties"
+     *
+     * @param component named in the warning when the file cannot be read
+     */
+    public static Properties load(String resource, String component) {
+        Properties props = new Properties();
+        try (InputStream in = Settings.class.getResourceAsStream(resource)) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to load " + resource.substring(1) + ", using " + component
+                    + " defaults: " + e.getMessage());
+        }
+        return props;
+    }
+
+    public static int intProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return invalid(key, value, defaultValue);
+        }
+    }
+
+    public static long longProperty(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return invalid(key, value, defaultValue);
+        }
+    }
+
+    public static double doubleProperty(Properties props, String key, double defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return invalid(key, value, defaultValue);
+        }
+    }
+
+    private static <T> T invalid(String key, String value, T defaultValue) {
+        System.err.println("Invalid value for " + key + ": " + value + ", using " + defaultValue);
+        return defaultValue;
+    }
+}
@@ -0,0 +1,252 @@
+package com.hotelbooking.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for one pooled physical connection.
+ *
+ * DAOs keep calling {@code conn.prepareStatement(sql)} and closing the
+ * statement in try-with-resources; the pool hands out a wrapper whose
+ * close() clears parameters and parks the compiled statement for the next
+ * caller with the same SQL text. A connection is only used by one thread at
+ * a time, so the cache itself is not synchronized.
+ */
+class StatementCache {
+
+    /**
+     * Hit/miss/eviction counters shared by all caches of one pool
+     */
+    static class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+
+    private final int maxSize;
+    private final Counters counters;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(int maxSize, Counters counters) {
+        this.maxSize = maxSize;
+        this.counters = counters;
+    }
+
+    /**
+     * 获取预编译语句：命中则复用，否则编译并放入缓存
+     *
+     * @param handle 调用方持有的连接句柄，作为 getConnection() 的返回值
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS / NO_GENERATED_KEYS，-1 表示未指定
+     */
+    PreparedStatement prepare(Connection physical, Connection handle, String sql, int autoGeneratedKeys)
+            throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "GK:" + sql : sql;
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            counters.hits.increment();
+            entry.inUse = true;
+            return entry.checkout(handle);
+        }
+
+        counters.misses.increment();
+        PreparedStatement statement = autoGeneratedKeys == -1
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+        if (entry != null) {
+            // 同一连接上同一SQL被嵌套使用，临时语句不进入缓存
+            return uncached(statement, PreparedStatement.class, handle);
+        }
+
+        Entry created = new Entry(key, statement);
+        created.inUse = true;
+        entries.put(key, created);
+        evictOverflow();
+        return created.checkout(handle);
+    }
+
+    /**
+     * 包装不进入缓存的语句：getConnection() 返回连接句柄而不是物理连接，
+     * 否则调用方关闭它时会绕过连接池关闭物理连接
+     */
+    static <T extends Statement> T uncached(T statement, Class<? extends Statement> type, Connection handle) {
+        @SuppressWarnings("unchecked")
+        T wrapped = (T) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getConnection":
+                            return handle;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "UncachedStatement[" + statement + "]";
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        return wrapped;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * 物理连接关闭前释放所有缓存的语句
+     */
+    void clear() {
+        for (Entry entry : entries.values()) {
+            entry.closePhysical();
+        }
+        entries.clear();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            counters.evictions.increment();
+            if (eldest.inUse) {
+                // 正在使用的语句在调用方关闭时再真正关闭
+                eldest.evicted = true;
+            } else {
+                eldest.closePhysical();
+            }
+        }
+    }
+
+    private void checkin(Entry entry) {
+        entry.inUse = false;
+        if (entry.evicted) {
+            entry.closePhysical();
+            return;
+        }
+        try {
+            entry.closeOpenResults();
+            entry.statement.clearParameters();
+            entry.statement.clearWarnings();
+            if (entry.dirty) {
+                entry.statement.setFetchSize(0);
+                entry.statement.setMaxRows(0);
+                entry.dirty = false;
+            }
+        } catch (SQLException e) {
+            // 状态无法恢复的语句直接丢弃
+            entries.remove(entry.key);
+            entry.closePhysical();
+        }
+    }
+
+    private class Entry {
+        final String key;
+        final PreparedStatement statement;
+        final List<ResultSet> openResults = new ArrayList<>();
+        boolean inUse;
+        boolean evicted;
+        boolean dirty;
+
+        Entry(String key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+
+        PreparedStatement checkout(Connection handle) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    new Handle(this, handle));
+        }
+
+        void closeOpenResults() throws SQLException {
+            for (ResultSet rs : openResults) {
+                rs.close();
+            }
+            openResults.clear();
+        }
+
+        void closePhysical() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing cached statement: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Statement wrapper given to DAOs; close() puts the statement back
+     */
+    private class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection connectionHandle;
+        private boolean closed;
+
+        Handle(Entry entry, Connection connectionHandle) {
+            this.entry = entry;
+            this.connectionHandle = connectionHandle;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        checkin(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.statement.isClosed();
+                case "getConnection":
+                    return connectionHandle;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.key + "]";
+                case "setFetchSize":
+                case "setMaxRows":
+                    entry.dirty = true;
+                    break;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed", "XJ012");
+            }
+            Object result;
+            try {
+                result = method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                entry.openResults.add((ResultSet) result);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.hotelbooking.util;
+
+import com.hotelbooking.exception.TransactionRolledBackException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Unit of work bound to the current thread.
+ *
+ * Inside {@link #inTransaction(Supplier)} the first
+ * {@link DatabaseConnection#getConnection()} borrows one pooled connection with
+ * auto-commit off, and every later DAO call on the same thread gets that same
+ * connection. The work commits once at the end, or rolls back if it throws.
+ * Nested calls join the outer unit. The connection is only borrowed when a DAO
+ * actually needs it, so flows that never reach the database cost nothing.
+ *
+ * DAOs keep their try-with-resources code: close(), commit() and
+ * setAutoCommit() on the bound connection are ignored, and rollback() marks
+ * the whole unit for rollback. A unit marked that way rolls back at the end
+ * even if the work returns normally, and the outermost call then throws
+ * {@link TransactionRolledBackException} instead of returning the result.
+ */
+public final class TransactionManager {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private TransactionManager() {
+    }
+
+    /**
+     * Run work in one transaction and return its result
+     *
+     * @throws TransactionRolledBackException if the work returned but the unit was marked rollback-only
+     */
+    public static <T> T inTransaction(Supplier<T> work) {
+        UnitOfWork outer = CURRENT.get();
+        if (outer != null) {
+            // 嵌套调用加入外层事务，异常时整体回滚
+            try {
+                return work.get();
+            } catch (RuntimeException | Error e) {
+                outer.rollbackOnly = true;
+                throw e;
+            }
+        }
+
+        UnitOfWork unit = new UnitOfWork();
+        CURRENT.set(unit);
+        try {
+            T result;
+            try {
+                result = work.get();
+            } catch (RuntimeException | Error e) {
+                unit.rollback();
+                throw e;
+            }
+            unit.finish();
+            return result;
+        } finally {
+            CURRENT.remove();
+            unit.release();
+        }
+    }
+
+    /**
+     * Run work in one transaction
+     */
+    public static void runInTransaction(Runnable work) {
+        inTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Whether the current thread is inside a unit of work
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Roll the current unit back instead of committing it; the outermost inTransaction then throws
+     */
+    public static void setRollbackOnly() {
+        UnitOfWork unit = CURRENT.get();
+        if (unit == null) {
+            throw new IllegalStateException("No active transaction");
+        }
+        unit.rollbackOnly = true;
+    }
+
+    /**
+     * Run the action once the current unit commits; immediately when no unit is active.
+     * Used for in-memory state that must only change if the database change sticks.
+     */
+    public static void afterCommit(Runnable action) {
+        UnitOfWork unit = CURRENT.get();
+        if (unit == null) {
+            action.run();
+        } else {
+            unit.afterCommit.add(action);
+        }
+    }
+
+    /**
+     * Run the action if the current unit rolls back; ignored when no unit is active
+     */
+    public static void onRollback(Runnable action) {
+        UnitOfWork unit = CURRENT.get();
+        if (unit != null) {
+            unit.onRollback.add(action);
+        }
+    }
+
+    /**
+     * Connection bound to the current unit, borrowed on first use; null outside a unit
+     */
+    static Connection currentConnection() throws SQLException {
+        UnitOfWork unit = CURRENT.get();
+        return unit != null ? unit.connection() : null;
+    }
+
+    private static final class UnitOfWork {
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private final List<Runnable> onRollback = new ArrayList<>();
+        private Connection pooled;
+        private Connection bound;
+        private boolean rollbackOnly;
+
+        Connection connection() throws SQLException {
+            if (bound == null) {
+                pooled = DatabaseConnection.borrowConnection();
+                pooled.setAutoCommit(false);
+                bound = (Connection) Proxy.newProxyInstance(
+                        TransactionManager.class.getClassLoader(),
+                        new Class<?>[] { Connection.class },
+                        (proxy, method, args) -> {
+                            switch (method.getName()) {
+                                case "close":
+                                case "commit":
+                                case "setAutoCommit":
+                                    return null;
+                                case "getAutoCommit":
+                                    return false;
+                                case "isClosed":
+                                    return pooled.isClosed();
+                                case "rollback":
+                                    if (args == null) {
+                                        rollbackOnly = true;
+                                        return null;
+                                    }
+                                    break;
+                                case "equals":
+                                    return proxy == args[0];
+                                case "hashCode":
+                                    return System.identityHashCode(proxy);
+                                case "toString":
+                                    return "TransactionBoundConnection[" + pooled + "]";
+                                default:
+                                    break;
+                            }
+                            try {
+                                return method.invoke(pooled, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+            return bound;
+        }
+
+        void finish() {
+            if (rollbackOnly) {
+                rollback();
+                throw new TransactionRolledBackException("Transaction was marked rollback-only and has been rolled back");
+            }
+            if (pooled != null) {
+                try {
+                    pooled.commit();
+                } catch (SQLException e) {
+                    rollback();
+                    throw new RuntimeException("Error committing transaction", e);
+                }
+            }
+            afterCommit.forEach(Runnable::run);
+        }
+
+        void rollback() {
+            if (pooled != null) {
+                try {
+                    pooled.rollback();
+                } catch (SQLException e) {
+                    System.err.println("Error rolling back transaction: " + e.getMessage());
+                }
+            }
+            onRollback.forEach(Runnable::run);
+        }
+
+        void release() {
+            if (pooled != null) {
+                try {
+                    // 归还连接池时会恢复 auto-commit
+                    pooled.close();
+                } catch (SQLException e) {
+                    System.err.println("Error releasing transaction connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
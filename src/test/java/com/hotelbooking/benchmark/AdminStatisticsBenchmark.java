@@ -0,0 +1,164 @@
+package com.hotelbooking.benchmark;
+
+import com.hotelbooking.dao.BookingDAO;
+import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.dao.StatisticsDAO;
+import com.hotelbooking.dto.BookingStatistics;
+import com.hotelbooking.dto.HotelPopularity;
+import com.hotelbooking.entity.Booking;
+import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.util.DatabaseConnection;
+import com.hotelbooking.util.DatabaseInitializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Admin dashboard statistics: per-hotel N+1 lists vs. SQL aggregation.
+ *
+ * Run with: mvn test -Dtest=AdminStatisticsBenchmark -Dbenchmark=true
+ * Scale with -Dbenchmark.hotels=1000 -Dbenchmark.bookings=1000000
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AdminStatisticsBenchmark {
+
+    private static final int HOTELS = Integer.getInteger("benchmark.hotels", 1_000);
+    private static final int BOOKINGS = Integer.getInteger("benchmark.bookings", 1_000_000);
+    private static final String[] STATUSES = { "CONFIRMED", "PAID", "PAID", "CANCELLED", "COMPLETED" };
+
+    @Test
+    void dashboardStatistics_1kHotels1mBookings() throws SQLException {
+        DatabaseInitializer.initializeDatabase();
+        long loadStart = System.nanoTime();
+        load();
+        long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+
+        HotelDAO hotelDAO = new HotelDAO();
+        BookingDAO bookingDAO = new BookingDAO();
+        StatisticsDAO statisticsDAO = new StatisticsDAO();
+
+        // 旧路径：每家酒店一次查询，在 Java 中计数求和
+        long t0 = System.nanoTime();
+        long oldPaid = 0;
+        BigDecimal oldRevenue = BigDecimal.ZERO;
+        String oldTop = null;
+        long oldTopCount = 0;
+        List<Hotel> hotels = hotelDAO.getAllHotels();
+        for (Hotel hotel : hotels) {
+            long hotelPaid = 0;
+            for (Booking booking : bookingDAO.getBookingsByHotelId(hotel.getId())) {
+                if ("PAID".equals(booking.getStatus())) {
+                    hotelPaid++;
+                    oldRevenue = oldRevenue.add(booking.getTotalPrice());
+                }
+            }
+            oldPaid += hotelPaid;
+            if (hotelPaid > oldTopCount) {
+                oldTopCount = hotelPaid;
+                oldTop = hotel.getName();
+            }
+        }
+        long oldMillis = (System.nanoTime() - t0) / 1_000_000;
+        long oldQueries = hotels.size() + 1L;
+
+        // 新路径：固定数量的聚合查询
+        long t1 = System.nanoTime();
+        BookingStatistics stats = statisticsDAO.getBookingStatistics();
+        BigDecimal newRevenue = statisticsDAO.getTotalAmountByStatus("PAID");
+        List<HotelPopularity> top = statisticsDAO.getTopHotels("PAID", 10);
+        long newMillis = (System.nanoTime() - t1) / 1_000_000;
+
+        System.out.printf("AdminStatistics: %d hotels, %d bookings, load %d ms%n", HOTELS, BOOKINGS, loadMillis);
+        System.out.printf("  N+1 lists       %8d ms  %6d queries%n", oldMillis, oldQueries);
+        System.out.printf("  SQL aggregation %8d ms  %6d queries%n", newMillis, 4);
+
+        assertEquals(oldPaid, stats.getCount("PAID"));
+        assertEquals(0, oldRevenue.compareTo(newRevenue));
+        assertEquals(oldTopCount, top.get(0).getBookingCount());
+        assertNotNull(oldTop);
+    }
+
+    private static void load() throws SQLException {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.now().plusDays(1);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("INSERT INTO users (username, email, password, role, created_at) " +
+                        "VALUES ('bench', 'bench@example.com', 'password', 'CUSTOMER', CURRENT_TIMESTAMP)");
+            }
+            try (PreparedStatement hotel = conn.prepareStatement(
+                    "INSERT INTO hotels (name, location, description, available_rooms) VALUES (?, 'City', 'Benchmark', 1)")) {
+                for (int i = 1; i <= HOTELS; i++) {
+                    hotel.setString(1, "Hotel " + i);
+                    hotel.addBatch();
+                }
+                hotel.executeBatch();
+            }
+            int firstHotel = singleInt(conn, "SELECT MIN(id) FROM hotels");
+            try (PreparedStatement room = conn.prepareStatement(
+                    "INSERT INTO rooms (hotel_id, room_number, room_type, price, max_occupancy, available, description) " +
+                    "VALUES (?, '101', 'SINGLE', 100, 2, 1, 'Benchmark')")) {
+                for (int i = 0; i < HOTELS; i++) {
+                    room.setInt(1, firstHotel + i);
+                    room.addBatch();
+                }
+                room.executeBatch();
+            }
+            conn.commit();
+
+            int userId = singleInt(conn, "SELECT MIN(id) FROM users");
+            int firstRoom = singleInt(conn, "SELECT MIN(id) FROM rooms");
+
+            try (PreparedStatement booking = conn.prepareStatement(
+                    "INSERT INTO bookings (booking_id, user_id, hotel_id, room_id, check_in_date, check_out_date, " +
+                    "total_price, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < BOOKINGS; i++) {
+                    int hotel = random.nextInt(HOTELS);
+                    LocalDate checkIn = start.plusDays(i / HOTELS);
+                    booking.setString(1, "BOOK_BENCH_" + i);
+                    booking.setInt(2, userId);
+                    booking.setInt(3, firstHotel + hotel);
+                    booking.setInt(4, firstRoom + hotel);
+                    booking.setDate(5, Date.valueOf(checkIn));
+                    booking.setDate(6, Date.valueOf(checkIn.plusDays(1)));
+                    booking.setBigDecimal(7, BigDecimal.valueOf(50 + random.nextInt(450)));
+                    booking.setString(8, STATUSES[random.nextInt(STATUSES.length)]);
+                    booking.setTimestamp(9, now);
+                    booking.addBatch();
+                    if (i % 10_000 == 9_999) {
+                        booking.executeBatch();
+                        conn.commit();
+                    }
+                }
+                booking.executeBatch();
+                conn.commit();
+            }
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static int singleInt(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.hotelbooking.benchmark;
+
+import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.service.HotelService;
+import com.hotelbooking.util.DatabaseConnection;
+import com.hotelbooking.util.DatabaseInitializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hotel reads through HotelService: DAO on every call vs. the read-through cache.
+ *
+ * Run with: mvn test -Dtest=HotelCacheBenchmark -Dbenchmark=true
+ * Scale with -Dbenchmark.hotels=10000
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HotelCacheBenchmark {
+
+    private static final int HOTELS = Integer.getInteger("benchmark.hotels", 5_000);
+    private static final int LIST_READS = 200;
+    private static final int ID_READS = 20_000;
+
+    @Test
+    void steadyStateReads_5kHotels() throws SQLException {
+        DatabaseInitializer.initializeDatabase();
+        load();
+        HotelDAO hotelDAO = new HotelDAO();
+        HotelService hotelService = new HotelService(hotelDAO);
+        int firstId = hotelDAO.getAllHotels().stream().mapToInt(Hotel::getId).min().orElseThrow();
+        Random random = new Random(42);
+
+        // 旧路径：每次读取都查询数据库
+        long t0 = System.nanoTime();
+        for (int i = 0; i < LIST_READS; i++) {
+            assertEquals(HOTELS, hotelDAO.getAllHotels().size());
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < ID_READS; i++) {
+            assertTrue(hotelDAO.getHotelById(firstId + random.nextInt(HOTELS)).isPresent());
+        }
+        long t2 = System.nanoTime();
+
+        // 预热：首次全量加载
+        long warmStart = System.nanoTime();
+        hotelService.getAllHotels();
+        long warmMillis = (System.nanoTime() - warmStart) / 1_000_000;
+
+        long acquiredBefore = DatabaseConnection.getPoolStats().getAcquireCount();
+        long t3 = System.nanoTime();
+        for (int i = 0; i < LIST_READS; i++) {
+            List<Hotel> hotels = hotelService.getAllHotels();
+            assertEquals(HOTELS, hotels.size());
+        }
+        long t4 = System.nanoTime();
+        for (int i = 0; i < ID_READS; i++) {
+            assertTrue(hotelService.getHotelById(firstId + random.nextInt(HOTELS)).isPresent());
+        }
+        long t5 = System.nanoTime();
+        long acquired = DatabaseConnection.getPoolStats().getAcquireCount() - acquiredBefore;
+
+        System.out.printf("HotelCache: %d hotels, first load %d ms%n", HOTELS, warmMillis);
+        System.out.printf("  getAllHotels x%d   DAO %8.3f ms/op   cache %8.4f ms/op%n",
+                LIST_READS, (t1 - t0) / 1e6 / LIST_READS, (t4 - t3) / 1e6 / LIST_READS);
+        System.out.printf("  getHotelById x%d DAO %8.3f us/op   cache %8.3f us/op%n",
+                ID_READS, (t2 - t1) / 1e3 / ID_READS, (t5 - t4) / 1e3 / ID_READS);
+        System.out.printf("  connections borrowed by cached reads: %d%n", acquired);
+
+        assertEquals(0, acquired);
+    }
+
+    private static void load() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement hotel = conn.prepareStatement(
+                    "INSERT INTO hotels (name, location, description, available_rooms) VALUES (?, ?, 'Benchmark', 1)")) {
+                for (int i = 1; i <= HOTELS; i++) {
+                    hotel.setString(1, "Hotel " + i);
+                    hotel.setString(2, "City " + (i % 100));
+                    hotel.addBatch();
+                }
+                hotel.executeBatch();
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+}
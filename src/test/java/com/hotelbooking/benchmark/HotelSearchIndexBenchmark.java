@@ -0,0 +1,202 @@
+package com.hotelbooking.benchmark;
+
+import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.service.HotelSearchIndex;
+import com.hotelbooking.util.DatabaseConnection;
+import com.hotelbooking.util.DatabaseInitializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hotel keyword search latency: trigram index vs. LIKE query and linear scan,
+ * plus typo-tolerant search against a latency budget.
+ *
+ * Run with: mvn test -Dtest=HotelSearchIndexBenchmark -Dbenchmark=true
+ * Scale with -Dbenchmark.hotels=100000, budget with -Dbenchmark.fuzzyP99Millis=20
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HotelSearchIndexBenchmark {
+
+    private static final int HOTELS = Integer.getInteger("benchmark.hotels", 100_000);
+    private static final int QUERIES = 2_000;
+    private static final int LIKE_QUERIES = 50;
+    private static final int FUZZY_P99_MILLIS = Integer.getInteger("benchmark.fuzzyP99Millis", 20);
+    private static final String[] PREFIXES = { "Grand", "Royal", "Golden", "Harbor", "Summit", "Garden", "Palace", "Lotus" };
+    private static final String[] SUFFIXES = { "Hotel", "Inn", "Resort", "Suites", "Lodge", "Plaza" };
+    private static final String[] CITIES = { "Beijing", "Shanghai", "Shenzhen", "Hangzhou", "Chengdu", "London",
+            "Paris", "New York", "Tokyo", "Sydney", "Berlin", "Toronto" };
+    private static final String[] FEATURES = { "rooftop pool", "free breakfast", "sea view", "spa", "airport shuttle",
+            "business center", "family rooms", "pet friendly" };
+
+    @Test
+    void keywordSearch_100kHotels() throws SQLException {
+        DatabaseInitializer.initializeDatabase();
+        Random random = new Random(42);
+        long loadStart = System.nanoTime();
+        load(random);
+        long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+
+        HotelDAO hotelDAO = new HotelDAO();
+        List<Hotel> hotels = hotelDAO.getAllHotels();
+        long buildStart = System.nanoTime();
+        HotelSearchIndex index = new HotelSearchIndex(() -> hotels);
+        index.reload();
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        // 查询词：城市、设施、唯一编号和名称片段混合
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            switch (i % 4) {
+                case 0: queries[i] = CITIES[random.nextInt(CITIES.length)]; break;
+                case 1: queries[i] = FEATURES[random.nextInt(FEATURES.length)]; break;
+                case 2: queries[i] = "#" + random.nextInt(HOTELS); break;
+                default: queries[i] = PREFIXES[random.nextInt(PREFIXES.length)].substring(1, 5); break;
+            }
+        }
+
+        // 预热
+        for (String query : queries) {
+            index.search(query);
+        }
+
+        long[] indexed = new long[QUERIES];
+        long[] scanned = new long[QUERIES / 10];
+        for (int i = 0; i < QUERIES; i++) {
+            long t0 = System.nanoTime();
+            List<Hotel> found = index.search(queries[i]);
+            indexed[i] = System.nanoTime() - t0;
+
+            if (i % 10 == 0) {
+                // 对照：逐条 contains 扫描，同时校验结果一致
+                long t1 = System.nanoTime();
+                int expected = scan(hotels, queries[i]);
+                scanned[i / 10] = System.nanoTime() - t1;
+                assertEquals(expected, found.size(), queries[i]);
+            }
+        }
+
+        long[] like = new long[LIKE_QUERIES];
+        for (int i = 0; i < LIKE_QUERIES; i++) {
+            long t0 = System.nanoTime();
+            hotelDAO.searchHotels(queries[i].trim());
+            like[i] = System.nanoTime() - t0;
+        }
+
+        System.out.printf("HotelSearchIndex: %d hotels, load %d ms, index build %d ms%n",
+                hotels.size(), loadMillis, buildMillis);
+        report("trigram index", indexed);
+        report("linear contains", scanned);
+        report("SQL LIKE", like);
+    }
+
+    @Test
+    void fuzzySearch_100kHotels() {
+        Random random = new Random(7);
+        List<Hotel> hotels = new ArrayList<>();
+        for (int i = 0; i < HOTELS; i++) {
+            Hotel hotel = new Hotel(PREFIXES[random.nextInt(PREFIXES.length)] + " "
+                    + SUFFIXES[random.nextInt(SUFFIXES.length)] + " #" + i,
+                    CITIES[random.nextInt(CITIES.length)], "Benchmark", "wifi", 10);
+            hotel.setId(i + 1);
+            hotels.add(hotel);
+        }
+        HotelSearchIndex index = new HotelSearchIndex(() -> hotels);
+        index.reload();
+
+        // 查询词：名称 + 城市，每个词随机替换一个字母
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = typo(PREFIXES[random.nextInt(PREFIXES.length)], random) + " "
+                    + typo(CITIES[random.nextInt(CITIES.length)].split(" ")[0], random);
+        }
+
+        for (String query : queries) {
+            index.searchFuzzy(query, 20);
+        }
+
+        long[] fuzzy = new long[QUERIES];
+        int empty = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            long t0 = System.nanoTime();
+            List<Hotel> found = index.searchFuzzy(queries[i], 20);
+            fuzzy[i] = System.nanoTime() - t0;
+            if (found.isEmpty()) {
+                empty++;
+            }
+        }
+
+        System.out.printf("HotelSearchIndex fuzzy: %d hotels, %d of %d typo queries unmatched%n",
+                hotels.size(), empty, QUERIES);
+        report("fuzzy top-20", fuzzy);
+        long[] sorted = fuzzy.clone();
+        Arrays.sort(sorted);
+        long p99Millis = sorted[(int) (sorted.length * 0.99)] / 1_000_000;
+        assertTrue(p99Millis < FUZZY_P99_MILLIS, "fuzzy p99 " + p99Millis + " ms over budget");
+        assertTrue(empty < QUERIES / 10);
+    }
+
+    private static String typo(String word, Random random) {
+        char[] chars = word.toCharArray();
+        chars[1 + random.nextInt(chars.length - 1)] = (char) ('a' + random.nextInt(26));
+        return new String(chars);
+    }
+
+    private static void load(Random random) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement hotel = conn.prepareStatement(
+                    "INSERT INTO hotels (name, location, description, available_rooms) VALUES (?, ?, ?, 10)")) {
+                for (int i = 0; i < HOTELS; i++) {
+                    hotel.setString(1, PREFIXES[random.nextInt(PREFIXES.length)] + " "
+                            + SUFFIXES[random.nextInt(SUFFIXES.length)] + " #" + i);
+                    hotel.setString(2, CITIES[random.nextInt(CITIES.length)]);
+                    hotel.setString(3, "Close to downtown with " + FEATURES[random.nextInt(FEATURES.length)]
+                            + " and " + FEATURES[random.nextInt(FEATURES.length)]);
+                    hotel.addBatch();
+                    if (i % 10_000 == 9_999) {
+                        hotel.executeBatch();
+                        conn.commit();
+                    }
+                }
+                hotel.executeBatch();
+                conn.commit();
+            }
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static int scan(List<Hotel> hotels, String keyword) {
+        String query = keyword.trim().toLowerCase(Locale.ROOT);
+        int count = 0;
+        for (Hotel hotel : hotels) {
+            if (hotel.getName().toLowerCase(Locale.ROOT).contains(query)
+                    || hotel.getLocation().toLowerCase(Locale.ROOT).contains(query)
+                    || hotel.getDescription().toLowerCase(Locale.ROOT).contains(query)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void report(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double avg = Arrays.stream(sorted).average().orElse(0);
+        System.out.printf("  %-20s avg %8.1f us  p50 %8.1f us  p99 %8.1f us%n", label,
+                avg / 1000.0,
+                sorted[sorted.length / 2] / 1000.0,
+                sorted[(int) (sorted.length * 0.99)] / 1000.0);
+    }
+}
@@ -0,0 +1,133 @@
+package com.hotelbooking.benchmark;
+
+import com.hotelbooking.entity.Booking;
+import com.hotelbooking.entity.Room;
+import com.hotelbooking.service.RoomInventory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Room-night inventory query latency at 10k rooms x 365 days.
+ *
+ * Run with: mvn test -Dtest=RoomInventoryBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RoomInventoryBenchmark {
+
+    private static final int HOTELS = 100;
+    private static final int ROOMS_PER_HOTEL = 100;
+    private static final int DAYS = 365;
+    private static final int QUERIES = 2_000;
+
+    @Test
+    void freeRoomQuery_10kRooms365Days() {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.now().plusDays(1);
+
+        // 准备：每个房间按约 70% 入住率随机生成 1-5 晚的预订
+        List<Room> rooms = new ArrayList<>();
+        List<Booking> bookings = new ArrayList<>();
+        for (int hotel = 1; hotel <= HOTELS; hotel++) {
+            for (int i = 0; i < ROOMS_PER_HOTEL; i++) {
+                Room room = new Room(hotel, String.valueOf(100 + i), "STANDARD", 100.0, 2, true, "Benchmark room");
+                room.setId(rooms.size() + 1);
+                rooms.add(room);
+
+                int day = 0;
+                while (day < DAYS) {
+                    int nights = 1 + random.nextInt(5);
+                    if (random.nextInt(10) < 7) {
+                        bookings.add(new Booking(1, hotel, room.getId(), start.plusDays(day),
+                                start.plusDays(Math.min(DAYS, day + nights)), BigDecimal.TEN, "CONFIRMED"));
+                    }
+                    day += nights;
+                }
+            }
+        }
+
+        long loadStart = System.nanoTime();
+        RoomInventory inventory = new RoomInventory(() -> bookings);
+        inventory.reload();
+        long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+
+        List<List<Room>> roomsByHotel = new ArrayList<>();
+        for (int hotel = 0; hotel < HOTELS; hotel++) {
+            roomsByHotel.add(rooms.subList(hotel * ROOMS_PER_HOTEL, (hotel + 1) * ROOMS_PER_HOTEL));
+        }
+
+        // 预热
+        for (int i = 0; i < QUERIES; i++) {
+            LocalDate checkIn = start.plusDays(random.nextInt(DAYS - 7));
+            inventory.filterAvailable(rooms, checkIn, checkIn.plusDays(3));
+        }
+
+        long[] hotelQuery = new long[QUERIES];
+        long[] allRoomsQuery = new long[QUERIES];
+        long[] bookingScan = new long[QUERIES / 10];
+        int freeFound = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            LocalDate checkIn = start.plusDays(random.nextInt(DAYS - 7));
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(7));
+            List<Room> hotelRooms = roomsByHotel.get(random.nextInt(HOTELS));
+
+            long t0 = System.nanoTime();
+            freeFound += inventory.filterAvailable(hotelRooms, checkIn, checkOut).size();
+            long t1 = System.nanoTime();
+            List<Room> allFree = inventory.filterAvailable(rooms, checkIn, checkOut);
+            long t2 = System.nanoTime();
+            hotelQuery[i] = t1 - t0;
+            allRoomsQuery[i] = t2 - t1;
+
+            if (i % 10 == 0) {
+                // 对照：逐条扫描预订判断重叠
+                long t3 = System.nanoTime();
+                List<Room> scanned = scanBookings(rooms, bookings, checkIn, checkOut);
+                bookingScan[i / 10] = System.nanoTime() - t3;
+                assertEquals(scanned.size(), allFree.size());
+            }
+        }
+
+        System.out.printf("RoomInventory: %d rooms x %d days, %d bookings, rebuild %d ms%n",
+                rooms.size(), DAYS, bookings.size(), loadMillis);
+        report("hotel (100 rooms)", hotelQuery);
+        report("all rooms (10k)", allRoomsQuery);
+        report("booking scan (10k)", bookingScan);
+        assertTrue(freeFound > 0);
+    }
+
+    private static List<Room> scanBookings(List<Room> rooms, List<Booking> bookings,
+                                           LocalDate checkIn, LocalDate checkOut) {
+        boolean[] taken = new boolean[rooms.size() + 1];
+        for (Booking booking : bookings) {
+            if (booking.getCheckInDate().isBefore(checkOut) && booking.getCheckOutDate().isAfter(checkIn)) {
+                taken[booking.getRoomId()] = true;
+            }
+        }
+        List<Room> free = new ArrayList<>();
+        for (Room room : rooms) {
+            if (!taken[room.getId()]) {
+                free.add(room);
+            }
+        }
+        return free;
+    }
+
+    private static void report(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double avg = Arrays.stream(sorted).average().orElse(0);
+        System.out.printf("  %-20s avg %8.1f us  p50 %8.1f us  p99 %8.1f us%n", label,
+                avg / 1000.0,
+                sorted[sorted.length / 2] / 1000.0,
+                sorted[(int) (sorted.length * 0.99)] / 1000.0);
+    }
+}
@@ -1,16 +1,23 @@
 package com.hotelbooking.dao;
 
+import com.hotelbooking.dto.BookingFilter;
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
 import com.hotelbooking.entity.Booking;
 import com.hotelbooking.entity.User;
 import com.hotelbooking.entity.Hotel;
 import com.hotelbooking.entity.Room;
+import com.hotelbooking.util.DatabaseConnection;
 import com.hotelbooking.util.DatabaseInitializer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.*;
 
 class BookingDAOTest {
@@ -205,4 +212,169 @@ class BookingDAOTest {
         Optional<Booking> retrievedBooking = bookingDAO.getBookingById(booking.getId());
         assertTrue(retrievedBooking.isEmpty());
     }
+
+    @Test
+    void getActiveBookings_ShouldSkipReleasedAndPastBookings() {
+        // 准备
+        LocalDate today = LocalDate.now();
+        Booking active = new Booking(testUserId, testHotelId, testRoomId,
+                today.plusDays(1), today.plusDays(3), new BigDecimal("199.98"), "CONFIRMED");
+        active.setBookingId("BOOK_ACTIVE");
+        Booking cancelled = new Booking(testUserId, testHotelId, testRoomId,
+                today.plusDays(5), today.plusDays(6), new BigDecimal("99.99"), "CANCELLED");
+        cancelled.setBookingId("BOOK_CANCELLED");
+        Booking past = new Booking(testUserId, testHotelId, testRoomId,
+                today.minusDays(5), today.minusDays(3), new BigDecimal("199.98"), "CONFIRMED");
+        past.setBookingId("BOOK_PAST");
+        bookingDAO.createBooking(active);
+        bookingDAO.createBooking(cancelled);
+        bookingDAO.createBooking(past);
+
+        // 执行
+        List<Booking> result = bookingDAO.getActiveBookings(today);
+
+        // 验证
+        assertEquals(1, result.size());
+        assertEquals("BOOK_ACTIVE", result.get(0).getBookingId());
+    }
+
+    @Test
+    void getActiveBookingsByRoom_ShouldOnlyReturnThatRoomsActiveBookings() {
+        // 准备
+        LocalDate today = LocalDate.now();
+        Booking active = new Booking(testUserId, testHotelId, testRoomId,
+                today.plusDays(1), today.plusDays(3), new BigDecimal("199.98"), "CONFIRMED");
+        active.setBookingId("BOOK_ROOM_ACTIVE");
+        Booking cancelled = new Booking(testUserId, testHotelId, testRoomId,
+                today.plusDays(5), today.plusDays(6), new BigDecimal("99.99"), "CANCELLED");
+        cancelled.setBookingId("BOOK_ROOM_CANCELLED");
+        bookingDAO.createBooking(active);
+        bookingDAO.createBooking(cancelled);
+
+        // 执行
+        List<Booking> result = bookingDAO.getActiveBookingsByRoom(testRoomId, today);
+
+        // 验证
+        assertEquals(1, result.size());
+        assertEquals("BOOK_ROOM_ACTIVE", result.get(0).getBookingId());
+        assertTrue(bookingDAO.getActiveBookingsByRoom(testRoomId + 1000, today).isEmpty());
+    }
+
+    @Test
+    void streamBookingsByStatus_ShouldReadRowsLazilyAndReleaseConnectionOnClose() {
+        // 准备
+        LocalDate start = LocalDate.now().plusDays(1);
+        for (int i = 0; i < 3; i++) {
+            Booking booking = new Booking(testUserId, testHotelId, testRoomId,
+                    start.plusDays(i), start.plusDays(i + 1), new BigDecimal("99.99"), i == 2 ? "CANCELLED" : "PAID");
+            booking.setBookingId("BOOK_STREAM_" + i);
+            bookingDAO.createBooking(booking);
+        }
+        int activeBefore = DatabaseConnection.getPoolStats().getActive();
+
+        // 执行
+        BigDecimal total;
+        try (Stream<Booking> paid = bookingDAO.streamBookingsByStatus("PAID")) {
+            assertEquals(activeBefore + 1, DatabaseConnection.getPoolStats().getActive());
+            total = paid.map(Booking::getTotalPrice).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        // 验证
+        assertEquals(new BigDecimal("199.98"), total);
+        assertEquals(activeBefore, DatabaseConnection.getPoolStats().getActive());
+    }
+
+    @Test
+    void getBookingsByUserId_Paged_ShouldWalkAllBookingsNewestFirst() {
+        // 准备：连续插入，部分预订的 created_at 可能相同，靠 id 区分
+        LocalDate start = LocalDate.now().plusDays(1);
+        for (int i = 0; i < 5; i++) {
+            Booking booking = new Booking(testUserId, testHotelId, testRoomId,
+                    start.plusDays(i), start.plusDays(i + 1), new BigDecimal("99.99"), "CONFIRMED");
+            booking.setBookingId("BOOK_PAGE_" + i);
+            bookingDAO.createBooking(booking);
+        }
+
+        // 执行
+        List<Booking> seen = new ArrayList<>();
+        PageCursor after = null;
+        int pages = 0;
+        Page<Booking> page;
+        do {
+            page = bookingDAO.getBookingsByUserId(testUserId, null, after, 2);
+            seen.addAll(page.getItems());
+            after = PageCursor.decode(page.getNextCursor());
+            pages++;
+        } while (page.hasNext());
+
+        // 验证
+        assertEquals(3, pages);
+        assertEquals(5, seen.size());
+        assertEquals(5, seen.stream().map(Booking::getId).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            Booking prev = seen.get(i - 1);
+            Booking curr = seen.get(i);
+            assertTrue(prev.getCreatedAt().isAfter(curr.getCreatedAt())
+                    || (prev.getCreatedAt().equals(curr.getCreatedAt()) && prev.getId() > curr.getId()));
+        }
+    }
+
+    @Test
+    void findBookings_ShouldCombineStatusDateWindowAndHotelFilters() {
+        // 准备
+        Hotel otherHotel = hotelDAO.createHotel(new Hotel("Other Hotel", "Test City", "Test Desc", "gym", 10));
+        Room otherRoom = roomDAO.createRoom(new Room(otherHotel.getId(), "201", "SINGLE", 99.99, 2, true, "Standard room"));
+        LocalDate start = LocalDate.now().plusDays(10);
+        Booking inWindow = new Booking(testUserId, testHotelId, testRoomId,
+                start, start.plusDays(2), new BigDecimal("199.98"), "CONFIRMED");
+        inWindow.setBookingId("BOOK_IN_WINDOW");
+        Booking outsideWindow = new Booking(testUserId, testHotelId, testRoomId,
+                start.plusDays(20), start.plusDays(21), new BigDecimal("99.99"), "CONFIRMED");
+        outsideWindow.setBookingId("BOOK_OUTSIDE_WINDOW");
+        Booking otherHotelBooking = new Booking(testUserId, otherHotel.getId(), otherRoom.getId(),
+                start, start.plusDays(2), new BigDecimal("199.98"), "CONFIRMED");
+        otherHotelBooking.setBookingId("BOOK_OTHER_HOTEL");
+        Booking cancelled = new Booking(testUserId, testHotelId, testRoomId,
+                start.plusDays(1), start.plusDays(3), new BigDecimal("199.98"), "CANCELLED");
+        cancelled.setBookingId("BOOK_CANCELLED_WINDOW");
+        bookingDAO.createBooking(inWindow);
+        bookingDAO.createBooking(outsideWindow);
+        bookingDAO.createBooking(otherHotelBooking);
+        bookingDAO.createBooking(cancelled);
+
+        // 执行
+        Page<Booking> filtered = bookingDAO.findBookings(BookingFilter.all()
+                .status("CONFIRMED")
+                .staysBetween(start.plusDays(1), start.plusDays(5))
+                .hotels(Set.of(testHotelId)), null, 10);
+        Page<Booking> unfiltered = bookingDAO.findBookings(BookingFilter.all(), null, 10);
+
+        // 验证
+        assertEquals(1, filtered.size());
+        assertEquals("BOOK_IN_WINDOW", filtered.getItems().get(0).getBookingId());
+        assertEquals(4, unfiltered.size());
+    }
+
+    @Test
+    void getBookingsByUserId_PagedWithStatus_ShouldFilterInQuery() {
+        // 准备
+        LocalDate start = LocalDate.now().plusDays(1);
+        Booking confirmed = new Booking(testUserId, testHotelId, testRoomId,
+                start, start.plusDays(1), new BigDecimal("99.99"), "CONFIRMED");
+        confirmed.setBookingId("BOOK_CONFIRMED");
+        Booking cancelled = new Booking(testUserId, testHotelId, testRoomId,
+                start.plusDays(2), start.plusDays(3), new BigDecimal("99.99"), "CANCELLED");
+        cancelled.setBookingId("BOOK_CANCELLED");
+        bookingDAO.createBooking(confirmed);
+        bookingDAO.createBooking(cancelled);
+
+        // 执行
+        Page<Booking> page = bookingDAO.getBookingsByUserId(testUserId, "CANCELLED", null, 10);
+
+        // 验证
+        assertEquals(1, page.size());
+        assertEquals("BOOK_CANCELLED", page.getItems().get(0).getBookingId());
+        assertFalse(page.hasNext());
+        assertNull(page.getNextCursor());
+    }
 }
\ No newline at end of file
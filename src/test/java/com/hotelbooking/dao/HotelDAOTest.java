@@ -1,9 +1,12 @@
 package com.hotelbooking.dao;
 
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
 import com.hotelbooking.entity.Hotel;
 import com.hotelbooking.util.DatabaseInitializer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
@@ -120,4 +123,26 @@ class HotelDAOTest {
         Optional<Hotel> retrievedHotel = hotelDAO.getHotelById(hotel.getId());
         assertTrue(retrievedHotel.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getHotels_Paged_ShouldOrderByNameThenId() {
+        // 准备：同名酒店由 id 决定顺序
+        hotelDAO.createHotel(new Hotel("Beta", "City", "Desc", "gym", 5));
+        Hotel firstAlpha = hotelDAO.createHotel(new Hotel("Alpha", "City", "Desc", "gym", 5));
+        Hotel secondAlpha = hotelDAO.createHotel(new Hotel("Alpha", "City", "Desc", "gym", 5));
+
+        // 执行
+        Page<Hotel> first = hotelDAO.getHotels(null, 2);
+        Page<Hotel> second = hotelDAO.getHotels(PageCursor.decode(first.getNextCursor()), 2);
+
+        // 验证
+        List<String> names = new ArrayList<>();
+        first.getItems().forEach(h -> names.add(h.getName()));
+        second.getItems().forEach(h -> names.add(h.getName()));
+        assertEquals(List.of("Alpha", "Alpha", "Beta"), names);
+        assertEquals(firstAlpha.getId(), first.getItems().get(0).getId());
+        assertEquals(secondAlpha.getId(), first.getItems().get(1).getId());
+        assertTrue(first.hasNext());
+        assertFalse(second.hasNext());
+    }
+}
@@ -1,5 +1,6 @@
 package com.hotelbooking.dao;
 
+import com.hotelbooking.dto.PaymentOutcome;
 import com.hotelbooking.entity.Payment;
 import com.hotelbooking.entity.User;
 import com.hotelbooking.entity.Hotel;
@@ -246,4 +247,100 @@ class PaymentDAOTest {
         assertTrue(completedPayments.stream().anyMatch(p -> p.getPaymentId().equals(completedPaymentId)));
         assertTrue(pendingPayments.stream().anyMatch(p -> p.getPaymentId().equals(pendingPaymentId)));
     }
+
+    @Test
+    void claimPaymentRequest_SameKeyTwice_ShouldKeepFirstOutcome() {
+        // 准备
+        String key = "PREQ_TEST";
+        Payment payment = new Payment(testBookingId, new BigDecimal("199.98"), "CREDIT_CARD");
+
+        // 执行
+        boolean first = paymentDAO.claimPaymentRequest(key);
+        boolean finished = paymentDAO.finishPaymentRequest(PaymentOutcome.completed(key, payment));
+        boolean second = paymentDAO.claimPaymentRequest(key);
+        boolean finishedAgain = paymentDAO.finishPaymentRequest(PaymentOutcome.failed(key, "late retry"));
+
+        // 验证
+        assertTrue(first);
+        assertTrue(finished);
+        assertFalse(second);
+        assertFalse(finishedAgain);
+        PaymentOutcome recorded = paymentDAO.getPaymentRequest(key).orElseThrow();
+        assertEquals(PaymentOutcome.Status.COMPLETED, recorded.getStatus());
+        assertEquals(payment.getPaymentId(), recorded.getPaymentId());
+        assertEquals(testBookingId, recorded.getBookingId());
+    }
+
+    @Test
+    void claimPaymentRequest_WithStalePendingKey_ShouldTakeItOverOnce() throws Exception {
+        // 准备：上一次处理在记录结果前中断，键停在 PENDING
+        String key = "PREQ_STALE";
+        assertTrue(paymentDAO.claimPaymentRequest(key));
+        Thread.sleep(20);
+
+        // 执行
+        boolean fresh = paymentDAO.claimPaymentRequest(key, 60_000L);
+        boolean takenOver = paymentDAO.claimPaymentRequest(key, 10L);
+        boolean again = paymentDAO.claimPaymentRequest(key, 60_000L);
+
+        // 验证：接管刷新了时间，紧接着的调用不能再接管
+        assertFalse(fresh);
+        assertTrue(takenOver);
+        assertFalse(again);
+        assertEquals(PaymentOutcome.Status.PENDING, paymentDAO.getPaymentRequest(key).orElseThrow().getStatus());
+    }
+
+    @Test
+    void markRefunded_ShouldUpdateOnlyCompletedPaymentsInOneBatch() {
+        // 准备
+        Payment completed = new Payment(testBookingId, new BigDecimal("199.98"), "CREDIT_CARD");
+        completed.setPaymentStatus("COMPLETED");
+        completed.setTransactionId("TXN_A");
+        Payment failed = new Payment(testBookingId, new BigDecimal("199.98"), "CREDIT_CARD");
+        failed.setPaymentStatus("FAILED");
+        paymentDAO.createPayment(completed);
+        paymentDAO.createPayment(failed);
+
+        // 执行
+        List<Payment> found = paymentDAO.getPaymentsByBookingIds(List.of(testBookingId, "BOOK_UNKNOWN"));
+        found.forEach(payment -> payment.setRefundAmount(payment.getAmount()));
+        List<String> updated = paymentDAO.markRefunded(found);
+
+        // 验证
+        assertEquals(2, found.size());
+        assertEquals(List.of(completed.getPaymentId()), updated);
+        Payment refunded = paymentDAO.getPaymentById(completed.getPaymentId());
+        assertEquals("REFUNDED", refunded.getPaymentStatus());
+        assertEquals(0, new BigDecimal("199.98").compareTo(refunded.getRefundAmount()));
+        assertEquals("TXN_A_REFUND", refunded.getTransactionId());
+        assertEquals("FAILED", paymentDAO.getPaymentById(failed.getPaymentId()).getPaymentStatus());
+        assertNull(paymentDAO.getPaymentById(failed.getPaymentId()).getRefundAmount());
+    }
+
+    @Test
+    void markRefunded_ShouldRecordPartialRefundsAndSkipZeroAmounts() {
+        // 准备
+        Payment half = new Payment(testBookingId, new BigDecimal("200.00"), "CREDIT_CARD");
+        half.setPaymentStatus("COMPLETED");
+        half.setTransactionId("TXN_HALF");
+        Payment none = new Payment(testBookingId, new BigDecimal("200.00"), "CREDIT_CARD");
+        none.setPaymentStatus("COMPLETED");
+        none.setTransactionId("TXN_NONE");
+        paymentDAO.createPayment(half);
+        paymentDAO.createPayment(none);
+        half.setRefundAmount(new BigDecimal("100.00"));
+        none.setRefundAmount(BigDecimal.ZERO);
+
+        // 执行
+        List<String> updated = paymentDAO.markRefunded(List.of(half, none));
+
+        // 验证：退一半记为部分退款，不退款的保持已完成
+        assertEquals(List.of(half.getPaymentId()), updated);
+        Payment partial = paymentDAO.getPaymentById(half.getPaymentId());
+        assertEquals("PARTIALLY_REFUNDED", partial.getPaymentStatus());
+        assertEquals(0, new BigDecimal("100.00").compareTo(partial.getRefundAmount()));
+        Payment untouched = paymentDAO.getPaymentById(none.getPaymentId());
+        assertEquals("COMPLETED", untouched.getPaymentStatus());
+        assertNull(untouched.getRefundAmount());
+    }
 }
@@ -13,6 +13,8 @@ import java.sql.Connection;
 import java.sql.Statement;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -315,4 +317,42 @@ class RoomDAOTest {
         assertEquals(2, allAvailable.size());
         assertTrue(allAvailable.stream().allMatch(Room::isAvailable));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllRooms_ShouldIncludeRoomsOutOfService() {
+        // Arrange
+        roomDAO.createRoom(new Room(testHotelId, "701", "STANDARD", 99.99, 2, true, "Available"));
+        roomDAO.createRoom(new Room(testHotelId, "702", "SUITE", 299.99, 3, false, "Unavailable"));
+
+        // Act
+        List<Room> rooms = roomDAO.getAllRooms();
+
+        // Assert
+        assertEquals(List.of("701", "702"), rooms.stream().map(Room::getRoomNumber).collect(Collectors.toList()));
+    }
+
+    @Test
+    void streamRoomsForStay_ShouldKeepInServiceRoomsThatFitTheGuests() {
+        // Arrange
+        Integer otherHotelId = hotelDAO.createHotel(new Hotel("Other Hotel", "Other City", "Desc", "Pool", 5)).getId();
+        roomDAO.createRoom(new Room(testHotelId, "501", "SINGLE", 80.0, 1, true, "Too small"));
+        roomDAO.createRoom(new Room(testHotelId, "502", "DOUBLE", 120.0, 2, true, "Fits"));
+        roomDAO.createRoom(new Room(testHotelId, "503", "FAMILY", 200.0, 4, false, "Out of service"));
+        roomDAO.createRoom(new Room(otherHotelId, "601", "DOUBLE", 110.0, 2, true, "Other hotel"));
+
+        // Act
+        List<String> forHotel;
+        try (Stream<Room> rooms = roomDAO.streamRoomsForStay(List.of(testHotelId), 2)) {
+            forHotel = rooms.map(Room::getRoomNumber).collect(Collectors.toList());
+        }
+        long anyHotel;
+        try (Stream<Room> rooms = roomDAO.streamRoomsForStay(null, 2)) {
+            anyHotel = rooms.count();
+        }
+
+        // Assert
+        assertEquals(List.of("502"), forHotel);
+        assertEquals(2, anyHotel);
+        assertEquals(0, roomDAO.streamRoomsForStay(List.of(), 2).count());
+    }
+}
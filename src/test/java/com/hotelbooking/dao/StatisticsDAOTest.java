@@ -0,0 +1,132 @@
+package com.hotelbooking.dao;
+
+import com.hotelbooking.dto.BookingStatistics;
+import com.hotelbooking.dto.HotelPopularity;
+import com.hotelbooking.entity.Booking;
+import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.entity.Room;
+import com.hotelbooking.entity.User;
+import com.hotelbooking.util.DatabaseInitializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsDAOTest {
+
+    private StatisticsDAO statisticsDAO;
+    private BookingDAO bookingDAO;
+    private Integer userId;
+    private Hotel hotelA;
+    private Hotel hotelB;
+    private Integer roomA;
+    private Integer roomB;
+    private int sequence;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseInitializer.initializeDatabase();
+        statisticsDAO = new StatisticsDAO();
+        bookingDAO = new BookingDAO();
+
+        userId = new UserDAO().createUser(new User("stats", "stats@example.com", "password", "CUSTOMER")).getId();
+        HotelDAO hotelDAO = new HotelDAO();
+        hotelA = hotelDAO.createHotel(new Hotel("Hotel A", "City", "Desc", "gym", 5));
+        hotelB = hotelDAO.createHotel(new Hotel("Hotel B", "City", "Desc", "gym", 5));
+        RoomDAO roomDAO = new RoomDAO();
+        roomA = roomDAO.createRoom(new Room(hotelA.getId(), "101", "SINGLE", 100.0, 2, true, "Room")).getId();
+        roomB = roomDAO.createRoom(new Room(hotelB.getId(), "201", "SINGLE", 100.0, 2, true, "Room")).getId();
+    }
+
+    @Test
+    void getBookingStatistics_ShouldGroupByStatus() {
+        // 准备
+        book(hotelA.getId(), roomA, "100.00", "PAID");
+        book(hotelA.getId(), roomA, "50.00", "PAID");
+        book(hotelB.getId(), roomB, "80.00", "CONFIRMED");
+        book(hotelB.getId(), roomB, "30.00", "CANCELLED");
+
+        // 执行
+        BookingStatistics stats = statisticsDAO.getBookingStatistics();
+
+        // 验证
+        assertEquals(2, stats.getHotelCount());
+        assertEquals(4, stats.getTotalBookings());
+        assertEquals(2, stats.getCount("PAID"));
+        assertEquals(1, stats.getCount("CONFIRMED"));
+        assertEquals(0, stats.getCount("COMPLETED"));
+        assertEquals(0, new BigDecimal("150.00").compareTo(stats.getAmount("PAID")));
+    }
+
+    @Test
+    void getTotalAmountByStatus_WithoutRows_ShouldReturnZero() {
+        // 执行
+        BigDecimal total = statisticsDAO.getTotalAmountByStatus("PAID");
+
+        // 验证
+        assertEquals(0, BigDecimal.ZERO.compareTo(total));
+    }
+
+    @Test
+    void getTopHotels_ShouldRankByCountAndRespectLimit() {
+        // 准备
+        book(hotelB.getId(), roomB, "100.00", "PAID");
+        book(hotelB.getId(), roomB, "100.00", "PAID");
+        book(hotelA.getId(), roomA, "100.00", "PAID");
+        book(hotelA.getId(), roomA, "100.00", "CONFIRMED");
+        book(hotelA.getId(), roomA, "100.00", "CONFIRMED");
+
+        // 执行
+        List<HotelPopularity> top = statisticsDAO.getTopHotels("PAID", 1);
+        List<HotelPopularity> all = statisticsDAO.getTopHotels("PAID", 10);
+
+        // 验证
+        assertEquals(1, top.size());
+        assertEquals("Hotel B", top.get(0).getHotelName());
+        assertEquals(2, top.get(0).getBookingCount());
+        assertEquals(0, new BigDecimal("200.00").compareTo(top.get(0).getRevenue()));
+        assertEquals(2, all.size());
+        assertEquals(hotelA.getId(), all.get(1).getHotelId());
+    }
+
+    @Test
+    void getTopHotels_WhenCountsTie_ShouldRankByNameLikeTheHotelList() {
+        // 准备：后建的酒店 ID 更大，但名称排在前面
+        Hotel first = new HotelDAO().createHotel(new Hotel("Hotel 0", "City", "Desc", "gym", 5));
+        Integer roomFirst = new RoomDAO().createRoom(
+                new Room(first.getId(), "001", "SINGLE", 100.0, 2, true, "Room")).getId();
+        book(hotelA.getId(), roomA, "100.00", "PAID");
+        book(first.getId(), roomFirst, "100.00", "PAID");
+
+        // 执行
+        List<HotelPopularity> top = statisticsDAO.getTopHotels("PAID", 1);
+
+        // 验证：与原来遍历 getAllHotels 取第一个最大值的结果相同
+        assertEquals(first.getId(), top.get(0).getHotelId());
+    }
+
+    @Test
+    void getBookingCountsByHotel_ShouldSkipCancelledBookings() {
+        // 准备
+        book(hotelA.getId(), roomA, "100.00", "PAID");
+        book(hotelA.getId(), roomA, "100.00", "CONFIRMED");
+        book(hotelB.getId(), roomB, "100.00", "CANCELLED");
+
+        // 执行
+        Map<Integer, Long> counts = statisticsDAO.getBookingCountsByHotel();
+
+        // 验证
+        assertEquals(Map.of(hotelA.getId(), 2L), counts);
+    }
+
+    private void book(Integer hotelId, Integer roomId, String price, String status) {
+        LocalDate checkIn = LocalDate.now().plusDays(1 + 2L * sequence);
+        Booking booking = new Booking(userId, hotelId, roomId, checkIn, checkIn.plusDays(1),
+                new BigDecimal(price), status);
+        booking.setBookingId("BOOK_STATS_" + sequence++);
+        bookingDAO.createBooking(booking);
+    }
+}
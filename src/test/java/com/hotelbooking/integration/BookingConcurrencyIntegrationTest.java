@@ -0,0 +1,140 @@
+package com.hotelbooking.integration;
+
+import com.hotelbooking.dao.BookingDAO;
+import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.dao.UserDAO;
+import com.hotelbooking.dto.ReservationResult;
+import com.hotelbooking.entity.Booking;
+import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.entity.Room;
+import com.hotelbooking.entity.User;
+import com.hotelbooking.service.BookingService;
+import com.hotelbooking.service.RoomInventory;
+import com.hotelbooking.util.DatabaseInitializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并发压测：大量线程同时预订同一房间，只能有一个成功
+ */
+class BookingConcurrencyIntegrationTest {
+
+    private static final int THREADS = 200;
+
+    private BookingDAO bookingDAO;
+    private RoomDAO roomDAO;
+    private Integer userId;
+    private Integer hotelId;
+    private Integer roomId;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseInitializer.initializeDatabase();
+        bookingDAO = new BookingDAO();
+        roomDAO = new RoomDAO();
+
+        User user = new UserDAO().createUser(new User("stress", "stress@example.com", "password", "CUSTOMER"));
+        userId = user.getId();
+        Hotel hotel = new HotelDAO().createHotel(new Hotel("Stress Hotel", "Test City", "Test Desc", "gym", 1));
+        hotelId = hotel.getId();
+        Room room = roomDAO.createRoom(new Room(hotelId, "101", "SINGLE", 99.99, 2, true, "Standard room"));
+        roomId = room.getId();
+    }
+
+    @Test
+    void reserveRoom_ParallelSameNights_ExactlyOneWins() throws Exception {
+        // 准备
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+
+        // 执行：每个线程的日期都与其他线程重叠
+        List<ReservationResult> results = runConcurrently(i -> () -> {
+            Booking booking = new Booking(userId, hotelId, roomId, checkIn.plusDays(i % 3),
+                    checkIn.plusDays(3 + i % 3), new BigDecimal("299.97"), "CONFIRMED");
+            booking.setBookingId("BOOK_STRESS_" + i);
+            return bookingDAO.reserveRoom(booking);
+        });
+
+        // 验证
+        assertEquals(1, count(results, ReservationResult.Status.RESERVED));
+        assertEquals(THREADS - 1, count(results, ReservationResult.Status.CONFLICT));
+        assertEquals(1, bookingDAO.getBookingsByHotelId(hotelId).size());
+    }
+
+    @Test
+    void reserveRoom_ParallelDisjointNights_AllWin() throws Exception {
+        // 准备
+        LocalDate start = LocalDate.now().plusDays(1);
+
+        // 执行：同一房间，每个线程订不同的一晚
+        List<ReservationResult> results = runConcurrently(i -> () -> {
+            Booking booking = new Booking(userId, hotelId, roomId, start.plusDays(i),
+                    start.plusDays(i + 1), new BigDecimal("99.99"), "CONFIRMED");
+            booking.setBookingId("BOOK_NIGHT_" + i);
+            return bookingDAO.reserveRoom(booking);
+        });
+
+        // 验证
+        assertEquals(THREADS, count(results, ReservationResult.Status.RESERVED));
+    }
+
+    @Test
+    void bookingService_SeparateInventories_ExactlyOneWins() throws Exception {
+        // 准备：每个线程一个独立的内存库存，模拟多个应用实例只靠数据库裁决
+        LocalDate checkIn = LocalDate.now().plusDays(20);
+
+        // 执行
+        List<ReservationResult> results = runConcurrently(i -> () ->
+                new BookingService(bookingDAO, roomDAO, new RoomInventory())
+                        .reserveRoom(userId, hotelId, roomId, checkIn, checkIn.plusDays(2)));
+
+        // 验证
+        assertEquals(1, count(results, ReservationResult.Status.RESERVED));
+        assertEquals(THREADS - 1, count(results, ReservationResult.Status.CONFLICT));
+    }
+
+    private interface TaskFactory {
+        Callable<ReservationResult> create(int index);
+    }
+
+    private List<ReservationResult> runConcurrently(TaskFactory factory) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<ReservationResult>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Callable<ReservationResult> task = factory.create(i);
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    return task.call();
+                }));
+            }
+            startGate.countDown();
+
+            List<ReservationResult> results = new ArrayList<>();
+            for (Future<ReservationResult> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long count(List<ReservationResult> results, ReservationResult.Status status) {
+        return results.stream().filter(r -> r.getStatus() == status).count();
+    }
+}
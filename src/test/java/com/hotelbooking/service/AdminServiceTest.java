@@ -2,7 +2,13 @@ package com.hotelbooking.service;
 
 import com.hotelbooking.dao.BookingDAO;
 import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.dao.StatisticsDAO;
 import com.hotelbooking.dao.UserDAO;
+import com.hotelbooking.dto.BookingFilter;
+import com.hotelbooking.dto.BookingStatistics;
+import com.hotelbooking.dto.HotelPopularity;
+import com.hotelbooking.dto.Page;
 import com.hotelbooking.entity.Booking;
 import com.hotelbooking.entity.Hotel;
 import com.hotelbooking.entity.User;
@@ -12,11 +18,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,11 +43,20 @@ class AdminServiceTest {
     @Mock
     private BookingDAO bookingDAO;
 
+    @Mock
+    private StatisticsDAO statisticsDAO;
+
+    @Mock
+    private RoomDAO roomDAO;
+
+    private RoomInventory roomInventory;
     private AdminService adminService;
 
     @BeforeEach
     void setUp() {
-        adminService = new AdminService(userDAO, hotelDAO, bookingDAO);
+        roomInventory = new RoomInventory();
+        adminService = new AdminService(userDAO, hotelDAO, bookingDAO, statisticsDAO,
+                new BookingService(bookingDAO, roomDAO, roomInventory));
     }
 
     @Test
@@ -77,20 +96,11 @@ class AdminServiceTest {
     @Test
     void getAllBookings_ShouldReturnAllBookings() {
         // Arrange
-        Hotel hotel1 = new Hotel("Hotel A", "City A", "Desc A","pool", 5);
-        hotel1.setId(1);
-        Hotel hotel2 = new Hotel("Hotel B", "City B", "Desc B","pool", 10);
-        hotel2.setId(2);
-        List<Hotel> hotels = Arrays.asList(hotel1, hotel2);
-        
         Booking booking1 = new Booking(1, 1, 1, LocalDate.now(), LocalDate.now().plusDays(1), 
                                      new BigDecimal("100"), "CONFIRMED");
-        List<Booking> hotel1Bookings = Arrays.asList(booking1);
-        List<Booking> hotel2Bookings = Arrays.asList();
+        AtomicBoolean closed = new AtomicBoolean();
         
-        when(hotelDAO.getAllHotels()).thenReturn(hotels);
-        when(bookingDAO.getBookingsByHotelId(1)).thenReturn(hotel1Bookings);
-        when(bookingDAO.getBookingsByHotelId(2)).thenReturn(hotel2Bookings);
+        when(bookingDAO.streamAllBookings()).thenReturn(Stream.of(booking1).onClose(() -> closed.set(true)));
         
         // Act
         List<Booking> result = adminService.getAllBookings();
@@ -98,30 +108,37 @@ class AdminServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(hotelDAO, times(1)).getAllHotels();
-        verify(bookingDAO, times(1)).getBookingsByHotelId(1);
-        verify(bookingDAO, times(1)).getBookingsByHotelId(2);
+        assertTrue(closed.get());
+        verify(bookingDAO, never()).getBookingsByHotelId(anyInt());
     }
 
     @Test
-    void getBookingStatistics_ShouldReturnStatistics() {
+    void getBookings_ShouldUseSingleFilteredQuery() {
         // Arrange
-        Hotel hotel1 = new Hotel("Hotel A", "City A", "Desc A","pool", 5);
-        hotel1.setId(1);
-        Hotel hotel2 = new Hotel("Hotel B", "City B", "Desc B","pool", 10);
-        hotel2.setId(2);
-        List<Hotel> hotels = Arrays.asList(hotel1, hotel2);
+        Booking booking = new Booking(1, 1, 1, LocalDate.now(), LocalDate.now().plusDays(1), 
+                                    new BigDecimal("100"), "PAID");
+        BookingFilter filter = BookingFilter.all().status("PAID");
         
-        Booking booking1 = new Booking(1, 1, 1, LocalDate.now(), LocalDate.now().plusDays(1), 
-                                     new BigDecimal("100"), "CONFIRMED");
-        Booking booking2 = new Booking(2, 1, 1, LocalDate.now().plusDays(2), LocalDate.now().plusDays(3), 
-                                     new BigDecimal("150"), "PAID");
-        List<Booking> hotel1Bookings = Arrays.asList(booking1, booking2);
-        List<Booking> hotel2Bookings = Arrays.asList();
+        when(bookingDAO.findBookings(filter, null, 20)).thenReturn(new Page<>(List.of(booking), null));
         
-        when(hotelDAO.getAllHotels()).thenReturn(hotels);
-        when(bookingDAO.getBookingsByHotelId(1)).thenReturn(hotel1Bookings);
-        when(bookingDAO.getBookingsByHotelId(2)).thenReturn(hotel2Bookings);
+        // Act
+        Page<Booking> result = adminService.getBookings(filter, null, 20);
+        
+        // Assert
+        assertEquals(1, result.size());
+        assertFalse(result.hasNext());
+        verify(hotelDAO, never()).getAllHotels();
+        verify(bookingDAO, never()).getBookingsByHotelId(anyInt());
+    }
+
+    @Test
+    void getBookingStatistics_ShouldReturnStatistics() {
+        // Arrange
+        BookingStatistics stats = new BookingStatistics(2,
+                Map.of("CONFIRMED", 1L, "PAID", 1L),
+                Map.of("CONFIRMED", new BigDecimal("100"), "PAID", new BigDecimal("150")));
+        
+        when(statisticsDAO.getBookingStatistics()).thenReturn(stats);
         
         // Act
         String statistics = adminService.getBookingStatistics();
@@ -131,7 +148,8 @@ class AdminServiceTest {
         assertTrue(statistics.contains("Total Hotels: 2"));
         assertTrue(statistics.contains("Total Bookings: 2"));
         assertTrue(statistics.contains("Total Revenue: $150.00"));
-        verify(hotelDAO, times(1)).getAllHotels();
+        verify(hotelDAO, never()).getAllHotels();
+        verify(bookingDAO, never()).getBookingsByHotelId(anyInt());
     }
 
     @Test
@@ -184,6 +202,7 @@ class AdminServiceTest {
         Booking booking = new Booking(1, 1, 1, LocalDate.now().plusDays(1), LocalDate.now().plusDays(3), 
                                     new BigDecimal("200"), "CONFIRMED");
         booking.setId(1);
+        roomInventory.tryReserve(1, booking.getCheckInDate(), booking.getCheckOutDate());
         
         when(bookingDAO.getBookingById(1)).thenReturn(Optional.of(booking));
         when(bookingDAO.updateBookingStatus(1, "CANCELLED")).thenReturn(true);
@@ -194,52 +213,27 @@ class AdminServiceTest {
         // Assert
         assertTrue(result);
         verify(bookingDAO, times(1)).updateBookingStatus(1, "CANCELLED");
+        assertTrue(roomInventory.isAvailable(1, booking.getCheckInDate(), booking.getCheckOutDate()));
     }
 
     @Test
     void getTotalRevenue_ShouldReturnCorrectAmount() {
         // Arrange
-        Hotel hotel1 = new Hotel("Hotel A", "City A", "Desc A","pool", 5);
-        hotel1.setId(1);
-        List<Hotel> hotels = Arrays.asList(hotel1);
-        
-        Booking paidBooking = new Booking(1, 1, 1, LocalDate.now(), LocalDate.now().plusDays(1), 
-                                        new BigDecimal("100"), "PAID");
-        Booking confirmedBooking = new Booking(2, 1, 1, LocalDate.now(), LocalDate.now().plusDays(1), 
-                                             new BigDecimal("50"), "CONFIRMED");
-        List<Booking> hotelBookings = Arrays.asList(paidBooking, confirmedBooking);
-        
-        when(hotelDAO.getAllHotels()).thenReturn(hotels);
-        when(bookingDAO.getBookingsByHotelId(1)).thenReturn(hotelBookings);
+        when(statisticsDAO.getTotalAmountByStatus("PAID")).thenReturn(new BigDecimal("150"));
         
         // Act
         BigDecimal revenue = adminService.getTotalRevenue();
         
         // Assert
-        assertEquals(new BigDecimal("100"), revenue);
-        verify(hotelDAO, times(1)).getAllHotels();
-        verify(bookingDAO, times(1)).getBookingsByHotelId(1);
+        assertEquals(new BigDecimal("150"), revenue);
+        verify(statisticsDAO, times(1)).getTotalAmountByStatus("PAID");
     }
 
     @Test
     void getMostPopularHotel_ShouldReturnHotelInfo() {
         // Arrange
-        Hotel hotel1 = new Hotel("Hotel A", "City A", "Desc A","pool", 5);
-        hotel1.setId(1);
-        Hotel hotel2 = new Hotel("Hotel B", "City B", "Desc B","pool", 10);
-        hotel2.setId(2);
-        List<Hotel> hotels = Arrays.asList(hotel1, hotel2);
-        
-        Booking booking1 = new Booking(1, 1, 1, LocalDate.now(), LocalDate.now().plusDays(1), 
-                                     new BigDecimal("100"), "PAID");
-        Booking booking2 = new Booking(2, 1, 1, LocalDate.now().plusDays(2), LocalDate.now().plusDays(3), 
-                                     new BigDecimal("150"), "PAID");
-        List<Booking> hotel1Bookings = Arrays.asList(booking1, booking2);
-        List<Booking> hotel2Bookings = Arrays.asList();
-        
-        when(hotelDAO.getAllHotels()).thenReturn(hotels);
-        when(bookingDAO.getBookingsByHotelId(1)).thenReturn(hotel1Bookings);
-        when(bookingDAO.getBookingsByHotelId(2)).thenReturn(hotel2Bookings);
+        when(statisticsDAO.getTopHotels("PAID", 1))
+                .thenReturn(List.of(new HotelPopularity(1, "Hotel A", 2, new BigDecimal("250"))));
         
         // Act
         String result = adminService.getMostPopularHotel();
@@ -248,7 +242,41 @@ class AdminServiceTest {
         assertNotNull(result);
         assertTrue(result.contains("Hotel A"));
         assertTrue(result.contains("2 bookings"));
-        verify(hotelDAO, times(1)).getAllHotels();
+        verify(hotelDAO, never()).getAllHotels();
+    }
+
+    @Test
+    void getMostPopularHotel_WithoutPaidBookings_ShouldSayNoBookings() {
+        // Arrange
+        when(statisticsDAO.getTopHotels("PAID", 1)).thenReturn(List.of());
+        
+        // Act
+        String result = adminService.getMostPopularHotel();
+        
+        // Assert
+        assertEquals("No bookings yet", result);
+    }
+
+    @Test
+    void exportBookingsCsv_ShouldWriteHeaderAndOneLinePerBooking() {
+        // Arrange
+        Booking booking1 = new Booking(1, 1, 1, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 2), 
+                                     new BigDecimal("100"), "PAID");
+        Booking booking2 = new Booking(2, 1, 1, LocalDate.of(2026, 1, 3), LocalDate.of(2026, 1, 4), 
+                                     new BigDecimal("150"), "CONFIRMED");
+        StringWriter out = new StringWriter();
+        
+        when(bookingDAO.streamAllBookings()).thenReturn(Stream.of(booking1, booking2));
+        
+        // Act
+        int rows = adminService.exportBookingsCsv(out);
+        
+        // Assert
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, rows);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("id,booking_id"));
+        assertTrue(lines[1].contains(",2026-01-01,2026-01-02,100,PAID,"));
     }
 
     @Test
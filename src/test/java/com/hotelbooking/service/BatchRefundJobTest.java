@@ -0,0 +1,184 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dao.BookingDAO;
+import com.hotelbooking.dao.PaymentDAO;
+import com.hotelbooking.dto.BookingFilter;
+import com.hotelbooking.dto.Page;
+import com.hotelbooking.dto.PageCursor;
+import com.hotelbooking.dto.RefundBatchReport;
+import com.hotelbooking.entity.Booking;
+import com.hotelbooking.entity.Payment;
+import com.hotelbooking.exception.BusinessException;
+import com.hotelbooking.exception.ErrorType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchRefundJobTest {
+
+    @Mock
+    private PaymentDAO paymentDAO;
+
+    @Mock
+    private BookingDAO bookingDAO;
+
+    @Mock
+    private PaymentGateway paymentGateway;
+
+    private final List<RefundBatchReport> reports = new ArrayList<>();
+    private BatchRefundJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new BatchRefundJob(paymentDAO, bookingDAO, paymentGateway, 2, 2);
+    }
+
+    @Test
+    void refundBookings_ShouldRefundPolicyAmountsAndMarkThemInOneBatch() {
+        // 准备：10 天后入住全额退，5 天后入住退一半，明天入住不退
+        Booking early = booking("BOOK_1", 10);
+        Booking late = booking("BOOK_2", 5);
+        Booking tooLate = booking("BOOK_3", 1);
+        Payment earlyPayment = payment("BOOK_1", "COMPLETED");
+        Payment latePayment = payment("BOOK_2", "COMPLETED");
+        Payment tooLatePayment = payment("BOOK_3", "COMPLETED");
+        when(bookingDAO.getBookingsByBookingIds(List.of("BOOK_1", "BOOK_2"))).thenReturn(List.of(early, late));
+        when(bookingDAO.getBookingsByBookingIds(List.of("BOOK_3"))).thenReturn(List.of(tooLate));
+        when(paymentDAO.getPaymentsByBookingIds(anyCollection()))
+                .thenReturn(List.of(earlyPayment, latePayment))
+                .thenReturn(List.of(tooLatePayment));
+        when(paymentGateway.refund(earlyPayment, new BigDecimal("200.00"),
+                earlyPayment.getPaymentId() + ":refund:0:200")).thenReturn(true);
+        when(paymentGateway.refund(latePayment, new BigDecimal("100.00"),
+                latePayment.getPaymentId() + ":refund:0:100")).thenReturn(true);
+        when(paymentDAO.markRefunded(anyList()))
+                .thenReturn(List.of(earlyPayment.getPaymentId(), latePayment.getPaymentId()));
+
+        // 执行
+        RefundBatchReport report = job.refundBookings(List.of("BOOK_1", "BOOK_2", "BOOK_3"), reports::add);
+
+        // 验证
+        assertTrue(report.isFinished());
+        assertEquals(3, report.getProcessed());
+        assertEquals(2, report.getRefunded());
+        assertEquals(1, report.getSkipped());
+        assertEquals(0, new BigDecimal("300.00").compareTo(report.getRefundedAmount()));
+        assertEquals(3, reports.size());
+        assertEquals(new BigDecimal("200.00"), earlyPayment.getRefundAmount());
+        assertEquals(new BigDecimal("100.00"), latePayment.getRefundAmount());
+        assertNull(tooLatePayment.getRefundAmount());
+        verify(paymentDAO, times(1)).markRefunded(List.of(earlyPayment, latePayment));
+        verify(paymentGateway, times(2)).refund(any(Payment.class), any(BigDecimal.class), anyString());
+    }
+
+    @Test
+    void refundBookings_ShouldCountDeclinesAndFailuresWithoutMarkingThem() {
+        // 准备
+        Payment declined = payment("BOOK_1", "COMPLETED");
+        Payment failing = payment("BOOK_2", "COMPLETED");
+        when(bookingDAO.getBookingsByBookingIds(List.of("BOOK_1", "BOOK_2")))
+                .thenReturn(List.of(booking("BOOK_1", 10), booking("BOOK_2", 10)));
+        when(paymentDAO.getPaymentsByBookingIds(anyCollection())).thenReturn(List.of(declined, failing));
+        when(paymentGateway.refund(eq(declined), eq(declined.getAmount()), anyString())).thenReturn(false);
+        when(paymentGateway.refund(eq(failing), eq(failing.getAmount()), anyString()))
+                .thenThrow(new BusinessException(ErrorType.EXTERNAL_SERVICE_ERROR, "Payment gateway timed out"));
+
+        // 执行
+        RefundBatchReport report = job.refundBookings(List.of("BOOK_1", "BOOK_2"), reports::add);
+
+        // 验证
+        assertEquals(1, report.getDeclined());
+        assertEquals(1, report.getFailed());
+        assertEquals(List.of("BOOK_2"), report.getFailedBookingIds());
+        assertEquals(0, report.getRefunded());
+        verify(paymentDAO, never()).markRefunded(anyList());
+    }
+
+    @Test
+    void refundBookings_WhenBatchUpdateFails_ShouldReportRefundsAsFailed() {
+        // 准备
+        Payment payment = payment("BOOK_1", "COMPLETED");
+        when(bookingDAO.getBookingsByBookingIds(List.of("BOOK_1"))).thenReturn(List.of(booking("BOOK_1", 10)));
+        when(paymentDAO.getPaymentsByBookingIds(anyCollection())).thenReturn(List.of(payment));
+        when(paymentGateway.refund(eq(payment), eq(payment.getAmount()), anyString())).thenReturn(true);
+        when(paymentDAO.markRefunded(anyList())).thenThrow(new RuntimeException("Error marking 1 payments refunded"));
+
+        // 执行
+        RefundBatchReport report = job.refundBookings(List.of("BOOK_1"), reports::add);
+
+        // 验证
+        assertEquals(1, report.getFailed());
+        assertEquals(0, report.getRefunded());
+        assertEquals(List.of("BOOK_1"), report.getFailedBookingIds());
+    }
+
+    @Test
+    void refundBookings_WithFilter_ShouldPageThroughMatchingBookings() {
+        // 准备
+        BookingFilter filter = BookingFilter.all().hotels(Set.of(7));
+        Booking first = booking("BOOK_1", 10);
+        Booking second = booking("BOOK_2", 10);
+        String next = PageCursor.of(LocalDateTime.now(), 1).encode();
+        when(bookingDAO.findBookings(filter, null, 2)).thenReturn(new Page<>(List.of(first), next));
+        when(bookingDAO.findBookings(eq(filter), any(PageCursor.class), eq(2))).thenReturn(new Page<>(List.of(second), null));
+        when(paymentDAO.getPaymentsByBookingIds(anyCollection()))
+                .thenReturn(List.of(payment("BOOK_1", "REFUNDED")))
+                .thenReturn(List.of(payment("BOOK_2", "PENDING")));
+
+        // 执行
+        RefundBatchReport report = job.refundBookings(filter, reports::add);
+
+        // 验证：没有已完成的支付，全部跳过
+        assertEquals(2, report.getProcessed());
+        assertEquals(2, report.getSkipped());
+        verify(bookingDAO, times(2)).findBookings(eq(filter), any(), eq(2));
+        verifyNoInteractions(paymentGateway);
+    }
+
+    @Test
+    void refundKey_ShouldRepeatForARetryButNotForAFurtherPartialRefund() {
+        // 准备
+        Payment payment = payment("BOOK_1", "COMPLETED");
+        String first = PaymentGateway.refundKey(payment, new BigDecimal("100.00"));
+
+        // 执行：第一笔部分退款记录后再退一笔同样金额
+        String retry = PaymentGateway.refundKey(payment, new BigDecimal("100"));
+        payment.setRefundAmount(new BigDecimal("100.00"));
+        String second = PaymentGateway.refundKey(payment, new BigDecimal("100.00"));
+
+        // 验证
+        assertEquals(first, retry);
+        assertNotEquals(first, second);
+    }
+
+    private static Booking booking(String bookingId, int daysUntilCheckIn) {
+        Booking booking = new Booking();
+        booking.setBookingId(bookingId);
+        booking.setCheckInDate(LocalDate.now().plusDays(daysUntilCheckIn));
+        booking.setCheckOutDate(LocalDate.now().plusDays(daysUntilCheckIn + 2));
+        return booking;
+    }
+
+    private static Payment payment(String bookingId, String status) {
+        Payment payment = new Payment(bookingId, new BigDecimal("200.00"), "CREDIT_CARD");
+        payment.setPaymentStatus(status);
+        payment.setTransactionId("TXN_" + bookingId);
+        return payment;
+    }
+}
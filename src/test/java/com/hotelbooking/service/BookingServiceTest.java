@@ -2,11 +2,12 @@ package com.hotelbooking.service;
 
 import com.hotelbooking.dao.BookingDAO;
 import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.dto.ReservationResult;
 import com.hotelbooking.entity.Booking;
 import com.hotelbooking.entity.Room;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -29,9 +30,16 @@ class BookingServiceTest {
     @Mock
     private RoomDAO roomDAO;
 
-    @InjectMocks
+    private RoomInventory roomInventory;
+
     private BookingService bookingService;
 
+    @BeforeEach
+    void setUp() {
+        roomInventory = new RoomInventory();
+        bookingService = new BookingService(bookingDAO, roomDAO, roomInventory);
+    }
+
     @Test
     void createBooking_WithValidData_ShouldCreateBooking() {
         // 准备
@@ -45,18 +53,132 @@ class BookingServiceTest {
         expectedBooking.setId(1);
         
         when(roomDAO.getRoomById(1)).thenReturn(Optional.of(room));
-        when(bookingDAO.createBooking(any(Booking.class))).thenReturn(expectedBooking);
-        when(roomDAO.updateRoom(any(Room.class))).thenReturn(true);
+        when(bookingDAO.reserveRoom(any(Booking.class))).thenReturn(ReservationResult.reserved(expectedBooking));
         
         // 执行
         Optional<Booking> result = bookingService.createBooking(1, 1, 1, checkIn, checkOut);
         
-        // 验证
+        // 验证：只占用预订日期，房间本身仍在售
         assertTrue(result.isPresent());
         assertEquals(1, result.get().getId());
         assertEquals("CONFIRMED", result.get().getStatus());
-        verify(bookingDAO, times(1)).createBooking(any(Booking.class));
-        verify(roomDAO, times(1)).updateRoom(any(Room.class));
+        verify(bookingDAO, times(1)).reserveRoom(any(Booking.class));
+        verify(roomDAO, never()).updateRoom(any(Room.class));
+        assertFalse(roomInventory.isAvailable(1, checkIn, checkOut));
+        assertTrue(roomInventory.isAvailable(1, checkOut, checkOut.plusDays(1)));
+    }
+
+    @Test
+    void createBooking_WithOverlappingDates_ShouldReturnEmpty() {
+        // 准备
+        Room room = new Room(1, "101", "SINGLE", 100.0, 2, true, "Standard single room");
+        room.setId(1);
+        LocalDate checkIn = LocalDate.now().plusDays(2);
+        roomInventory.tryReserve(1, checkIn, checkIn.plusDays(3));
+
+        when(roomDAO.getRoomById(1)).thenReturn(Optional.of(room));
+
+        // 执行
+        Optional<Booking> result = bookingService.createBooking(1, 1, 1, checkIn.plusDays(2), checkIn.plusDays(4));
+
+        // 验证
+        assertTrue(result.isEmpty());
+        verify(bookingDAO, never()).reserveRoom(any(Booking.class));
+    }
+
+    @Test
+    void createBooking_BackToBackStays_ShouldBothSucceed() {
+        // 准备
+        Room room = new Room(1, "101", "SINGLE", 100.0, 2, true, "Standard single room");
+        room.setId(1);
+        LocalDate day = LocalDate.now().plusDays(2);
+
+        when(roomDAO.getRoomById(1)).thenReturn(Optional.of(room));
+        when(bookingDAO.reserveRoom(any(Booking.class)))
+                .thenAnswer(invocation -> ReservationResult.reserved(invocation.getArgument(0)));
+
+        // 执行：退房当天可以再次入住
+        Optional<Booking> first = bookingService.createBooking(1, 1, 1, day, day.plusDays(2));
+        Optional<Booking> second = bookingService.createBooking(2, 1, 1, day.plusDays(2), day.plusDays(4));
+
+        // 验证
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+    }
+
+    @Test
+    void createBooking_WhenInsertFails_ShouldReleaseNights() {
+        // 准备
+        Room room = new Room(1, "101", "SINGLE", 100.0, 2, true, "Standard single room");
+        room.setId(1);
+        LocalDate checkIn = LocalDate.now().plusDays(2);
+        LocalDate checkOut = LocalDate.now().plusDays(4);
+
+        when(roomDAO.getRoomById(1)).thenReturn(Optional.of(room));
+        when(bookingDAO.reserveRoom(any(Booking.class))).thenThrow(new RuntimeException("Error creating booking"));
+
+        // 执行 & 验证
+        assertThrows(RuntimeException.class, () -> bookingService.createBooking(1, 1, 1, checkIn, checkOut));
+        assertTrue(roomInventory.isAvailable(1, checkIn, checkOut));
+    }
+
+    @Test
+    void reserveRoom_WhenDatabaseReportsConflict_ShouldReloadRoomFromDatabase() {
+        // 准备：内存库存未记录，但数据库中已有只占第二晚的重叠预订
+        Room room = new Room(1, "101", "SINGLE", 100.0, 2, true, "Standard single room");
+        room.setId(1);
+        LocalDate checkIn = LocalDate.now().plusDays(2);
+        LocalDate checkOut = LocalDate.now().plusDays(4);
+        Booking existing = new Booking(2, 1, 1, checkIn.plusDays(1), checkOut, new BigDecimal("100"), "CONFIRMED");
+        roomInventory = new RoomInventory(null, roomId -> bookingDAO.getActiveBookingsByRoom(roomId, LocalDate.now()));
+        bookingService = new BookingService(bookingDAO, roomDAO, roomInventory);
+
+        when(roomDAO.getRoomById(1)).thenReturn(Optional.of(room));
+        when(bookingDAO.reserveRoom(any(Booking.class))).thenReturn(ReservationResult.conflict());
+        when(bookingDAO.getActiveBookingsByRoom(1, LocalDate.now())).thenReturn(List.of(existing));
+
+        // 执行
+        ReservationResult result = bookingService.reserveRoom(1, 1, 1, checkIn, checkOut);
+
+        // 验证：只有数据库中真正占用的那一晚不可订
+        assertEquals(ReservationResult.Status.CONFLICT, result.getStatus());
+        assertNull(result.getBooking());
+        assertTrue(roomInventory.isAvailable(1, checkIn, checkIn.plusDays(1)));
+        assertFalse(roomInventory.isAvailable(1, checkIn.plusDays(1), checkOut));
+    }
+
+    @Test
+    void reserveRoom_WithInvalidDates_ShouldReturnInvalidDates() {
+        // 执行
+        ReservationResult result = bookingService.reserveRoom(1, 1, 1,
+                LocalDate.now().plusDays(3), LocalDate.now().plusDays(1));
+
+        // 验证
+        assertEquals(ReservationResult.Status.INVALID_DATES, result.getStatus());
+        verify(bookingDAO, never()).reserveRoom(any(Booking.class));
+    }
+
+    @Test
+    void getAvailableRooms_ShouldSkipRoomsBookedForTheDates() {
+        // 准备
+        Room free = new Room(1, "101", "SINGLE", 100.0, 2, true, "Standard single room");
+        free.setId(1);
+        Room booked = new Room(1, "102", "SINGLE", 100.0, 2, true, "Standard single room");
+        booked.setId(2);
+        Room outOfService = new Room(1, "103", "SINGLE", 100.0, 2, false, "Standard single room");
+        outOfService.setId(3);
+        LocalDate checkIn = LocalDate.now().plusDays(2);
+        LocalDate checkOut = LocalDate.now().plusDays(4);
+        roomInventory.tryReserve(2, checkIn.plusDays(1), checkOut.plusDays(1));
+
+        when(roomDAO.getRoomsByHotelId(1)).thenReturn(Arrays.asList(free, booked, outOfService));
+
+        // 执行
+        List<Room> result = bookingService.getAvailableRooms(1, checkIn, checkOut);
+
+        // 验证
+        assertEquals(1, result.size());
+        assertEquals(1, result.get(0).getId());
     }
 
     @Test
@@ -75,7 +197,7 @@ class BookingServiceTest {
         
         // 验证
         assertTrue(result.isEmpty());
-        verify(bookingDAO, never()).createBooking(any(Booking.class));
+        verify(bookingDAO, never()).reserveRoom(any(Booking.class));
     }
 
     @Test
@@ -90,7 +212,7 @@ void createBooking_WithInvalidDates_ShouldReturnEmpty() {
     // 验证
     assertTrue(result.isEmpty());
     verify(roomDAO, never()).getRoomById(anyInt()); // 验证确实没有调用
-    verify(bookingDAO, never()).createBooking(any(Booking.class));
+    verify(bookingDAO, never()).reserveRoom(any(Booking.class));
 }
 
     @Test
@@ -109,7 +231,7 @@ void createBooking_WithInvalidDates_ShouldReturnEmpty() {
         // 验证
         assertTrue(result.isEmpty());
         verify(roomDAO, never()).getRoomById(anyInt());
-        verify(bookingDAO, never()).createBooking(any(Booking.class));
+        verify(bookingDAO, never()).reserveRoom(any(Booking.class));
     }
 
     @Test
@@ -168,13 +290,10 @@ void createBooking_WithInvalidDates_ShouldReturnEmpty() {
                                     new BigDecimal("200"), "CONFIRMED");
         booking.setId(1);
         
-        Room room = new Room(1, "101", "SINGLE", 100.0, 2, false, "Standard single room");
-        room.setId(1);
+        roomInventory.tryReserve(1, booking.getCheckInDate(), booking.getCheckOutDate());
         
         when(bookingDAO.getBookingById(1)).thenReturn(Optional.of(booking));
         when(bookingDAO.updateBookingStatus(1, "CANCELLED")).thenReturn(true);
-        when(roomDAO.getRoomById(1)).thenReturn(Optional.of(room));
-        when(roomDAO.updateRoom(any(Room.class))).thenReturn(true);
         
         // 执行
         boolean result = bookingService.cancelBooking(1);
@@ -182,7 +301,26 @@ void createBooking_WithInvalidDates_ShouldReturnEmpty() {
         // 验证
         assertTrue(result);
         verify(bookingDAO, times(1)).updateBookingStatus(1, "CANCELLED");
-        verify(roomDAO, times(1)).updateRoom(any(Room.class));
+        verify(roomDAO, never()).updateRoom(any(Room.class));
+        assertTrue(roomInventory.isAvailable(1, booking.getCheckInDate(), booking.getCheckOutDate()));
+    }
+
+    @Test
+    void cancelBooking_AlreadyCancelled_ShouldNotReleaseOtherBookingsNights() {
+        // 准备：旧订单已取消，同日期已被新订单占用
+        Booking booking = new Booking(1, 1, 1, LocalDate.now().plusDays(1), LocalDate.now().plusDays(3), 
+                                    new BigDecimal("200"), "CANCELLED");
+        booking.setId(1);
+        roomInventory.tryReserve(1, booking.getCheckInDate(), booking.getCheckOutDate());
+        
+        when(bookingDAO.getBookingById(1)).thenReturn(Optional.of(booking));
+        when(bookingDAO.updateBookingStatus(1, "CANCELLED")).thenReturn(true);
+        
+        // 执行
+        bookingService.cancelBooking(1);
+        
+        // 验证
+        assertFalse(roomInventory.isAvailable(1, booking.getCheckInDate(), booking.getCheckOutDate()));
     }
 
     @Test
@@ -205,13 +343,9 @@ void createBooking_WithInvalidDates_ShouldReturnEmpty() {
                                     new BigDecimal("100"), "CONFIRMED");
         booking.setId(1);
         
-        Room room = new Room(1, "101", "SINGLE", 100.0, 2, false, "Standard single room");
-        room.setId(1);
         
         when(bookingDAO.getBookingById(1)).thenReturn(Optional.of(booking));
         when(bookingDAO.updateBookingStatus(1, "COMPLETED")).thenReturn(true);
-        when(roomDAO.getRoomById(1)).thenReturn(Optional.of(room));
-        when(roomDAO.updateRoom(any(Room.class))).thenReturn(true);
         
         // 执行
         boolean result = bookingService.completeBooking(1);
@@ -219,7 +353,26 @@ void createBooking_WithInvalidDates_ShouldReturnEmpty() {
         // 验证
         assertTrue(result);
         verify(bookingDAO, times(1)).updateBookingStatus(1, "COMPLETED");
-        verify(roomDAO, times(1)).updateRoom(any(Room.class));
+        verify(roomDAO, never()).updateRoom(any(Room.class));
+    }
+
+    @Test
+    void completeBooking_EarlyCheckout_ShouldReleaseRemainingNights() {
+        // 准备
+        LocalDate today = LocalDate.now();
+        Booking booking = new Booking(1, 1, 1, today.minusDays(1), today.plusDays(3), 
+                                    new BigDecimal("400"), "CONFIRMED");
+        booking.setId(1);
+        roomInventory.tryReserve(1, booking.getCheckInDate(), booking.getCheckOutDate());
+        
+        when(bookingDAO.getBookingById(1)).thenReturn(Optional.of(booking));
+        when(bookingDAO.updateBookingStatus(1, "COMPLETED")).thenReturn(true);
+        
+        // 执行
+        bookingService.completeBooking(1);
+        
+        // 验证
+        assertTrue(roomInventory.isAvailable(1, today, today.plusDays(3)));
     }
 
     @Test
@@ -0,0 +1,99 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dto.Suggestion;
+import com.hotelbooking.entity.Hotel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotelAutocompleteTest {
+
+    private final Hotel grand = hotel(1, "Grand Hotel", "New York");
+    private final Hotel budget = hotel(2, "Budget Inn", "Newark");
+    private final Hotel harbor = hotel(3, "New Harbor Lodge", "New York");
+
+    @Test
+    void suggest_ShouldRankByPopularityAcrossLocationsAndNames() {
+        // 准备：Budget Inn 预订最多，New York 有两家酒店
+        HotelAutocomplete autocomplete = new HotelAutocomplete(() -> Arrays.asList(grand, budget, harbor),
+                () -> Map.of(2, 10L, 3, 1L));
+
+        // 执行
+        List<String> texts = texts(autocomplete.suggest("ne", 10));
+
+        // 验证：Newark 11，New York 1 + 2，New Harbor Lodge 2
+        assertEquals(List.of("Newark", "New York", "New Harbor Lodge"), texts);
+    }
+
+    @Test
+    void suggest_ShouldMatchAnyWordStartAndIgnoreCase() {
+        // 准备
+        HotelAutocomplete autocomplete = new HotelAutocomplete(() -> Arrays.asList(grand, budget, harbor), Map::of);
+
+        // 执行 & 验证
+        assertEquals(List.of("New York"), texts(autocomplete.suggest("YOR", 10)));
+        assertEquals(List.of("New Harbor Lodge"), texts(autocomplete.suggest("harb", 10)));
+        assertTrue(autocomplete.suggest("ork", 10).isEmpty());
+        assertTrue(autocomplete.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_ShouldReturnEachSuggestionOnceAndRespectLimit() {
+        // 准备
+        List<Hotel> hotels = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            hotels.add(hotel(i, "Sea Sea Hotel " + i, "Seattle"));
+        }
+        HotelAutocomplete autocomplete = new HotelAutocomplete(() -> hotels, Map::of);
+
+        // 执行
+        List<Suggestion> suggestions = autocomplete.suggest("sea", 5);
+
+        // 验证：Seattle 权重 50 排第一，名称中两个 "Sea" 不会重复出现
+        assertEquals(5, suggestions.size());
+        assertEquals(Suggestion.Type.LOCATION, suggestions.get(0).getType());
+        assertEquals(50, suggestions.get(0).getWeight());
+        assertEquals(5, suggestions.stream().map(Suggestion::getText).distinct().count());
+    }
+
+    @Test
+    void invalidate_ShouldRebuildOnNextQuery() {
+        // 准备
+        List<Hotel> hotels = new ArrayList<>(List.of(grand));
+        AtomicInteger loads = new AtomicInteger();
+        HotelAutocomplete autocomplete = new HotelAutocomplete(() -> {
+            loads.incrementAndGet();
+            return hotels;
+        }, Map::of);
+        assertTrue(autocomplete.suggest("bud", 5).isEmpty());
+
+        // 执行
+        hotels.add(budget);
+        autocomplete.suggest("gra", 5);
+        autocomplete.invalidate();
+
+        // 验证
+        assertEquals(List.of("Budget Inn"), texts(autocomplete.suggest("bud", 5)));
+        assertEquals(2, loads.get());
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        List<String> texts = new ArrayList<>();
+        for (Suggestion suggestion : suggestions) {
+            texts.add(suggestion.getText());
+        }
+        return texts;
+    }
+
+    private static Hotel hotel(int id, String name, String location) {
+        Hotel hotel = new Hotel(name, location, "Desc", "wifi", 10);
+        hotel.setId(id);
+        return hotel;
+    }
+}
@@ -0,0 +1,145 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.entity.Hotel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotelSearchIndexTest {
+
+    private final Hotel grand = hotel(1, "Grand Hotel", "New York", "Luxury rooms near Central Park");
+    private final Hotel seaside = hotel(2, "Seaside Resort", "Miami", "Beach front with pool");
+    private final Hotel budget = hotel(3, "Budget Inn", "Newark", "Cheap and cheerful");
+
+    @Test
+    void search_ShouldMatchSubstringsAcrossFieldsIgnoringCase() {
+        // 准备
+        HotelSearchIndex index = new HotelSearchIndex(() -> Arrays.asList(seaside, grand, budget));
+
+        // 执行 & 验证
+        assertEquals(List.of(budget, grand), index.search("NEW"));
+        assertEquals(List.of(seaside), index.search("front"));
+        assertEquals(List.of(grand), index.search("  central park "));
+        assertEquals(List.of(seaside), index.search("side res"));
+        assertTrue(index.search("berlin").isEmpty());
+    }
+
+    @Test
+    void search_ShouldNotMatchAcrossFieldBoundaries() {
+        // 准备
+        HotelSearchIndex index = new HotelSearchIndex(() -> List.of(grand));
+
+        // 执行 & 验证：名称结尾 + 地址开头不应拼成一个匹配
+        assertTrue(index.search("hotel new").isEmpty());
+    }
+
+    @Test
+    void search_ShortKeyword_ShouldScanAllTexts() {
+        // 准备
+        HotelSearchIndex index = new HotelSearchIndex(() -> Arrays.asList(grand, seaside, budget));
+
+        // 执行 & 验证
+        assertEquals(List.of(seaside), index.search("mi"));
+        assertEquals(List.of(budget, grand, seaside), index.search("a"));
+    }
+
+    @Test
+    void searchPrefix_ShouldOnlyMatchWordStarts() {
+        // 准备
+        HotelSearchIndex index = new HotelSearchIndex(() -> Arrays.asList(grand, seaside, budget));
+
+        // 执行 & 验证
+        assertEquals(List.of(budget, grand), index.searchPrefix("new"));
+        assertEquals(List.of(seaside), index.searchPrefix("res"));
+        assertTrue(index.searchPrefix("ark").isEmpty());
+        assertEquals(List.of(seaside), index.searchPrefix("mi"));
+    }
+
+    @Test
+    void searchFuzzy_ShouldTolerateTyposInEveryWord() {
+        // 准备
+        Hotel plaza = hotel(4, "Grand Plaza", "Chicago", "Downtown");
+        HotelSearchIndex index = new HotelSearchIndex(() -> Arrays.asList(grand, seaside, budget, plaza));
+
+        // 执行 & 验证
+        assertEquals(List.of(seaside), index.searchFuzzy("Maimi", 10));
+        assertEquals(List.of(plaza), index.searchFuzzy("Grand Plza", 10));
+        assertEquals(List.of(grand), index.searchFuzzy("grnad yrk", 10));
+        assertTrue(index.searchFuzzy("Grand Berlin", 10).isEmpty());
+    }
+
+    @Test
+    void searchFuzzy_ShouldRankByDistanceAndCapResults() {
+        // 准备
+        Hotel exact = hotel(4, "Plaza Hotel", "Boston", "Harbour");
+        Hotel oneOff = hotel(5, "Plazo Inn", "Boston", "Harbour");
+        Hotel twoOff = hotel(6, "Plozo Lodge", "Boston", "Harbour");
+        HotelSearchIndex index = new HotelSearchIndex(() -> Arrays.asList(twoOff, oneOff, exact));
+
+        // 执行 & 验证：五个字母允许两处编辑
+        assertEquals(List.of(exact, oneOff, twoOff), index.searchFuzzy("plaza", 10));
+        assertEquals(List.of(exact, oneOff), index.searchFuzzy("plaza", 2));
+        assertTrue(index.searchFuzzy("   ", 10).isEmpty());
+    }
+
+    @Test
+    void searchFuzzy_ShortWords_ShouldMatchExactly() {
+        // 准备
+        Hotel ab = hotel(4, "AB Hotel", "Rome", "Centre");
+        HotelSearchIndex index = new HotelSearchIndex(() -> Arrays.asList(ab, budget));
+
+        // 执行 & 验证
+        assertEquals(List.of(ab), index.searchFuzzy("ab", 10));
+        assertTrue(index.searchFuzzy("ac", 10).isEmpty());
+    }
+
+    @Test
+    void putAndRemove_ShouldUpdateLoadedIndex() {
+        // 准备
+        HotelSearchIndex index = new HotelSearchIndex(() -> Arrays.asList(grand, seaside));
+        assertEquals(List.of(grand), index.search("york"));
+
+        // 执行
+        index.put(hotel(1, "Grand Hotel", "Boston", "Harbour views"));
+        index.put(budget);
+        index.remove(2);
+
+        // 验证
+        assertTrue(index.search("york").isEmpty());
+        assertEquals(1, index.search("boston").size());
+        assertEquals(List.of(budget), index.search("newark"));
+        assertTrue(index.search("seaside").isEmpty());
+        assertTrue(index.searchFuzzy("seasde", 10).isEmpty());
+        assertEquals(1, index.searchFuzzy("bostn", 10).size());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void put_BeforeFirstLoad_ShouldBeIgnoredAndLoadLazily() {
+        // 准备
+        AtomicInteger loads = new AtomicInteger();
+        HotelSearchIndex index = new HotelSearchIndex(() -> {
+            loads.incrementAndGet();
+            return List.of(grand);
+        });
+
+        // 执行
+        index.put(seaside);
+        index.search("grand");
+        index.search("hotel");
+
+        // 验证：首次查询才从数据源加载，且只加载一次
+        assertEquals(1, loads.get());
+        assertEquals(1, index.size());
+    }
+
+    private static Hotel hotel(int id, String name, String location, String description) {
+        Hotel hotel = new Hotel(name, location, description, "wifi", 10);
+        hotel.setId(id);
+        return hotel;
+    }
+}
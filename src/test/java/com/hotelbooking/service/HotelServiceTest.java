@@ -2,18 +2,29 @@
 package com.hotelbooking.service;
 
 import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.dao.RoomDAO;
+import com.hotelbooking.dto.HotelAvailability;
+import com.hotelbooking.dto.HotelSummary;
+import com.hotelbooking.dto.StaySearch;
+import com.hotelbooking.dto.Suggestion;
 import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.entity.Room;
 import com.hotelbooking.exception.ValidationException;
+import com.hotelbooking.util.DataChange;
+import com.hotelbooking.util.DataChangeBus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -25,6 +36,9 @@ class HotelServiceTest {
     @Mock
     private HotelDAO hotelDAO;
 
+    @Mock
+    private RoomDAO roomDAO;
+
     private HotelService hotelService;
 
     @BeforeEach
@@ -153,6 +167,85 @@ class HotelServiceTest {
         verify(hotelDAO, times(1)).getAllHotels();
     }
 
+    @Test
+    void getAllHotels_RepeatedReads_ShouldLoadOnceAndServeIdsFromMemory() {
+        // Arrange
+        Hotel hotel = new Hotel("Hotel A", "City A", "Desc A", "pool", 5);
+        hotel.setId(1);
+        when(hotelDAO.getAllHotels()).thenReturn(Collections.singletonList(hotel));
+        
+        // Act
+        hotelService.getAllHotels();
+        List<Hotel> result = hotelService.getAllHotels();
+        Optional<Hotel> byId = hotelService.getHotelById(1);
+        Optional<Hotel> missing = hotelService.getHotelById(2);
+        
+        // Assert
+        assertEquals(Collections.singletonList(hotel), result);
+        assertSame(hotel, byId.orElseThrow());
+        assertFalse(missing.isPresent());
+        verify(hotelDAO, times(1)).getAllHotels();
+        verify(hotelDAO, never()).getHotelById(any());
+    }
+
+    @Test
+    void updateHotel_ShouldReplaceOnlyThatHotelInCachedList() {
+        // Arrange
+        Hotel alpha = new Hotel("Alpha", "City", "Desc", "pool", 5);
+        alpha.setId(1);
+        Hotel beta = new Hotel("Beta", "City", "Desc", "pool", 5);
+        beta.setId(2);
+        when(hotelDAO.getAllHotels()).thenReturn(Arrays.asList(alpha, beta));
+        List<Hotel> before = hotelService.getAllHotels();
+        Hotel renamed = new Hotel("Zeta", "City", "Desc", "pool", 5);
+        renamed.setId(1);
+        when(hotelDAO.updateHotel(renamed)).thenReturn(true);
+        
+        // Act
+        hotelService.updateHotel(renamed);
+        
+        // Assert - new snapshot in name order, the old one is untouched
+        assertEquals(Arrays.asList(beta, renamed), hotelService.getAllHotels());
+        assertEquals(Arrays.asList(alpha, beta), before);
+        assertSame(renamed, hotelService.getHotelById(1).orElseThrow());
+        verify(hotelDAO, times(1)).getAllHotels();
+    }
+
+    @Test
+    void updateHotel_PublishedChange_ShouldRereadOnlyThatHotel() {
+        // Arrange - the cache listens on the bus like the shared one
+        HotelCache cache = new HotelCache(hotelDAO::getAllHotels, hotelDAO::getHotelById);
+        Runnable unsubscribe = DataChangeBus.subscribe(DataChange.Entity.HOTEL, cache::onChange);
+        hotelService = new HotelService(hotelDAO, cache);
+        Hotel alpha = new Hotel("Alpha", "City", "Desc", "pool", 5);
+        alpha.setId(1);
+        Hotel beta = new Hotel("Beta", "City", "Desc", "pool", 5);
+        beta.setId(2);
+        when(hotelDAO.getAllHotels()).thenReturn(Arrays.asList(alpha, beta));
+        hotelService.getAllHotels();
+        Hotel renamed = new Hotel("Zeta", "City", "Desc", "pool", 5);
+        renamed.setId(1);
+        when(hotelDAO.updateHotel(renamed)).thenAnswer(invocation -> {
+            DataChangeBus.publish(DataChange.updated(DataChange.Entity.HOTEL, 1));
+            return true;
+        });
+        when(hotelDAO.getHotelById(1)).thenReturn(Optional.of(renamed));
+        
+        try {
+            // Act
+            hotelService.updateHotel(renamed);
+            
+            // Assert - beta stays cached, no full reload
+            assertEquals(Arrays.asList(beta, renamed), hotelService.getAllHotels());
+            assertSame(beta, hotelService.getHotelById(2).orElseThrow());
+            verify(hotelDAO, times(1)).getAllHotels();
+            verify(hotelDAO, times(1)).getHotelById(1);
+            verify(hotelDAO, never()).getHotelById(2);
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
     @Test
     void getAllHotels_WhenDAOThrowsException_ShouldThrowBusinessException() {
         // Arrange
@@ -168,17 +261,17 @@ class HotelServiceTest {
         // Arrange
         Hotel hotel1 = new Hotel("Hotel NY", "New York", "Desc", "pool", 5);
         Hotel hotel2 = new Hotel("Another NY", "New York", "Desc", "pool", 8);
-        List<Hotel> expectedHotels = Arrays.asList(hotel1, hotel2);
+        Hotel hotel3 = new Hotel("Beach Inn", "Miami", "Desc", "pool", 8);
         
-        when(hotelDAO.getHotelsByLocation("New York")).thenReturn(expectedHotels);
+        // Served from the cached hotel list rather than a LIKE query
+        when(hotelDAO.getAllHotels()).thenReturn(Arrays.asList(hotel1, hotel2, hotel3));
         
         // Act
-        List<Hotel> result = hotelService.getHotelsByLocation("New York");
+        List<Hotel> result = hotelService.getHotelsByLocation("new york");
         
         // Assert
-        assertEquals(2, result.size());
-        assertTrue(result.stream().allMatch(h -> h.getLocation().equals("New York")));
-        verify(hotelDAO, times(1)).getHotelsByLocation("New York");
+        assertEquals(Arrays.asList(hotel2, hotel1), result);
+        verify(hotelDAO, never()).getHotelsByLocation(anyString());
     }
 
     @Test
@@ -261,18 +354,59 @@ class HotelServiceTest {
     void searchHotels_ShouldReturnMatchingHotels() {
         // Arrange
         Hotel h1 = new Hotel("Grand Hotel", "New York", "Luxury", "pool", 10);
+        h1.setId(1);
+        Hotel h2 = new Hotel("Seaside Resort", "Miami", "Beach", "pool", 15);
+        h2.setId(2);
         Hotel h3 = new Hotel("NY Budget Inn", "New York", "Cheap", "wifi", 20);
-        List<Hotel> searchResult = Arrays.asList(h1, h3);
+        h3.setId(3);
         
-        // Mock DAO's searchHotels method
-        when(hotelDAO.searchHotels("New York")).thenReturn(searchResult);
+        // The index loads every hotel once and answers the query in memory
+        when(hotelDAO.getAllHotels()).thenReturn(Arrays.asList(h1, h2, h3));
         
         // Act - Perform search
-        List<Hotel> result = hotelService.searchHotels("New York");
+        List<Hotel> result = hotelService.searchHotels("new york");
         
         // Assert results
-        assertEquals(2, result.size());
-        verify(hotelDAO, times(1)).searchHotels("New York");
+        assertEquals(Arrays.asList(h1, h3), result);
+        verify(hotelDAO, never()).searchHotels(anyString());
+    }
+
+    @Test
+    void searchHotels_AfterUpdate_ShouldSeeNewText() {
+        // Arrange
+        Hotel hotel = new Hotel("Grand Hotel", "New York", "Luxury", "pool", 10);
+        hotel.setId(1);
+        when(hotelDAO.getAllHotels()).thenReturn(Collections.singletonList(hotel));
+        assertEquals(1, hotelService.searchHotels("York").size());
+
+        Hotel moved = new Hotel("Grand Hotel", "Boston", "Luxury", "pool", 10);
+        moved.setId(1);
+        when(hotelDAO.updateHotel(moved)).thenReturn(true);
+
+        // Act
+        hotelService.updateHotel(moved);
+
+        // Assert
+        assertTrue(hotelService.searchHotels("York").isEmpty());
+        assertEquals(1, hotelService.searchHotels("Boston").size());
+        verify(hotelDAO, times(1)).getAllHotels();
+    }
+
+    @Test
+    void searchHotels_RepeatedQuery_ShouldBeServedFromCache() {
+        // Arrange
+        Hotel hotel = new Hotel("Grand Hotel", "New York", "Luxury", "pool", 10);
+        hotel.setId(1);
+        when(hotelDAO.getAllHotels()).thenReturn(Collections.singletonList(hotel));
+        hotelService.searchHotels("New York");
+
+        // Act - same query after normalisation
+        List<Hotel> result = hotelService.searchHotels("  new york ");
+
+        // Assert
+        assertEquals(Collections.singletonList(hotel), result);
+        assertEquals(1, hotelService.getSearchCacheStats().getHits());
+        assertEquals(1, hotelService.getSearchCacheStats().getMisses());
     }
 
     @Test
@@ -311,6 +445,168 @@ class HotelServiceTest {
         verify(hotelDAO, never()).searchHotels(anyString());
     }
 
+    @Test
+    void searchHotelsFuzzy_ShouldFindMisspelledLocation() {
+        // Arrange
+        Hotel h1 = new Hotel("Seaside Resort", "Miami", "Beach", "pool", 15);
+        h1.setId(1);
+        Hotel h2 = new Hotel("Grand Hotel", "New York", "Luxury", "pool", 10);
+        h2.setId(2);
+        when(hotelDAO.getAllHotels()).thenReturn(Arrays.asList(h1, h2));
+
+        // Act
+        List<Hotel> exact = hotelService.searchHotels("Maimi");
+        List<Hotel> fuzzy = hotelService.searchHotelsFuzzy("Maimi", 5);
+
+        // Assert
+        assertTrue(exact.isEmpty());
+        assertEquals(Collections.singletonList(h1), fuzzy);
+    }
+
+    @Test
+    void searchHotelsFuzzy_WithBlankKeyword_ShouldReturnEmpty() {
+        // Act & Assert
+        assertTrue(hotelService.searchHotelsFuzzy("  ", 5).isEmpty());
+        verify(hotelDAO, never()).getAllHotels();
+    }
+
+    @Test
+    void autocomplete_ShouldSuggestLocationsAndNames() {
+        // Arrange
+        Hotel h1 = new Hotel("Seaside Resort", "Miami", "Beach", "pool", 15);
+        h1.setId(1);
+        Hotel h2 = new Hotel("Miramar Hotel", "Lisbon", "Views", "pool", 10);
+        h2.setId(2);
+        when(hotelDAO.getAllHotels()).thenReturn(Arrays.asList(h1, h2));
+
+        // Act
+        List<Suggestion> result = hotelService.autocomplete("mi", 5);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertTrue(result.stream().anyMatch(s -> s.getType() == Suggestion.Type.LOCATION && s.getText().equals("Miami")));
+        assertTrue(result.stream().anyMatch(s -> s.getType() == Suggestion.Type.HOTEL && s.getHotelId() == 2));
+    }
+
+    @Test
+    void autocomplete_AfterCreateHotel_ShouldIncludeNewHotel() {
+        // Arrange
+        Hotel existing = new Hotel("Seaside Resort", "Miami", "Beach", "pool", 15);
+        existing.setId(1);
+        Hotel created = new Hotel("Lakeside Inn", "Geneva", "Lake", "wifi", 8);
+        created.setId(2);
+        when(hotelDAO.getAllHotels())
+            .thenReturn(Collections.singletonList(existing))
+            .thenReturn(Arrays.asList(existing, created));
+        when(hotelDAO.createHotel(any(Hotel.class))).thenReturn(created);
+        assertTrue(hotelService.autocomplete("lake", 5).isEmpty());
+
+        // Act
+        hotelService.createHotel("Lakeside Inn", "Geneva", "Lake", "wifi", 8);
+
+        // Assert
+        assertEquals("Lakeside Inn", hotelService.autocomplete("lake", 5).get(0).getText());
+    }
+
+    @Test
+    void searchAvailableHotels_ShouldKeepHotelsThatFitTheStayCheapestFirst() {
+        // Arrange
+        Hotel alpha = new Hotel("Alpha", "New York", "Desc", "pool", 5);
+        alpha.setId(1);
+        Hotel beta = new Hotel("Beta", "New York", "Desc", "pool", 5);
+        beta.setId(2);
+        Hotel gamma = new Hotel("Gamma", "New York", "Desc", "pool", 5);
+        gamma.setId(3);
+        LocalDate checkIn = LocalDate.now().plusDays(5);
+        RoomInventory inventory = new RoomInventory();
+        inventory.tryReserve(31, checkIn, checkIn.plusDays(1));
+        HotelService service = new HotelService(hotelDAO, roomDAO,
+            new HotelSearchIndex(() -> Arrays.asList(alpha, beta, gamma)),
+            new HotelAutocomplete(Collections::emptyList, Collections::emptyMap), inventory,
+            new HotelSummaryRegistry(), new SearchResultCache());
+        when(roomDAO.streamRoomsForStay(any(), eq(2))).thenReturn(Stream.of(
+            room(11, 1, 180.0), room(12, 1, 150.0),
+            room(21, 2, 120.0), room(22, 2, 140.0),
+            room(31, 3, 90.0), room(32, 3, 100.0)));
+
+        // Act - 4 guests in 2 rooms, room 31 is taken for the first night
+        List<HotelAvailability> result = service.searchAvailableHotels(
+            new StaySearch("york", checkIn, checkIn.plusDays(2), 3, 1, 2));
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(beta, result.get(0).getHotel());
+        assertEquals(0, new BigDecimal("120.0").compareTo(result.get(0).getCheapestRate()));
+        assertEquals(alpha, result.get(1).getHotel());
+        assertEquals(2, result.get(1).getMatchingRooms());
+        verify(roomDAO, times(1)).streamRoomsForStay(any(), eq(2));
+        verify(hotelDAO, never()).getRoomsByHotelId(anyInt());
+    }
+
+    @Test
+    void searchAvailableHotels_ShouldCacheUntilInventoryOrRoomsChange() {
+        // Arrange
+        Hotel alpha = new Hotel("Alpha", "New York", "Desc", "pool", 5);
+        alpha.setId(1);
+        LocalDate checkIn = LocalDate.now().plusDays(5);
+        RoomInventory inventory = new RoomInventory();
+        SearchResultCache cache = new SearchResultCache();
+        HotelService service = new HotelService(hotelDAO, roomDAO,
+            new HotelSearchIndex(() -> Collections.singletonList(alpha)),
+            new HotelAutocomplete(Collections::emptyList, Collections::emptyMap), inventory,
+            new HotelSummaryRegistry(), cache);
+        when(roomDAO.streamRoomsForStay(any(), eq(2)))
+            .thenAnswer(invocation -> Stream.of(room(11, 1, 180.0), room(12, 1, 150.0)));
+        StaySearch search = new StaySearch("york", checkIn, checkIn.plusDays(2), 2, 0, 1);
+
+        // Act
+        service.searchAvailableHotels(search);
+        service.searchAvailableHotels(search);
+        inventory.tryReserve(12, checkIn, checkIn.plusDays(1));
+        List<HotelAvailability> afterBooking = service.searchAvailableHotels(search);
+        cache.invalidateStays();
+        service.searchAvailableHotels(search);
+
+        // Assert
+        assertEquals(0, new BigDecimal("180.0").compareTo(afterBooking.get(0).getCheapestRate()));
+        verify(roomDAO, times(3)).streamRoomsForStay(any(), eq(2));
+    }
+
+    @Test
+    void searchAvailableHotels_WithCheckOutBeforeCheckIn_ShouldThrowValidationException() {
+        // Arrange
+        LocalDate checkIn = LocalDate.now().plusDays(5);
+
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> hotelService.searchAvailableHotels(
+            new StaySearch("york", checkIn, checkIn.minusDays(1), 2, 0, 1)));
+        verifyNoInteractions(roomDAO);
+    }
+
+    @Test
+    void getHotelSummary_ShouldReadFromRegistryWithoutLoadingRooms() {
+        // Arrange
+        HotelService service = new HotelService(hotelDAO, roomDAO,
+            new HotelSearchIndex(Collections::emptyList),
+            new HotelAutocomplete(Collections::emptyList, Collections::emptyMap), new RoomInventory(),
+            new HotelSummaryRegistry(() -> Arrays.asList(room(11, 1, 180.0), room(12, 1, 150.0))),
+            new SearchResultCache());
+
+        // Act
+        HotelSummary summary = service.getHotelSummary(1);
+
+        // Assert
+        assertEquals(0, new BigDecimal("150.0").compareTo(summary.getMinPrice()));
+        assertEquals(2, summary.getRoomCount());
+        verifyNoInteractions(roomDAO, hotelDAO);
+    }
+
+    private static Room room(int id, int hotelId, double price) {
+        Room room = new Room(hotelId, String.valueOf(id), "DOUBLE", price, 2, true, "Room");
+        room.setId(id);
+        return room;
+    }
+
     @Test
     void clearCache_ShouldResetCache() {
         // This method is primarily for internal use, just test simple invocation
@@ -0,0 +1,105 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dto.HotelSummary;
+import com.hotelbooking.entity.Room;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotelSummaryRegistryTest {
+
+    @Test
+    void getSummary_ShouldAggregateRoomsOfHotel() {
+        // 准备
+        HotelSummaryRegistry registry = new HotelSummaryRegistry(() -> Arrays.asList(
+            room(1, 10, "SINGLE", 80.0, 1, true),
+            room(2, 10, "DOUBLE", 120.0, 2, true),
+            room(3, 10, "DOUBLE", 60.0, 4, false),
+            room(4, 20, "SUITE", 300.0, 4, true)));
+
+        // 执行
+        HotelSummary summary = registry.getSummary(10);
+
+        // 验证 - 停用房间计入数量，但不参与价格
+        assertEquals(0, new BigDecimal("80.0").compareTo(summary.getMinPrice()));
+        assertEquals(0, new BigDecimal("120.0").compareTo(summary.getMaxPrice()));
+        assertEquals(3, summary.getRoomCount());
+        assertEquals(2, summary.getAvailableCount());
+        assertEquals(4, summary.getMaxOccupancy());
+        assertEquals(Map.of("DOUBLE", 2, "SINGLE", 1), summary.getRoomCountByType());
+    }
+
+    @Test
+    void getSummary_HotelWithoutRooms_ShouldHaveNoPrice() {
+        // 执行
+        HotelSummary summary = new HotelSummaryRegistry().getSummary(99);
+
+        // 验证
+        assertNull(summary.getMinPrice());
+        assertEquals(0, summary.getRoomCount());
+    }
+
+    @Test
+    void changes_ShouldOnlyRecomputeAffectedHotel() {
+        // 准备
+        HotelSummaryRegistry registry = new HotelSummaryRegistry(() -> Arrays.asList(
+            room(1, 10, "SINGLE", 80.0, 1, true),
+            room(2, 20, "SUITE", 300.0, 4, true)));
+        HotelSummary other = registry.getSummary(20);
+
+        // 执行
+        registry.updatePrice(1, new BigDecimal("70"));
+        registry.put(room(5, 10, "DOUBLE", 50.0, 2, true));
+        registry.remove(5);
+
+        // 验证
+        assertEquals(0, new BigDecimal("70").compareTo(registry.getSummary(10).getMinPrice()));
+        assertEquals(1, registry.getSummary(10).getRoomCount());
+        assertSame(other, registry.getSummary(20));
+    }
+
+    @Test
+    void put_RoomMovedToAnotherHotel_ShouldUpdateBothHotels() {
+        // 准备
+        HotelSummaryRegistry registry = new HotelSummaryRegistry(() -> Arrays.asList(
+            room(1, 10, "SINGLE", 80.0, 1, true)));
+        registry.getSummary(10);
+
+        // 执行
+        registry.put(room(1, 20, "SINGLE", 80.0, 1, true));
+
+        // 验证
+        assertEquals(0, registry.getSummary(10).getRoomCount());
+        assertEquals(1, registry.getSummary(20).getRoomCount());
+    }
+
+    @Test
+    void changes_BeforeFirstLoad_ShouldBeIgnored() {
+        // 准备
+        AtomicInteger loads = new AtomicInteger();
+        HotelSummaryRegistry registry = new HotelSummaryRegistry(() -> {
+            loads.incrementAndGet();
+            return Arrays.asList(room(1, 10, "SINGLE", 80.0, 1, true));
+        });
+
+        // 执行 - 首次加载会读到最新数据，之前的增量无需处理
+        registry.put(room(2, 10, "SINGLE", 40.0, 1, true));
+        HotelSummary summary = registry.getSummary(10);
+
+        // 验证
+        assertEquals(1, loads.get());
+        assertEquals(1, summary.getRoomCount());
+        assertEquals(0, new BigDecimal("80.0").compareTo(summary.getMinPrice()));
+    }
+
+    private static Room room(int id, int hotelId, String type, double price, int occupancy, boolean available) {
+        Room room = new Room(hotelId, String.valueOf(id), type, price, occupancy, available, type);
+        room.setId(id);
+        return room;
+    }
+}
@@ -0,0 +1,197 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.dao.PaymentDAO;
+import com.hotelbooking.dto.PaymentOutcome;
+import com.hotelbooking.entity.Payment;
+import com.hotelbooking.exception.BusinessException;
+import com.hotelbooking.exception.ErrorType;
+import com.hotelbooking.exception.PaymentUnrecordedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentPipelineTest {
+
+    private static final long CLAIM_TIMEOUT = PaymentPipeline.DEFAULT_CLAIM_TIMEOUT_MILLIS;
+
+    @Mock
+    private PaymentDAO paymentDAO;
+
+    private final List<Runnable> queued = new ArrayList<>();
+    private final List<PaymentOutcome> events = new ArrayList<>();
+    private PaymentPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        // 任务先排队，由测试决定何时执行
+        pipeline = new PaymentPipeline(paymentDAO, queued::add);
+        pipeline.subscribe(events::add);
+    }
+
+    @Test
+    void submit_ShouldReportPendingThenCompleted() throws Exception {
+        // 准备
+        Payment payment = new Payment("BOOK_1", new BigDecimal("100.00"), "CREDIT_CARD");
+        when(paymentDAO.claimPaymentRequest("KEY_1", CLAIM_TIMEOUT)).thenReturn(true);
+        when(paymentDAO.finishPaymentRequest(any(PaymentOutcome.class))).thenReturn(true);
+
+        // 执行
+        CompletableFuture<PaymentOutcome> future = pipeline.submit("KEY_1", () -> payment);
+        assertFalse(future.isDone());
+        runQueued();
+
+        // 验证
+        PaymentOutcome outcome = future.get();
+        assertTrue(outcome.isCompleted());
+        assertEquals(payment.getPaymentId(), outcome.getPaymentId());
+        assertEquals(List.of(PaymentOutcome.Status.PENDING, PaymentOutcome.Status.COMPLETED),
+                events.stream().map(PaymentOutcome::getStatus).toList());
+        verify(paymentDAO).finishPaymentRequest(outcome);
+    }
+
+    @Test
+    void submit_WhenWorkThrowsBusinessException_ShouldRecordFailed() throws Exception {
+        // 准备
+        when(paymentDAO.claimPaymentRequest("KEY_2", CLAIM_TIMEOUT)).thenReturn(true);
+        when(paymentDAO.finishPaymentRequest(any(PaymentOutcome.class))).thenReturn(true);
+
+        // 执行
+        CompletableFuture<PaymentOutcome> future = pipeline.submit("KEY_2", () -> {
+            throw new BusinessException(ErrorType.PAYMENT_FAILED, "Card declined");
+        });
+        runQueued();
+
+        // 验证
+        PaymentOutcome outcome = future.get();
+        assertEquals(PaymentOutcome.Status.FAILED, outcome.getStatus());
+        assertEquals("Card declined", outcome.getMessage());
+        verify(paymentDAO).finishPaymentRequest(outcome);
+    }
+
+    @Test
+    void submit_WhenChargedButNotRecorded_ShouldRecordUnrecorded() throws Exception {
+        // 准备
+        when(paymentDAO.claimPaymentRequest("KEY_8", CLAIM_TIMEOUT)).thenReturn(true);
+        when(paymentDAO.finishPaymentRequest(any(PaymentOutcome.class))).thenReturn(true);
+
+        // 执行
+        CompletableFuture<PaymentOutcome> future = pipeline.submit("KEY_8", () -> {
+            throw new PaymentUnrecordedException("BOOK_8", "PAY_8", "TXN_8", null);
+        });
+        runQueued();
+
+        // 验证：不记为失败，保留支付号以便对账
+        PaymentOutcome outcome = future.get();
+        assertEquals(PaymentOutcome.Status.UNRECORDED, outcome.getStatus());
+        assertTrue(outcome.isFinished());
+        assertEquals("BOOK_8", outcome.getBookingId());
+        assertEquals("PAY_8", outcome.getPaymentId());
+        verify(paymentDAO).finishPaymentRequest(outcome);
+    }
+
+    @Test
+    void submit_WhenWorkThrowsError_ShouldRecordFailedAndCompleteFuture() throws Exception {
+        // 准备
+        when(paymentDAO.claimPaymentRequest("KEY_6", CLAIM_TIMEOUT)).thenReturn(true);
+        when(paymentDAO.finishPaymentRequest(any(PaymentOutcome.class))).thenReturn(true);
+
+        // 执行
+        CompletableFuture<PaymentOutcome> future = pipeline.submit("KEY_6", () -> {
+            throw new StackOverflowError("gateway client");
+        });
+        runQueued();
+
+        // 验证：键不会一直停在 PENDING
+        PaymentOutcome outcome = future.get();
+        assertEquals(PaymentOutcome.Status.FAILED, outcome.getStatus());
+        verify(paymentDAO).finishPaymentRequest(outcome);
+    }
+
+    @Test
+    void submit_WhenClaimThrowsError_ShouldCompleteFutureExceptionally() {
+        // 准备
+        when(paymentDAO.claimPaymentRequest("KEY_7", CLAIM_TIMEOUT)).thenThrow(new AssertionError("broken driver"));
+
+        // 执行
+        CompletableFuture<PaymentOutcome> future = pipeline.submit("KEY_7", () -> null);
+        runQueued();
+
+        // 验证
+        ExecutionException error = assertThrows(ExecutionException.class, future::get);
+        assertTrue(error.getCause() instanceof AssertionError);
+    }
+
+    @Test
+    void submit_WithRecordedKey_ShouldReturnRecordedOutcomeWithoutRunningWork() throws Exception {
+        // 准备
+        PaymentOutcome recorded = PaymentOutcome.of("KEY_3", PaymentOutcome.Status.COMPLETED,
+                "BOOK_3", "PAY_3", null);
+        when(paymentDAO.claimPaymentRequest("KEY_3", CLAIM_TIMEOUT)).thenReturn(false);
+        when(paymentDAO.getPaymentRequest("KEY_3")).thenReturn(Optional.of(recorded));
+        AtomicInteger runs = new AtomicInteger();
+
+        // 执行
+        CompletableFuture<PaymentOutcome> future = pipeline.submit("KEY_3", () -> {
+            runs.incrementAndGet();
+            return null;
+        });
+        runQueued();
+
+        // 验证
+        assertSame(recorded, future.get());
+        assertEquals(0, runs.get());
+        assertTrue(events.isEmpty());
+        verify(paymentDAO, never()).finishPaymentRequest(any(PaymentOutcome.class));
+    }
+
+    @Test
+    void submit_SameKeyWhileRunning_ShouldReturnSameFuture() {
+        // 执行
+        CompletableFuture<PaymentOutcome> first = pipeline.submit("KEY_4", () -> null);
+        CompletableFuture<PaymentOutcome> second = pipeline.submit("KEY_4", () -> null);
+
+        // 验证
+        assertSame(first, second);
+        assertEquals(1, queued.size());
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldFailWithoutClaimingKey() {
+        // 准备
+        PaymentPipeline full = new PaymentPipeline(paymentDAO, task -> {
+            throw new RejectedExecutionException("queue full");
+        });
+
+        // 执行
+        CompletableFuture<PaymentOutcome> rejected = full.submit("KEY_5", () -> null);
+
+        // 验证
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(error.getCause() instanceof BusinessException);
+        verify(paymentDAO, never()).claimPaymentRequest(eq("KEY_5"), anyLong());
+    }
+
+    private void runQueued() {
+        List<Runnable> tasks = new ArrayList<>(queued);
+        queued.clear();
+        tasks.forEach(Runnable::run);
+    }
+}
@@ -3,6 +3,8 @@ package com.hotelbooking.service;
 import com.hotelbooking.dao.PaymentDAO;
 import com.hotelbooking.entity.Payment;
 import com.hotelbooking.exception.BusinessException;
+import com.hotelbooking.exception.ErrorType;
+import com.hotelbooking.exception.PaymentUnrecordedException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -12,7 +14,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,6 +27,9 @@ class PaymentServiceTest {
     @Mock
     private PaymentDAO paymentDAO;
 
+    @Mock
+    private PaymentGateway paymentGateway;
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -36,6 +43,7 @@ class PaymentServiceTest {
         Payment payment = new Payment(bookingId, amount, paymentMethod);
         
         when(paymentDAO.createPayment(any(Payment.class))).thenReturn(true);
+        when(paymentGateway.charge(any(Payment.class))).thenReturn(true);
         when(paymentDAO.updatePaymentStatus(anyString(), eq("COMPLETED"), anyString()))
                 .thenReturn(true);
         
@@ -58,27 +66,75 @@ class PaymentServiceTest {
         Payment payment = new Payment(bookingId, amount, paymentMethod);
         
         when(paymentDAO.createPayment(any(Payment.class))).thenReturn(true);
-        
-        // Fixed: Use lenient matchers to avoid Mockito strict mode errors
-        // Original code: when(paymentDAO.updatePaymentStatus(anyString(), eq("FAILED"), isNull())).thenReturn(true);
-        when(paymentDAO.updatePaymentStatus(anyString(), anyString(), any()))
+        when(paymentGateway.charge(any(Payment.class))).thenReturn(false);
+        when(paymentDAO.updatePaymentStatus(anyString(), eq("FAILED"), isNull()))
             .thenReturn(true);
         
-        // Execute - Due to randomness, we accept any result
-        boolean result = false;
-        try {
-            result = paymentService.processPayment(bookingId, amount, paymentMethod);
-        } catch (BusinessException e) {
-            // Payment failed, BusinessException thrown
-            result = false;
-        }
+        // Execute
+        assertThrows(BusinessException.class,
+            () -> paymentService.processPayment(bookingId, amount, paymentMethod));
         
-        // Verify basic calls
+        // Verify
         verify(paymentDAO, times(1)).createPayment(any(Payment.class));
-        verify(paymentDAO, times(1)).updatePaymentStatus(anyString(), anyString(), any());
+        verify(paymentDAO, times(1)).updatePaymentStatus(anyString(), eq("FAILED"), isNull());
+    }
+
+    @Test
+    void processPayment_WhenGatewayUnavailable_ShouldMarkPaymentFailed() {
+        // 准备
+        when(paymentDAO.createPayment(any(Payment.class))).thenReturn(true);
+        when(paymentGateway.charge(any(Payment.class)))
+            .thenThrow(new BusinessException(ErrorType.EXTERNAL_SERVICE_ERROR, "Payment gateway is unavailable"));
+        when(paymentDAO.updatePaymentStatus(anyString(), eq("FAILED"), isNull()))
+            .thenReturn(true);
         
-        // Note: Due to the randomness in the business logic, this test may not always "fail"
-        // But at least it solves the Mockito strict mode error
+        // 执行
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> paymentService.processPayment("BOOK_123", new BigDecimal("200.00"), "CREDIT_CARD"));
+        
+        // 验证
+        assertEquals(ErrorType.EXTERNAL_SERVICE_ERROR, exception.getErrorType());
+        verify(paymentDAO, times(1)).updatePaymentStatus(anyString(), eq("FAILED"), isNull());
+    }
+
+    @Test
+    void completePayment_WhenDeclined_ShouldMarkFailedAndRunOnFailure() {
+        // 准备
+        Payment payment = new Payment("BOOK_123", new BigDecimal("200.00"), "CREDIT_CARD");
+        AtomicBoolean cancelled = new AtomicBoolean();
+        when(paymentGateway.charge(payment)).thenReturn(false);
+        when(paymentDAO.updatePaymentStatus(payment.getPaymentId(), "FAILED", null)).thenReturn(true);
+        
+        // 执行
+        BusinessException exception = assertThrows(BusinessException.class,
+            () -> paymentService.completePayment(payment, () -> cancelled.set(true)));
+        
+        // 验证：支付记录保留为 FAILED，预订在同一事务中取消
+        assertEquals(ErrorType.PAYMENT_FAILED, exception.getErrorType());
+        assertEquals("FAILED", payment.getPaymentStatus());
+        assertTrue(cancelled.get());
+        verify(paymentDAO, never()).createPayment(any(Payment.class));
+    }
+
+    @Test
+    void completePayment_WhenChargedButNotRecorded_ShouldThrowUnrecordedAndKeepBooking() {
+        // 准备：网关已扣款，状态更新在重试后仍失败
+        Payment payment = new Payment("BOOK_123", new BigDecimal("200.00"), "CREDIT_CARD");
+        AtomicBoolean cancelled = new AtomicBoolean();
+        when(paymentGateway.charge(payment)).thenReturn(true);
+        when(paymentDAO.updatePaymentStatus(eq(payment.getPaymentId()), eq("COMPLETED"), anyString()))
+            .thenThrow(new RuntimeException("Error updating payment status: " + payment.getPaymentId()));
+        
+        // 执行
+        PaymentUnrecordedException exception = assertThrows(PaymentUnrecordedException.class,
+            () -> paymentService.completePayment(payment, () -> cancelled.set(true)));
+        
+        // 验证：不记为失败，不取消预订，带上交易号供对账
+        assertEquals(ErrorType.PAYMENT_UNRECORDED, exception.getErrorType());
+        assertEquals(payment.getPaymentId(), exception.getPaymentId());
+        assertNotNull(exception.getTransactionId());
+        assertFalse(cancelled.get());
+        verify(paymentDAO, never()).updatePaymentStatus(anyString(), eq("FAILED"), any());
     }
 
     @Test
@@ -110,16 +166,19 @@ class PaymentServiceTest {
         existingPayment.setTransactionId("TXN_123");
         
         when(paymentDAO.getPaymentByBookingId(bookingId)).thenReturn(existingPayment);
-        when(paymentDAO.updatePaymentStatus(anyString(), eq("REFUNDED"), eq("TXN_123_REFUND")))
-                .thenReturn(true);
+        when(paymentGateway.refund(existingPayment, existingPayment.getAmount(),
+                existingPayment.getPaymentId() + ":refund:0:200")).thenReturn(true);
+        when(paymentDAO.markRefunded(List.of(existingPayment)))
+                .thenReturn(List.of(existingPayment.getPaymentId()));
         
         // 执行
         boolean result = paymentService.processRefund(bookingId);
         
-        // 验证
+        // 验证：全额退款，记录退回的金额
         assertTrue(result);
+        assertEquals(new BigDecimal("200.00"), existingPayment.getRefundAmount());
         verify(paymentDAO, times(1)).getPaymentByBookingId(bookingId);
-        verify(paymentDAO, times(1)).updatePaymentStatus(anyString(), eq("REFUNDED"), eq("TXN_123_REFUND"));
+        verify(paymentDAO, times(1)).markRefunded(List.of(existingPayment));
     }
 
     @Test
@@ -137,7 +196,7 @@ class PaymentServiceTest {
         
         assertTrue(exception.getMessage().contains("No corresponding payment record found"));
         verify(paymentDAO, times(1)).getPaymentByBookingId(bookingId);
-        verify(paymentDAO, never()).updatePaymentStatus(anyString(), anyString(), anyString());
+        verify(paymentDAO, never()).markRefunded(anyList());
     }
 
     @Test
@@ -157,7 +216,7 @@ class PaymentServiceTest {
         
         assertTrue(exception.getMessage().contains("Only completed payments can be refunded"));
         verify(paymentDAO, times(1)).getPaymentByBookingId(bookingId);
-        verify(paymentDAO, never()).updatePaymentStatus(anyString(), anyString(), anyString());
+        verify(paymentDAO, never()).markRefunded(anyList());
     }
 
     @Test
@@ -0,0 +1,211 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.entity.Payment;
+import com.hotelbooking.exception.BusinessException;
+import com.hotelbooking.exception.ErrorType;
+import com.hotelbooking.util.CircuitBreaker;
+import com.hotelbooking.util.RetryPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResilientPaymentGatewayTest {
+
+    @Mock
+    private PaymentGateway provider;
+
+    private Payment payment;
+
+    @BeforeEach
+    void setUp() {
+        payment = new Payment("BOOK_1", new BigDecimal("100.00"), "CREDIT_CARD");
+    }
+
+    @Test
+    void charge_ShouldPassThroughApprovalsAndDeclines() {
+        // 准备
+        ResilientPaymentGateway gateway = gateway(2, 1_000L, 10);
+        when(provider.charge(payment)).thenReturn(true, false);
+
+        // 执行和验证
+        assertTrue(gateway.charge(payment));
+        assertFalse(gateway.charge(payment));
+        ResilientPaymentGateway.Stats stats = gateway.getStats();
+        assertEquals(2, stats.getCalls());
+        assertEquals(1, stats.getApproved());
+        assertEquals(1, stats.getDeclined());
+        assertEquals(CircuitBreaker.State.CLOSED, stats.getCircuitState());
+    }
+
+    @Test
+    void charge_WhenProviderIsSlow_ShouldTimeOut() {
+        // 准备
+        ResilientPaymentGateway gateway = gateway(2, 50L, 10);
+        when(provider.charge(payment)).thenAnswer(invocation -> {
+            Thread.sleep(5_000L);
+            return true;
+        });
+
+        // 执行
+        long start = System.nanoTime();
+        BusinessException exception = assertThrows(BusinessException.class, () -> gateway.charge(payment));
+
+        // 验证
+        assertEquals(ErrorType.EXTERNAL_SERVICE_ERROR, exception.getErrorType());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2_000L);
+        assertEquals(1, gateway.getStats().getTimeouts());
+    }
+
+    @Test
+    void charge_WhenProviderThrows_ShouldWrapError() {
+        // 准备
+        ResilientPaymentGateway gateway = gateway(2, 1_000L, 10);
+        when(provider.charge(payment)).thenThrow(new IllegalStateException("connection reset"));
+
+        // 执行
+        BusinessException exception = assertThrows(BusinessException.class, () -> gateway.charge(payment));
+
+        // 验证
+        assertEquals(ErrorType.EXTERNAL_SERVICE_ERROR, exception.getErrorType());
+        assertTrue(exception.getMessage().contains("connection reset"));
+        assertEquals(1, gateway.getStats().getFailures());
+    }
+
+    @Test
+    void charge_WhenFailuresOpenCircuit_ShouldShortCircuitWithoutCallingProvider() {
+        // 准备
+        ResilientPaymentGateway gateway = gateway(2, 1_000L, 3);
+        when(provider.charge(payment)).thenThrow(new IllegalStateException("down"));
+        for (int i = 0; i < 3; i++) {
+            assertThrows(BusinessException.class, () -> gateway.charge(payment));
+        }
+
+        // 执行
+        BusinessException exception = assertThrows(BusinessException.class, () -> gateway.charge(payment));
+
+        // 验证
+        assertEquals(ErrorType.SERVICE_UNAVAILABLE, exception.getErrorType());
+        verify(provider, times(3)).charge(payment);
+        ResilientPaymentGateway.Stats stats = gateway.getStats();
+        assertEquals(CircuitBreaker.State.OPEN, stats.getCircuitState());
+        assertEquals(1, stats.getShortCircuited());
+    }
+
+    @Test
+    void charge_WhenBulkheadIsFull_ShouldRejectAtOnce() throws Exception {
+        // 准备
+        ResilientPaymentGateway gateway = gateway(1, 5_000L, 10);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(provider.charge(payment)).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return true;
+        });
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> first = caller.submit(() -> gateway.charge(payment));
+            assertTrue(entered.await(1, TimeUnit.SECONDS));
+
+            // 执行
+            BusinessException exception = assertThrows(BusinessException.class, () -> gateway.charge(payment));
+            release.countDown();
+
+            // 验证
+            assertEquals(ErrorType.SERVICE_UNAVAILABLE, exception.getErrorType());
+            assertTrue(first.get(1, TimeUnit.SECONDS));
+            assertEquals(1, gateway.getStats().getRejected());
+            assertEquals(CircuitBreaker.State.CLOSED, gateway.getStats().getCircuitState());
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    void charge_WithRetryPolicy_ShouldRetryProviderErrors() {
+        // 准备
+        ResilientPaymentGateway gateway = new ResilientPaymentGateway(provider,
+                new ResilientPaymentGateway.Config(2, 1_000L, 10, 10, 0.5, 60_000L), retryPolicy());
+        when(provider.charge(payment))
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenReturn(true);
+
+        // 执行
+        boolean approved = gateway.charge(payment);
+
+        // 验证
+        assertTrue(approved);
+        verify(provider, times(2)).charge(payment);
+        assertEquals(1, gateway.getRetryStats().getRecovered());
+    }
+
+    @Test
+    void charge_WithRetryPolicy_ShouldNotRetryOpenCircuit() {
+        // 准备：两次失败即熔断
+        ResilientPaymentGateway gateway = new ResilientPaymentGateway(provider,
+                new ResilientPaymentGateway.Config(2, 1_000L, 2, 2, 0.5, 60_000L), retryPolicy());
+        when(provider.charge(payment)).thenThrow(new IllegalStateException("down"));
+
+        // 执行
+        BusinessException exception = assertThrows(BusinessException.class, () -> gateway.charge(payment));
+
+        // 验证：第三次尝试遇到熔断，不再重试
+        assertEquals(ErrorType.SERVICE_UNAVAILABLE, exception.getErrorType());
+        verify(provider, times(2)).charge(payment);
+        assertEquals(2, gateway.getRetryStats().getRetries());
+    }
+
+    @Test
+    void charge_WithRetryPolicy_ShouldNotRetryFullBulkhead() throws Exception {
+        // 准备：唯一的许可被占用
+        ResilientPaymentGateway gateway = new ResilientPaymentGateway(provider,
+                new ResilientPaymentGateway.Config(1, 5_000L, 10, 10, 0.5, 60_000L), retryPolicy());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(provider.charge(payment)).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return true;
+        });
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> first = caller.submit(() -> gateway.charge(payment));
+            assertTrue(entered.await(1, TimeUnit.SECONDS));
+
+            // 执行
+            BusinessException exception = assertThrows(BusinessException.class, () -> gateway.charge(payment));
+            release.countDown();
+
+            // 验证：立即失败，不退避重试
+            assertEquals(ErrorType.SERVICE_UNAVAILABLE, exception.getErrorType());
+            assertTrue(first.get(1, TimeUnit.SECONDS));
+            assertEquals(0, gateway.getRetryStats().getRetries());
+            assertEquals(1, gateway.getStats().getRejected());
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    private RetryPolicy retryPolicy() {
+        return new RetryPolicy("test", new RetryPolicy.Config(5, 0, 0, 0.1, 10),
+                ResilientPaymentGateway::isRetryable, () -> 0.0, millis -> { });
+    }
+
+    private ResilientPaymentGateway gateway(int maxConcurrent, long timeoutMillis, int minimumCalls) {
+        return new ResilientPaymentGateway(provider,
+                new ResilientPaymentGateway.Config(maxConcurrent, timeoutMillis, 10, minimumCalls, 0.5, 60_000L));
+    }
+}
@@ -0,0 +1,227 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.entity.Booking;
+import com.hotelbooking.entity.Room;
+import com.hotelbooking.util.DataChange;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomInventoryTest {
+
+    private final LocalDate day = LocalDate.now().plusDays(10);
+
+    @Test
+    void tryReserve_OverlappingStay_ShouldFail() {
+        // 准备
+        RoomInventory inventory = new RoomInventory();
+        assertTrue(inventory.tryReserve(1, day, day.plusDays(3)));
+
+        // 执行 & 验证
+        assertFalse(inventory.tryReserve(1, day.plusDays(2), day.plusDays(5)));
+        assertFalse(inventory.tryReserve(1, day.minusDays(1), day.plusDays(1)));
+        assertTrue(inventory.tryReserve(1, day.plusDays(3), day.plusDays(4)));
+        assertTrue(inventory.tryReserve(2, day, day.plusDays(3)));
+    }
+
+    @Test
+    void release_ShouldMakeNightsAvailableAgain() {
+        // 准备
+        RoomInventory inventory = new RoomInventory();
+        inventory.tryReserve(1, day, day.plusDays(3));
+
+        // 执行
+        inventory.release(1, day, day.plusDays(3));
+
+        // 验证
+        assertTrue(inventory.isAvailable(1, day, day.plusDays(3)));
+    }
+
+    @Test
+    void filterAvailable_ShouldKeepInServiceRoomsFreeForTheStay() {
+        // 准备
+        RoomInventory inventory = new RoomInventory();
+        Room free = room(1, true);
+        Room booked = room(2, true);
+        Room outOfService = room(3, false);
+        inventory.tryReserve(2, day.plusDays(1), day.plusDays(2));
+
+        // 执行
+        List<Room> result = inventory.filterAvailable(Arrays.asList(free, booked, outOfService), day, day.plusDays(3));
+
+        // 验证
+        assertEquals(List.of(free), result);
+    }
+
+    @Test
+    void reload_ShouldRebuildFromLoaderAndIgnoreReleasedBookings() {
+        // 准备
+        Booking confirmed = new Booking(1, 1, 7, day, day.plusDays(2), new BigDecimal("200"), "CONFIRMED");
+        Booking cancelled = new Booking(1, 1, 8, day, day.plusDays(2), new BigDecimal("200"), "CANCELLED");
+        AtomicInteger loads = new AtomicInteger();
+        RoomInventory inventory = new RoomInventory(() -> {
+            loads.incrementAndGet();
+            return Arrays.asList(confirmed, cancelled);
+        });
+
+        // 执行：首次查询时懒加载
+        boolean room7Free = inventory.isAvailable(7, day, day.plusDays(1));
+        boolean room8Free = inventory.isAvailable(8, day, day.plusDays(1));
+
+        // 验证
+        assertFalse(room7Free);
+        assertTrue(room8Free);
+        assertEquals(1, loads.get());
+
+        inventory.reload();
+        assertEquals(2, loads.get());
+        assertEquals(1, inventory.getTrackedRoomCount());
+    }
+
+    @Test
+    void reload_ShouldKeepReservationsMadeWhileLoading() {
+        // 准备：加载期间另有预订写入内存
+        Booking confirmed = new Booking(1, 1, 7, day, day.plusDays(2), new BigDecimal("200"), "CONFIRMED");
+        RoomInventory[] holder = new RoomInventory[1];
+        AtomicInteger loads = new AtomicInteger();
+        RoomInventory inventory = new RoomInventory(() -> {
+            if (loads.incrementAndGet() > 1) {
+                holder[0].tryReserve(8, day, day.plusDays(1));
+            }
+            return List.of(confirmed);
+        });
+        holder[0] = inventory;
+        assertTrue(inventory.isAvailable(8, day, day.plusDays(1)));
+
+        // 执行
+        inventory.reload();
+
+        // 验证
+        assertFalse(inventory.isAvailable(7, day, day.plusDays(1)));
+        assertFalse(inventory.isAvailable(8, day, day.plusDays(1)));
+    }
+
+    @Test
+    void reload_BetweenTryReserveAndCommit_ShouldKeepTheClaim() {
+        // 准备：预订已占内存房晚，但插入尚未提交，数据库里还看不到
+        RoomInventory inventory = new RoomInventory(List::of, roomId -> List.of());
+        assertTrue(inventory.tryReserve(8, day, day.plusDays(2)));
+
+        // 执行
+        inventory.reload();
+        inventory.reloadRoom(8);
+
+        // 验证：重建保留未提交的占用，结算后才交给数据库
+        assertFalse(inventory.isAvailable(8, day, day.plusDays(2)));
+        inventory.settle(8, day, day.plusDays(2));
+        inventory.reload();
+        assertTrue(inventory.isAvailable(8, day, day.plusDays(2)));
+    }
+
+    @Test
+    void release_OfUncommittedClaim_ShouldNotBeReplayedByReload() {
+        // 准备
+        RoomInventory inventory = new RoomInventory(List::of);
+        assertTrue(inventory.tryReserve(8, day, day.plusDays(2)));
+
+        // 执行：事务回滚，归还房晚
+        inventory.release(8, day, day.plusDays(2));
+        inventory.reload();
+
+        // 验证
+        assertTrue(inventory.isAvailable(8, day, day.plusDays(2)));
+    }
+
+    @Test
+    void tryReserve_ShouldKeepEveryNightApartWhateverTheDate() {
+        // 准备：先订远期，再订更早的日期，日历原点随之前移
+        RoomInventory inventory = new RoomInventory();
+        LocalDate past = LocalDate.now().minusDays(30);
+        assertTrue(inventory.tryReserve(1, day.plusDays(400), day.plusDays(401)));
+        assertTrue(inventory.tryReserve(1, past, past.plusDays(2)));
+
+        // 执行 & 验证
+        assertFalse(inventory.isAvailable(1, past.plusDays(1), past.plusDays(2)));
+        assertTrue(inventory.isAvailable(1, past.plusDays(2), past.plusDays(5)));
+        assertTrue(inventory.isAvailable(1, past.minusDays(5), past));
+        assertFalse(inventory.isAvailable(1, day.plusDays(400), day.plusDays(401)));
+        assertTrue(inventory.isAvailable(1, day, day.plusDays(400)));
+    }
+
+    @Test
+    void bookingChanged_WhenCancelledOutsideService_ShouldReloadThatRoom() {
+        // 准备：库中的预订已被直接改为取消，内存仍占着房晚
+        Booking cancelled = new Booking(1, 1, 7, day, day.plusDays(2), new BigDecimal("200"), "CANCELLED");
+        cancelled.setId(41);
+        List<Booking> roomRows = new ArrayList<>();
+        RoomInventory inventory = new RoomInventory(List::of, roomId -> roomRows);
+        assertTrue(inventory.tryReserve(7, day, day.plusDays(2)));
+        assertTrue(inventory.tryReserve(8, day, day.plusDays(2)));
+        inventory.settle(7, day, day.plusDays(2));
+        inventory.settle(8, day, day.plusDays(2));
+
+        // 执行
+        inventory.bookingChanged(DataChange.updated(DataChange.Entity.BOOKING, 41),
+                id -> id == 41 ? Optional.of(cancelled) : Optional.empty());
+
+        // 验证：只重建了该房间
+        assertTrue(inventory.isAvailable(7, day, day.plusDays(2)));
+        assertFalse(inventory.isAvailable(8, day, day.plusDays(2)));
+    }
+
+    @Test
+    void bookingChanged_WhenDeleted_ShouldReloadOnlyItsRoom() {
+        // 准备
+        AtomicInteger loads = new AtomicInteger();
+        RoomInventory inventory = new RoomInventory(() -> {
+            loads.incrementAndGet();
+            return List.of();
+        }, roomId -> List.of());
+        inventory.tryReserve(7, day, day.plusDays(2));
+        inventory.tryReserve(8, day, day.plusDays(2));
+        inventory.settle(7, day, day.plusDays(2));
+        inventory.settle(8, day, day.plusDays(2));
+
+        // 执行：删除时发布了预订所在的房间
+        inventory.bookingChanged(DataChange.deleted(DataChange.Entity.BOOKING, 41, 1)
+                .withParent(DataChange.Entity.ROOM, 7), id -> Optional.empty());
+
+        // 验证
+        assertEquals(1, loads.get());
+        assertTrue(inventory.isAvailable(7, day, day.plusDays(2)));
+        assertFalse(inventory.isAvailable(8, day, day.plusDays(2)));
+    }
+
+    @Test
+    void bookingChanged_WhenDeletedWithUnknownRoom_ShouldReloadEverything() {
+        // 准备
+        AtomicInteger loads = new AtomicInteger();
+        RoomInventory inventory = new RoomInventory(() -> {
+            loads.incrementAndGet();
+            return List.of();
+        }, roomId -> List.of());
+        inventory.tryReserve(7, day, day.plusDays(2));
+        inventory.settle(7, day, day.plusDays(2));
+
+        // 执行：变更未带房间，被删除的预订也已查不到
+        inventory.bookingChanged(DataChange.deleted(DataChange.Entity.BOOKING, 41), id -> Optional.empty());
+
+        // 验证
+        assertEquals(2, loads.get());
+        assertTrue(inventory.isAvailable(7, day, day.plusDays(2)));
+    }
+
+    private Room room(int id, boolean inService) {
+        Room room = new Room(1, String.valueOf(100 + id), "SINGLE", 100.0, 2, inService, "Standard single room");
+        room.setId(id);
+        return room;
+    }
+}
@@ -5,9 +5,9 @@ import com.hotelbooking.entity.Room;
 import com.hotelbooking.exception.BusinessException;
 import com.hotelbooking.exception.ErrorType;
 import com.hotelbooking.exception.ValidationException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
@@ -27,9 +27,20 @@ class RoomServiceTest {
     @Mock
     private RoomDAO roomDAO;
 
-    @InjectMocks
+    @Mock
+    private HotelSummaryRegistry summaryRegistry;
+
+    @Mock
+    private SearchResultCache searchCache;
+
     private RoomService roomService;
 
+    @BeforeEach
+    void setUp() {
+        // 每个用例使用独立的房间缓存，读取仍经由 mock 的 RoomDAO
+        roomService = new RoomService(roomDAO, summaryRegistry, searchCache, new RoomCache(roomDAO));
+    }
+
     @Test
     void createRoom_WithValidData_ShouldCreateRoom() {
         // 准备 - 使用7个参数的构造函数
@@ -49,6 +60,7 @@ class RoomServiceTest {
         assertEquals(new BigDecimal("99.99"), result.getPrice());
         assertTrue(result.isAvailable());
         verify(roomDAO, times(1)).createRoom(any(Room.class));
+        verify(summaryRegistry).put(expectedRoom);
     }
 
     @Test
@@ -186,9 +198,9 @@ class RoomServiceTest {
         // 准备 - 使用7个参数的构造函数
         Room availableRoom = new Room(1, "101", "SINGLE", 100.0, 2, true, "Available single room");
         Room unavailableRoom = new Room(1, "102", "DOUBLE", 150.0, 4, false, "Unavailable double room");
-        List<Room> expectedRooms = Arrays.asList(availableRoom);
         
-        when(roomDAO.getAvailableRoomsByHotelId(1)).thenReturn(expectedRooms);
+        // 可用房间从缓存的酒店房间列表中筛选
+        when(roomDAO.getRoomsByHotelId(1)).thenReturn(Arrays.asList(availableRoom, unavailableRoom));
         
         // 执行
         List<Room> result = roomService.getAvailableRoomsByHotelId(1);
@@ -197,7 +209,7 @@ class RoomServiceTest {
         assertEquals(1, result.size());
         assertTrue(result.get(0).isAvailable());
         assertEquals("101", result.get(0).getRoomNumber());
-        verify(roomDAO, times(1)).getAvailableRoomsByHotelId(1);
+        verify(roomDAO, never()).getAvailableRoomsByHotelId(anyInt());
     }
 
     @Test
@@ -327,6 +339,47 @@ class RoomServiceTest {
         // 验证
         assertTrue(result);
         verify(roomDAO, times(1)).updateRoomPrice(1, new BigDecimal("199.99"));
+        verify(summaryRegistry).updatePrice(1, new BigDecimal("199.99"));
+        verify(searchCache).invalidateStays();
+    }
+
+    @Test
+    void getRoomById_RepeatedReads_ShouldLoadOnceAndReturnCopies() {
+        // 准备
+        Room room = new Room(1, "101", "SINGLE", 100.0, 2, true, "Standard single room");
+        room.setId(1);
+        when(roomDAO.getRoomById(1)).thenReturn(Optional.of(room));
+        
+        // 执行：调用方修改返回的对象不影响缓存
+        roomService.getRoomById(1).orElseThrow().setPricePerNight(1.0);
+        Room second = roomService.getRoomById(1).orElseThrow();
+        
+        // 验证
+        assertEquals(100.0, second.getPricePerNight());
+        verify(roomDAO, times(1)).getRoomById(1);
+        assertEquals(1, roomService.getRoomCacheStats().getHits());
+        assertEquals(1, roomService.getRoomCacheStats().getLoads());
+    }
+
+    @Test
+    void updateRoomPrice_ShouldWriteThroughCachedRoomAndDropHotelList() {
+        // 准备
+        Room room = new Room(1, "101", "SINGLE", 100.0, 2, true, "Standard single room");
+        room.setId(1);
+        when(roomDAO.getRoomById(1)).thenReturn(Optional.of(room));
+        when(roomDAO.getRoomsByHotelId(1)).thenReturn(Arrays.asList(room));
+        when(roomDAO.updateRoomPrice(1, new BigDecimal("120"))).thenReturn(true);
+        roomService.getRoomById(1);
+        roomService.getRoomsByHotelId(1);
+        
+        // 执行
+        roomService.updateRoomPrice(1, new BigDecimal("120"));
+        
+        // 验证：单个房间直接更新，酒店列表下次重新加载
+        assertEquals(120.0, roomService.getRoomById(1).orElseThrow().getPricePerNight());
+        roomService.getRoomsByHotelId(1);
+        verify(roomDAO, times(1)).getRoomById(1);
+        verify(roomDAO, times(2)).getRoomsByHotelId(1);
     }
 
     @Test
@@ -435,6 +488,7 @@ class RoomServiceTest {
         // 验证
         assertTrue(result);
         verify(roomDAO, times(1)).updateRoom(room);
+        verify(summaryRegistry).put(room);
     }
 
     @Test
@@ -458,6 +512,7 @@ class RoomServiceTest {
         // 验证
         assertTrue(result);
         verify(roomDAO, times(1)).deleteRoom(1);
+        verify(summaryRegistry).remove(1);
     }
 
     @Test
@@ -471,6 +526,7 @@ class RoomServiceTest {
         // 验证
         assertFalse(result);
         verify(roomDAO, times(1)).deleteRoom(999);
+        verifyNoInteractions(summaryRegistry, searchCache);
     }
 
     @Test
@@ -0,0 +1,68 @@
+package com.hotelbooking.service;
+
+import com.hotelbooking.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserExistenceFilterTest {
+
+    @Test
+    void mightContain_ShouldRuleOutUnknownValuesAfterLoad() {
+        // 准备
+        UserExistenceFilter filter = new UserExistenceFilter(() -> List.of(user("alice", "alice@example.com")));
+
+        // 执行和验证
+        assertTrue(filter.mightContainUsername("alice"));
+        assertTrue(filter.mightContainEmail("alice@example.com"));
+        assertFalse(filter.mightContainUsername("bob"));
+        assertFalse(filter.mightContainEmail("bob@example.com"));
+    }
+
+    @Test
+    void mightContain_WithoutBackingStore_ShouldAlwaysAnswerMaybe() {
+        // 准备
+        UserExistenceFilter filter = new UserExistenceFilter();
+
+        // 执行
+        filter.add("alice", "alice@example.com");
+
+        // 验证
+        assertTrue(filter.mightContainUsername("anyone"));
+        assertTrue(filter.mightContainEmail("anyone@example.com"));
+    }
+
+    @Test
+    void removed_ManyDeletions_ShouldRebuildOnNextCheck() {
+        // 准备
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            users.add(user("user" + i, "user" + i + "@example.com"));
+        }
+        AtomicInteger loads = new AtomicInteger();
+        UserExistenceFilter filter = new UserExistenceFilter(() -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(users);
+        });
+        assertTrue(filter.mightContainUsername("user0"));
+
+        // 执行 - 删除超过四分之一
+        for (int i = 0; i < 3; i++) {
+            users.remove(0);
+            filter.removed();
+        }
+
+        // 验证
+        assertFalse(filter.mightContainUsername("user0"));
+        assertTrue(filter.mightContainUsername("user7"));
+        assertEquals(2, loads.get());
+    }
+
+    private static User user(String username, String email) {
+        return new User(username, email, "password", "CUSTOMER");
+    }
+}
@@ -2,6 +2,7 @@
 package com.hotelbooking.service;
 
 import com.hotelbooking.dao.UserDAO;
+import com.hotelbooking.dto.UserExistence;
 import com.hotelbooking.entity.User;
 import com.hotelbooking.exception.BusinessException;
 import com.hotelbooking.exception.ErrorType;
@@ -31,7 +32,8 @@ class UserServiceTest {
 
     @BeforeEach
     void setUp() {
-        userService = new UserService(userDAO);
+        // 未加载的过滤器对任何值都回答"可能存在"，查重总是落到 DAO
+        userService = new UserService(userDAO, new UserExistenceFilter());
     }
 
     // ==================== 注册测试 ====================
@@ -47,8 +49,7 @@ class UserServiceTest {
         expectedUser.setId(1);
         expectedUser.setCreatedAt(LocalDateTime.now());
         
-        when(userDAO.isUsernameExists(username)).thenReturn(false);
-        when(userDAO.isEmailExists(email)).thenReturn(false);
+        when(userDAO.findExisting(username, email)).thenReturn(UserExistence.NONE);
         when(userDAO.createUser(any(User.class))).thenReturn(expectedUser);
         
         // 执行
@@ -68,7 +69,7 @@ class UserServiceTest {
         String email = "test@example.com";
         String password = "password123";
         
-        when(userDAO.isUsernameExists(username)).thenReturn(true);
+        when(userDAO.findExisting(username, email)).thenReturn(new UserExistence(true, false));
         
         // 执行和验证
         BusinessException exception = assertThrows(
@@ -91,6 +92,72 @@ class UserServiceTest {
         verify(userDAO, never()).createUser(any(User.class));
     }
 
+    @Test
+    void registerUser_WithExistingEmail_ShouldThrowBusinessException() {
+        // 准备
+        when(userDAO.findExisting("newuser", "taken@example.com")).thenReturn(new UserExistence(false, true));
+
+        // 执行和验证
+        BusinessException exception = assertThrows(
+            BusinessException.class,
+            () -> userService.registerUser("newuser", "taken@example.com", "password123", "CUSTOMER")
+        );
+
+        assertEquals(ErrorType.EMAIL_EXISTS, exception.getErrorType());
+        verify(userDAO, never()).createUser(any(User.class));
+    }
+
+    @Test
+    void registerUser_WhenFilterRulesOutBoth_ShouldNotQueryExistence() {
+        // 准备
+        User existing = new User("alice", "alice@example.com", "password", "CUSTOMER");
+        UserExistenceFilter filter = new UserExistenceFilter(() -> List.of(existing));
+        userService = new UserService(userDAO, filter);
+        when(userDAO.createUser(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(2);
+            return user;
+        });
+
+        // 执行
+        userService.registerUser("bob", "bob@example.com", "password123", "CUSTOMER");
+
+        // 验证 - 新用户随即进入过滤器
+        verify(userDAO, never()).findExisting(any(), any());
+        assertTrue(filter.mightContainUsername("bob"));
+        assertTrue(filter.mightContainEmail("bob@example.com"));
+    }
+
+    @Test
+    void isUsernameTaken_WhenFilterMightContain_ShouldQueryOnlyThatValue() {
+        // 准备
+        User existing = new User("alice", "alice@example.com", "password", "CUSTOMER");
+        userService = new UserService(userDAO, new UserExistenceFilter(() -> List.of(existing)));
+        when(userDAO.findExisting("alice", null)).thenReturn(new UserExistence(true, false));
+
+        // 执行和验证
+        assertTrue(userService.isUsernameTaken("alice"));
+        assertFalse(userService.isUsernameTaken("carol"));
+        verify(userDAO, times(1)).findExisting(any(), any());
+    }
+
+    @Test
+    void updateUserProfile_WithSurroundingSpaces_ShouldStoreAndRememberTrimmedValues() {
+        // 准备
+        UserExistenceFilter filter = new UserExistenceFilter(List::of);
+        filter.reload();
+        userService = new UserService(userDAO, filter);
+        when(userDAO.updateUserProfile(1, "bob", "bob@example.com")).thenReturn(true);
+
+        // 执行
+        boolean updated = userService.updateUserProfile(1, "  bob ", " bob@example.com ");
+
+        // 验证 - 之后对同一个名字的查重能命中
+        assertTrue(updated);
+        assertTrue(filter.mightContainUsername("bob"));
+        assertTrue(filter.mightContainEmail("bob@example.com"));
+    }
+
     // ==================== 登录测试 ====================
     @Test
     void loginUser_WithValidCredentials_ShouldReturnUser() {
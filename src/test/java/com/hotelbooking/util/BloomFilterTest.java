@@ -0,0 +1,52 @@
+package com.hotelbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_ShouldNeverMissAddedValues() {
+        // 准备
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+
+        // 执行
+        for (int i = 0; i < 1000; i++) {
+            filter.add("user" + i);
+        }
+
+        // 验证
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+        assertEquals(1000, filter.size());
+        assertFalse(filter.isOverCapacity());
+    }
+
+    @Test
+    void mightContain_ShouldKeepFalsePositivesNearConfiguredRate() {
+        // 准备
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+
+        // 执行
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+
+        // 验证 - 1% 目标，留出随机波动的余量
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void constructor_WithInvalidRate_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+}
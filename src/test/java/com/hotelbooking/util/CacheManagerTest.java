@@ -0,0 +1,89 @@
+package com.hotelbooking.util;
+
+import com.hotelbooking.entity.Booking;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheManagerTest {
+
+    @Test
+    void getPolicy_ShouldApplyPropertiesOverDefaults() {
+        // 准备
+        Properties props = new Properties();
+        props.setProperty("cache.users.maxSize", "10");
+        props.setProperty("cache.rooms.ttlSeconds", "not-a-number");
+        CacheManager caches = new CacheManager(props);
+
+        // 执行
+        CacheManager.Policy users = caches.getPolicy(CacheManager.USERS);
+        CacheManager.Policy rooms = caches.getPolicy(CacheManager.ROOMS);
+
+        // 验证
+        assertEquals(10, users.getMaxSize());
+        assertEquals(CacheManager.Policy.defaultFor(CacheManager.USERS).getTtl(), users.getTtl());
+        assertEquals(Duration.ofMinutes(10), rooms.getTtl());
+    }
+
+    @Test
+    void region_ShouldReturnSameCacheForSameName() {
+        // 准备
+        CacheManager caches = new CacheManager(new Properties());
+
+        // 执行
+        LruCache<Integer, String> first = caches.region(CacheManager.USERS);
+        LruCache<Integer, String> second = caches.region(CacheManager.USERS);
+
+        // 验证
+        assertSame(first, second);
+        assertEquals(1, caches.getStats().size());
+    }
+
+    @Test
+    void invalidateOn_ShouldDropChangedKeyOrWholeRegion() {
+        // 准备
+        CacheManager caches = new CacheManager(new Properties());
+        LruCache<Integer, String> users = caches.region(CacheManager.USERS);
+        users.put(1, "alice");
+        users.put(2, "bob");
+        Runnable stop = caches.invalidateOn(CacheManager.USERS, DataChange.Entity.USER, DataChange::getId);
+
+        try {
+            // 执行
+            DataChangeBus.publish(DataChange.updated(DataChange.Entity.USER, 1));
+
+            // 验证
+            assertNull(users.getIfPresent(1));
+            assertEquals("bob", users.getIfPresent(2));
+
+            DataChangeBus.publish(DataChange.updated(DataChange.Entity.USER, null));
+            assertEquals(0, users.size());
+        } finally {
+            stop.run();
+        }
+    }
+
+    @Test
+    void sharedBookingsRegion_ShouldDropListHoldingChangedBooking() {
+        // 准备
+        LruCache<Integer, List<Booking>> bookings =
+                CacheManager.getInstance().region(CacheManager.BOOKINGS_BY_USER);
+        Booking booking = new Booking();
+        booking.setId(41);
+        booking.setUserId(5);
+        bookings.put(5, List.of(booking));
+        bookings.put(6, List.of());
+
+        // 执行
+        DataChangeBus.publish(DataChange.updated(DataChange.Entity.BOOKING, 41));
+
+        // 验证
+        assertNull(bookings.getIfPresent(5));
+        assertNotNull(bookings.getIfPresent(6));
+        bookings.invalidateAll();
+    }
+}
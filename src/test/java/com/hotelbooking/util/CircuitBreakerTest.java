@@ -0,0 +1,129 @@
+package com.hotelbooking.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000L);
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new CircuitBreaker("test", 4, 4, 0.5, 1_000L, now::get);
+    }
+
+    @Test
+    void onFailure_BelowMinimumCalls_ShouldStayClosed() {
+        // 执行
+        fail(3);
+
+        // 验证
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void onFailure_AtThreshold_ShouldOpenAndRefuseCalls() {
+        // 执行
+        succeed(2);
+        fail(2);
+
+        // 验证
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getTimesOpened());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void window_ShouldForgetOldestOutcomes() {
+        // 准备
+        fail(1);
+        succeed(3);
+
+        // 执行：最早的失败被挤出窗口
+        succeed(1);
+        fail(1);
+
+        // 验证
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void tryAcquire_AfterOpenPeriod_ShouldLetOneTrialThrough() {
+        // 准备
+        fail(4);
+        now.addAndGet(1_000L);
+
+        // 执行
+        boolean trial = breaker.tryAcquire();
+        boolean second = breaker.tryAcquire();
+
+        // 验证
+        assertTrue(trial);
+        assertFalse(second);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpen_TrialSuccess_ShouldClose() {
+        // 准备
+        fail(4);
+        now.addAndGet(1_000L);
+        assertTrue(breaker.tryAcquire());
+
+        // 执行
+        breaker.onSuccess();
+
+        // 验证
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        fail(3);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpen_TrialFailure_ShouldOpenAgain() {
+        // 准备
+        fail(4);
+        now.addAndGet(1_000L);
+        assertTrue(breaker.tryAcquire());
+
+        // 执行
+        breaker.onFailure();
+
+        // 验证
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getTimesOpened());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void halfOpen_ReleasedTrial_ShouldAllowAnotherTrial() {
+        // 准备
+        fail(4);
+        now.addAndGet(1_000L);
+        assertTrue(breaker.tryAcquire());
+
+        // 执行
+        breaker.release();
+
+        // 验证
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onFailure();
+        }
+    }
+
+    private void succeed(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onSuccess();
+        }
+    }
+}
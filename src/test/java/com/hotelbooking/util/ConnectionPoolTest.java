@@ -0,0 +1,95 @@
+package com.hotelbooking.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:derby:memory:pool_test_db;create=true";
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ConnectionPool(URL, new ConnectionPool.Config(1, 2, 1, 200, 0, 1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void borrow_ShouldReturnUsableConnection() throws SQLException {
+        try (Connection conn = pool.borrow();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("VALUES 1")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+            assertEquals(1, pool.getStats().getActive());
+        }
+        assertEquals(0, pool.getStats().getActive());
+        assertEquals(1, pool.getStats().getIdle());
+    }
+
+    @Test
+    void close_ShouldReturnConnectionToPoolInsteadOfClosingIt() throws SQLException {
+        // 执行
+        Connection first = pool.borrow();
+        first.close();
+        Connection second = pool.borrow();
+
+        // 验证：句柄关闭，但物理连接被复用
+        assertTrue(first.isClosed());
+        assertFalse(second.isClosed());
+        assertEquals(1, pool.getStats().getPhysicalConnections());
+        assertThrows(SQLException.class, first::createStatement);
+        second.close();
+    }
+
+    @Test
+    void release_ShouldRollbackAndRestoreAutoCommit() throws SQLException {
+        try (Connection conn = pool.borrow()) {
+            conn.setAutoCommit(false);
+        }
+        try (Connection conn = pool.borrow()) {
+            assertTrue(conn.getAutoCommit());
+        }
+    }
+
+    @Test
+    void borrow_WhenPoolExhausted_ShouldTimeOutWithClearError() throws SQLException {
+        // 准备：借空连接池
+        Connection c1 = pool.borrow();
+        Connection c2 = pool.borrow();
+
+        // 执行 & 验证
+        SQLTransientConnectionException e = assertThrows(SQLTransientConnectionException.class, pool::borrow);
+        assertTrue(e.getMessage().contains("Timed out after 200 ms"));
+        assertEquals(1, pool.getStats().getTimeouts());
+
+        c1.close();
+        c2.close();
+    }
+
+    @Test
+    void borrow_ShouldRecordAcquireStatistics() throws SQLException {
+        for (int i = 0; i < 5; i++) {
+            pool.borrow().close();
+        }
+
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(5, stats.getAcquireCount());
+        assertEquals(0, stats.getWaiters());
+        assertTrue(stats.getMaxAcquireMicros() >= stats.getAvgAcquireMicros());
+    }
+}
@@ -0,0 +1,137 @@
+package com.hotelbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataChangeBusTest {
+
+    @Test
+    void publish_HotelDelete_ShouldCascadeToEachChildTableOnce() {
+        // 准备
+        List<DataChange> rooms = new ArrayList<>();
+        List<DataChange> bookings = new ArrayList<>();
+        List<DataChange> payments = new ArrayList<>();
+        Runnable stopRooms = DataChangeBus.subscribe(DataChange.Entity.ROOM, rooms::add);
+        Runnable stopBookings = DataChangeBus.subscribe(DataChange.Entity.BOOKING, bookings::add);
+        Runnable stopPayments = DataChangeBus.subscribe(DataChange.Entity.PAYMENT, payments::add);
+
+        try {
+            // 执行
+            DataChangeBus.publish(DataChange.deleted(DataChange.Entity.HOTEL, 7));
+
+            // 验证
+            assertEquals(1, rooms.size());
+            assertTrue(rooms.get(0).isDelete());
+            assertNull(rooms.get(0).getId());
+            assertEquals(7, rooms.get(0).getOwnerId());
+            assertEquals(DataChange.Entity.HOTEL, rooms.get(0).getCause().getEntity());
+            // 预订同时经由酒店和房间级联，只通知一次；其所属用户未知
+            assertEquals(1, bookings.size());
+            assertNull(bookings.get(0).getOwnerId());
+            assertEquals(1, payments.size());
+        } finally {
+            stopRooms.run();
+            stopBookings.run();
+            stopPayments.run();
+        }
+    }
+
+    @Test
+    void publish_RoomDelete_ShouldNameTheRoomAsBookingParent() {
+        // 准备
+        List<DataChange> bookings = new ArrayList<>();
+        Runnable stop = DataChangeBus.subscribe(DataChange.Entity.BOOKING, bookings::add);
+
+        try {
+            // 执行
+            DataChangeBus.publish(DataChange.deleted(DataChange.Entity.ROOM, 5, 2));
+
+            // 验证
+            assertEquals(1, bookings.size());
+            assertEquals(5, bookings.get(0).getParentId(DataChange.Entity.ROOM));
+            assertNull(bookings.get(0).getOwnerId());
+        } finally {
+            stop.run();
+        }
+    }
+
+    @Test
+    void publish_UserDelete_ShouldCarryUserIdAsBookingOwner() {
+        // 准备
+        List<DataChange> bookings = new ArrayList<>();
+        Runnable stop = DataChangeBus.subscribe(DataChange.Entity.BOOKING, bookings::add);
+
+        try {
+            // 执行
+            DataChangeBus.publish(DataChange.deleted(DataChange.Entity.USER, 3));
+
+            // 验证
+            assertEquals(1, bookings.size());
+            assertEquals(3, bookings.get(0).getOwnerId());
+        } finally {
+            stop.run();
+        }
+    }
+
+    @Test
+    void publish_Update_ShouldNotCascade() {
+        // 准备
+        List<DataChange> rooms = new ArrayList<>();
+        Runnable stop = DataChangeBus.subscribe(DataChange.Entity.ROOM, rooms::add);
+
+        try {
+            // 执行
+            DataChangeBus.publish(DataChange.updated(DataChange.Entity.HOTEL, 7));
+
+            // 验证
+            assertTrue(rooms.isEmpty());
+        } finally {
+            stop.run();
+        }
+    }
+
+    @Test
+    void publish_InsideUnitOfWork_ShouldDeliverOnlyAfterCommit() {
+        // 准备
+        List<DataChange> users = new ArrayList<>();
+        Runnable stop = DataChangeBus.subscribe(DataChange.Entity.USER, users::add);
+
+        try {
+            // 执行
+            TransactionManager.runInTransaction(() -> {
+                DataChangeBus.publish(DataChange.updated(DataChange.Entity.USER, 1));
+                assertTrue(users.isEmpty());
+            });
+
+            // 验证
+            assertEquals(1, users.size());
+        } finally {
+            stop.run();
+        }
+    }
+
+    @Test
+    void publish_FailingListener_ShouldNotStopOthers() {
+        // 准备
+        List<DataChange> received = new ArrayList<>();
+        Runnable stopFailing = DataChangeBus.subscribe(DataChange.Entity.PAYMENT, change -> {
+            throw new IllegalStateException("boom");
+        });
+        Runnable stop = DataChangeBus.subscribe(DataChange.Entity.PAYMENT, received::add);
+
+        try {
+            // 执行
+            DataChangeBus.publish(DataChange.created(DataChange.Entity.PAYMENT, "PAY-1"));
+
+            // 验证
+            assertEquals(1, received.size());
+        } finally {
+            stopFailing.run();
+            stop.run();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.hotelbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    @Test
+    void nextId_FromManyThreads_ShouldNeverRepeat() throws Exception {
+        // 准备
+        IdGenerator generator = new IdGenerator(7);
+        int threads = 8;
+        int perThread = 250_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?>[] futures = new Future<?>[threads];
+        long[][] ids = new long[threads][perThread];
+
+        // 执行
+        for (int t = 0; t < threads; t++) {
+            long[] mine = ids[t];
+            futures[t] = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    mine[i] = generator.nextId();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // 验证 - 每个线程内严格递增，合并后没有重复
+        long[] all = new long[threads * perThread];
+        for (int t = 0; t < threads; t++) {
+            for (int i = 1; i < perThread; i++) {
+                assertTrue(ids[t][i] > ids[t][i - 1]);
+            }
+            System.arraycopy(ids[t], 0, all, t * perThread, perThread);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i]);
+        }
+        assertEquals(7, IdGenerator.nodeOf(all[0]));
+    }
+
+    @Test
+    void nextId_WhenSequenceRunsOut_ShouldBorrowNextMillisecond() {
+        // 准备
+        IdGenerator generator = new IdGenerator(1, () -> NOW);
+
+        // 执行
+        long first = generator.nextId();
+        long last = first;
+        for (int i = 0; i < 4096; i++) {
+            last = generator.nextId();
+        }
+
+        // 验证
+        assertEquals(0, IdGenerator.sequenceOf(first));
+        assertEquals(0, IdGenerator.sequenceOf(last));
+        assertEquals(NOW + 1, IdGenerator.timestampOf(last).toEpochMilli());
+    }
+
+    @Test
+    void nextId_WhenClockStepsBack_ShouldStayMonotonic() {
+        // 准备
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator generator = new IdGenerator(1, clock::get);
+        long before = generator.nextId();
+
+        // 执行
+        clock.set(NOW - 5_000);
+        long after = generator.nextId();
+
+        // 验证
+        assertTrue(after > before);
+        assertEquals(NOW, IdGenerator.timestampOf(after).toEpochMilli());
+    }
+
+    @Test
+    void format_ShouldRoundTripAndSortLikeIds() {
+        // 准备
+        IdGenerator generator = new IdGenerator(3, () -> NOW);
+        long small = generator.nextId();
+        long large = small + (1L << 40);
+
+        // 执行
+        String smallText = IdGenerator.format(IdGenerator.BOOKING, small);
+        String largeText = IdGenerator.format(IdGenerator.BOOKING, large);
+
+        // 验证
+        assertTrue(smallText.startsWith("BOOK_"));
+        assertEquals(smallText.length(), largeText.length());
+        assertTrue(smallText.compareTo(largeText) < 0);
+        assertEquals(small, IdGenerator.parse(smallText));
+        assertThrows(IllegalArgumentException.class, () -> IdGenerator.parse("BOOK_123"));
+    }
+
+    @Test
+    void toBytes_ShouldRoundTripInEightBytes() {
+        // 准备
+        long id = new IdGenerator(1023, () -> NOW).nextId();
+
+        // 执行
+        byte[] bytes = IdGenerator.toBytes(id);
+
+        // 验证
+        assertEquals(8, bytes.length);
+        assertEquals(id, IdGenerator.fromBytes(bytes));
+        assertEquals(1023, IdGenerator.nodeOf(id));
+    }
+
+    @Test
+    void constructor_WithNodeIdOutOfRange_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(IdGenerator.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,93 @@
+package com.hotelbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void get_ShouldLoadOnceAndCountHits() {
+        // 准备
+        LruCache<String, String> cache = new LruCache<>(10, Duration.ofMinutes(1), now::get);
+        AtomicLong loads = new AtomicLong();
+
+        // 执行
+        cache.get("a", key -> key + loads.incrementAndGet());
+        String second = cache.get("a", key -> key + loads.incrementAndGet());
+
+        // 验证
+        assertEquals("a1", second);
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+        assertEquals(0.5, cache.getStats().getHitRate());
+    }
+
+    @Test
+    void put_BeyondMaxSize_ShouldEvictLeastRecentlyUsed() {
+        // 准备
+        LruCache<String, Integer> cache = new LruCache<>(2, Duration.ofMinutes(1), now::get);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.getIfPresent("a");
+
+        // 执行
+        cache.put("c", 3);
+
+        // 验证
+        assertNull(cache.getIfPresent("b"));
+        assertEquals(1, cache.getIfPresent("a"));
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void getIfPresent_AfterTtl_ShouldExpire() {
+        // 准备
+        LruCache<String, Integer> cache = new LruCache<>(10, Duration.ofSeconds(30), now::get);
+        cache.put("a", 1);
+
+        // 执行
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        // 验证
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(1, cache.getStats().getExpirations());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_InvalidatedWhileLoading_ShouldNotCacheStaleValue() {
+        // 准备
+        LruCache<String, String> cache = new LruCache<>(10, Duration.ofMinutes(1), now::get);
+
+        // 执行：加载期间发生写入并失效
+        String stale = cache.get("a", key -> {
+            cache.invalidateAll();
+            return "old";
+        });
+
+        // 验证
+        assertEquals("old", stale);
+        assertNull(cache.getIfPresent("a"));
+    }
+
+    @Test
+    void invalidateIf_ShouldOnlyDropMatchingKeys() {
+        // 准备
+        LruCache<String, Integer> cache = new LruCache<>(10, Duration.ofMinutes(1), now::get);
+        cache.put("stay|a", 1);
+        cache.put("keyword|a", 2);
+
+        // 执行
+        cache.invalidateIf(key -> key.startsWith("stay|"));
+
+        // 验证
+        assertNull(cache.getIfPresent("stay|a"));
+        assertEquals(2, cache.getIfPresent("keyword|a"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.hotelbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private final List<Long> sleeps = new ArrayList<>();
+
+    @Test
+    void execute_WhenTransientFailureClears_ShouldRetryAndSucceed() {
+        // 准备
+        RetryPolicy policy = policy(new RetryPolicy.Config(3, 100, 1_000, 0.1, 10), 1.0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // 执行
+        String result = policy.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw lockTimeout();
+            }
+            return "ok";
+        });
+
+        // 验证：退避上限按 100、200 毫秒翻倍
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(List.of(100L, 200L), sleeps);
+        RetryPolicy.Stats stats = policy.getStats();
+        assertEquals(2, stats.getRetries());
+        assertEquals(1, stats.getRecovered());
+        assertEquals(300, stats.getSleptMillis());
+    }
+
+    @Test
+    void execute_WithNonRetryableFailure_ShouldNotRetry() {
+        // 准备
+        RetryPolicy policy = policy(new RetryPolicy.Config(3, 100, 1_000, 0.1, 10), 1.0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // 执行
+        assertThrows(IllegalArgumentException.class, () -> policy.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("bad input");
+        }));
+
+        // 验证
+        assertEquals(1, attempts.get());
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    void execute_WhenAttemptsRunOut_ShouldRethrowLastFailure() {
+        // 准备
+        RetryPolicy policy = policy(new RetryPolicy.Config(3, 100, 150, 0.1, 10), 1.0);
+        AtomicInteger attempts = new AtomicInteger();
+        RuntimeException failure = lockTimeout();
+
+        // 执行
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> policy.execute(() -> {
+            attempts.incrementAndGet();
+            throw failure;
+        }));
+
+        // 验证：第二次退避被 maxDelayMillis 截断
+        assertSame(failure, thrown);
+        assertEquals(3, attempts.get());
+        assertEquals(List.of(100L, 150L), sleeps);
+        assertEquals(1, policy.getStats().getExhausted());
+    }
+
+    @Test
+    void execute_ShouldJitterBackoff() {
+        // 准备
+        RetryPolicy policy = policy(new RetryPolicy.Config(2, 100, 1_000, 0.1, 10), 0.25);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // 执行
+        policy.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw lockTimeout();
+            }
+            return null;
+        });
+
+        // 验证
+        assertEquals(List.of(25L), sleeps);
+    }
+
+    @Test
+    void execute_WhenBudgetIsSpent_ShouldStopRetrying() {
+        // 准备：桶里只有两次重试，每次调用补充 0.1
+        RetryPolicy policy = policy(new RetryPolicy.Config(5, 0, 0, 0.1, 2), 1.0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // 执行
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RuntimeException.class, () -> policy.execute(() -> {
+                attempts.incrementAndGet();
+                throw lockTimeout();
+            }));
+        }
+
+        // 验证
+        assertEquals(5, attempts.get());
+        RetryPolicy.Stats stats = policy.getStats();
+        assertEquals(2, stats.getRetries());
+        assertEquals(3, stats.getBudgetDenied());
+    }
+
+    @Test
+    void isTransientSqlError_ShouldFindLockTimeoutsAndDeadlocksInCauses() {
+        assertTrue(RetryPolicy.isTransientSqlError(lockTimeout()));
+        assertTrue(RetryPolicy.isTransientSqlError(
+                new RuntimeException("Error", new SQLTransactionRollbackException("deadlock", "40001"))));
+        assertFalse(RetryPolicy.isTransientSqlError(
+                new RuntimeException("Error", new SQLException("duplicate key", "23505"))));
+        assertFalse(RetryPolicy.isTransientSqlError(new IllegalStateException("no cause")));
+    }
+
+    @Test
+    void noRetry_ShouldRunOnce() {
+        // 准备
+        RetryPolicy policy = RetryPolicy.noRetry("test");
+        AtomicInteger attempts = new AtomicInteger();
+
+        // 执行
+        assertThrows(RuntimeException.class, () -> policy.execute(() -> {
+            attempts.incrementAndGet();
+            throw lockTimeout();
+        }));
+
+        // 验证
+        assertEquals(1, attempts.get());
+    }
+
+    private RetryPolicy policy(RetryPolicy.Config config, double random) {
+        return new RetryPolicy("test", config, RetryPolicy::isTransientSqlError, () -> random, sleeps::add);
+    }
+
+    private static RuntimeException lockTimeout() {
+        return new RuntimeException("Error updating booking status",
+                new SQLException("A lock could not be obtained within the time requested", "40XL1"));
+    }
+}
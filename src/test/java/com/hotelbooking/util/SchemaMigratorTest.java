@@ -0,0 +1,102 @@
+package com.hotelbooking.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    private static final String URL = "jdbc:derby:memory:migrator_test_db;create=true";
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection(URL);
+        try (Statement stmt = conn.createStatement()) {
+            for (String table : new String[] { "payments", "bookings", "rooms", "hotels", "users", "schema_version" }) {
+                try {
+                    stmt.executeUpdate("DROP TABLE " + table);
+                } catch (SQLException e) {
+                    // 表不存在
+                }
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    void migrate_OnEmptyDatabase_ShouldApplyAllVersions() throws SQLException {
+        // 执行
+        int version = SchemaMigrator.migrate(conn);
+
+        // 验证
+        assertEquals(SchemaMigrator.getLatestVersion(), version);
+        assertEquals(version, SchemaMigrator.getCurrentVersion(conn));
+        assertTrue(indexExists("IDX_BOOKINGS_USER_CREATED"));
+    }
+
+    @Test
+    void migrate_RunTwice_ShouldKeepDataAndNotReapply() throws SQLException {
+        // 准备
+        SchemaMigrator.migrate(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO hotels (name, location, description, available_rooms) " +
+                    "VALUES ('Keep Me', 'Beijing', 'test', 1)");
+        }
+
+        // 执行
+        int version = SchemaMigrator.migrate(conn);
+
+        // 验证
+        assertEquals(SchemaMigrator.getLatestVersion(), version);
+        assertEquals(1, count("SELECT COUNT(*) FROM hotels"));
+        assertEquals(SchemaMigrator.getMigrations().size(), count("SELECT COUNT(*) FROM schema_version"));
+    }
+
+    @Test
+    void migrate_OnLegacySchemaWithoutVersionTable_ShouldRecordBaseline() throws SQLException {
+        // 准备：模拟旧版本直接建出的表
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : SchemaMigrator.getMigrations().get(0).getStatements()) {
+                stmt.executeUpdate(sql);
+            }
+        }
+
+        // 执行
+        int version = SchemaMigrator.migrate(conn);
+
+        // 验证
+        assertEquals(SchemaMigrator.getLatestVersion(), version);
+        assertEquals(1, count("SELECT COUNT(*) FROM schema_version WHERE version = 1"));
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private boolean indexExists(String name) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT COUNT(*) FROM SYS.SYSCONGLOMERATES WHERE CONGLOMERATENAME = '" + name + "'")) {
+            rs.next();
+            return rs.getInt(1) > 0;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.hotelbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SettingsTest {
+
+    @Test
+    void properties_ShouldParseTrimmedValues() {
+        // 准备
+        Properties props = new Properties();
+        props.setProperty("size", " 12 ");
+        props.setProperty("millis", "3000");
+        props.setProperty("rate", "0.25");
+
+        // 执行 & 验证
+        assertEquals(12, Settings.intProperty(props, "size", 1));
+        assertEquals(3000L, Settings.longProperty(props, "millis", 1L));
+        assertEquals(0.25, Settings.doubleProperty(props, "rate", 1.0));
+    }
+
+    @Test
+    void properties_WhenMissingBlankOrMalformed_ShouldUseDefault() {
+        // 准备
+        Properties props = new Properties();
+        props.setProperty("blank", " ");
+        props.setProperty("typo", "12x");
+
+        // 执行 & 验证
+        assertEquals(5, Settings.intProperty(props, "missing", 5));
+        assertEquals(7L, Settings.longProperty(props, "blank", 7L));
+        assertEquals(0.5, Settings.doubleProperty(props, "typo", 0.5));
+    }
+
+    @Test
+    void load_WhenFileIsMissing_ShouldReturnEmptyProperties() {
+        // 执行
+        Properties props = Settings.load("/no-such-file.properties", "test");
+
+        // 验证
+        assertTrue(props.isEmpty());
+    }
+}
@@ -0,0 +1,121 @@
+package com.hotelbooking.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCacheTest {
+
+    private static final String URL = "jdbc:derby:memory:stmt_cache_test_db;create=true";
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        // 单连接、缓存容量 2，便于验证淘汰
+        pool = new ConnectionPool(URL, new ConnectionPool.Config(1, 1, 1, 1000, 0, 1, 2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void prepareStatement_SameSqlTwice_ShouldHitCache() throws SQLException {
+        runQuery("VALUES 1");
+        runQuery("VALUES 1");
+
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(1, stats.getStatementCacheMisses());
+        assertEquals(1, stats.getStatementCacheHits());
+    }
+
+    @Test
+    void prepareStatement_CachedStatement_ShouldNotKeepOldParameters() throws SQLException {
+        try (Connection conn = pool.borrow()) {
+            try (PreparedStatement stmt = conn.prepareStatement("VALUES CAST(? AS INTEGER)")) {
+                stmt.setInt(1, 7);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals(7, rs.getInt(1));
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("VALUES CAST(? AS INTEGER)")) {
+                // 参数已被清空，未设置参数执行应失败
+                assertThrows(SQLException.class, stmt::executeQuery);
+            }
+        }
+    }
+
+    @Test
+    void prepareStatement_OverCapacity_ShouldEvictLeastRecentlyUsed() throws SQLException {
+        runQuery("VALUES 1");
+        runQuery("VALUES 2");
+        runQuery("VALUES 3");   // 淘汰 VALUES 1
+        runQuery("VALUES 1");   // 重新编译
+
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(2, stats.getStatementCacheEvictions());
+        assertEquals(4, stats.getStatementCacheMisses());
+        assertEquals(0, stats.getStatementCacheHits());
+    }
+
+    @Test
+    void prepareStatement_NestedUseOfSameSql_ShouldNotShareStatement() throws SQLException {
+        try (Connection conn = pool.borrow();
+             PreparedStatement outer = conn.prepareStatement("VALUES 1");
+             PreparedStatement inner = conn.prepareStatement("VALUES 1")) {
+            assertNotSame(outer, inner);
+            try (ResultSet rs1 = outer.executeQuery(); ResultSet rs2 = inner.executeQuery()) {
+                assertTrue(rs1.next());
+                assertTrue(rs2.next());
+            }
+        }
+    }
+
+    @Test
+    void uncachedStatements_ShouldExposeConnectionHandleNotPhysicalConnection() throws SQLException {
+        try (Connection conn = pool.borrow();
+             PreparedStatement outer = conn.prepareStatement("VALUES 1");
+             PreparedStatement nested = conn.prepareStatement("VALUES 1");
+             Statement plain = conn.createStatement()) {
+            // 嵌套的临时语句和普通语句都不进入缓存
+            assertSame(conn, nested.getConnection());
+            assertSame(conn, plain.getConnection());
+
+            // 经由语句关闭连接只归还句柄，连接池中的物理连接不受影响
+            nested.getConnection().close();
+        }
+        // 同一物理连接仍在池中，缓存的语句可以命中
+        runQuery("VALUES 1");
+        assertEquals(1, pool.getStats().getStatementCacheHits());
+    }
+
+    @Test
+    void closedStatement_ShouldRejectFurtherUse() throws SQLException {
+        try (Connection conn = pool.borrow()) {
+            PreparedStatement stmt = conn.prepareStatement("VALUES 1");
+            stmt.close();
+            assertTrue(stmt.isClosed());
+            assertThrows(SQLException.class, stmt::executeQuery);
+            assertSame(conn, conn.prepareStatement("VALUES 1").getConnection());
+        }
+    }
+
+    private void runQuery(String sql) throws SQLException {
+        try (Connection conn = pool.borrow();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            assertTrue(rs.next());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.hotelbooking.util;
+
+import com.hotelbooking.dao.HotelDAO;
+import com.hotelbooking.entity.Hotel;
+import com.hotelbooking.exception.TransactionRolledBackException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionManagerTest {
+
+    private HotelDAO hotelDAO;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseInitializer.initializeDatabase();
+        hotelDAO = new HotelDAO();
+    }
+
+    @Test
+    void inTransaction_ShouldShareOneConnectionAndCommitOnce() {
+        // 执行
+        Hotel hotel = TransactionManager.inTransaction(() -> {
+            Hotel created = hotelDAO.createHotel(new Hotel("Tx Hotel", "City", "Desc", "gym", 5));
+            hotelDAO.updateAvailableRooms(created.getId(), 3);
+            assertSame(connection(), connection());
+            return created;
+        });
+
+        // 验证
+        assertEquals(3, hotelDAO.getHotelById(hotel.getId()).orElseThrow().getAvailableRooms());
+        assertFalse(TransactionManager.isActive());
+    }
+
+    @Test
+    void inTransaction_WhenWorkThrows_ShouldRollBackEverything() {
+        // 执行
+        assertThrows(IllegalStateException.class, () -> TransactionManager.runInTransaction(() -> {
+            hotelDAO.createHotel(new Hotel("Rolled Back", "City", "Desc", "gym", 5));
+            throw new IllegalStateException("boom");
+        }));
+
+        // 验证
+        assertTrue(hotelDAO.getAllHotels().isEmpty());
+    }
+
+    @Test
+    void nestedFailure_CaughtByOuter_ShouldStillRollBack() {
+        // 执行：内层失败被外层吞掉，整个事务仍然回滚，并告知调用方
+        assertThrows(TransactionRolledBackException.class, () -> TransactionManager.runInTransaction(() -> {
+            hotelDAO.createHotel(new Hotel("Outer", "City", "Desc", "gym", 5));
+            try {
+                TransactionManager.runInTransaction(() -> {
+                    throw new IllegalStateException("inner");
+                });
+            } catch (IllegalStateException expected) {
+                // 忽略
+            }
+        }));
+
+        // 验证
+        assertTrue(hotelDAO.getAllHotels().isEmpty());
+    }
+
+    @Test
+    void inTransaction_WhenDaoRollsBackBoundConnection_ShouldThrowInsteadOfReturning() {
+        // 准备
+        List<String> events = new ArrayList<>();
+
+        // 执行：DAO 在绑定连接上回滚后正常返回
+        TransactionRolledBackException exception = assertThrows(TransactionRolledBackException.class,
+                () -> TransactionManager.inTransaction(() -> {
+                    hotelDAO.createHotel(new Hotel("Marked", "City", "Desc", "gym", 5));
+                    TransactionManager.afterCommit(() -> events.add("commit"));
+                    TransactionManager.onRollback(() -> events.add("rollback"));
+                    try (Connection conn = DatabaseConnection.getConnection()) {
+                        conn.rollback();
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return "done";
+                }));
+
+        // 验证
+        assertTrue(exception.getMessage().contains("rollback-only"));
+        assertEquals(List.of("rollback"), events);
+        assertTrue(hotelDAO.getAllHotels().isEmpty());
+        assertFalse(TransactionManager.isActive());
+    }
+
+    @Test
+    void inTransaction_WithoutDatabaseAccess_ShouldNotBorrowConnection() {
+        // 准备
+        long before = DatabaseConnection.getPoolStats().getAcquireCount();
+
+        // 执行
+        String result = TransactionManager.inTransaction(() -> "no database");
+
+        // 验证
+        assertEquals("no database", result);
+        assertEquals(before, DatabaseConnection.getPoolStats().getAcquireCount());
+    }
+
+    @Test
+    void callbacks_ShouldRunOnlyForMatchingOutcome() {
+        // 准备
+        List<String> events = new ArrayList<>();
+
+        // 执行
+        TransactionManager.runInTransaction(() -> {
+            TransactionManager.afterCommit(() -> events.add("commit-1"));
+            TransactionManager.onRollback(() -> events.add("rollback-1"));
+        });
+        assertThrows(IllegalStateException.class, () -> TransactionManager.runInTransaction(() -> {
+            TransactionManager.afterCommit(() -> events.add("commit-2"));
+            TransactionManager.onRollback(() -> events.add("rollback-2"));
+            throw new IllegalStateException("boom");
+        }));
+        TransactionManager.afterCommit(() -> events.add("no-transaction"));
+
+        // 验证
+        assertEquals(List.of("commit-1", "rollback-2", "no-transaction"), events);
+    }
+
+    private static Connection connection() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return conn;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}